@@ -0,0 +1,75 @@
+package com.justyn.meow.data;
+
+import android.content.Context;
+import android.net.Uri;
+
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.platform.app.InstrumentationRegistry;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Collections;
+import java.util.Set;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * 本地副本清理测试：只删除不再被引用、且不是刚复制的副本。
+ */
+@RunWith(AndroidJUnit4.class)
+public class LocalCopyStorePruneTest {
+
+    private File rootDir;
+    private LocalCopyStore store;
+
+    @Before
+    public void setUp() {
+        Context context = InstrumentationRegistry.getInstrumentation().getTargetContext();
+        // 用缓存目录下的独立根目录，不碰应用真实的副本
+        rootDir = new File(context.getCacheDir(), "prune-test");
+        store = new LocalCopyStore(context, rootDir);
+    }
+
+    @After
+    public void tearDown() {
+        for (String dir : new String[]{"avatars", "audio"}) {
+            File[] files = new File(rootDir, dir).listFiles();
+            if (files != null) {
+                for (File file : files) {
+                    file.delete();
+                }
+            }
+        }
+    }
+
+    @Test
+    public void deletesOnlyOldUnreferencedCopies() throws IOException {
+        long old = System.currentTimeMillis() - 24L * 60 * 60 * 1000;
+        File orphan = create("avatars", "orphan.jpg", old);
+        File referenced = create("avatars", "kept_320.webp", old);
+        File fresh = create("audio", "fresh.mp3", System.currentTimeMillis());
+
+        Set<String> uris = Collections.singleton(Uri.fromFile(referenced).toString());
+        assertEquals(1, store.pruneUnreferenced(uris));
+        assertFalse(orphan.exists());
+        assertTrue(referenced.exists());
+        // 刚复制的副本可能还在等用户保存
+        assertTrue(fresh.exists());
+    }
+
+    private File create(String dir, String name, long lastModified) throws IOException {
+        File parent = new File(rootDir, dir);
+        assertTrue(parent.isDirectory() || parent.mkdirs());
+        File file = new File(parent, name);
+        assertTrue(file.isFile() || file.createNewFile());
+        assertTrue(file.setLastModified(lastModified));
+        return file;
+    }
+}
@@ -0,0 +1,134 @@
+package com.justyn.meow.data;
+
+import android.content.Context;
+import android.os.SystemClock;
+import android.util.Log;
+
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.platform.app.InstrumentationRegistry;
+
+import com.justyn.meow.cat.AudioMetadata;
+import com.justyn.meow.cat.CatProfile;
+import com.justyn.meow.cat.FmTrack;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * 批量写入测试：预编译语句 + 单事务与逐行写入结果一致（含 FTS 触发器与元数据），且吞吐明显更高。
+ * <p>
+ * 吞吐对比使用真实数据库文件：内存数据库没有日志落盘，体现不出逐行提交的代价。
+ * </p>
+ */
+@RunWith(AndroidJUnit4.class)
+public class MeowDbHelperBatchWriteTest {
+
+    private static final String TAG = "MeowDbBatchWrite";
+    private static final String DB_NAME = "meow-batch-write-test.db";
+    private static final int ROWS = 200;
+
+    private Context context;
+    private MeowDbHelper dbHelper;
+
+    @Before
+    public void setUp() {
+        context = InstrumentationRegistry.getInstrumentation().getTargetContext();
+        context.deleteDatabase(DB_NAME);
+        dbHelper = new MeowDbHelper(context, DB_NAME);
+    }
+
+    @After
+    public void tearDown() {
+        dbHelper.close();
+        context.deleteDatabase(DB_NAME);
+    }
+
+    @Test
+    public void batchInsert_matchesPerRowInsert() {
+        List<NewFmTrack> rows = new ArrayList<>();
+        rows.add(new NewFmTrack("粉红色的基米", "梦幻粉色滤镜", 7, null, new AudioMetadata(3_000, "audio/mpeg", 128_000, 2_048)));
+        rows.add(new NewFmTrack("哈沫", null, null, "content://audio/1", null));
+        // 标题为空违反 NOT NULL：只跳过这一行
+        rows.add(new NewFmTrack(null, "坏数据", null, null, null));
+        assertEquals(2, dbHelper.insertFmTracks("alice", rows));
+
+        List<FmTrack> stored = dbHelper.queryFmTracks("alice", null);
+        assertEquals(2, stored.size());
+        assertEquals(7, stored.get(0).getResId());
+        assertEquals(3_000, stored.get(0).getDurationMs());
+        assertEquals("content://audio/1", stored.get(1).getAudioUri());
+        assertEquals(MeowDbHelper.DURATION_UNPROBED, stored.get(1).getDurationMs());
+
+        // FTS 触发器同样生效
+        assertEquals(1, dbHelper.queryFmTracks("alice", "红色的").size());
+    }
+
+    @Test
+    public void batchCatProfiles_searchableLikeSingleInsert() {
+        List<CatProfile> defaults = new ArrayList<>();
+        defaults.add(new CatProfile("雪团", "白猫", "2 岁", "安静黏人", 11));
+        defaults.add(new CatProfile("夜影", "黑猫", "3 岁", "夜里巡逻", 12));
+        assertEquals(2, dbHelper.insertCatProfiles("alice", defaults));
+
+        List<CatProfile> stored = dbHelper.queryCatProfiles("alice", "黑猫");
+        assertEquals(1, stored.size());
+        assertEquals("夜影", stored.get(0).getName());
+        assertEquals(12, stored.get(0).getAvatarResId());
+    }
+
+    @Test
+    public void batchMetadataUpdate_updatesEveryRow() {
+        List<NewFmTrack> rows = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            rows.add(new NewFmTrack("track" + i, "sub", null, null, null));
+        }
+        dbHelper.insertFmTracks("alice", rows);
+
+        Map<Long, AudioMetadata> batch = new HashMap<>();
+        for (FmTrack track : dbHelper.queryFmTracksMissingMetadata("alice", 100)) {
+            batch.put(track.getId(), new AudioMetadata(1_000, "audio/ogg", 96_000, 512));
+        }
+        assertEquals(20, dbHelper.updateFmTrackMetadata(batch));
+        assertTrue(dbHelper.queryFmTracksMissingMetadata("alice", 100).isEmpty());
+    }
+
+    @Test
+    public void batchInsert_outpacesPerRowInsert() {
+        // 预热：打开数据库、编译建表语句
+        dbHelper.insertFmTrack("warmup", "warmup", null, null, null);
+
+        long perRowStart = SystemClock.elapsedRealtimeNanos();
+        for (int i = 0; i < ROWS; i++) {
+            dbHelper.insertFmTrack("alice", "逐行" + i, "sub", null, null, AudioMetadata.UNKNOWN);
+        }
+        long perRowNanos = SystemClock.elapsedRealtimeNanos() - perRowStart;
+
+        List<NewFmTrack> rows = new ArrayList<>(ROWS);
+        for (int i = 0; i < ROWS; i++) {
+            rows.add(new NewFmTrack("批量" + i, "sub", null, null, AudioMetadata.UNKNOWN));
+        }
+        long batchStart = SystemClock.elapsedRealtimeNanos();
+        assertEquals(ROWS, dbHelper.insertFmTracks("bob", rows));
+        long batchNanos = SystemClock.elapsedRealtimeNanos() - batchStart;
+
+        Log.i(TAG, "逐行写入 " + rowsPerSecond(perRowNanos) + " 行/秒，批量写入 " + rowsPerSecond(batchNanos) + " 行/秒");
+        assertEquals(ROWS, dbHelper.queryFmTracks("alice", null).size());
+        assertEquals(ROWS, dbHelper.queryFmTracks("bob", null).size());
+        // 逐行写入每行一次日志提交，批量只有一次；留足余量避免设备抖动误报
+        assertTrue("batch " + batchNanos + "ns vs per-row " + perRowNanos + "ns", batchNanos * 2 < perRowNanos);
+    }
+
+    private static long rowsPerSecond(long nanos) {
+        return ROWS * 1_000_000_000L / Math.max(1, nanos);
+    }
+}
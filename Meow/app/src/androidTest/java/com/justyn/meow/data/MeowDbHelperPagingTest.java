@@ -0,0 +1,239 @@
+package com.justyn.meow.data;
+
+import android.content.Context;
+
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.platform.app.InstrumentationRegistry;
+
+import com.justyn.meow.cat.AudioMetadata;
+import com.justyn.meow.cat.CatProfile;
+import com.justyn.meow.cat.FmTrack;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * 键集分页测试：逐页读取的结果与一次性查询完全一致，不重不漏；连续播放的“下一首”与列表顺序一致；
+ * 按时长排序与元数据回填；批量导入的去重键。
+ */
+@RunWith(AndroidJUnit4.class)
+public class MeowDbHelperPagingTest {
+
+    private MeowDbHelper dbHelper;
+
+    @Before
+    public void setUp() {
+        Context context = InstrumentationRegistry.getInstrumentation().getTargetContext();
+        dbHelper = new MeowDbHelper(context, null);
+    }
+
+    @After
+    public void tearDown() {
+        dbHelper.close();
+    }
+
+    @Test
+    public void fmTrackPages_coverFullListInOrder() {
+        for (int i = 0; i < 23; i++) {
+            dbHelper.insertFmTrack("alice", "track" + i, "sub", null, null);
+            dbHelper.insertFmTrack("bob", "other" + i, "sub", null, null);
+        }
+
+        List<Long> expected = fmIds(dbHelper.queryFmTracks("alice", null));
+        List<Long> paged = new ArrayList<>();
+        PageKey after = null;
+        int pageCount = 0;
+        do {
+            Page<FmTrack> page = dbHelper.queryFmTrackPage("alice", null, after, 10);
+            paged.addAll(fmIds(page.getItems()));
+            after = page.getNextKey();
+            pageCount++;
+        } while (after != null);
+
+        assertEquals(3, pageCount);
+        assertEquals(expected, paged);
+    }
+
+    @Test
+    public void searchPages_keepRankOrderAcrossPages() {
+        // 交替插入“标题命中”和“副标题命中”，保证两个档位的 id 交错
+        for (int i = 0; i < 6; i++) {
+            dbHelper.insertFmTrack("alice", "哈基米" + i, "清晨", null, null);
+            dbHelper.insertFmTrack("alice", "清晨" + i, "哈基米", null, null);
+        }
+
+        List<Long> expected = fmIds(dbHelper.queryFmTracks("alice", "哈基米"));
+        List<Long> paged = new ArrayList<>();
+        PageKey after = null;
+        do {
+            Page<FmTrack> page = dbHelper.queryFmTrackPage("alice", "哈基米", after, 4);
+            paged.addAll(fmIds(page.getItems()));
+            after = page.getNextKey();
+        } while (after != null);
+
+        assertEquals(12, expected.size());
+        assertEquals(expected, paged);
+    }
+
+    @Test
+    public void catProfilePage_exactMultipleHasNoEmptyTrailingPage() {
+        for (int i = 0; i < 4; i++) {
+            dbHelper.insertCatProfile("alice", "cat" + i, "1 岁", "黏人", "desc", null, null);
+        }
+
+        Page<CatProfile> first = dbHelper.queryCatProfilePage("alice", null, null, 2);
+        assertEquals(2, first.getItems().size());
+        assertNotNull(first.getNextKey());
+
+        Page<CatProfile> second = dbHelper.queryCatProfilePage("alice", null, first.getNextKey(), 2);
+        assertEquals(2, second.getItems().size());
+        assertNull(second.getNextKey());
+    }
+
+    @Test
+    public void nextFmTrack_followsFilteredOrder() {
+        long first = dbHelper.insertFmTrack("alice", "哈基米起床", "清晨", null, null);
+        dbHelper.insertFmTrack("alice", "打火基", "热烈", null, null);
+        long third = dbHelper.insertFmTrack("alice", "清晨", "哈基米", null, null);
+        long fourth = dbHelper.insertFmTrack("alice", "两个哈基米", "合声", null, null);
+
+        // 无筛选：按 id 顺序
+        assertEquals(first + 1, dbHelper.queryNextFmTrack("alice", null, first).getId());
+        assertNull(dbHelper.queryNextFmTrack("alice", null, fourth));
+
+        // 有筛选：标题命中的先播完，再播副标题命中的
+        assertEquals(fourth, dbHelper.queryNextFmTrack("alice", "哈基米", first).getId());
+        assertEquals(third, dbHelper.queryNextFmTrack("alice", "哈基米", fourth).getId());
+        assertNull(dbHelper.queryNextFmTrack("alice", "哈基米", third));
+    }
+
+    @Test
+    public void durationPages_sortByLengthThenId() {
+        long[] durations = {3_000, 1_000, 2_000, 1_000, 5_000, 2_000, 4_000};
+        for (int i = 0; i < durations.length; i++) {
+            dbHelper.insertFmTrack("alice", "track" + i, "sub", null, null,
+                    new AudioMetadata(durations[i], "audio/mpeg", 128_000, 1024));
+        }
+
+        List<FmTrack> paged = new ArrayList<>();
+        PageKey after = null;
+        do {
+            Page<FmTrack> page = dbHelper.queryFmTrackPage("alice", null, FmTrackOrder.DURATION, after, 3, null);
+            paged.addAll(page.getItems());
+            after = page.getNextKey();
+        } while (after != null);
+
+        assertEquals(durations.length, paged.size());
+        for (int i = 1; i < paged.size(); i++) {
+            FmTrack prev = paged.get(i - 1);
+            FmTrack cur = paged.get(i);
+            assertTrue(prev.getDurationMs() < cur.getDurationMs()
+                    || (prev.getDurationMs() == cur.getDurationMs() && prev.getId() < cur.getId()));
+        }
+
+        // 连续播放按同一排序往下走
+        FmTrack shortest = paged.get(0);
+        assertEquals(paged.get(1).getId(),
+                dbHelper.queryNextFmTrack("alice", null, FmTrackOrder.DURATION, shortest.getId()).getId());
+        assertNull(dbHelper.queryNextFmTrack("alice", null, FmTrackOrder.DURATION, paged.get(paged.size() - 1).getId()));
+    }
+
+    @Test
+    public void missingMetadata_backfilledOnce() {
+        long legacy = dbHelper.insertFmTrack("alice", "legacy", "sub", null, null);
+        dbHelper.insertFmTrack("alice", "probed", "sub", null, null, new AudioMetadata(2_000, null, 0, 0));
+
+        List<FmTrack> pending = dbHelper.queryFmTracksMissingMetadata("alice", 10);
+        assertEquals(1, pending.size());
+        assertEquals(legacy, pending.get(0).getId());
+
+        // 探测失败的行记为时长 0，不会被反复回填
+        Map<Long, AudioMetadata> batch = new HashMap<>();
+        batch.put(legacy, AudioMetadata.UNKNOWN);
+        assertEquals(1, dbHelper.updateFmTrackMetadata(batch));
+        assertTrue(dbHelper.queryFmTracksMissingMetadata("alice", 10).isEmpty());
+    }
+
+    @Test
+    public void batchInsert_recordsAudioKeysForDedup() {
+        List<NewFmTrack> rows = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            rows.add(new NewFmTrack("import" + i, "file" + i + ".mp3", null, "content://tree/doc" + i,
+                    new AudioMetadata(1_000L * i, "audio/mpeg", 128_000, 4_096L + i)));
+        }
+        assertEquals(5, dbHelper.insertFmTracks("alice", rows));
+        assertEquals(5, dbHelper.queryFmTracks("alice", null).size());
+
+        // 同一 Uri 且大小相同才算已导入；文件被改写（大小变化）会重新导入
+        Set<String> keys = dbHelper.queryFmAudioKeys("alice");
+        assertTrue(keys.contains(MeowDbHelper.audioKey("content://tree/doc0", 4_096L)));
+        assertFalse(keys.contains(MeowDbHelper.audioKey("content://tree/doc0", 9_999L)));
+        assertTrue(dbHelper.queryFmAudioKeys("bob").isEmpty());
+    }
+
+    @Test
+    public void probeFailure_keepsProviderSizeForDedup() {
+        List<NewFmTrack> rows = new ArrayList<>();
+        rows.add(new NewFmTrack("broken", "broken.mp3", null, "content://tree/broken",
+                AudioMetadata.UNKNOWN, 8_192L));
+        rows.add(new NewFmTrack("legacy", "legacy.mp3", null, "content://tree/legacy",
+                AudioMetadata.UNKNOWN));
+        assertEquals(2, dbHelper.insertFmTracks("alice", rows));
+
+        // 探测失败时 file_size 记提供方报告的大小，再次导入同一文件能认出来
+        Set<String> keys = dbHelper.queryFmAudioKeys("alice");
+        assertTrue(MeowDbHelper.isKnownAudio(keys, "content://tree/broken", 8_192L));
+        assertFalse(MeowDbHelper.isKnownAudio(keys, "content://tree/broken", 9_999L));
+        // 大小未知的旧记录只按 Uri 判断
+        assertTrue(MeowDbHelper.isKnownAudio(keys, "content://tree/legacy", 4_096L));
+
+        // 补探测失败不会把已知大小覆盖成 0
+        Map<Long, AudioMetadata> batch = new HashMap<>();
+        for (FmTrack track : dbHelper.queryFmTracks("alice", null)) {
+            batch.put(track.getId(), AudioMetadata.UNKNOWN);
+        }
+        dbHelper.updateFmTrackMetadata(batch);
+        assertTrue(MeowDbHelper.isKnownAudio(dbHelper.queryFmAudioKeys("alice"), "content://tree/broken", 8_192L));
+        assertFalse(MeowDbHelper.isKnownAudio(dbHelper.queryFmAudioKeys("alice"), "content://tree/broken", 9_999L));
+    }
+
+    @Test
+    public void folderImport_recognizesTrackPickedAsSingleDocument() {
+        // 单独选择文件时存的是普通文档 Uri
+        String picked = "content://com.example.docs/document/primary%3AMusic%2Fmeow.mp3";
+        List<NewFmTrack> rows = new ArrayList<>();
+        rows.add(new NewFmTrack("meow", "meow.mp3", null, picked, AudioMetadata.UNKNOWN, 4_096L));
+        assertEquals(1, dbHelper.insertFmTracks("alice", rows));
+
+        // 文件夹导入枚举到的是同一文件的树形 Uri
+        String fromTree = "content://com.example.docs/tree/primary%3AMusic/document/primary%3AMusic%2Fmeow.mp3";
+        Set<String> keys = dbHelper.queryFmAudioKeys("alice");
+        assertTrue(MeowDbHelper.isKnownAudio(keys, fromTree, 4_096L));
+        assertFalse(MeowDbHelper.isKnownAudio(keys,
+                "content://com.example.docs/tree/primary%3AMusic/document/primary%3AMusic%2Fother.mp3", 4_096L));
+        assertFalse(MeowDbHelper.isKnownAudio(keys,
+                "content://com.other.docs/tree/primary%3AMusic/document/primary%3AMusic%2Fmeow.mp3", 4_096L));
+    }
+
+    private static List<Long> fmIds(List<FmTrack> tracks) {
+        List<Long> ids = new ArrayList<>();
+        for (FmTrack track : tracks) {
+            ids.add(track.getId());
+        }
+        return ids;
+    }
+}
@@ -0,0 +1,145 @@
+package com.justyn.meow.data;
+
+import android.content.Context;
+import android.database.Cursor;
+import android.database.sqlite.SQLiteDatabase;
+import android.database.sqlite.SQLiteQueryBuilder;
+
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.platform.app.InstrumentationRegistry;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * 校验热点查询都命中索引（EXPLAIN QUERY PLAN 中不出现全表扫描）。
+ */
+@RunWith(AndroidJUnit4.class)
+public class MeowDbHelperQueryPlanTest {
+
+    private MeowDbHelper dbHelper;
+    private SQLiteDatabase db;
+
+    @Before
+    public void setUp() {
+        Context context = InstrumentationRegistry.getInstrumentation().getTargetContext();
+        // 内存数据库，不影响真实数据
+        dbHelper = new MeowDbHelper(context, null);
+        db = dbHelper.getWritableDatabase();
+        for (int i = 0; i < 50; i++) {
+            String username = "user" + (i % 5);
+            dbHelper.insertFmTrack(username, "track" + i, "sub" + i, null, null);
+            dbHelper.insertCatProfile(username, "cat" + i, "1 岁", "黏人", "desc", null, null);
+        }
+        dbHelper.registerUser("user0", "pwd", "nick");
+    }
+
+    @After
+    public void tearDown() {
+        dbHelper.close();
+    }
+
+    @Test
+    public void queryFmTracks_usesUserIndex() {
+        String sql = SQLiteQueryBuilder.buildQueryString(false, MeowDbHelper.TABLE_FM_TRACK,
+                new String[]{MeowDbHelper.COL_FM_ID, MeowDbHelper.COL_FM_TITLE},
+                MeowDbHelper.COL_FM_USERNAME + " = ?", null, null, MeowDbHelper.COL_FM_ID + " ASC", null);
+        assertUsesIndex(sql, MeowDbHelper.INDEX_FM_TRACK_USER_ID);
+    }
+
+    @Test
+    public void hasAnyFmTracks_usesUserIndex() {
+        String sql = SQLiteQueryBuilder.buildQueryString(false, MeowDbHelper.TABLE_FM_TRACK,
+                new String[]{MeowDbHelper.COL_FM_ID},
+                MeowDbHelper.COL_FM_USERNAME + " = ?", null, null, null, "1");
+        assertUsesIndex(sql, MeowDbHelper.INDEX_FM_TRACK_USER_ID);
+    }
+
+    @Test
+    public void durationOrder_usesDurationIndex() {
+        String page = SQLiteQueryBuilder.buildQueryString(false, MeowDbHelper.TABLE_FM_TRACK,
+                new String[]{MeowDbHelper.COL_FM_ID, MeowDbHelper.COL_FM_DURATION_MS},
+                MeowDbHelper.COL_FM_USERNAME + " = ?", null, null,
+                MeowDbHelper.COL_FM_DURATION_MS + " ASC, " + MeowDbHelper.COL_FM_ID + " ASC", "51");
+        assertUsesIndex(page, MeowDbHelper.INDEX_FM_TRACK_USER_DURATION);
+
+        String missing = SQLiteQueryBuilder.buildQueryString(false, MeowDbHelper.TABLE_FM_TRACK,
+                new String[]{MeowDbHelper.COL_FM_ID},
+                MeowDbHelper.COL_FM_USERNAME + " = ? AND " + MeowDbHelper.COL_FM_DURATION_MS + " = ?", null, null,
+                MeowDbHelper.COL_FM_ID + " ASC", "16");
+        assertUsesIndex(missing, MeowDbHelper.INDEX_FM_TRACK_USER_DURATION);
+    }
+
+    @Test
+    public void queryCatProfiles_usesUserIndex() {
+        String sql = SQLiteQueryBuilder.buildQueryString(false, MeowDbHelper.TABLE_CAT_PROFILE,
+                new String[]{MeowDbHelper.COL_CAT_ID, MeowDbHelper.COL_CAT_TITLE},
+                MeowDbHelper.COL_CAT_USERNAME + " = ?", null, null, MeowDbHelper.COL_CAT_ID + " ASC", null);
+        assertUsesIndex(sql, MeowDbHelper.INDEX_CAT_PROFILE_USER_ID);
+    }
+
+    @Test
+    public void hasAnyCatProfiles_usesUserIndex() {
+        String sql = SQLiteQueryBuilder.buildQueryString(false, MeowDbHelper.TABLE_CAT_PROFILE,
+                new String[]{MeowDbHelper.COL_CAT_ID},
+                MeowDbHelper.COL_CAT_USERNAME + " = ?", null, null, null, "1");
+        assertUsesIndex(sql, MeowDbHelper.INDEX_CAT_PROFILE_USER_ID);
+    }
+
+    @Test
+    public void loginLookups_useUsernameIndex() {
+        String checkLogin = SQLiteQueryBuilder.buildQueryString(false, MeowDbHelper.TABLE_USER,
+                new String[]{MeowDbHelper.COL_USER_ID},
+                MeowDbHelper.COL_USER_USERNAME + " = ? AND " + MeowDbHelper.COL_USER_PASSWORD + " = ?",
+                null, null, null, null);
+        assertUsesIndex(checkLogin, null);
+
+        String nickname = SQLiteQueryBuilder.buildQueryString(false, MeowDbHelper.TABLE_USER,
+                new String[]{MeowDbHelper.COL_USER_NICKNAME},
+                MeowDbHelper.COL_USER_USERNAME + " = ?", null, null, null, null);
+        assertUsesIndex(nickname, null);
+    }
+
+    /**
+     * 断言查询计划命中索引、没有全表扫描，也没有为排序建临时 B 树。
+     *
+     * @param expectedIndex 期望命中的索引名（null 表示任意索引即可）
+     */
+    private void assertUsesIndex(String sql, String expectedIndex) {
+        List<String> details = explain(sql);
+        boolean usesIndex = false;
+        for (String detail : details) {
+            assertFalse("全表扫描: " + detail, detail.startsWith("SCAN") && !detail.contains("INDEX"));
+            assertFalse("排序未走索引: " + detail, detail.contains("TEMP B-TREE"));
+            if (detail.contains("INDEX") && (expectedIndex == null || detail.contains(expectedIndex))) {
+                usesIndex = true;
+            }
+        }
+        assertTrue("未命中索引: " + details, usesIndex);
+    }
+
+    private List<String> explain(String sql) {
+        List<String> details = new ArrayList<>();
+        // 参数值不影响查询计划，统一绑定占位字符串
+        int argCount = sql.length() - sql.replace("?", "").length();
+        String[] args = new String[argCount];
+        for (int i = 0; i < argCount; i++) {
+            args[i] = "user0";
+        }
+        try (Cursor cursor = db.rawQuery("EXPLAIN QUERY PLAN " + sql, args)) {
+            int detailIndex = cursor.getColumnIndexOrThrow("detail");
+            while (cursor.moveToNext()) {
+                details.add(cursor.getString(detailIndex));
+            }
+        }
+        return details;
+    }
+}
@@ -0,0 +1,87 @@
+package com.justyn.meow.data;
+
+import android.content.Context;
+
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.platform.app.InstrumentationRegistry;
+
+import com.justyn.meow.cat.CatProfile;
+import com.justyn.meow.cat.FmTrack;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * 全文检索（FTS + n-gram）行为测试：中文子串、多字段、用户隔离与触发器同步。
+ */
+@RunWith(AndroidJUnit4.class)
+public class MeowDbHelperSearchTest {
+
+    private MeowDbHelper dbHelper;
+
+    @Before
+    public void setUp() {
+        Context context = InstrumentationRegistry.getInstrumentation().getTargetContext();
+        dbHelper = new MeowDbHelper(context, null);
+    }
+
+    @After
+    public void tearDown() {
+        dbHelper.close();
+    }
+
+    @Test
+    public void chineseSubstring_matchesAndIsScopedToUser() {
+        dbHelper.insertFmTrack("alice", "粉红色的基米", "梦幻粉色滤镜", null, null);
+        dbHelper.insertFmTrack("alice", "哈沫", "泡沫破裂", null, null);
+        dbHelper.insertFmTrack("bob", "粉红色的基米", "别人的", null, null);
+
+        List<FmTrack> result = dbHelper.queryFmTracks("alice", "红色的");
+        assertEquals(1, result.size());
+        assertEquals("粉红色的基米", result.get(0).getTitle());
+
+        assertEquals(1, dbHelper.queryFmTracks("alice", "沫").size());
+    }
+
+    @Test
+    public void titleHitsRankBeforeSubtitleHits() {
+        dbHelper.insertFmTrack("alice", "清晨", "哈基米起床", null, null);
+        dbHelper.insertFmTrack("alice", "哈基米起床", "清晨", null, null);
+
+        List<FmTrack> result = dbHelper.queryFmTracks("alice", "哈基米");
+        assertEquals(2, result.size());
+        assertEquals("哈基米起床", result.get(0).getTitle());
+    }
+
+    @Test
+    public void catProfiles_searchPersonalityAndDescription() {
+        dbHelper.insertCatProfile("alice", "雪团", "2 岁", "白猫", "最爱晒太阳", null, null);
+        dbHelper.insertCatProfile("alice", "夜影", "3 岁", "黑猫", "夜里巡逻", null, null);
+
+        List<CatProfile> byPersonality = dbHelper.queryCatProfiles("alice", "黑猫");
+        assertEquals(1, byPersonality.size());
+        assertEquals("夜影", byPersonality.get(0).getName());
+
+        assertEquals(1, dbHelper.queryCatProfiles("alice", "晒太阳").size());
+    }
+
+    @Test
+    public void triggersKeepIndexInSync() {
+        long id = dbHelper.insertFmTrack("alice", "打火基", "火花", null, null);
+        assertEquals(1, dbHelper.queryFmTracks("alice", "打火").size());
+
+        dbHelper.updateFmTrack(id, "关山哈", "风声");
+        assertTrue(dbHelper.queryFmTracks("alice", "打火").isEmpty());
+        assertEquals(1, dbHelper.queryFmTracks("alice", "关山").size());
+
+        dbHelper.deleteFmTrack(id);
+        assertTrue(dbHelper.queryFmTracks("alice", "关山").isEmpty());
+    }
+}
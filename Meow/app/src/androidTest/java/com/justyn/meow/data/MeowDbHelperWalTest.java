@@ -0,0 +1,127 @@
+package com.justyn.meow.data;
+
+import android.content.Context;
+import android.database.Cursor;
+import android.database.sqlite.SQLiteDatabase;
+
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.platform.app.InstrumentationRegistry;
+
+import com.justyn.meow.cat.FmTrack;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * WAL 行为测试：写事务未提交时列表查询照常返回（读到提交前的快照），回写后日志被截断。
+ * <p>
+ * 使用真实数据库文件：内存数据库不支持 WAL。
+ * </p>
+ */
+@RunWith(AndroidJUnit4.class)
+public class MeowDbHelperWalTest {
+
+    private static final String DB_NAME = "meow-wal-test.db";
+    // 读查询必须在这个时间内返回，否则视为被写事务阻塞
+    private static final long READ_TIMEOUT_MS = 2_000;
+
+    private Context context;
+    private MeowDbHelper dbHelper;
+    private ExecutorService threads;
+
+    @Before
+    public void setUp() {
+        context = InstrumentationRegistry.getInstrumentation().getTargetContext();
+        context.deleteDatabase(DB_NAME);
+        dbHelper = new MeowDbHelper(context, DB_NAME);
+        threads = Executors.newFixedThreadPool(2);
+    }
+
+    @After
+    public void tearDown() {
+        threads.shutdownNow();
+        dbHelper.close();
+        context.deleteDatabase(DB_NAME);
+    }
+
+    @Test
+    public void configuredForWal() {
+        SQLiteDatabase db = dbHelper.getWritableDatabase();
+        assertTrue(db.isWriteAheadLoggingEnabled());
+        assertEquals("wal", pragma(db, "journal_mode"));
+        // NORMAL = 1
+        assertEquals("1", pragma(db, "synchronous"));
+    }
+
+    @Test
+    public void listQueries_runWhileBulkWriteIsOpen() throws Exception {
+        dbHelper.insertFmTracks("alice", tracks("已提交", 30));
+
+        CountDownLatch writing = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        Future<Integer> writer = threads.submit(() -> {
+            SQLiteDatabase db = dbHelper.getWritableDatabase();
+            db.beginTransaction();
+            try {
+                // 事务内的批量写入（嵌套事务并入外层），提交前一直持有写锁
+                int inserted = dbHelper.insertFmTracks("alice", tracks("写入中", 500));
+                writing.countDown();
+                release.await(10, TimeUnit.SECONDS);
+                db.setTransactionSuccessful();
+                return inserted;
+            } finally {
+                db.endTransaction();
+            }
+        });
+        assertTrue(writing.await(10, TimeUnit.SECONDS));
+
+        // 写事务未提交：分页查询与检索都能立即返回，只看到已提交的数据
+        Future<Page<FmTrack>> page = threads.submit(() -> dbHelper.queryFmTrackPage("alice", null, null, 100));
+        assertEquals(30, page.get(READ_TIMEOUT_MS, TimeUnit.MILLISECONDS).getItems().size());
+        Future<List<FmTrack>> search = threads.submit(() -> dbHelper.queryFmTracks("alice", "写入中"));
+        assertTrue(search.get(READ_TIMEOUT_MS, TimeUnit.MILLISECONDS).isEmpty());
+
+        release.countDown();
+        assertEquals(500, (int) writer.get(10, TimeUnit.SECONDS));
+        assertEquals(530, dbHelper.queryFmTracks("alice", null).size());
+    }
+
+    @Test
+    public void checkpoint_truncatesLog() {
+        dbHelper.insertFmTracks("alice", tracks("回写", 200));
+        assertTrue(dbHelper.checkpoint());
+        assertEquals(0, context.getDatabasePath(DB_NAME + "-wal").length());
+        // 回写后数据完整
+        assertEquals(200, dbHelper.queryFmTracks("alice", null).size());
+    }
+
+    private static List<NewFmTrack> tracks(String prefix, int count) {
+        List<NewFmTrack> rows = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            rows.add(new NewFmTrack(prefix + i, "sub", null, null, null));
+        }
+        return rows;
+    }
+
+    private static String pragma(SQLiteDatabase db, String name) {
+        Cursor cursor = db.rawQuery("PRAGMA " + name, null);
+        try {
+            return cursor.moveToFirst() ? cursor.getString(0) : null;
+        } finally {
+            cursor.close();
+        }
+    }
+}
@@ -0,0 +1,161 @@
+package com.justyn.meow.util;
+
+import android.content.Context;
+import android.content.res.Resources;
+import android.graphics.Bitmap;
+import android.graphics.BitmapFactory;
+import android.os.Debug;
+import android.util.Log;
+
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.platform.app.InstrumentationRegistry;
+
+import com.justyn.meow.R;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.io.IOException;
+import java.lang.reflect.Field;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * 猫图墙解码内存测试：模拟来回滚动网格，对比“每次绑定都整图 ARGB_8888 解码”与
+ * “按格子尺寸解码 + RGB_565 + 复用池”两种方式的峰值内存与 GC 次数。
+ * <p>
+ * 只测解码路径本身，不经过缩略图缓存（缓存命中时根本不解码，体现不出差别）。
+ * 位图像素在 Android 8.0 起分配在 native 堆，峰值按 Java 堆 + native 堆合计。
+ * </p>
+ */
+@RunWith(AndroidJUnit4.class)
+public class CatPicGridMemoryTest {
+
+    private static final String TAG = "CatPicGridMemory";
+    // 来回滚动的遍数
+    private static final int PASSES = 4;
+    // 屏幕上同时可见的格子数（2 列 × 4 行）
+    private static final int VISIBLE_CELLS = 8;
+
+    private Context context;
+    private List<Integer> picResIds;
+    private int cellWidth;
+    private int cellHeight;
+
+    @Before
+    public void setUp() throws IllegalAccessException {
+        context = InstrumentationRegistry.getInstrumentation().getTargetContext();
+        picResIds = new ArrayList<>();
+        for (Field field : R.drawable.class.getFields()) {
+            if (field.getName().startsWith("siyue_")) {
+                picResIds.add(field.getInt(null));
+            }
+        }
+        // 与 item_cat_pic 一致：2 列网格，卡片高 200dp，四周 6dp 外边距
+        float density = context.getResources().getDisplayMetrics().density;
+        cellWidth = context.getResources().getDisplayMetrics().widthPixels / 2 - Math.round(12 * density);
+        cellHeight = Math.round(188 * density);
+    }
+
+    @Test
+    public void decode_matchesCellSizeAndDropsAlpha() throws IOException {
+        BitmapPool pool = new BitmapPool(8L * 1024 * 1024);
+        Bitmap bitmap = ImageLoader.decode(() -> context.getResources().openRawResource(picResIds.get(0)),
+                cellWidth, cellHeight, pool);
+        assertNotNull(bitmap);
+        // 有损 WebP 没有透明通道
+        assertEquals(Bitmap.Config.RGB_565, bitmap.getConfig());
+        assertTrue(bitmap.isMutable());
+        // 缩放后正好铺满格子：一条边等于格子尺寸，另一条边不小于格子尺寸
+        assertTrue(bitmap.getWidth() >= cellWidth && bitmap.getHeight() >= cellHeight);
+        assertTrue(bitmap.getWidth() == cellWidth || bitmap.getHeight() == cellHeight);
+    }
+
+    @Test
+    public void pooledDecode_reducesPeakMemoryWhileScrolling() throws IOException {
+        assertFalse(picResIds.isEmpty());
+
+        Resources resources = context.getResources();
+        Measurement baseline = scroll("整图解码", resId -> BitmapFactory.decodeResource(resources, resId), null);
+
+        BitmapPool pool = new BitmapPool(8L * 1024 * 1024);
+        Measurement pooled = scroll("格子尺寸 + 复用池", resId -> ImageLoader.decode(
+                () -> resources.openRawResource(resId), cellWidth, cellHeight, pool), pool);
+
+        Log.i(TAG, baseline + "；" + pooled + "；复用池：" + pool.describeStats());
+        assertTrue("pool hits " + pool.getHitCount(), pool.getHitCount() > 0);
+        assertTrue(pooled + " vs " + baseline, pooled.peakBytes < baseline.peakBytes);
+    }
+
+    private interface Decoder {
+        Bitmap decode(int resId) throws IOException;
+    }
+
+    /**
+     * 模拟滚动：按顺序“绑定”每张图，只保留最近 {@link #VISIBLE_CELLS} 张；滑出屏幕的交还复用池（pool 为空时直接丢弃）。
+     */
+    private Measurement scroll(String label, Decoder decoder, BitmapPool pool) throws IOException {
+        Runtime.getRuntime().gc();
+        long baseBytes = usedBytes();
+        long gcBefore = gcCount();
+        long peak = 0;
+        long bitmapBytes = 0;
+        ArrayDeque<Bitmap> visible = new ArrayDeque<>();
+        for (int pass = 0; pass < PASSES; pass++) {
+            for (int i = 0; i < picResIds.size(); i++) {
+                // 偶数遍向下滚，奇数遍向上滚
+                int index = pass % 2 == 0 ? i : picResIds.size() - 1 - i;
+                Bitmap bitmap = decoder.decode(picResIds.get(index));
+                assertNotNull(bitmap);
+                bitmapBytes += bitmap.getAllocationByteCount();
+                visible.addLast(bitmap);
+                if (visible.size() > VISIBLE_CELLS) {
+                    Bitmap offscreen = visible.removeFirst();
+                    if (pool != null) {
+                        pool.put(offscreen);
+                    }
+                }
+                peak = Math.max(peak, usedBytes() - baseBytes);
+            }
+        }
+        visible.clear();
+        return new Measurement(label, peak, gcCount() - gcBefore, bitmapBytes);
+    }
+
+    private static long usedBytes() {
+        Runtime runtime = Runtime.getRuntime();
+        return runtime.totalMemory() - runtime.freeMemory() + Debug.getNativeHeapAllocatedSize();
+    }
+
+    private static long gcCount() {
+        String value = Debug.getRuntimeStat("art.gc.gc-count");
+        return value == null ? -1 : Long.parseLong(value);
+    }
+
+    private static final class Measurement {
+        final String label;
+        final long peakBytes;
+        final long gcCount;
+        // 每次绑定得到的位图容量合计（复用时同一块内存会被重复计入）
+        final long decodedBytes;
+
+        Measurement(String label, long peakBytes, long gcCount, long decodedBytes) {
+            this.label = label;
+            this.peakBytes = peakBytes;
+            this.gcCount = gcCount;
+            this.decodedBytes = decodedBytes;
+        }
+
+        @Override
+        public String toString() {
+            return label + "：峰值 " + peakBytes / 1024 + "KB，GC " + gcCount + " 次，位图合计 " + decodedBytes / 1024 + "KB";
+        }
+    }
+}
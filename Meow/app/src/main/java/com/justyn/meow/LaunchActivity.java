@@ -0,0 +1,32 @@
+package com.justyn.meow;
+
+import android.app.Activity;
+import android.content.Intent;
+import android.os.Bundle;
+
+import com.justyn.meow.auth.LoginActivity;
+import com.justyn.meow.util.MeowPreferences;
+import com.justyn.meow.util.StartupMetrics;
+
+/**
+ * 启动路由：应用图标的入口，不加载任何布局。
+ * <p>
+ * 根据登录态快照直接打开首页或登录页，然后立即结束自己；
+ * 已登录用户的冷启动只创建一次真正的页面，不再经过登录页中转。
+ * 使用不显示窗口的主题，必须在 onResume 之前 finish。
+ * </p>
+ */
+public class LaunchActivity extends Activity {
+
+    @Override
+    protected void onCreate(Bundle savedInstanceState) {
+        super.onCreate(savedInstanceState);
+
+        boolean loggedIn = MeowPreferences.getLoginSnapshot(this).isLoggedIn();
+        StartupMetrics.markRouted(loggedIn ? StartupMetrics.PATH_MAIN : StartupMetrics.PATH_LOGIN);
+        startActivity(new Intent(this, loggedIn ? MainActivity.class : LoginActivity.class));
+        finish();
+        // 路由页本身不可见，去掉切换动画
+        overridePendingTransition(0, 0);
+    }
+}
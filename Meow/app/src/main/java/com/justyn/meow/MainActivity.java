@@ -18,6 +18,9 @@ import com.justyn.meow.cat.CatWikiActivity;
 import com.justyn.meow.checkin.CheckInCalendarActivity;
 import com.justyn.meow.checkin.CheckInStore;
 import com.justyn.meow.util.MeowPreferences;
+import com.justyn.meow.util.StartupMetrics;
+
+import java.time.LocalDate;
 
 /**
  * 主入口页面：展示功能卡片、当前用户信息与打卡状态。
@@ -49,15 +52,17 @@ public class MainActivity extends AppCompatActivity {
     @Override
     protected void onCreate(Bundle savedInstanceState) {
         super.onCreate(savedInstanceState);
-        EdgeToEdge.enable(this);
-        setContentView(R.layout.activity_main);
 
-        // 没登陆，踢回登陆页
+        // 没登陆，踢回登陆页（先于加载布局判断，被踢回时不白白 inflate）
         if (!MeowPreferences.isLoggedIn(this)) {
             goLoginAndFinish();
             return;
         }
 
+        EdgeToEdge.enable(this);
+        setContentView(R.layout.activity_main);
+        StartupMetrics.trackFirstFrame(this);
+
         // 基本控件
         tvCurrentUserName = findViewById(R.id.tvCurrentUserName);
         MaterialButton btnLogout = findViewById(R.id.btnLogout);
@@ -75,8 +80,7 @@ public class MainActivity extends AppCompatActivity {
         bindCurrentUser();
 
         // 初始化打卡显示
-        int streak = CheckInStore.getStreak(this);
-        updateCheckInText(streak);
+        updateCheckInText();
 
         // 退出登录
         btnLogout.setOnClickListener(v -> {
@@ -140,9 +144,10 @@ public class MainActivity extends AppCompatActivity {
     }
 
     /**
-     * 更新打卡卡片副标题显示。
+     * 更新打卡卡片副标题显示（读取增量维护的统计，不遍历打卡历史）。
      */
-    private void updateCheckInText(int streak) {
+    private void updateCheckInText() {
+        int streak = CheckInStore.getStats(this).getCurrentStreak(LocalDate.now());
         String text = "已连续打卡 " + streak + " 天";
         tvCheckInSub.setText(text);
     }
@@ -150,6 +155,6 @@ public class MainActivity extends AppCompatActivity {
     @Override
     protected void onResume() {
         super.onResume();
-        updateCheckInText(CheckInStore.getStreak(this));
+        updateCheckInText();
     }
 }
@@ -0,0 +1,110 @@
+package com.justyn.meow;
+
+import android.app.Application;
+import android.content.Context;
+import android.os.SystemClock;
+import android.util.Log;
+
+import com.justyn.meow.checkin.CheckInStore;
+import com.justyn.meow.data.MeowDbHelper;
+import com.justyn.meow.data.MeowRepository;
+import com.justyn.meow.util.MeowExecutors;
+import com.justyn.meow.util.MeowPreferences;
+import com.justyn.meow.util.ThumbnailCache;
+
+/**
+ * 应用入口：持有进程内唯一的数据库与仓库实例。
+ * <p>
+ * 这里负责：
+ * 1) 创建唯一的 {@link MeowDbHelper} / {@link MeowRepository}，页面通过 {@link #from(Context)} 获取，不再各自新建
+ * 2) 进程启动时在数据库线程预热：生成登录态快照、打开连接（含 WAL 配置与升级），
+ * 启动路由与首次进入列表页时都不用再等待
+ * 3) 界面全部不可见时回写 WAL 日志，并按内存压力收缩缩略图缓存
+ * </p>
+ * 线程池本身是进程级的，统一由 {@link MeowExecutors} 提供。
+ */
+public class MeowApplication extends Application {
+
+    private static final String TAG = "MeowApplication";
+
+    private MeowDbHelper dbHelper;
+    private MeowRepository repository;
+    private ThumbnailCache thumbnailCache;
+
+    @Override
+    public void onCreate() {
+        super.onCreate();
+        dbHelper = new MeowDbHelper(this);
+        thumbnailCache = new ThumbnailCache(this);
+        repository = new MeowRepository(this, dbHelper, thumbnailCache);
+        warmUp();
+    }
+
+    /**
+     * 获取 Application 实例。
+     */
+    public static MeowApplication from(Context context) {
+        return (MeowApplication) context.getApplicationContext();
+    }
+
+    /**
+     * 获取进程内唯一的数据仓库。
+     */
+    public MeowRepository getRepository() {
+        return repository;
+    }
+
+    /**
+     * 获取进程内唯一的数据库帮助类。
+     */
+    public MeowDbHelper getDbHelper() {
+        return dbHelper;
+    }
+
+    /**
+     * 获取进程内唯一的缩略图缓存。
+     */
+    public ThumbnailCache getThumbnailCache() {
+        return thumbnailCache;
+    }
+
+    @Override
+    public void onTrimMemory(int level) {
+        super.onTrimMemory(level);
+        thumbnailCache.onTrimMemory(level);
+        if (level == TRIM_MEMORY_UI_HIDDEN) {
+            Log.d(TAG, "缩略图缓存：" + thumbnailCache.describeStats());
+            // 此时没有列表在滚动，回写不影响交互，也避免日志文件在长时间使用后持续变大
+            MeowExecutors.dbIo().execute(() -> {
+                try {
+                    if (!dbHelper.checkpoint()) {
+                        Log.d(TAG, "WAL 回写未完成，有读连接占用");
+                    }
+                } catch (RuntimeException e) {
+                    Log.w(TAG, "WAL 回写失败", e);
+                }
+            });
+        }
+    }
+
+    /**
+     * 预热：SharedPreferences 先在主线程发起异步加载（只是启动读取线程），
+     * 登录态快照与数据库在写线程准备，打开数据库时会跑 onConfigure / onUpgrade，之后的查询不再承担这部分耗时。
+     */
+    private void warmUp() {
+        MeowPreferences.warmUp(this);
+        CheckInStore.warmUp(this);
+        MeowExecutors.dbIo().execute(() -> {
+            // 先生成登录态快照：启动路由通常在它之后才读取，主线程不必等偏好文件
+            MeowPreferences.preloadLoginSnapshot(this);
+            long start = SystemClock.elapsedRealtime();
+            try {
+                dbHelper.getWritableDatabase();
+                Log.d(TAG, "数据库预热耗时 " + (SystemClock.elapsedRealtime() - start) + "ms");
+            } catch (RuntimeException e) {
+                // 预热失败不影响后续按需打开，真正的查询会再次尝试并报告错误
+                Log.w(TAG, "数据库预热失败", e);
+            }
+        });
+    }
+}
@@ -10,27 +10,31 @@ import androidx.appcompat.app.AppCompatActivity;
 import com.google.android.material.button.MaterialButton;
 import com.google.android.material.textfield.TextInputEditText;
 import com.justyn.meow.MainActivity;
+import com.justyn.meow.MeowApplication;
 import com.justyn.meow.R;
-import com.justyn.meow.data.MeowDbHelper;
+import com.justyn.meow.data.MeowRepository;
 import com.justyn.meow.util.MeowPreferences;
+import com.justyn.meow.util.StartupMetrics;
 
 /**
  * 登录页面：校验本地账号密码并保存登录态。
  * <p>
  * 逻辑要点：
- * - 启动时先检查是否已登录
+ * - 冷启动由 LaunchActivity 按登录态路由过来；这里仍兜底检查一次（例如从最近任务恢复）
  * - 输入校验通过后查询本地数据库
  * - 登录成功则持久化登录态并跳转主界面
  * </p>
  */
 public class LoginActivity extends AppCompatActivity {
 
-    // 数据库帮助类，用于校验账号密码
-    private MeowDbHelper dbHelper;
+    // 数据仓库，用于在后台线程校验账号密码
+    private MeowRepository repository;
     // 用户名输入框
     private TextInputEditText etUsername;
     // 密码输入框
     private TextInputEditText etPassword;
+    // 登录按钮（校验期间禁用，防止重复提交）
+    private MaterialButton btnLogin;
 
     /**
      * 初始化登录页：
@@ -41,7 +45,7 @@ public class LoginActivity extends AppCompatActivity {
     protected void onCreate(Bundle savedInstanceState) {
         super.onCreate(savedInstanceState);
 
-        // 从偏好里读登录态，已登录就跳转并 finish，避免回退到登录页
+        // 兜底：已登录就跳转并 finish，避免回退到登录页（读内存快照，不访问磁盘）
         if (MeowPreferences.isLoggedIn(this)) {
             Intent intent = new Intent(LoginActivity.this, MainActivity.class);
             startActivity(intent);
@@ -51,14 +55,15 @@ public class LoginActivity extends AppCompatActivity {
 
         EdgeToEdge.enable(this);
         setContentView(R.layout.activity_login);
+        StartupMetrics.trackFirstFrame(this);
 
-        // DB helper 用 Activity 的 Context 初始化，后面校验账号密码会用到
-        dbHelper = new MeowDbHelper(this);
+        // 仓库负责把校验放到 I/O 线程，结果回到主线程
+        repository = MeowApplication.from(this).getRepository();
 
         etUsername = findViewById(R.id.etUsername);
         etPassword = findViewById(R.id.etPassword);
 
-        MaterialButton btnLogin = findViewById(R.id.btnLogin);
+        btnLogin = findViewById(R.id.btnLogin);
         MaterialButton btnRegister = findViewById(R.id.btnRegister);
 
         // 登录走校验流程，注册直接跳注册页
@@ -86,25 +91,27 @@ public class LoginActivity extends AppCompatActivity {
             return;
         }
 
-        boolean ok = dbHelper.checkLogin(username, password);
-        if (ok) {
-            dbHelper.claimLegacyDataForUser(username);
-            // 登录通过后补一份昵称，没有就用空串
-            String nickname = dbHelper.getNicknameByUsername(username);
-            if (nickname == null) {
-                nickname = "";
+        // 校验期间禁用按钮，结果回来后再恢复
+        btnLogin.setEnabled(false);
+        repository.login(this, username, password, nickname -> {
+            btnLogin.setEnabled(true);
+            if (nickname != null) {
+                // 保存到 SharedPreferences，作为下次启动的登录态依据
+                MeowPreferences.saveLogin(this, username, nickname);
+                // 成功提示后跳转并 finish，避免回退到登录页
+                Toast.makeText(this, "登录成功，喵~！", Toast.LENGTH_SHORT).show();
+                Intent intent = new Intent(LoginActivity.this, MainActivity.class);
+                startActivity(intent);
+                finish();
+            } else {
+                // 校验失败就提示错误
+                Toast.makeText(this, "喵～，账号或密码错误了喔", Toast.LENGTH_SHORT).show();
             }
-            // 保存到 SharedPreferences，作为下次启动的登录态依据
-            MeowPreferences.saveLogin(this, username, nickname);
-            // 成功提示后跳转并 finish，避免回退到登录页
-            Toast.makeText(this, "登录成功，喵~！", Toast.LENGTH_SHORT).show();
-            Intent intent = new Intent(LoginActivity.this, MainActivity.class);
-            startActivity(intent);
-            finish();
-        } else {
-            // 校验失败就提示错误
-            Toast.makeText(this, "喵～，账号或密码错误了喔", Toast.LENGTH_SHORT).show();
-        }
+        }).onError(e -> {
+            // 数据库读取失败：恢复按钮，允许重试
+            btnLogin.setEnabled(true);
+            Toast.makeText(this, "喵～，登录出错了，请重试喔", Toast.LENGTH_SHORT).show();
+        });
     }
 
 }
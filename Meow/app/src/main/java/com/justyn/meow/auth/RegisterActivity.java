@@ -9,8 +9,9 @@ import androidx.appcompat.app.AppCompatActivity;
 import com.google.android.material.appbar.MaterialToolbar;
 import com.google.android.material.button.MaterialButton;
 import com.google.android.material.textfield.TextInputEditText;
+import com.justyn.meow.MeowApplication;
 import com.justyn.meow.R;
-import com.justyn.meow.data.MeowDbHelper;
+import com.justyn.meow.data.MeowRepository;
 
 /**
  * 注册页面：创建新用户并写入本地数据库。
@@ -23,8 +24,8 @@ import com.justyn.meow.data.MeowDbHelper;
  */
 public class RegisterActivity extends AppCompatActivity {
 
-    // 数据库帮助类（注册时需要查重和写入）
-    private MeowDbHelper dbHelper;
+    // 数据仓库（注册时在后台线程查重和写入）
+    private MeowRepository repository;
     // 用户名输入框
     private TextInputEditText etUsername;
     // 昵称输入框
@@ -33,6 +34,8 @@ public class RegisterActivity extends AppCompatActivity {
     private TextInputEditText etPassword;
     // 再次确认密码输入框
     private TextInputEditText etConfirmPassword;
+    // 注册按钮（写库期间禁用，防止重复提交）
+    private MaterialButton btnDoRegister;
 
     /**
      * 初始化注册表单并绑定按钮事件。
@@ -47,14 +50,14 @@ public class RegisterActivity extends AppCompatActivity {
         MaterialToolbar toolbar = findViewById(R.id.topAppBar);
         toolbar.setNavigationOnClickListener(v -> finish());
 
-        // 注册需要查重和写库，先把 DB helper 准备好
-        dbHelper = new MeowDbHelper(this);
+        // 注册需要查重和写库，先把仓库准备好
+        repository = MeowApplication.from(this).getRepository();
         etUsername = findViewById(R.id.etUsername);
         etNickname = findViewById(R.id.etNickname);
         etPassword = findViewById(R.id.etPassword);
         etConfirmPassword = findViewById(R.id.etConfirmPassword);
 
-        MaterialButton btnDoRegister = findViewById(R.id.btnDoRegister);
+        btnDoRegister = findViewById(R.id.btnDoRegister);
         MaterialButton btnBackToLogin = findViewById(R.id.btnBackToLogin);
 
         // 一个走注册流程，一个返回登录页
@@ -90,19 +93,23 @@ public class RegisterActivity extends AppCompatActivity {
             return;
         }
 
-        // 账号已存在处理
-        if (dbHelper.isUsernameExists(username)) {
-            Toast.makeText(this, "喵～，该账号已存在了喔，请换一个", Toast.LENGTH_SHORT).show();
-            return;
-        }
-
-        // 同步写入数据库，rowId == -1 表示失败
-        long rowId = dbHelper.registerUser(username, password, nickname);
-        if (rowId == -1) {
+        // 查重 + 写库放到后台线程，期间禁用按钮
+        btnDoRegister.setEnabled(false);
+        repository.register(this, username, password, nickname, result -> {
+            btnDoRegister.setEnabled(true);
+            if (result == MeowRepository.RegisterResult.USERNAME_EXISTS) {
+                // 账号已存在处理
+                Toast.makeText(this, "喵～，该账号已存在了喔，请换一个", Toast.LENGTH_SHORT).show();
+            } else if (result == MeowRepository.RegisterResult.FAILED) {
+                Toast.makeText(this, "喵～，注册失败啦，请重试喔", Toast.LENGTH_SHORT).show();
+            } else {
+                Toast.makeText(this, "喵～，注册成功啦，请返回登录喔", Toast.LENGTH_SHORT).show();
+                finish();
+            }
+        }).onError(e -> {
+            // 写库失败：恢复按钮，允许重试
+            btnDoRegister.setEnabled(true);
             Toast.makeText(this, "喵～，注册失败啦，请重试喔", Toast.LENGTH_SHORT).show();
-        } else {
-            Toast.makeText(this, "喵～，注册成功啦，请返回登录喔", Toast.LENGTH_SHORT).show();
-            finish();
-        }
+        });
     }
 }
@@ -0,0 +1,138 @@
+package com.justyn.meow.cat;
+
+import android.content.Context;
+import android.content.res.AssetFileDescriptor;
+import android.media.MediaMetadataRetriever;
+import android.net.Uri;
+import android.util.Log;
+
+import androidx.annotation.Nullable;
+import androidx.annotation.WorkerThread;
+
+import java.io.IOException;
+
+/**
+ * 音频元数据：时长、MIME 类型、码率、文件大小，以及文件里自带的标题。
+ * <p>
+ * 在写入 fm_track 时探测一次并存库，列表展示时长、按时长排序都不需要再打开解码器。
+ * 探测只读取文件头（MediaMetadataRetriever），不会解码音频数据。
+ * </p>
+ */
+public final class AudioMetadata {
+
+    // 探测失败时使用：时长记为 0（未知），其余为空
+    public static final AudioMetadata UNKNOWN = new AudioMetadata(0, null, 0, 0, null);
+
+    private static final String TAG = "AudioMetadata";
+
+    // 时长（毫秒），0 表示未知
+    private final long durationMs;
+    // MIME 类型，例如 audio/mpeg（可为空）
+    @Nullable
+    private final String mimeType;
+    // 码率（bit/s），0 表示未知
+    private final int bitrate;
+    // 文件大小（字节），0 表示未知
+    private final long fileSize;
+    // 文件标签里的标题（可为空，只用于导入时命名，不存库）
+    @Nullable
+    private final String title;
+
+    public AudioMetadata(long durationMs, @Nullable String mimeType, int bitrate, long fileSize) {
+        this(durationMs, mimeType, bitrate, fileSize, null);
+    }
+
+    public AudioMetadata(long durationMs, @Nullable String mimeType, int bitrate, long fileSize,
+                         @Nullable String title) {
+        this.durationMs = durationMs;
+        this.mimeType = mimeType;
+        this.bitrate = bitrate;
+        this.fileSize = fileSize;
+        this.title = title;
+    }
+
+    public long getDurationMs() {
+        return durationMs;
+    }
+
+    @Nullable
+    public String getMimeType() {
+        return mimeType;
+    }
+
+    public int getBitrate() {
+        return bitrate;
+    }
+
+    public long getFileSize() {
+        return fileSize;
+    }
+
+    @Nullable
+    public String getTitle() {
+        return title;
+    }
+
+    /**
+     * 探测一条音频的元数据（在后台线程调用，可能访问慢速存储）。
+     *
+     * @param audioResId 本地 raw 资源 id（audioUri 为空时使用）
+     * @param audioUri   外部音频 Uri（可为空）
+     * @return 探测失败时返回 {@link #UNKNOWN}
+     */
+    @WorkerThread
+    public static AudioMetadata probe(Context context, int audioResId, @Nullable String audioUri) {
+        AssetFileDescriptor afd = null;
+        MediaMetadataRetriever retriever = new MediaMetadataRetriever();
+        try {
+            afd = audioUri != null
+                    ? context.getContentResolver().openAssetFileDescriptor(Uri.parse(audioUri), "r")
+                    : context.getResources().openRawResourceFd(audioResId);
+            if (afd == null) {
+                return UNKNOWN;
+            }
+            long fileSize = afd.getLength();
+            if (fileSize < 0) {
+                // 长度未知（部分 content:// Uri），直接使用整个文件
+                fileSize = afd.getParcelFileDescriptor().getStatSize();
+                retriever.setDataSource(afd.getFileDescriptor());
+            } else {
+                retriever.setDataSource(afd.getFileDescriptor(), afd.getStartOffset(), fileSize);
+            }
+            return new AudioMetadata(
+                    parseLong(retriever.extractMetadata(MediaMetadataRetriever.METADATA_KEY_DURATION)),
+                    retriever.extractMetadata(MediaMetadataRetriever.METADATA_KEY_MIMETYPE),
+                    (int) parseLong(retriever.extractMetadata(MediaMetadataRetriever.METADATA_KEY_BITRATE)),
+                    Math.max(0, fileSize),
+                    retriever.extractMetadata(MediaMetadataRetriever.METADATA_KEY_TITLE)
+            );
+        } catch (IOException | RuntimeException e) {
+            Log.w(TAG, "读取音频元数据失败: " + (audioUri != null ? audioUri : audioResId), e);
+            return UNKNOWN;
+        } finally {
+            try {
+                retriever.release();
+            } catch (IOException ignored) {
+                // 释放失败不影响结果
+            }
+            if (afd != null) {
+                try {
+                    afd.close();
+                } catch (IOException ignored) {
+                    // 关闭失败不影响结果
+                }
+            }
+        }
+    }
+
+    private static long parseLong(@Nullable String value) {
+        if (value == null) {
+            return 0;
+        }
+        try {
+            return Math.max(0, Long.parseLong(value.trim()));
+        } catch (NumberFormatException e) {
+            return 0;
+        }
+    }
+}
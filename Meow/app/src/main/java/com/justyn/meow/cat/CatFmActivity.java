@@ -1,12 +1,18 @@
 package com.justyn.meow.cat;
 
+import android.Manifest;
+import android.content.ComponentName;
+import android.content.ContentResolver;
+import android.content.Context;
 import android.content.Intent;
+import android.content.ServiceConnection;
+import android.content.pm.PackageManager;
 import android.database.Cursor;
-import android.media.MediaPlayer;
 import android.net.Uri;
+import android.os.Build;
 import android.os.Bundle;
-import android.os.Handler;
-import android.os.Looper;
+import android.os.IBinder;
+import android.view.Choreographer;
 import android.widget.SeekBar;
 import android.widget.TextView;
 import android.widget.Toast;
@@ -15,6 +21,7 @@ import androidx.activity.EdgeToEdge;
 import androidx.activity.result.ActivityResultLauncher;
 import androidx.activity.result.contract.ActivityResultContracts;
 import androidx.appcompat.app.AppCompatActivity;
+import androidx.core.content.ContextCompat;
 import androidx.recyclerview.widget.LinearLayoutManager;
 import androidx.recyclerview.widget.RecyclerView;
 
@@ -22,9 +29,17 @@ import com.google.android.material.appbar.MaterialToolbar;
 import com.google.android.material.button.MaterialButton;
 import com.google.android.material.dialog.MaterialAlertDialogBuilder;
 import com.google.android.material.textfield.TextInputEditText;
+import com.justyn.meow.MeowApplication;
 import com.justyn.meow.R;
-import com.justyn.meow.data.MeowDbHelper;
+import com.justyn.meow.data.FmFolderImporter;
+import com.justyn.meow.data.FmTrackOrder;
+import com.justyn.meow.data.LocalCopyStore;
+import com.justyn.meow.data.MeowRepository;
+import com.justyn.meow.data.MeowTask;
 import com.justyn.meow.util.MeowPreferences;
+import com.justyn.meow.util.PageOpenMetrics;
+import com.justyn.meow.util.SearchPipeline;
+import com.justyn.meow.util.TimeText;
 
 import java.util.ArrayList;
 import java.util.List;
@@ -33,9 +48,10 @@ import java.util.List;
  * 喵音 FM 页面：管理音频列表与播放控制。
  * <p>
  * 主要职责：
- * - 列表增删改与搜索过滤
- * - MediaPlayer 播放/暂停、快进/快退
- * - 进度条与时间展示的同步刷新
+ * - 列表增删改、搜索过滤与按时长排序
+ * - 从文件夹批量导入音频
+ * - 通过 {@link FmPlaybackService} 播放/暂停、快进/快退（离开页面后继续播放）
+ * - 进度条与时间展示的同步刷新，进度条上显示当前音频的波形
  * </p>
  */
 public class CatFmActivity extends AppCompatActivity {
@@ -43,10 +59,16 @@ public class CatFmActivity extends AppCompatActivity {
     // 音频列表的适配器（负责渲染每一条音频卡片）
     private CatFmAdapter adapter;
 
-    // 数据库操作类：用于读写音频列表
-    private MeowDbHelper dbHelper;
+    // 数据仓库：在后台线程读写音频列表
+    private MeowRepository repository;
     private String currentUsername;
-    // 搜索输入框：实时过滤列表
+    // 打开耗时统计（首帧 / 第一页数据画出）
+    private final PageOpenMetrics openMetrics = new PageOpenMetrics("fm");
+    // 列表当前使用的关键字（分页加载时沿用同一个关键字）
+    private String listQuery;
+    // 列表当前的排序方式
+    private FmTrackOrder listOrder = FmTrackOrder.DEFAULT;
+    // 搜索输入框：防抖后过滤列表
     private TextInputEditText etSearch;
 
     // 临时回调：用于接收系统文件选择器返回的 Uri
@@ -58,20 +80,66 @@ public class CatFmActivity extends AppCompatActivity {
     private ActivityResultLauncher<String[]> audioPickerLauncher;
     // 保存当前选择动作的回调（避免多处共用时丢失）
     private UriReceiver pendingAudioReceiver;
+    // 系统目录选择器：选择要批量导入的文件夹
+    private ActivityResultLauncher<Uri> folderPickerLauncher;
+    // 进行中的文件夹导入（没有时为 null）
+    private MeowTask importTask;
+    // 通知权限请求（Android 13+ 后台播放通知需要）
+    private ActivityResultLauncher<String> notificationPermissionLauncher;
+
+    // 播放服务（绑定成功前为 null）：真正的 MediaPlayer 在服务里，离开页面也不会释放
+    private FmPlaybackService playbackService;
+    // 服务播放状态变化时同步 UI
+    private final FmPlaybackService.Listener playbackListener = new FmPlaybackService.Listener() {
+        @Override
+        public void onPlaybackStateChanged() {
+            syncPlaybackUi();
+        }
+
+        @Override
+        public void onPlaybackError(FmTrack track) {
+            Toast.makeText(CatFmActivity.this, "喵～音频初始化失败了", Toast.LENGTH_SHORT).show();
+        }
+    };
+    private final ServiceConnection playbackConnection = new ServiceConnection() {
+        @Override
+        public void onServiceConnected(ComponentName name, IBinder binder) {
+            playbackService = ((FmPlaybackService.LocalBinder) binder).getService();
+            playbackService.addListener(playbackListener);
+            // 连续播放按当前列表的筛选结果往下播
+            playbackService.setQueue(currentUsername, listQuery, listOrder);
+            // 回到页面时直接恢复服务里的播放状态
+            syncPlaybackUi();
+        }
 
-    // 真正负责播放音频的 MediaPlayer（一次只播放一条）
-    private MediaPlayer mediaPlayer;
+        @Override
+        public void onServiceDisconnected(ComponentName name) {
+            playbackService = null;
+            syncPlaybackUi();
+        }
+    };
 
     // 底部播放控制区控件
-    private SeekBar seekBar;
+    private WaveformSeekBar seekBar;
     private TextView tvCurrentTime;
     private TextView tvTotalTime;
     private MaterialButton btnPlayPauseControl;
     private MaterialButton btnForward;
     private MaterialButton btnRewind;
 
-    // 定时更新进度的 Handler（主线程）
-    private final Handler progressHandler = new Handler(Looper.getMainLooper());
+    // 时间文本缓冲区：每个 TextView 一份，复用避免每次刷新都创建字符串
+    private final char[] currentTimeChars = new char[TimeText.BUFFER_SIZE];
+    private final char[] totalTimeChars = new char[TimeText.BUFFER_SIZE];
+    // 当前显示的秒数（秒数不变时不刷新 TextView）
+    private int shownCurrentSecond = -1;
+    private int shownTotalSecond = -1;
+    // 进度刷新是否在运行
+    private boolean progressTicking;
+
+    // 波形加载器：后台解码当前音频的峰值，进度条上显示波形
+    private WaveformLoader waveformLoader;
+    // 进度条正在显示（或加载）波形的音频 ID
+    private long waveformTrackId = -1;
 
     // 用户是否正在拖动进度条（用于暂停自动刷新）
     private boolean isUserSeeking = false;
@@ -79,26 +147,26 @@ public class CatFmActivity extends AppCompatActivity {
     // 快进/快退步长：10 秒
     private static final int SKIP_STEP_MS = 10_000;
 
-    // 定时刷新进度条与当前时间
-    private final Runnable progressRunnable = new Runnable() {
+    // 逐帧刷新进度条与当前时间：跟随屏幕刷新节奏，页面不可见时停止（位置没跨过一个像素、秒数没变时不重绘）
+    private final Choreographer.FrameCallback progressTicker = new Choreographer.FrameCallback() {
         @Override
-        public void run() {
-            if (mediaPlayer != null && mediaPlayer.isPlaying()) {
-                if (!isUserSeeking) {
-                    int positionMs = mediaPlayer.getCurrentPosition();
-                    seekBar.setProgress(positionMs);
-                    tvCurrentTime.setText(formatTime(positionMs));
-                }
-                progressHandler.postDelayed(this, 500);
+        public void doFrame(long frameTimeNanos) {
+            if (!progressTicking) {
+                return;
+            }
+            if (playbackService == null || !playbackService.isPlaying()) {
+                progressTicking = false;
+                return;
+            }
+            if (!isUserSeeking) {
+                int positionMs = playbackService.getCurrentPosition();
+                seekBar.setPlaybackProgress(positionMs);
+                showCurrentTime(positionMs);
             }
+            Choreographer.getInstance().postFrameCallback(this);
         }
     };
 
-    // 当前正在播放的列表下标（-1 / NO_POSITION 表示没有在播）
-    private int currentPlayingPosition = RecyclerView.NO_POSITION;
-    // 当前正在播放的音频 ID（用于删除时判断）
-    private long currentPlayingTrackId = -1;
-
     /**
      * 初始化列表、播放器控件与搜索。
      */
@@ -108,12 +176,33 @@ public class CatFmActivity extends AppCompatActivity {
         // 开启 EdgeToEdge，让内容可以延伸到状态栏 / 导航栏区域
         EdgeToEdge.enable(this);
         setContentView(R.layout.activity_cat_fm);
+        openMetrics.trackFirstFrame(this);
 
         MaterialToolbar toolbar = findViewById(R.id.topAppBar);
         toolbar.setNavigationOnClickListener(v -> finish());
+        toolbar.inflateMenu(R.menu.menu_cat_fm);
+        toolbar.getMenu().findItem(R.id.action_keep_local_copy).setChecked(MeowPreferences.isKeepLocalCopies(this));
+        toolbar.setOnMenuItemClickListener(item -> {
+            if (item.getItemId() == R.id.action_import_folder) {
+                folderPickerLauncher.launch(null);
+                return true;
+            }
+            if (item.getItemId() == R.id.action_keep_local_copy) {
+                item.setChecked(!item.isChecked());
+                MeowPreferences.setKeepLocalCopies(this, item.isChecked());
+                return true;
+            }
+            if (item.getItemId() != R.id.action_sort_by_duration) {
+                return false;
+            }
+            item.setChecked(!item.isChecked());
+            listOrder = item.isChecked() ? FmTrackOrder.DURATION : FmTrackOrder.DEFAULT;
+            reloadList(listQuery, false);
+            return true;
+        });
 
-        // 初始化 DB 与搜索框
-        dbHelper = new MeowDbHelper(this);
+        // 初始化仓库与搜索框
+        repository = MeowApplication.from(this).getRepository();
         currentUsername = MeowPreferences.getUsername(this);
         etSearch = findViewById(R.id.etSearch);
 
@@ -124,10 +213,37 @@ public class CatFmActivity extends AppCompatActivity {
                     if (uri == null) {
                         return;
                     }
-                    persistReadPermission(uri);
-                    if (pendingAudioReceiver != null) {
-                        pendingAudioReceiver.onPicked(uri);
+                    if (!MeowPreferences.isKeepLocalCopies(this)) {
+                        persistReadPermission(uri);
+                        deliverPickedAudio(uri);
+                        return;
+                    }
+                    // 本地副本模式：播放直接读私有目录里的副本，提供方卸载或变慢都不影响；复制失败时退回文档 Uri
+                    repository.importLocalCopy(this, uri, LocalCopyStore.Kind.AUDIO, localUri -> {
+                        if (localUri.equals(uri)) {
+                            persistReadPermission(uri);
+                        }
+                        deliverPickedAudio(localUri);
+                    });
+                }
+        );
+
+        // 注册目录选择器：拿到目录后持久化读权限并开始导入
+        folderPickerLauncher = registerForActivityResult(
+                new ActivityResultContracts.OpenDocumentTree(),
+                treeUri -> {
+                    if (treeUri == null) {
+                        return;
                     }
+                    persistReadPermission(treeUri);
+                    startFolderImport(treeUri);
+                }
+        );
+
+        // 通知权限：拒绝也不影响播放，只是看不到通知栏控制
+        notificationPermissionLauncher = registerForActivityResult(
+                new ActivityResultContracts.RequestPermission(),
+                granted -> {
                 }
         );
 
@@ -138,6 +254,7 @@ public class CatFmActivity extends AppCompatActivity {
         btnPlayPauseControl = findViewById(R.id.btnPlayPauseControl);
         btnForward = findViewById(R.id.btnForward);
         btnRewind = findViewById(R.id.btnRewind);
+        waveformLoader = new WaveformLoader(this);
 
         // 初始显示 00:00
         resetTimeUi();
@@ -150,7 +267,11 @@ public class CatFmActivity extends AppCompatActivity {
         seedDefaultTracksIfNeeded();
 
         // 构造适配器，并绑定各项点击事件
-        adapter = new CatFmAdapter(new ArrayList<>(), new CatFmAdapter.Listener() {
+        adapter = new CatFmAdapter((after, limit, callback) -> repository.loadFmTrackPage(
+                this, currentUsername, listQuery, listOrder, after, limit, page -> {
+                    openMetrics.markFirstPage(page.getItems().size());
+                    callback.onResult(page);
+                }), new CatFmAdapter.Listener() {
             @Override
             public void onAddClicked() {
                 showAddDialog();
@@ -169,23 +290,13 @@ public class CatFmActivity extends AppCompatActivity {
         rvTracks.setAdapter(adapter);
 
         // 首次加载列表
-        reloadList(null);
+        reloadList(null, false);
+        // 旧数据没有时长等元数据：后台补齐后刷新列表
+        backfillTrackMetadata();
 
-        // 搜索框实时过滤列表
-        etSearch.addTextChangedListener(new android.text.TextWatcher() {
-            @Override
-            public void beforeTextChanged(CharSequence s, int start, int count, int after) {
-            }
-
-            @Override
-            public void onTextChanged(CharSequence s, int start, int before, int count) {
-                reloadList(s == null ? null : s.toString());
-            }
-
-            @Override
-            public void afterTextChanged(android.text.Editable s) {
-            }
-        });
+        // 搜索框防抖过滤列表（只刷新列表，不影响正在播放的音频）
+        SearchPipeline.attach(this, etSearch, SearchPipeline.DEFAULT_DEBOUNCE_MS,
+                query -> reloadList(query, false));
 
         // 初始化播放控制逻辑，默认禁用
         setupPlaybackControls();
@@ -196,32 +307,46 @@ public class CatFmActivity extends AppCompatActivity {
      * 若数据库为空则写入本地默认音频，避免每次启动重复写入。
      */
     private void seedDefaultTracksIfNeeded() {
-        if (MeowPreferences.isFmSeeded(this, currentUsername)) {
-            return;
-        }
-        if (dbHelper.hasAnyFmTracks(currentUsername)) {
-            MeowPreferences.markFmSeeded(this, currentUsername);
-            return;
-        }
-        List<FmTrack> defaults = buildTrackList();
-        for (FmTrack track : defaults) {
-            dbHelper.insertFmTrack(currentUsername, track.getTitle(), track.getSubtitle(), track.getResId(), null);
-        }
-        MeowPreferences.markFmSeeded(this, currentUsername);
+        // 写入前要先读音频文件探测元数据，完成后再刷新列表
+        repository.seedFmTracksIfNeeded(this, currentUsername, buildTrackList(), seeded -> {
+            if (Boolean.TRUE.equals(seeded)) {
+                reloadList(listQuery, true);
+            }
+        }).onError(e -> {
+            // 默认音频写入失败不影响已有数据，下次进入再试
+            Toast.makeText(this, "默认喵音初始化失败了喵～", Toast.LENGTH_SHORT).show();
+            reloadList(listQuery, true);
+        });
     }
 
     /**
-     * 根据关键词刷新列表，并重置当前播放状态。
-     *
-     * @param titleQuery 标题关键字，空表示不过滤
+     * 为还没有元数据的音频补齐时长等信息，有更新时刷新列表。
      */
-    private void reloadList(String titleQuery) {
-        releasePlayer();
-        resetPlaybackUi();
+    private void backfillTrackMetadata() {
+        repository.backfillFmTrackMetadata(this, currentUsername, updated -> {
+            if (updated != null && updated > 0) {
+                reloadList(listQuery, true);
+            }
+        });
+    }
 
-        List<FmTrack> tracks = dbHelper.queryFmTracks(currentUsername, titleQuery);
-        tracks.add(FmTrack.addEntry());
-        adapter.submitList(tracks);
+    /**
+     * 根据关键词刷新列表。
+     * <p>
+     * 不会打断正在播放的音频：播放状态按音频 ID 记录，刷新后若仍在结果中会继续高亮。
+     * 旧的分页查询由适配器取消。
+     * </p>
+     *
+     * @param titleQuery   标题关键字，空表示不过滤
+     * @param keepPosition 是否保留当前滚动位置（增删改后为 true）
+     */
+    private void reloadList(String titleQuery, boolean keepPosition) {
+        listQuery = titleQuery;
+        if (playbackService != null) {
+            // 连续播放队列跟随新的筛选结果
+            playbackService.setQueue(currentUsername, listQuery, listOrder);
+        }
+        adapter.refresh(keepPosition);
     }
 
     /**
@@ -268,7 +393,7 @@ public class CatFmActivity extends AppCompatActivity {
             @Override
             public void onProgressChanged(SeekBar seekBar, int progress, boolean fromUser) {
                 if (fromUser) {
-                    tvCurrentTime.setText(formatTime(progress));
+                    showCurrentTime(progress);
                 }
             }
 
@@ -279,8 +404,8 @@ public class CatFmActivity extends AppCompatActivity {
 
             @Override
             public void onStopTrackingTouch(SeekBar seekBar) {
-                if (mediaPlayer != null) {
-                    mediaPlayer.seekTo(seekBar.getProgress());
+                if (playbackService != null && playbackService.hasTrack()) {
+                    playbackService.seekTo(seekBar.getProgress());
                 } else {
                     seekBar.setProgress(0);
                 }
@@ -294,11 +419,10 @@ public class CatFmActivity extends AppCompatActivity {
      * <p>
      * 规则：
      * 1. 如果点击的是“当前正在播放”的同一条：
-     * → 当作「停止播放」，停止 MediaPlayer，重置 UI
+     * → 当作「停止播放」，由服务停止并释放播放器
      * 2. 如果点击的是其他条目：
-     * → 先停掉之前的音频，释放 MediaPlayer
-     * → 为新条目创建 MediaPlayer，开始播放
-     * → 通知 Adapter 更新“哪一条正在播放”
+     * → 交给服务切换到新条目并开始播放
+     * 列表高亮、进度条等 UI 统一在 {@link #syncPlaybackUi()} 里根据服务状态刷新。
      *
      * @param track    被点击的音频条目
      * @param position 在列表中的位置
@@ -307,52 +431,34 @@ public class CatFmActivity extends AppCompatActivity {
         if (track == null || track.isAddEntry()) {
             return;
         }
-        // 情况一：点击的是当前正在播放的 → 停止播放
-        if (mediaPlayer != null && currentPlayingPosition == position) {
-            if (mediaPlayer.isPlaying()) {
-                mediaPlayer.stop();
-            }
-            releasePlayer();
-            resetPlaybackUi();
+        if (playbackService == null) {
+            // 服务还没连上（极短的窗口期），忽略这次点击
             return;
         }
-
-        // 情况二：点击的是其他条目 如果之前已经有 MediaPlayer 存在说明在播，先释放
-        if (mediaPlayer != null) {
-            releasePlayer();
+        // 情况一：点击的是当前正在播放（或正在准备）的 → 停止播放
+        if (playbackService.getCurrentTrackId() == track.getId()) {
+            playbackService.stop();
+            return;
         }
 
-        // 为当前点击的音频创建新的 MediaPlayer
-        if (track.getAudioUri() != null) {
-            mediaPlayer = MediaPlayer.create(this, Uri.parse(track.getAudioUri()));
-        } else {
-            mediaPlayer = MediaPlayer.create(this, track.getResId());
+        // 情况二：点击的是其他条目，服务内部会先取消旧的准备 / 释放旧的播放器
+        // 这里立即返回，条目显示「准备中」，准备好后自动出声
+        requestNotificationPermissionIfNeeded();
+        playbackService.play(track);
+    }
+
+    /**
+     * 首次播放时申请通知权限，用于显示后台播放通知。
+     */
+    private void requestNotificationPermissionIfNeeded() {
+        if (Build.VERSION.SDK_INT < Build.VERSION_CODES.TIRAMISU) {
+            return;
         }
-        if (mediaPlayer == null) {
-            Toast.makeText(this, "喵～音频初始化失败了", Toast.LENGTH_SHORT).show();
-            resetPlaybackUi();
+        if (ContextCompat.checkSelfPermission(this, Manifest.permission.POST_NOTIFICATIONS)
+                == PackageManager.PERMISSION_GRANTED) {
             return;
         }
-
-        // 更新当前正在播放的 position
-        currentPlayingPosition = position;
-        currentPlayingTrackId = track.getId();
-        // 通知 Adapter：哪一条要高亮为“正在播放”（按钮显示「⏸ 暂停」）
-        adapter.updatePlayingState(position, true);
-        prepareSeekBarForMediaPlayer();
-        setPlaybackControlsEnabled(true);
-        btnPlayPauseControl.setText("⏸ 暂停");
-
-        // 播放完成后的回调：
-        // 自动把状态重置为“无播放”，并刷新 UI
-        mediaPlayer.setOnCompletionListener(mp -> {
-            releasePlayer();
-            resetPlaybackUi();
-        });
-
-        // 开始播放音频
-        mediaPlayer.start();
-        startProgressUpdates();
+        notificationPermissionLauncher.launch(Manifest.permission.POST_NOTIFICATIONS);
     }
 
     /**
@@ -360,67 +466,143 @@ public class CatFmActivity extends AppCompatActivity {
      */
     private void togglePlayPause() {
         // 未选择任何音频，直接提示
-        if (mediaPlayer == null) {
+        if (playbackService == null || !playbackService.hasTrack()) {
             Toast.makeText(this, "先从列表里选一条喵音播放吧～", Toast.LENGTH_SHORT).show();
             return;
         }
-        if (mediaPlayer.isPlaying()) {
-            // 暂停播放并更新按钮状态
-            mediaPlayer.pause();
-            adapter.updatePlayingState(currentPlayingPosition, false);
-            btnPlayPauseControl.setText("▶ 继续");
-            stopProgressUpdates();
-        } else {
-            // 继续播放并恢复进度刷新
-            mediaPlayer.start();
-            adapter.updatePlayingState(currentPlayingPosition, true);
-            btnPlayPauseControl.setText("⏸ 暂停");
-            startProgressUpdates();
-        }
+        playbackService.togglePlayPause();
     }
 
     /**
      * 快进 / 快退
      */
     private void seekBy(int deltaMs) {
-        if (mediaPlayer == null) {
+        if (playbackService == null || !playbackService.hasTrack()) {
             return;
         }
         // 计算目标时间，限制在 0~duration 范围内
-        int target = mediaPlayer.getCurrentPosition() + deltaMs;
-        target = Math.max(0, Math.min(target, mediaPlayer.getDuration()));
-        mediaPlayer.seekTo(target);
+        int target = playbackService.getCurrentPosition() + deltaMs;
+        target = Math.max(0, Math.min(target, playbackService.getDuration()));
+        playbackService.seekTo(target);
         seekBar.setProgress(target);
-        tvCurrentTime.setText(formatTime(target));
+        showCurrentTime(target);
     }
 
     /**
-     * 设置进度条最大值与初始值
+     * 根据服务当前状态刷新列表高亮、进度条与底部按钮。
      */
-    private void prepareSeekBarForMediaPlayer() {
-        if (mediaPlayer == null) {
+    private void syncPlaybackUi() {
+        if (playbackService != null && playbackService.isPreparing()) {
+            // 准备中：高亮点击的条目，底部控件暂不可用
+            stopProgressUpdates();
+            adapter.updatePlayingState(playbackService.getCurrentTrackId(), false, true);
+            clearWaveform();
+            resetSeekBar();
+            resetTimeUi();
+            // 时长已存库：准备完成前就能显示总时长
+            FmTrack preparingTrack = playbackService.getCurrentTrack();
+            if (preparingTrack != null && preparingTrack.getDurationMs() > 0) {
+                showTotalTime((int) Math.min(preparingTrack.getDurationMs(), Integer.MAX_VALUE));
+            }
+            setPlaybackControlsEnabled(false);
+            btnPlayPauseControl.setText("… 准备中");
             return;
         }
-        // 以音频总时长作为最大进度
-        seekBar.setMax(mediaPlayer.getDuration());
-        seekBar.setProgress(0);
-        tvTotalTime.setText(formatTime(mediaPlayer.getDuration()));
-        tvCurrentTime.setText(formatTime(0));
+        if (playbackService == null || !playbackService.hasTrack()) {
+            resetPlaybackUi();
+            return;
+        }
+        boolean playing = playbackService.isPlaying();
+        // 通知 Adapter：哪一条要高亮为“正在播放”（按钮显示「⏸ 暂停」），列表刷新后按 ID 保持高亮
+        adapter.updatePlayingState(playbackService.getCurrentTrackId(), playing);
+
+        int duration = playbackService.getDuration();
+        int position = playbackService.getCurrentPosition();
+        seekBar.setMax(duration);
+        if (!isUserSeeking) {
+            seekBar.setProgress(position);
+            showCurrentTime(position);
+        }
+        showTotalTime(duration);
+        // 准备完成后再解码波形，避免和播放器的准备抢解码资源
+        loadWaveformIfNeeded(playbackService.getCurrentTrack());
+        setPlaybackControlsEnabled(true);
+        btnPlayPauseControl.setText(playing ? "⏸ 暂停" : "▶ 继续");
+        if (playing) {
+            startProgressUpdates();
+        } else {
+            stopProgressUpdates();
+        }
+    }
+
+    /**
+     * 当前音频的波形还没加载时开始加载（有缓存直接显示，否则边解码边显示）。
+     */
+    private void loadWaveformIfNeeded(FmTrack track) {
+        if (track == null || track.getId() == waveformTrackId) {
+            return;
+        }
+        waveformTrackId = track.getId();
+        seekBar.setPeaks(null);
+        waveformLoader.load(track, (trackId, peaks, complete) -> {
+            if (trackId == waveformTrackId) {
+                seekBar.setPeaks(peaks);
+            }
+        });
+    }
+
+    /**
+     * 取消波形加载并清空进度条上的波形。
+     */
+    private void clearWaveform() {
+        waveformLoader.cancel();
+        waveformTrackId = -1;
+        seekBar.setPeaks(null);
     }
 
     /**
-     * 开始定时刷新播放进度。
+     * 开始逐帧刷新播放进度（已在运行时不重复注册）。
      */
     private void startProgressUpdates() {
-        stopProgressUpdates();
-        progressHandler.post(progressRunnable);
+        if (progressTicking) {
+            return;
+        }
+        progressTicking = true;
+        Choreographer.getInstance().postFrameCallback(progressTicker);
     }
 
     /**
-     * 停止定时刷新，避免泄漏与重复回调。
+     * 停止逐帧刷新，避免泄漏与重复回调。
      */
     private void stopProgressUpdates() {
-        progressHandler.removeCallbacks(progressRunnable);
+        progressTicking = false;
+        Choreographer.getInstance().removeFrameCallback(progressTicker);
+    }
+
+    /**
+     * 显示当前播放时间（秒数没变时跳过）。
+     */
+    private void showCurrentTime(int ms) {
+        int second = TimeText.toSeconds(ms);
+        if (second == shownCurrentSecond) {
+            return;
+        }
+        shownCurrentSecond = second;
+        int length = TimeText.formatSeconds(second, currentTimeChars);
+        tvCurrentTime.setText(currentTimeChars, 0, length);
+    }
+
+    /**
+     * 显示总时长（秒数没变时跳过）。
+     */
+    private void showTotalTime(int ms) {
+        int second = TimeText.toSeconds(ms);
+        if (second == shownTotalSecond) {
+            return;
+        }
+        shownTotalSecond = second;
+        int length = TimeText.formatSeconds(second, totalTimeChars);
+        tvTotalTime.setText(totalTimeChars, 0, length);
     }
 
     /**
@@ -435,8 +617,8 @@ public class CatFmActivity extends AppCompatActivity {
      * 重置时间显示。
      */
     private void resetTimeUi() {
-        tvCurrentTime.setText(formatTime(0));
-        tvTotalTime.setText(formatTime(0));
+        showCurrentTime(0);
+        showTotalTime(0);
     }
 
     /**
@@ -453,44 +635,37 @@ public class CatFmActivity extends AppCompatActivity {
      * 重置播放状态与按钮 UI。
      */
     private void resetPlaybackUi() {
-        currentPlayingPosition = RecyclerView.NO_POSITION;
-        currentPlayingTrackId = -1;
+        stopProgressUpdates();
         if (adapter != null) {
-            adapter.updatePlayingState(RecyclerView.NO_POSITION, false);
+            adapter.updatePlayingState(-1, false);
         }
+        clearWaveform();
         resetSeekBar();
         resetTimeUi();
         setPlaybackControlsEnabled(false);
         btnPlayPauseControl.setText("▶ 播放");
     }
 
-    /**
-     * 安全释放 MediaPlayer 资源，防止内存泄漏 / 占用系统资源
-     */
-    private void releasePlayer() {
-        // 先停掉进度刷新，避免释放后仍回调
-        stopProgressUpdates();
-        if (mediaPlayer != null) {
-            try {
-                // reset 不是必须，但有些机型上更稳妥
-                mediaPlayer.reset();
-            } catch (Exception ignored) {
-                // 防御性写法：即使 reset 抛异常也不要崩
-            }
-            mediaPlayer.release();
-            mediaPlayer = null;
-        }
+    @Override
+    protected void onStart() {
+        super.onStart();
+        // 绑定播放服务；服务已在后台播放时会直接恢复状态
+        bindService(new Intent(this, FmPlaybackService.class), playbackConnection, Context.BIND_AUTO_CREATE);
     }
 
     @Override
     protected void onStop() {
         super.onStop();
-        // 页面不可见（切后台 / 退出页面）时：
-        // 1. 停止播放
-        // 2. 重置当前播放标记
-        // 3. 列表恢复按钮文案
-        releasePlayer();
-        resetPlaybackUi();
+        // 页面不可见（切后台 / 退出页面）时只停止 UI 刷新并解绑，
+        // 正在播放的音频由服务继续播放
+        stopProgressUpdates();
+        // 页面不可见时不再解码波形；回来时优先读缓存
+        clearWaveform();
+        if (playbackService != null) {
+            playbackService.removeListener(playbackListener);
+            playbackService = null;
+        }
+        unbindService(playbackConnection);
     }
 
     /**
@@ -539,12 +714,60 @@ public class CatFmActivity extends AppCompatActivity {
             }
             String subtitle = safeText(etSubtitle);
             // 写入数据库并刷新列表
-            dbHelper.insertFmTrack(currentUsername, title, subtitle, null, selectedAudioUri[0].toString());
-            reloadList(etSearch.getText() == null ? null : etSearch.getText().toString());
+            repository.insertFmTrack(this, currentUsername, title, subtitle, null, selectedAudioUri[0].toString(),
+                    rowId -> reloadList(listQuery, true));
+            dialog.dismiss();
+        });
+    }
+
+    /**
+     * 从文件夹批量导入音频：显示进度对话框，可随时取消（已导入的部分保留）。
+     */
+    private void startFolderImport(Uri treeUri) {
+        if (importTask != null) {
+            Toast.makeText(this, "正在导入中，请稍候喵～", Toast.LENGTH_SHORT).show();
+            return;
+        }
+        androidx.appcompat.app.AlertDialog dialog = new MaterialAlertDialogBuilder(this)
+                .setTitle("导入文件夹")
+                .setMessage("正在查找音频…")
+                .setCancelable(false)
+                .setNegativeButton("取消", null)
+                .create();
+        dialog.show();
+
+        importTask = repository.importFmFolder(this, currentUsername, treeUri,
+                progress -> dialog.setMessage(formatImportProgress(progress)),
+                result -> {
+                    importTask = null;
+                    dialog.dismiss();
+                    Toast.makeText(this, "导入完成：" + formatImportProgress(result), Toast.LENGTH_SHORT).show();
+                    reloadList(listQuery, true);
+                });
+        importTask.onError(e -> {
+            // 读取文件夹失败（如授权被撤销）：关闭对话框，已写入的批次照常显示
+            importTask = null;
+            dialog.dismiss();
+            Toast.makeText(this, "导入失败了喵～", Toast.LENGTH_SHORT).show();
+            reloadList(listQuery, true);
+        });
+
+        // 取消：停止导入，已写入的批次保留，刷新列表把它们显示出来
+        dialog.getButton(androidx.appcompat.app.AlertDialog.BUTTON_NEGATIVE).setOnClickListener(v -> {
+            if (importTask != null) {
+                importTask.cancel();
+                importTask = null;
+            }
             dialog.dismiss();
+            reloadList(listQuery, true);
         });
     }
 
+    private static String formatImportProgress(FmFolderImporter.Progress progress) {
+        return "发现 " + progress.getFound() + " 个音频，已导入 " + progress.getImported()
+                + " 个，跳过重复 " + progress.getSkipped() + " 个";
+    }
+
     /**
      * 弹出编辑音频对话框（仅允许修改标题/副标题）。
      */
@@ -585,8 +808,7 @@ public class CatFmActivity extends AppCompatActivity {
                 return;
             }
             String subtitle = safeText(etSubtitle);
-            dbHelper.updateFmTrack(track.getId(), title, subtitle);
-            reloadList(etSearch.getText() == null ? null : etSearch.getText().toString());
+            repository.updateFmTrack(this, track.getId(), title, subtitle, ok -> reloadList(listQuery, true));
             dialog.dismiss();
         });
     }
@@ -603,13 +825,13 @@ public class CatFmActivity extends AppCompatActivity {
                 })
                 .setPositiveButton("删除", (d, which) -> {
                     // 删除前如果正在播放同一条，先停止
-                    if (currentPlayingTrackId == track.getId()) {
-                        releasePlayer();
-                        resetPlaybackUi();
+                    if (playbackService != null && playbackService.getCurrentTrackId() == track.getId()) {
+                        playbackService.stop();
                     }
-                    dbHelper.deleteFmTrack(track.getId());
-                    reloadList(etSearch.getText() == null ? null : etSearch.getText().toString());
-                    Toast.makeText(this, "已删除喵～", Toast.LENGTH_SHORT).show();
+                    repository.deleteFmTrack(this, track.getId(), ok -> {
+                        reloadList(listQuery, true);
+                        Toast.makeText(this, "已删除喵～", Toast.LENGTH_SHORT).show();
+                    });
                 })
                 .show();
     }
@@ -644,6 +866,15 @@ public class CatFmActivity extends AppCompatActivity {
         return editText.getText().toString().trim();
     }
 
+    /**
+     * 把选好的音频交给当前对话框（对话框已关闭时忽略）。
+     */
+    private void deliverPickedAudio(Uri uri) {
+        if (pendingAudioReceiver != null) {
+            pendingAudioReceiver.onPicked(uri);
+        }
+    }
+
     /**
      * 持久化读取权限，避免下次启动无法访问。
      */
@@ -655,9 +886,12 @@ public class CatFmActivity extends AppCompatActivity {
     }
 
     /**
-     * 获取音频文件展示名（失败则回退到 Uri 字符串）。
+     * 获取音频文件展示名（本地副本按内容摘要命名，显示为“本地副本”；失败则回退到 Uri 字符串）。
      */
     private String getDisplayName(Uri uri) {
+        if (ContentResolver.SCHEME_FILE.equals(uri.getScheme())) {
+            return "本地副本";
+        }
         Cursor cursor = null;
         try {
             cursor = getContentResolver().query(uri, null, null, null, null);
@@ -675,17 +909,4 @@ public class CatFmActivity extends AppCompatActivity {
         }
         return uri.toString();
     }
-
-    /**
-     * 把毫秒格式化成 mm:ss。
-     */
-    private static String formatTime(int ms) {
-        if (ms < 0) {
-            ms = 0;
-        }
-        int totalSeconds = ms / 1000;
-        int minutes = totalSeconds / 60;
-        int seconds = totalSeconds % 60;
-        return String.format(java.util.Locale.getDefault(), "%02d:%02d", minutes, seconds);
-    }
 }
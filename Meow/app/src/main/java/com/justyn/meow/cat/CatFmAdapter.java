@@ -1,25 +1,28 @@
 package com.justyn.meow.cat;
 
-import android.annotation.SuppressLint;
 import android.view.LayoutInflater;
 import android.view.View;
 import android.view.ViewGroup;
 import android.widget.TextView;
 
 import androidx.annotation.NonNull;
+import androidx.core.content.ContextCompat;
 import androidx.recyclerview.widget.RecyclerView;
 
 import com.google.android.material.button.MaterialButton;
 import com.google.android.material.card.MaterialCardView;
 import com.justyn.meow.R;
+import com.justyn.meow.util.TimeText;
 
 import java.util.List;
+import java.util.Objects;
 
 /**
  * 喵音 FM 列表适配器：
  * 负责渲染音频条目与“添加喵音”入口，并把交互回调给 Activity。
+ * 数据按页从数据库读取，见 {@link KeysetPagingAdapter}。
  */
-public class CatFmAdapter extends RecyclerView.Adapter<CatFmAdapter.FmViewHolder> {
+public class CatFmAdapter extends KeysetPagingAdapter<FmTrack, CatFmAdapter.FmViewHolder> {
 
     /**
      * 列表交互回调
@@ -32,55 +35,66 @@ public class CatFmAdapter extends RecyclerView.Adapter<CatFmAdapter.FmViewHolder
         void onItemLongPressed(FmTrack track);
     }
 
-    // 音频列表条目数据
-    private List<FmTrack> data;
+    // 局部刷新标记：只有播放状态变化
+    private static final Object PAYLOAD_PLAYBACK_STATE = new Object();
+
     // 由 Activity 传进来的点击回调
     private final Listener listener;
 
-    // 当前正在播放的 position（默认 NO_POSITION = -1，表示没有正在播放）
-    private int playingPosition = RecyclerView.NO_POSITION;
+    // 当前正在播放的音频 ID（-1 表示没有正在播放）
+    // 按 ID 而不是下标记录：搜索过滤、翻页后同一条仍能保持高亮
+    private long playingTrackId = -1;
     // 当前播放状态（决定按钮显示“暂停/继续”）
     private boolean isPlaying;
+    // 是否正在准备（已点击、尚未出声）
+    private boolean isPreparing;
 
     /**
      * 构造适配器。
      *
-     * @param data     列表数据
+     * @param loader   分页数据来源
      * @param listener 交互回调
      */
-    public CatFmAdapter(List<FmTrack> data, Listener listener) {
-        this.data = data;
+    public CatFmAdapter(PageLoader<FmTrack> loader, Listener listener) {
+        super(loader, FmTrack.addEntry());
         this.listener = listener;
     }
 
     /**
-     * 替换数据并刷新列表。
+     * 由 Activity 在“播放 / 暂停 / 停止某一条语音”之后调用，
+     * 同时更新当前播放的音频 ID 以及是否处于播放状态（用于展示「暂停 / 继续」文案）。
+     * trackId 传 -1 表示没有任何一条在播放。
+     * 只刷新新旧两条播放行，其余行不重新绑定。
      */
-    @SuppressLint("NotifyDataSetChanged")
-    public void submitList(List<FmTrack> newData) {
-        this.data = newData;
-        notifyDataSetChanged();
+    public void updatePlayingState(long trackId, boolean isPlaying) {
+        updatePlayingState(trackId, isPlaying, false);
     }
 
     /**
-     * 由 Activity 在“播放 / 停止某一条语音”之后调用，
-     * 用来刷新列表里的「▶ 播放 / ⏸ 暂停」按钮状态。
-     * 如果传 RecyclerView.NO_POSITION，表示没有任何一条在播放
+     * 同上，额外指明该条是否仍在准备中（按钮显示「准备中」）。
      */
-    @SuppressLint("NotifyDataSetChanged")
-    public void updatePlayingPosition(int position) {
-        // 默认认为正在播放，兼容旧调用
-        updatePlayingState(position, position != RecyclerView.NO_POSITION);
+    public void updatePlayingState(long trackId, boolean isPlaying, boolean isPreparing) {
+        long oldTrackId = this.playingTrackId;
+        if (oldTrackId == trackId && this.isPlaying == isPlaying && this.isPreparing == isPreparing) {
+            return;
+        }
+        this.playingTrackId = trackId;
+        this.isPlaying = isPlaying;
+        this.isPreparing = isPreparing;
+        notifyTrackChanged(oldTrackId);
+        if (trackId != oldTrackId) {
+            notifyTrackChanged(trackId);
+        }
     }
 
-    /**
-     * 同时更新当前播放的下标以及是否处于播放状态（用于展示「暂停 / 继续」文案）
-     */
-    @SuppressLint("NotifyDataSetChanged")
-    public void updatePlayingState(int position, boolean isPlaying) {
-        this.playingPosition = position;
-        this.isPlaying = isPlaying;
-        notifyDataSetChanged();
+    private void notifyTrackChanged(long trackId) {
+        if (trackId == -1) {
+            return;
+        }
+        int position = findPositionById(trackId);
+        if (position != RecyclerView.NO_POSITION) {
+            notifyItemChanged(position, PAYLOAD_PLAYBACK_STATE);
+        }
     }
 
     @NonNull
@@ -89,70 +103,78 @@ public class CatFmAdapter extends RecyclerView.Adapter<CatFmAdapter.FmViewHolder
         // 创建每一行的 View 使用 item_fm_track.xml
         View itemView = LayoutInflater.from(parent.getContext())
                 .inflate(R.layout.item_fm_track, parent, false);
-        return new FmViewHolder(itemView);
+        FmViewHolder holder = new FmViewHolder(itemView);
+
+        // 点击事件只在创建时设置一次，点击时再按当前位置取数据
+        // 播放按钮与整个卡片点击一致：添加入口 → 新增，普通条目 → 播放/暂停
+        View.OnClickListener clickListener = v -> {
+            int adapterPos = holder.getBindingAdapterPosition();
+            FmTrack track = adapterPos == RecyclerView.NO_POSITION ? null : getItem(adapterPos);
+            if (track == null || listener == null) {
+                return;
+            }
+            if (track.isAddEntry()) {
+                listener.onAddClicked();
+            } else {
+                listener.onPlayClicked(track, adapterPos);
+            }
+        };
+        holder.btnPlayPause.setOnClickListener(clickListener);
+        holder.cardTrack.setOnClickListener(clickListener);
+
+        // 长按：弹出操作（编辑/删除），添加入口与占位行不响应
+        holder.cardTrack.setOnLongClickListener(v -> {
+            int adapterPos = holder.getBindingAdapterPosition();
+            FmTrack track = adapterPos == RecyclerView.NO_POSITION ? null : getItem(adapterPos);
+            if (track != null && !track.isAddEntry() && listener != null) {
+                listener.onItemLongPressed(track);
+            }
+            return true;
+        });
+        return holder;
     }
 
     @Override
-    public void onBindViewHolder(@NonNull FmViewHolder holder, int position) {
-        // 绑定数据
-        FmTrack track = data.get(position);
+    public void onBindViewHolder(@NonNull FmViewHolder holder, int position, @NonNull List<Object> payloads) {
+        // 只有播放状态变化时走轻量刷新：只改按钮文案与卡片高亮
+        FmTrack track = payloads.contains(PAYLOAD_PLAYBACK_STATE) ? getItem(position) : null;
+        if (track != null && !track.isAddEntry()) {
+            boolean isCurrent = track.getId() == playingTrackId;
+            holder.bindPlaybackState(isCurrent, isCurrent && this.isPlaying, isCurrent && this.isPreparing);
+            return;
+        }
+        super.onBindViewHolder(holder, position, payloads);
+    }
+
+    @Override
+    protected void onBindItem(@NonNull FmViewHolder holder, @NonNull FmTrack track, int position) {
         if (track.isAddEntry()) {
             holder.bindAsAddEntry();
-
-            holder.btnPlayPause.setOnClickListener(v -> {
-                if (listener != null) {
-                    listener.onAddClicked();
-                }
-            });
-            holder.cardTrack.setOnClickListener(v -> {
-                if (listener != null) {
-                    listener.onAddClicked();
-                }
-            });
-            holder.cardTrack.setOnLongClickListener(v -> true);
             return;
         }
 
         // 判断这一条是不是当前正在播放的那一条
-        boolean isPlaying = (position == playingPosition);
+        boolean isPlaying = (track.getId() == playingTrackId);
 
         // 把数据和“是否正在播放”的状态一并交给 ViewHolder
-        holder.bind(track, isPlaying, isPlaying && this.isPlaying);
-
-        // 播放按钮点击事件
-        holder.btnPlayPause.setOnClickListener(v -> {
-            if (listener != null) {
-                // 再拿一次 adapterPosition，避免下标过期
-                int adapterPos = holder.getBindingAdapterPosition();
-                if (adapterPos != RecyclerView.NO_POSITION) {
-                    // 把当前条目的 track + 位置抛给 Activity
-                    listener.onPlayClicked(track, adapterPos);
-                }
-            }
-        });
+        holder.bind(track, isPlaying, isPlaying && this.isPlaying, isPlaying && this.isPreparing);
+    }
 
-        // 整个卡片点击：与之前一致（点击条目播放/暂停）
-        holder.cardTrack.setOnClickListener(v -> {
-            if (listener != null) {
-                int adapterPos = holder.getBindingAdapterPosition();
-                if (adapterPos != RecyclerView.NO_POSITION) {
-                    listener.onPlayClicked(track, adapterPos);
-                }
-            }
-        });
+    @Override
+    protected long getStableId(@NonNull FmTrack track) {
+        return track.isAddEntry() ? FmTrack.ADD_ENTRY_ID : track.getId();
+    }
 
-        // 长按：弹出操作（编辑/删除）
-        holder.cardTrack.setOnLongClickListener(v -> {
-            if (listener != null) {
-                listener.onItemLongPressed(track);
-            }
-            return true;
-        });
+    @Override
+    protected boolean areContentsTheSame(@NonNull FmTrack oldTrack, @NonNull FmTrack newTrack) {
+        return Objects.equals(oldTrack.getTitle(), newTrack.getTitle())
+                && Objects.equals(oldTrack.getSubtitle(), newTrack.getSubtitle())
+                && oldTrack.getDurationMs() == newTrack.getDurationMs();
     }
 
     @Override
-    public int getItemCount() {
-        return data == null ? 0 : data.size();
+    protected void onBindPlaceholder(@NonNull FmViewHolder holder) {
+        holder.bindAsPlaceholder();
     }
 
     /**
@@ -166,28 +188,62 @@ public class CatFmAdapter extends RecyclerView.Adapter<CatFmAdapter.FmViewHolder
         MaterialCardView cardTrack;    // 整个卡片
         TextView tvTrackTitle;         // 标题：音频名称
         TextView tvTrackSubtitle;      // 描述
+        TextView tvTrackDuration;      // 时长（来自数据库里的元数据）
         MaterialButton btnPlayPause;   // 播放 / 暂停按钮
 
+        // 正在播放时卡片描边的宽度（像素）
+        private final int highlightStrokeWidth;
+        // 时长文本缓冲区：每个 ViewHolder 一份，TextView 直接引用它
+        private final char[] durationChars = new char[TimeText.BUFFER_SIZE];
+
         FmViewHolder(@NonNull View itemView) {
             super(itemView);
             cardTrack = itemView.findViewById(R.id.cardTrack);
             tvTrackTitle = itemView.findViewById(R.id.tvTrackTitle);
             tvTrackSubtitle = itemView.findViewById(R.id.tvTrackSubtitle);
+            tvTrackDuration = itemView.findViewById(R.id.tvTrackDuration);
             btnPlayPause = itemView.findViewById(R.id.btnPlayPause);
+            highlightStrokeWidth = Math.round(2 * itemView.getResources().getDisplayMetrics().density);
+            cardTrack.setStrokeColor(ContextCompat.getColor(itemView.getContext(), R.color.meow_primary));
         }
 
         /**
          * 绑定每一条数据，并根据 isPlaying 决定按钮文本
          */
-        void bind(FmTrack track, boolean isCurrentPlaying, boolean isActuallyPlaying) {
+        void bind(FmTrack track, boolean isCurrentPlaying, boolean isActuallyPlaying, boolean isPreparing) {
             // 设置标题 / 副标题
             tvTrackTitle.setText(track.getTitle());
             tvTrackSubtitle.setText(track.getSubtitle());
+            bindDuration(track.getDurationMs());
+            bindPlaybackState(isCurrentPlaying, isActuallyPlaying, isPreparing);
+        }
+
+        /**
+         * 显示时长；未知（未探测或探测失败）时隐藏。
+         */
+        private void bindDuration(long durationMs) {
+            if (durationMs <= 0) {
+                tvTrackDuration.setVisibility(View.GONE);
+                return;
+            }
+            int seconds = TimeText.toSeconds((int) Math.min(durationMs, Integer.MAX_VALUE));
+            int length = TimeText.formatSeconds(seconds, durationChars);
+            tvTrackDuration.setText(durationChars, 0, length);
+            tvTrackDuration.setVisibility(View.VISIBLE);
+        }
+
+        /**
+         * 只刷新播放状态：按钮文案 + 卡片高亮。
+         */
+        void bindPlaybackState(boolean isCurrentPlaying, boolean isActuallyPlaying, boolean isPreparing) {
+            cardTrack.setStrokeWidth(isCurrentPlaying ? highlightStrokeWidth : 0);
 
             // 根据是否正在播放切换按钮文案
             // 这里只改文案，真正的播放 / 暂停逻辑在 Activity 里
             if (!isCurrentPlaying) {
                 btnPlayPause.setText("▶ 播放");
+            } else if (isPreparing) {
+                btnPlayPause.setText("… 准备中");
             } else if (isActuallyPlaying) {
                 btnPlayPause.setText("⏸ 暂停");
             } else {
@@ -195,12 +251,25 @@ public class CatFmAdapter extends RecyclerView.Adapter<CatFmAdapter.FmViewHolder
             }
         }
 
+        /**
+         * 绑定占位样式（所在页正在读取）。
+         */
+        void bindAsPlaceholder() {
+            cardTrack.setStrokeWidth(0);
+            tvTrackTitle.setText("加载中…");
+            tvTrackSubtitle.setText("");
+            tvTrackDuration.setVisibility(View.GONE);
+            btnPlayPause.setText("▶ 播放");
+        }
+
         /**
          * 绑定“添加喵音”入口样式。
          */
         void bindAsAddEntry() {
+            cardTrack.setStrokeWidth(0);
             tvTrackTitle.setText("添加喵音");
             tvTrackSubtitle.setText("长按可选择删除、编辑选项～");
+            tvTrackDuration.setVisibility(View.GONE);
             btnPlayPause.setText("＋ 添加");
         }
     }
@@ -16,11 +16,13 @@ import java.util.List;
 /**
  * 猫图墙页面：用网格展示本地猫图集合。
  * <p>
- * 数据来源为本地 drawable 资源，使用 RecyclerView 网格布局展示。
+ * 数据来源为本地 drawable 资源，使用 RecyclerView 网格布局展示；滚动时由 {@link CatPicPrefetcher} 提前解码即将出现的行。
  * </p>
  */
 public class CatPicActivity extends AppCompatActivity {
 
+    private CatPicPrefetcher prefetcher;
+
     /**
      * 初始化网格列表与数据源。
      */
@@ -44,6 +46,16 @@ public class CatPicActivity extends AppCompatActivity {
 
         CatPicAdapter adapter = new CatPicAdapter(picList);
         rvCatPics.setAdapter(adapter);
+
+        // 按滚动方向预取后面几行，快速滑动时图片已在缓存里
+        prefetcher = new CatPicPrefetcher(this, layoutManager, picList);
+        rvCatPics.addOnScrollListener(prefetcher);
+    }
+
+    @Override
+    protected void onDestroy() {
+        prefetcher.cancelAll();
+        super.onDestroy();
     }
 
     /**
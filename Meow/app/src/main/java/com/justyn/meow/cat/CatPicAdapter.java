@@ -11,6 +11,7 @@ import androidx.annotation.NonNull;
 import androidx.recyclerview.widget.RecyclerView;
 
 import com.justyn.meow.R;
+import com.justyn.meow.util.ImageLoader;
 
 import java.util.List;
 
@@ -53,6 +54,13 @@ public class CatPicAdapter extends RecyclerView.Adapter<CatPicAdapter.CatPicView
         return data == null ? 0 : data.size();
     }
 
+    @Override
+    public void onViewRecycled(@NonNull CatPicViewHolder holder) {
+        super.onViewRecycled(holder);
+        // 滑出屏幕的格子不再需要它的图，未开始的解码直接作废
+        ImageLoader.cancel(holder.imgCat);
+    }
+
     /**
      * 猫图 ViewHolder：负责缓存控件引用并绑定数据。
      */
@@ -73,7 +81,8 @@ public class CatPicAdapter extends RecyclerView.Adapter<CatPicAdapter.CatPicView
          * 绑定图片与名称，同时注册点击提示。
          */
         void bind(CatPic pic) {
-            imgCat.setImageResource(pic.getImageResId());
+            // 按格子尺寸解码并走缩略图缓存，来回滚动不再重复解码原图
+            ImageLoader.loadResource(imgCat, pic.getImageResId());
             tvCatName.setText(pic.getName());
 
             // 点一下弹 Toast，说“正在云吸 xxx”
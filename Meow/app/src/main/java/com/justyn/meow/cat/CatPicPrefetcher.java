@@ -0,0 +1,213 @@
+package com.justyn.meow.cat;
+
+import android.content.Context;
+import android.os.SystemClock;
+import android.view.View;
+
+import androidx.annotation.MainThread;
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.annotation.VisibleForTesting;
+import androidx.recyclerview.widget.GridLayoutManager;
+import androidx.recyclerview.widget.RecyclerView;
+
+import com.justyn.meow.R;
+import com.justyn.meow.util.ImageLoader;
+
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Future;
+
+/**
+ * 猫图墙滚动预取：跟踪滚动方向与速度，在后台把即将滚进屏幕的几行图片提前解码进缩略图缓存。
+ * <p>
+ * - 每次滚动后按方向取可见区域之外的 {@link #PREFETCH_ROWS} 行，按格子尺寸交给 {@link ImageLoader#prefetchResource}
+ * - 快速甩动（速度超过 {@link #PAUSE_VELOCITY_DP}dp/s）时暂停：这时预取的行转眼就被甩过去，只会和可见图片抢解码；
+ *   已排队的预取一并作废，减速或停下后再按当时的位置重新预取
+ * - 已经滚出预取窗口（滚走了、或换了方向）的行取消还在排队的任务
+ * - 预取的图片与列表项按相同的来源 + 尺寸存取，滚到时直接命中内存缓存；还在解码的不会被列表项再解码一遍
+ * </p>
+ * 只在主线程使用；页面销毁时调用 {@link #cancelAll()}。
+ */
+public final class CatPicPrefetcher extends RecyclerView.OnScrollListener {
+
+    // 朝滚动方向预取的行数
+    static final int PREFETCH_ROWS = 3;
+    // 超过这个速度视为快速甩动，暂停预取
+    static final float PAUSE_VELOCITY_DP = 4000f;
+
+    private final Context appContext;
+    private final GridLayoutManager layoutManager;
+    private final List<CatPic> picList;
+    private final ScrollWindow window;
+    // 列表位置 → 预取任务
+    private final Map<Integer, Future<?>> pending = new HashMap<>();
+
+    public CatPicPrefetcher(Context context, GridLayoutManager layoutManager, List<CatPic> picList) {
+        this.appContext = context.getApplicationContext();
+        this.layoutManager = layoutManager;
+        this.picList = picList;
+        float density = context.getResources().getDisplayMetrics().density;
+        this.window = new ScrollWindow(PAUSE_VELOCITY_DP * density);
+    }
+
+    @Override
+    public void onScrolled(@NonNull RecyclerView recyclerView, int dx, int dy) {
+        // 布局完成后 RecyclerView 也会以 (0, 0) 回调一次，此时按默认方向（向下）预取首屏之后的行
+        window.onScrolled(dy, SystemClock.uptimeMillis());
+        update();
+    }
+
+    @Override
+    public void onScrollStateChanged(@NonNull RecyclerView recyclerView, int newState) {
+        if (newState == RecyclerView.SCROLL_STATE_IDLE) {
+            window.onIdle();
+            update();
+        }
+    }
+
+    /**
+     * 取消全部预取（页面销毁时调用）。
+     */
+    @MainThread
+    public void cancelAll() {
+        for (Future<?> future : pending.values()) {
+            future.cancel(false);
+        }
+        pending.clear();
+    }
+
+    private void update() {
+        int first = layoutManager.findFirstVisibleItemPosition();
+        int last = layoutManager.findLastVisibleItemPosition();
+        if (first == RecyclerView.NO_POSITION || last == RecyclerView.NO_POSITION) {
+            return;
+        }
+        int[] range = window.isPaused()
+                ? null
+                : window.prefetchRange(first, last, layoutManager.getSpanCount(), picList.size());
+
+        Iterator<Map.Entry<Integer, Future<?>>> it = pending.entrySet().iterator();
+        while (it.hasNext()) {
+            Map.Entry<Integer, Future<?>> entry = it.next();
+            int position = entry.getKey();
+            boolean visible = position >= first && position <= last;
+            boolean wanted = range != null && position >= range[0] && position <= range[1];
+            if (entry.getValue().isDone()) {
+                it.remove();
+            } else if (!visible && !wanted) {
+                // 已经滚走或暂停中：排队中的直接作废。滚进屏幕的保留：已在解码的由列表项等它完成后取缓存，
+                // 还在排队的由列表项接手解码（预取轮到时跳过），同一张图都只解码一次
+                entry.getValue().cancel(false);
+                it.remove();
+            }
+        }
+        if (range == null) {
+            return;
+        }
+
+        int[] cellSize = cellSize(first);
+        if (cellSize == null) {
+            return;
+        }
+        // 由近到远提交，离屏幕最近的行先解码
+        boolean down = window.getDirection() > 0;
+        for (int i = 0; i <= range[1] - range[0]; i++) {
+            int position = down ? range[0] + i : range[1] - i;
+            if (!pending.containsKey(position)) {
+                int resId = picList.get(position).getImageResId();
+                pending.put(position, ImageLoader.prefetchResource(appContext, resId, cellSize[0], cellSize[1]));
+            }
+        }
+    }
+
+    /**
+     * 格子里图片的实际尺寸（取一个已布局的可见项），与列表项加载时的缓存键一致。
+     */
+    @Nullable
+    private int[] cellSize(int position) {
+        View item = layoutManager.findViewByPosition(position);
+        View image = item == null ? null : item.findViewById(R.id.imgCat);
+        if (image == null || image.getWidth() <= 0 || image.getHeight() <= 0) {
+            return null;
+        }
+        return new int[]{image.getWidth(), image.getHeight()};
+    }
+
+    /**
+     * 滚动状态：方向、平滑后的速度，以及据此算出的预取范围。不依赖 Android，便于本地单元测试。
+     */
+    @VisibleForTesting
+    static final class ScrollWindow {
+
+        // 速度的指数平滑系数：单帧的位移波动较大，平滑后再和阈值比较
+        private static final float SMOOTHING = 0.5f;
+        // 两次滚动回调间隔超过这个时长视为重新开始滚动，不沿用旧速度
+        private static final long STALE_MILLIS = 100;
+
+        private final float pauseVelocity;
+        private int direction = 1;
+        // 像素/秒
+        private float velocity;
+        private long lastEventMillis = -1;
+
+        ScrollWindow(float pauseVelocity) {
+            this.pauseVelocity = pauseVelocity;
+        }
+
+        void onScrolled(int dy, long nowMillis) {
+            if (dy == 0) {
+                return;
+            }
+            direction = dy > 0 ? 1 : -1;
+            long elapsed = lastEventMillis < 0 ? Long.MAX_VALUE : nowMillis - lastEventMillis;
+            lastEventMillis = nowMillis;
+            if (elapsed > STALE_MILLIS) {
+                // 刚开始滚动：还算不出速度，先按慢速处理
+                velocity = 0;
+                return;
+            }
+            float instant = Math.abs(dy) * 1000f / Math.max(1, elapsed);
+            velocity += (instant - velocity) * SMOOTHING;
+        }
+
+        void onIdle() {
+            velocity = 0;
+            lastEventMillis = -1;
+        }
+
+        boolean isPaused() {
+            return velocity > pauseVelocity;
+        }
+
+        int getDirection() {
+            return direction;
+        }
+
+        float getVelocity() {
+            return velocity;
+        }
+
+        /**
+         * 朝滚动方向、可见区域之外 {@link #PREFETCH_ROWS} 行的位置范围。
+         *
+         * @return {起始位置, 结束位置}（含两端）；已到列表尽头时为 null
+         */
+        @Nullable
+        int[] prefetchRange(int firstVisible, int lastVisible, int spanCount, int itemCount) {
+            int count = PREFETCH_ROWS * spanCount;
+            int from;
+            int to;
+            if (direction > 0) {
+                from = lastVisible + 1;
+                to = Math.min(itemCount - 1, lastVisible + count);
+            } else {
+                from = Math.max(0, firstVisible - count);
+                to = firstVisible - 1;
+            }
+            return from <= to ? new int[]{from, to} : null;
+        }
+    }
+}
@@ -8,6 +8,9 @@ import androidx.annotation.Nullable;
  */
 public class CatProfile {
 
+    // “添加入口”的保留 id（数据库自增 id 从 1 开始，不会冲突）
+    public static final long ADD_ENTRY_ID = -1;
+
     // 数据库主键 id
     private final long id;
     // 名字：四月
@@ -67,7 +70,7 @@ public class CatProfile {
      * 返回“添加猫咪”入口数据（列表底部占位）。
      */
     public static CatProfile addEntry() {
-        return new CatProfile(-1, "添加猫咪", "点我新增一只猫咪～", "", "", 0, null, true);
+        return new CatProfile(ADD_ENTRY_ID, "添加猫咪", "点我新增一只猫咪～", "", "", 0, null, true);
     }
 
     /**
@@ -15,9 +15,14 @@ import androidx.recyclerview.widget.RecyclerView;
 import com.google.android.material.dialog.MaterialAlertDialogBuilder;
 import com.google.android.material.appbar.MaterialToolbar;
 import com.google.android.material.textfield.TextInputEditText;
+import com.justyn.meow.MeowApplication;
 import com.justyn.meow.R;
-import com.justyn.meow.data.MeowDbHelper;
+import com.justyn.meow.data.LocalCopyStore;
+import com.justyn.meow.data.MeowRepository;
+import com.justyn.meow.util.ImageLoader;
 import com.justyn.meow.util.MeowPreferences;
+import com.justyn.meow.util.PageOpenMetrics;
+import com.justyn.meow.util.SearchPipeline;
 
 import java.util.ArrayList;
 import java.util.List;
@@ -33,13 +38,17 @@ import java.util.List;
  */
 public class CatProfileActivity extends AppCompatActivity {
 
-    // 数据库操作类
-    private MeowDbHelper dbHelper;
+    // 数据仓库：在后台线程读写档案
+    private MeowRepository repository;
     private String currentUsername;
+    // 列表当前使用的关键字（分页加载时沿用同一个关键字）
+    private String listQuery;
     // 列表适配器
     private CatProfileAdapter adapter;
     // 搜索输入框
     private TextInputEditText etSearch;
+    // 打开耗时统计（首帧 / 第一页数据画出）
+    private final PageOpenMetrics openMetrics = new PageOpenMetrics("profile");
 
     // 临时回调：用于接收系统图片选择器的 Uri
     private interface UriReceiver {
@@ -59,11 +68,12 @@ public class CatProfileActivity extends AppCompatActivity {
         super.onCreate(savedInstanceState);
         EdgeToEdge.enable(this);
         setContentView(R.layout.activity_cat_profile);
+        openMetrics.trackFirstFrame(this);
 
         MaterialToolbar toolbar = findViewById(R.id.topAppBar4);
         toolbar.setNavigationOnClickListener(v -> finish());
 
-        dbHelper = new MeowDbHelper(this);
+        repository = MeowApplication.from(this).getRepository();
         currentUsername = MeowPreferences.getUsername(this);
 
         etSearch = findViewById(R.id.etSearch);
@@ -74,19 +84,42 @@ public class CatProfileActivity extends AppCompatActivity {
                     if (uri == null) {
                         return;
                     }
-                    persistReadPermission(uri);
-                    if (pendingImageReceiver != null) {
-                        pendingImageReceiver.onPicked(uri);
+                    if (!MeowPreferences.isKeepLocalCopies(this)) {
+                        persistReadPermission(uri);
+                        deliverPickedImage(uri);
+                        return;
                     }
+                    // 本地副本模式：档案引用复制出的小图，不需要长期持有文档授权；复制失败时退回文档 Uri
+                    repository.importLocalCopy(this, uri, LocalCopyStore.Kind.AVATAR, localUri -> {
+                        if (localUri.equals(uri)) {
+                            persistReadPermission(uri);
+                        }
+                        deliverPickedImage(localUri);
+                    });
                 }
         );
 
+        toolbar.inflateMenu(R.menu.menu_cat_profile);
+        toolbar.getMenu().findItem(R.id.action_keep_local_copy).setChecked(MeowPreferences.isKeepLocalCopies(this));
+        toolbar.setOnMenuItemClickListener(item -> {
+            if (item.getItemId() != R.id.action_keep_local_copy) {
+                return false;
+            }
+            item.setChecked(!item.isChecked());
+            MeowPreferences.setKeepLocalCopies(this, item.isChecked());
+            return true;
+        });
+
         RecyclerView rvCatList = findViewById(R.id.rvTracks);
         rvCatList.setLayoutManager(new LinearLayoutManager(this));
 
         seedDefaultProfilesIfNeeded();
 
-        adapter = new CatProfileAdapter(new ArrayList<>(), new CatProfileAdapter.Listener() {
+        adapter = new CatProfileAdapter((after, limit, callback) -> repository.loadCatProfilePage(
+                this, currentUsername, listQuery, after, limit, page -> {
+                    openMetrics.markFirstPage(page.getItems().size());
+                    callback.onResult(page);
+                }), new CatProfileAdapter.Listener() {
             @Override
             public void onAddClicked() {
                 showAddDialog();
@@ -109,59 +142,38 @@ public class CatProfileActivity extends AppCompatActivity {
 
         rvCatList.setAdapter(adapter);
 
-        reloadList(null);
-
-        etSearch.addTextChangedListener(new android.text.TextWatcher() {
-            @Override
-            public void beforeTextChanged(CharSequence s, int start, int count, int after) {
-            }
-
-            @Override
-            public void onTextChanged(CharSequence s, int start, int before, int count) {
-                reloadList(s == null ? null : s.toString());
-            }
+        reloadList(null, false);
 
-            @Override
-            public void afterTextChanged(android.text.Editable s) {
-            }
-        });
+        // 搜索框防抖过滤列表，与喵音 FM 共用同一套搜索管线
+        SearchPipeline.attach(this, etSearch, SearchPipeline.DEFAULT_DEBOUNCE_MS,
+                query -> reloadList(query, false));
     }
 
     /**
      * 初始化默认猫咪档案（仅第一次进入时写入）。
      */
     private void seedDefaultProfilesIfNeeded() {
-        if (MeowPreferences.isCatProfileSeeded(this, currentUsername)) {
-            return;
-        }
-        if (dbHelper.hasAnyCatProfiles(currentUsername)) {
-            MeowPreferences.markCatProfileSeeded(this, currentUsername);
-            return;
-        }
-        List<CatProfile> defaults = buildLocalCatProfiles();
-        for (CatProfile profile : defaults) {
-            dbHelper.insertCatProfile(
-                    currentUsername,
-                    profile.getName(),
-                    profile.getAge(),
-                    profile.getBreed(),
-                    profile.getIntro(),
-                    profile.getAvatarResId(),
-                    null
-            );
-        }
-        MeowPreferences.markCatProfileSeeded(this, currentUsername);
+        // 查询与写入并发执行，写入完成后再刷新一次列表
+        repository.seedCatProfilesIfNeeded(this, currentUsername, buildLocalCatProfiles(), seeded -> {
+            if (Boolean.TRUE.equals(seeded)) {
+                reloadList(listQuery, true);
+            }
+        }).onError(e -> {
+            // 默认档案写入失败不影响已有数据，下次进入再试
+            Toast.makeText(this, "默认猫咪档案初始化失败了喵～", Toast.LENGTH_SHORT).show();
+            reloadList(listQuery, true);
+        });
     }
 
     /**
      * 读取数据库并刷新列表。
      *
-     * @param titleQuery 标题关键字，空表示不过滤
+     * @param titleQuery   标题关键字，空表示不过滤
+     * @param keepPosition 是否保留当前滚动位置（增删改后为 true）
      */
-    private void reloadList(String titleQuery) {
-        List<CatProfile> profiles = dbHelper.queryCatProfiles(currentUsername, titleQuery);
-        profiles.add(CatProfile.addEntry());
-        adapter.submitList(profiles);
+    private void reloadList(String titleQuery, boolean keepPosition) {
+        listQuery = titleQuery;
+        adapter.refresh(keepPosition);
     }
 
     /**
@@ -181,7 +193,7 @@ public class CatProfileActivity extends AppCompatActivity {
         btnPickAvatar.setOnClickListener(v -> {
             pendingImageReceiver = uri -> {
                 selectedAvatarUri[0] = uri;
-                imgAvatar.setImageURI(uri);
+                ImageLoader.load(imgAvatar, uri.toString(), R.drawable.logo);
             };
             imagePickerLauncher.launch(new String[]{"image/*"});
         });
@@ -215,8 +227,8 @@ public class CatProfileActivity extends AppCompatActivity {
                 avatarResId = R.drawable.logo;
             }
 
-            dbHelper.insertCatProfile(currentUsername, title, age, personality, description, avatarResId, avatarUri);
-            reloadList(etSearch.getText() == null ? null : etSearch.getText().toString());
+            repository.insertCatProfile(this, currentUsername, title, age, personality, description,
+                    avatarResId, avatarUri, rowId -> reloadList(listQuery, true));
             dialog.dismiss();
         });
     }
@@ -239,7 +251,7 @@ public class CatProfileActivity extends AppCompatActivity {
         etDescription.setText(profile.getIntro());
 
         if (profile.getAvatarUri() != null) {
-            imgAvatar.setImageURI(Uri.parse(profile.getAvatarUri()));
+            ImageLoader.load(imgAvatar, profile.getAvatarUri(), R.drawable.logo);
         } else if (profile.getAvatarResId() != 0) {
             imgAvatar.setImageResource(profile.getAvatarResId());
         }
@@ -249,7 +261,7 @@ public class CatProfileActivity extends AppCompatActivity {
         btnPickAvatar.setOnClickListener(v -> {
             pendingImageReceiver = uri -> {
                 selectedAvatarUri[0] = uri;
-                imgAvatar.setImageURI(uri);
+                ImageLoader.load(imgAvatar, uri.toString(), R.drawable.logo);
             };
             imagePickerLauncher.launch(new String[]{"image/*"});
         });
@@ -285,8 +297,8 @@ public class CatProfileActivity extends AppCompatActivity {
                 avatarResId = profile.getAvatarResId();
             }
 
-            dbHelper.updateCatProfile(profile.getId(), title, age, personality, description, avatarResId, avatarUri);
-            reloadList(etSearch.getText() == null ? null : etSearch.getText().toString());
+            repository.updateCatProfile(this, profile.getId(), title, age, personality, description,
+                    avatarResId, avatarUri, ok -> reloadList(listQuery, true));
             dialog.dismiss();
         });
     }
@@ -301,9 +313,10 @@ public class CatProfileActivity extends AppCompatActivity {
                 .setNegativeButton("取消", (d, which) -> {
                 })
                 .setPositiveButton("删除", (d, which) -> {
-                    dbHelper.deleteCatProfile(profile.getId());
-                    reloadList(etSearch.getText() == null ? null : etSearch.getText().toString());
-                    Toast.makeText(this, "已删除喵～", Toast.LENGTH_SHORT).show();
+                    repository.deleteCatProfile(this, profile.getId(), ok -> {
+                        reloadList(listQuery, true);
+                        Toast.makeText(this, "已删除喵～", Toast.LENGTH_SHORT).show();
+                    });
                 })
                 .show();
     }
@@ -337,6 +350,15 @@ public class CatProfileActivity extends AppCompatActivity {
         return editText.getText().toString().trim();
     }
 
+    /**
+     * 把选好的图片交给当前对话框（对话框已关闭时忽略）。
+     */
+    private void deliverPickedImage(Uri uri) {
+        if (pendingImageReceiver != null) {
+            pendingImageReceiver.onPicked(uri);
+        }
+    }
+
     /**
      * 持久化读取权限，确保下次启动仍可访问图片 Uri。
      */
@@ -10,17 +10,16 @@ import androidx.annotation.NonNull;
 import androidx.recyclerview.widget.RecyclerView;
 
 import com.justyn.meow.R;
+import com.justyn.meow.util.ImageLoader;
 
-import java.util.List;
+import java.util.Objects;
 
 /**
  * 猫咪档案列表适配器
  * 负责把 CatProfile 数据绑定到 item_cat_profile.xml 的控件上
+ * 数据按页从数据库读取，见 {@link KeysetPagingAdapter}。
  */
-public class CatProfileAdapter extends RecyclerView.Adapter<CatProfileAdapter.CatViewHolder> {
-
-    // 列表数据
-    private List<CatProfile> data;
+public class CatProfileAdapter extends KeysetPagingAdapter<CatProfile, CatProfileAdapter.CatViewHolder> {
 
     /**
      * 列表交互回调
@@ -39,22 +38,14 @@ public class CatProfileAdapter extends RecyclerView.Adapter<CatProfileAdapter.Ca
     /**
      * 构造适配器。
      *
-     * @param data     初始数据
+     * @param loader   分页数据来源
      * @param listener 交互回调
      */
-    public CatProfileAdapter(List<CatProfile> data, Listener listener) {
-        this.data = data;
+    public CatProfileAdapter(PageLoader<CatProfile> loader, Listener listener) {
+        super(loader, CatProfile.addEntry());
         this.listener = listener;
     }
 
-    /**
-     * 替换列表数据并刷新。
-     */
-    public void submitList(List<CatProfile> newData) {
-        this.data = newData;
-        notifyDataSetChanged();
-    }
-
     @NonNull
     @Override
     public CatViewHolder onCreateViewHolder(@NonNull ViewGroup parent, int viewType) {
@@ -64,8 +55,7 @@ public class CatProfileAdapter extends RecyclerView.Adapter<CatProfileAdapter.Ca
     }
 
     @Override
-    public void onBindViewHolder(@NonNull CatViewHolder holder, int position) {
-        CatProfile profile = data.get(position);
+    protected void onBindItem(@NonNull CatViewHolder holder, @NonNull CatProfile profile, int position) {
         if (profile.isAddEntry()) {
             holder.bindAsAddEntry();
             holder.itemView.setOnClickListener(v -> {
@@ -96,8 +86,32 @@ public class CatProfileAdapter extends RecyclerView.Adapter<CatProfileAdapter.Ca
     }
 
     @Override
-    public int getItemCount() {
-        return data == null ? 0 : data.size();
+    protected long getStableId(@NonNull CatProfile profile) {
+        return profile.isAddEntry() ? CatProfile.ADD_ENTRY_ID : profile.getId();
+    }
+
+    @Override
+    protected boolean areContentsTheSame(@NonNull CatProfile oldProfile, @NonNull CatProfile newProfile) {
+        return Objects.equals(oldProfile.getName(), newProfile.getName())
+                && Objects.equals(oldProfile.getBreed(), newProfile.getBreed())
+                && Objects.equals(oldProfile.getAge(), newProfile.getAge())
+                && Objects.equals(oldProfile.getIntro(), newProfile.getIntro())
+                && oldProfile.getAvatarResId() == newProfile.getAvatarResId()
+                && Objects.equals(oldProfile.getAvatarUri(), newProfile.getAvatarUri());
+    }
+
+    @Override
+    protected void onBindPlaceholder(@NonNull CatViewHolder holder) {
+        holder.bindAsPlaceholder();
+        holder.itemView.setOnClickListener(null);
+        holder.itemView.setOnLongClickListener(null);
+    }
+
+    @Override
+    public void onViewRecycled(@NonNull CatViewHolder holder) {
+        super.onViewRecycled(holder);
+        // 回收的行不再需要它的头像，未开始的解码直接作废
+        ImageLoader.cancel(holder.imgCatAvatar);
     }
 
     /**
@@ -129,22 +143,31 @@ public class CatProfileAdapter extends RecyclerView.Adapter<CatProfileAdapter.Ca
          * 绑定普通猫咪档案数据。
          */
         void bind(CatProfile profile) {
-            imgCatAvatar.setImageURI(null);
-            if (profile.getAvatarUri() != null) {
-                imgCatAvatar.setImageURI(android.net.Uri.parse(profile.getAvatarUri()));
-            } else {
-                imgCatAvatar.setImageResource(profile.getAvatarResId());
-            }
+            // 相册头像在后台按头像尺寸降采样解码，内置头像直接用资源
+            ImageLoader.load(imgCatAvatar, profile.getAvatarUri(), profile.getAvatarResId());
             tvCatName.setText(profile.getName());
             tvCatBreed.setText(profile.getBreed());
             tvCatAge.setText(profile.getAge());
             tvCatIntro.setText(profile.getIntro());
         }
 
+        /**
+         * 绑定占位样式（所在页正在读取）。
+         */
+        void bindAsPlaceholder() {
+            ImageLoader.cancel(imgCatAvatar);
+            imgCatAvatar.setImageDrawable(null);
+            tvCatName.setText("加载中…");
+            tvCatBreed.setText("");
+            tvCatAge.setText("");
+            tvCatIntro.setText("");
+        }
+
         /**
          * 绑定“添加猫咪”入口样式。
          */
         void bindAsAddEntry() {
+            ImageLoader.cancel(imgCatAvatar);
             imgCatAvatar.setImageResource(R.drawable.ic_meow_add);
             tvCatName.setText("添加猫咪");
             tvCatBreed.setText("点击新增档案");
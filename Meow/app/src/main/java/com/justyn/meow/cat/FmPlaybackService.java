@@ -0,0 +1,662 @@
+package com.justyn.meow.cat;
+
+import android.app.Notification;
+import android.app.NotificationChannel;
+import android.app.NotificationManager;
+import android.app.PendingIntent;
+import android.app.Service;
+import android.content.Intent;
+import android.content.pm.ServiceInfo;
+import android.content.res.AssetFileDescriptor;
+import android.media.AudioAttributes;
+import android.media.MediaPlayer;
+import android.net.Uri;
+import android.os.Binder;
+import android.os.Build;
+import android.os.IBinder;
+import android.os.SystemClock;
+import android.util.Log;
+
+import androidx.annotation.Nullable;
+import androidx.core.app.NotificationCompat;
+import androidx.core.app.ServiceCompat;
+import androidx.core.content.ContextCompat;
+
+import com.justyn.meow.MeowApplication;
+import com.justyn.meow.R;
+import com.justyn.meow.data.FmTrackOrder;
+import com.justyn.meow.data.MeowRepository;
+import com.justyn.meow.util.MeowExecutors;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * 喵音 FM 播放服务：持有唯一的 MediaPlayer，页面关闭或息屏后继续播放。
+ * <p>
+ * 使用方式：
+ * - 页面在 onStart 绑定、onStop 解绑，通过 {@link LocalBinder#getService()} 拿到客户端接口
+ * - 开始播放时服务把自己切到前台（带通知），暂停时保留通知，停止或播完后退出前台
+ * - 页面重新进入时直接读取当前播放状态，不需要重新创建播放器
+ * - 播放器异步准备：打开文件在媒体 I/O 线程，解码器准备用 prepareAsync，主线程不会被慢速存储卡住
+ * - 连续播放：按当前列表筛选顺序预备下一首，两个播放器轮流 reset 复用，用 setNextMediaPlayer 无缝衔接
+ * 所有方法都在主线程调用。
+ * </p>
+ */
+public class FmPlaybackService extends Service {
+
+    /**
+     * 播放状态变化回调（主线程）。
+     */
+    public interface Listener {
+        void onPlaybackStateChanged();
+
+        /**
+         * 音频打开或准备失败。
+         */
+        default void onPlaybackError(FmTrack track) {
+        }
+    }
+
+    /**
+     * 绑定服务后拿到的 Binder。
+     */
+    public class LocalBinder extends Binder {
+        public FmPlaybackService getService() {
+            return FmPlaybackService.this;
+        }
+    }
+
+    // 通知栏按钮动作
+    private static final String ACTION_TOGGLE = "com.justyn.meow.fm.TOGGLE";
+    private static final String ACTION_STOP = "com.justyn.meow.fm.STOP";
+
+    private static final String CHANNEL_ID = "meow_fm_playback";
+    private static final int NOTIFICATION_ID = 1001;
+    private static final String TAG = "FmPlaybackService";
+
+    private final IBinder binder = new LocalBinder();
+    private final List<Listener> listeners = new ArrayList<>();
+
+    // 当前播放器（首次播放时创建，之后通过 reset 复用）
+    @Nullable
+    private MediaPlayer mediaPlayer;
+    // 预备下一首的播放器：与 mediaPlayer 轮流使用，实现无缝衔接
+    @Nullable
+    private MediaPlayer nextPlayer;
+    // 已预备（或正在预备）的下一首
+    @Nullable
+    private FmTrack nextTrack;
+    // 下一首是否已准备好并交给了当前播放器
+    private boolean nextPrepared;
+    // 下一首的查询是否还没回调（此时 nextTrack 为 null 不代表列表已播完）
+    private boolean nextLookupPending;
+    // 当前音频已播完、正等下一首的查询结果：结果到达后直接播放
+    private boolean playNextWhenFound;
+    // 预备请求代次：队列或当前音频变化时递增
+    private int nextGeneration;
+    // 连续播放队列：当前列表的用户、关键字与排序
+    @Nullable
+    private String queueUsername;
+    @Nullable
+    private String queueQuery;
+    private FmTrackOrder queueOrder = FmTrackOrder.DEFAULT;
+    // 查询下一首用的数据仓库
+    private MeowRepository repository;
+    // 当前播放（或正在准备）的音频（没有在播时为 null）
+    @Nullable
+    private FmTrack currentTrack;
+    // 播放器是否已准备完成（准备中不能 seek / 取时长）
+    private boolean prepared;
+    // 播放请求代次：每次点击递增，旧请求的异步结果直接丢弃
+    private int playGeneration;
+    // 当前请求的点击时间（elapsedRealtime），用于统计首次出声耗时
+    private long playRequestedAt;
+    // 每条音频最近一次的首次出声耗时（毫秒）
+    private final Map<Long, Long> timeToFirstAudioMs = new HashMap<>();
+    // 是否处于前台服务状态
+    private boolean foreground;
+
+    @Override
+    public void onCreate() {
+        super.onCreate();
+        repository = MeowApplication.from(this).getRepository();
+        createNotificationChannel();
+    }
+
+    @Nullable
+    @Override
+    public IBinder onBind(Intent intent) {
+        return binder;
+    }
+
+    @Override
+    public int onStartCommand(Intent intent, int flags, int startId) {
+        String action = intent == null ? null : intent.getAction();
+        if (ACTION_TOGGLE.equals(action)) {
+            togglePlayPause();
+        } else if (ACTION_STOP.equals(action)) {
+            stop();
+        }
+        // 进程被回收后不自动重启：播放状态无法恢复，重启也没有意义
+        return START_NOT_STICKY;
+    }
+
+    @Override
+    public void onDestroy() {
+        nextGeneration++;
+        playGeneration++;
+        releasePlayers();
+        listeners.clear();
+        super.onDestroy();
+    }
+
+    // 客户端接口
+
+    public void addListener(Listener listener) {
+        if (!listeners.contains(listener)) {
+            listeners.add(listener);
+        }
+    }
+
+    public void removeListener(Listener listener) {
+        listeners.remove(listener);
+    }
+
+    /**
+     * 设置连续播放队列：按当前列表（用户 + 关键字 + 排序）的顺序自动播放下一首。
+     * 列表筛选或排序变化时由页面调用，已预备好的下一首会按新的条件重新计算。
+     */
+    public void setQueue(String username, @Nullable String query, FmTrackOrder order) {
+        if (Objects.equals(username, queueUsername) && Objects.equals(query, queueQuery) && order == queueOrder) {
+            return;
+        }
+        queueUsername = username;
+        queueQuery = query;
+        queueOrder = order;
+        if (hasTrack()) {
+            prepareNextTrack();
+        }
+    }
+
+    /**
+     * 播放一条音频（会先停止当前音频）。
+     * <p>
+     * 立即返回，进入“准备中”状态；准备完成后自动开始播放。
+     * 连续点击不同条目时，只有最后一次点击会真正出声。
+     * 失败时回调 {@link Listener#onPlaybackError(FmTrack)}。
+     * </p>
+     */
+    public void play(FmTrack track) {
+        cancelNextTrack();
+        int generation = ++playGeneration;
+        // 复用播放器实例：reset 会丢弃旧音源与未完成的准备，不用重建解码器对象
+        if (mediaPlayer != null) {
+            mediaPlayer.reset();
+        }
+        prepared = false;
+        currentTrack = track;
+        playRequestedAt = SystemClock.elapsedRealtime();
+        updateForeground();
+        notifyStateChanged();
+
+        openTrackAsync(track, afd -> {
+            if (generation != playGeneration) {
+                // 已经点了别的条目
+                closeQuietly(afd);
+                return;
+            }
+            if (afd == null) {
+                onPrepareFailed(track);
+                return;
+            }
+            if (mediaPlayer == null) {
+                mediaPlayer = createPlayer();
+            }
+            if (!setDataSource(mediaPlayer, track, afd)) {
+                onPrepareFailed(track);
+                return;
+            }
+            mediaPlayer.prepareAsync();
+        });
+    }
+
+    /**
+     * 在媒体 I/O 线程打开音频文件（外部存储上的 content:// Uri 可能很慢），结果回到主线程。
+     */
+    private void openTrackAsync(FmTrack track, OpenCallback callback) {
+        MeowExecutors.mediaIo().execute(() -> {
+            AssetFileDescriptor afd = openTrack(track);
+            MeowExecutors.postToMain(() -> callback.onOpened(afd));
+        });
+    }
+
+    private interface OpenCallback {
+        void onOpened(@Nullable AssetFileDescriptor afd);
+    }
+
+    /**
+     * 创建播放器实例，并统一挂上回调（通过比较实例区分当前播放器与预备播放器）。
+     */
+    private MediaPlayer createPlayer() {
+        MediaPlayer player = new MediaPlayer();
+        player.setAudioAttributes(new AudioAttributes.Builder()
+                .setUsage(AudioAttributes.USAGE_MEDIA)
+                .setContentType(AudioAttributes.CONTENT_TYPE_MUSIC)
+                .build());
+        player.setOnPreparedListener(this::onPlayerPrepared);
+        player.setOnCompletionListener(this::onPlayerCompleted);
+        player.setOnErrorListener((mp, what, extra) -> {
+            if (mp == mediaPlayer && currentTrack != null) {
+                Log.w(TAG, "播放出错 what=" + what + " extra=" + extra + ": " + currentTrack.getTitle());
+                onPrepareFailed(currentTrack);
+            } else if (mp == nextPlayer) {
+                // 下一首出错不影响当前播放，放弃预备即可
+                cancelNextTrack();
+            }
+            return true;
+        });
+        return player;
+    }
+
+    /**
+     * 设置音源；MediaPlayer 内部会复制文件描述符，这里用完立即关闭。
+     */
+    private boolean setDataSource(MediaPlayer player, FmTrack track, AssetFileDescriptor afd) {
+        try {
+            if (afd.getLength() < 0) {
+                // 长度未知（部分 content:// Uri），直接使用整个文件
+                player.setDataSource(afd.getFileDescriptor());
+            } else {
+                player.setDataSource(afd.getFileDescriptor(), afd.getStartOffset(), afd.getLength());
+            }
+            return true;
+        } catch (IOException | RuntimeException e) {
+            Log.w(TAG, "设置音源失败: " + track.getTitle(), e);
+            return false;
+        } finally {
+            closeQuietly(afd);
+        }
+    }
+
+    private void onPlayerPrepared(MediaPlayer mp) {
+        if (mp == mediaPlayer) {
+            if (prepared || currentTrack == null) {
+                return;
+            }
+            prepared = true;
+            mp.start();
+            recordTimeToFirstAudio(currentTrack);
+            updateForeground();
+            notifyStateChanged();
+            prepareNextTrack();
+        } else if (mp == nextPlayer && nextTrack != null && hasTrack()) {
+            // 下一首准备好：交给当前播放器，播完后由系统无缝衔接
+            mediaPlayer.setNextMediaPlayer(mp);
+            nextPrepared = true;
+        }
+    }
+
+    private void onPlayerCompleted(MediaPlayer mp) {
+        if (mp != mediaPlayer) {
+            return;
+        }
+        FmTrack upcoming = nextTrack;
+        if (upcoming != null && nextPrepared) {
+            // 系统已经开始播放预备好的下一首：交换两个播放器的角色
+            MediaPlayer finished = mediaPlayer;
+            mediaPlayer = nextPlayer;
+            nextPlayer = finished;
+            nextPlayer.reset();
+            nextTrack = null;
+            nextPrepared = false;
+            nextGeneration++;
+            currentTrack = upcoming;
+            prepared = true;
+            playGeneration++;
+            updateForeground();
+            notifyStateChanged();
+            prepareNextTrack();
+        } else if (upcoming != null) {
+            // 下一首还没准备好：退回普通切换
+            play(upcoming);
+        } else if (nextLookupPending) {
+            // 下一首还没查出来（刚开播就拖到结尾、或读线程正忙）：等结果到达再切换，不当作列表播完
+            playNextWhenFound = true;
+        } else {
+            // 列表播完：回到“无播放”状态
+            stop();
+        }
+    }
+
+    /**
+     * 查询并预备当前筛选结果中的下一首。
+     */
+    private void prepareNextTrack() {
+        // 正等下一首时队列变了：按新条件重新查询，结果到达后照样接着播
+        boolean waitingForNext = playNextWhenFound;
+        cancelNextTrack();
+        FmTrack current = currentTrack;
+        if (current == null || queueUsername == null) {
+            if (waitingForNext) {
+                stop();
+            }
+            return;
+        }
+        int generation = ++nextGeneration;
+        nextLookupPending = true;
+        playNextWhenFound = waitingForNext;
+        repository.loadNextFmTrack(null, queueUsername, queueQuery, queueOrder, current.getId(), track -> {
+            if (generation != nextGeneration) {
+                return;
+            }
+            nextLookupPending = false;
+            if (playNextWhenFound) {
+                // 当前音频已经播完：有下一首就直接切换，没有才是真的播完了
+                playNextWhenFound = false;
+                if (track != null) {
+                    play(track);
+                } else {
+                    stop();
+                }
+                return;
+            }
+            if (track == null) {
+                return;
+            }
+            nextTrack = track;
+            openTrackAsync(track, afd -> {
+                if (generation != nextGeneration) {
+                    closeQuietly(afd);
+                    return;
+                }
+                if (afd == null) {
+                    // 打不开就放弃预备，播完时会按普通切换再试一次
+                    return;
+                }
+                if (nextPlayer == null) {
+                    nextPlayer = createPlayer();
+                }
+                if (setDataSource(nextPlayer, track, afd)) {
+                    nextPlayer.prepareAsync();
+                }
+            });
+        }).onError(e -> {
+            if (generation != nextGeneration) {
+                return;
+            }
+            nextLookupPending = false;
+            if (playNextWhenFound) {
+                // 查不出下一首：按列表播完处理
+                stop();
+            }
+        });
+    }
+
+    /**
+     * 放弃已预备的下一首。
+     */
+    private void cancelNextTrack() {
+        nextGeneration++;
+        if (nextPrepared && mediaPlayer != null && prepared) {
+            mediaPlayer.setNextMediaPlayer(null);
+        }
+        if (nextPlayer != null) {
+            nextPlayer.reset();
+        }
+        nextTrack = null;
+        nextPrepared = false;
+        nextLookupPending = false;
+        playNextWhenFound = false;
+    }
+
+    private void onPrepareFailed(FmTrack track) {
+        stop();
+        for (Listener listener : new ArrayList<>(listeners)) {
+            listener.onPlaybackError(track);
+        }
+    }
+
+    /**
+     * 记录从点击到开始出声的耗时。
+     */
+    private void recordTimeToFirstAudio(FmTrack track) {
+        long elapsed = SystemClock.elapsedRealtime() - playRequestedAt;
+        timeToFirstAudioMs.put(track.getId(), elapsed);
+        Log.i(TAG, "首次出声耗时 " + elapsed + "ms: " + track.getTitle());
+    }
+
+    /**
+     * 某条音频最近一次的首次出声耗时（毫秒），没有记录时返回 -1。
+     */
+    public long getTimeToFirstAudioMs(long trackId) {
+        Long elapsed = timeToFirstAudioMs.get(trackId);
+        return elapsed == null ? -1 : elapsed;
+    }
+
+    /**
+     * 打开音频文件（在后台线程调用）。
+     *
+     * @return 失败时返回 null
+     */
+    @Nullable
+    private AssetFileDescriptor openTrack(FmTrack track) {
+        try {
+            if (track.getAudioUri() != null) {
+                return getContentResolver().openAssetFileDescriptor(Uri.parse(track.getAudioUri()), "r");
+            }
+            return getResources().openRawResourceFd(track.getResId());
+        } catch (Exception e) {
+            Log.w(TAG, "打开音频失败: " + track.getTitle(), e);
+            return null;
+        }
+    }
+
+    private static void closeQuietly(@Nullable AssetFileDescriptor afd) {
+        if (afd == null) {
+            return;
+        }
+        try {
+            afd.close();
+        } catch (IOException ignored) {
+        }
+    }
+
+    /**
+     * 暂停 / 继续当前音频。
+     */
+    public void togglePlayPause() {
+        if (mediaPlayer == null || !prepared) {
+            return;
+        }
+        // 用户接手了播放，不再自动切到下一首
+        playNextWhenFound = false;
+        if (mediaPlayer.isPlaying()) {
+            mediaPlayer.pause();
+        } else {
+            mediaPlayer.start();
+        }
+        updateForeground();
+        notifyStateChanged();
+    }
+
+    /**
+     * 停止播放（播放器实例保留，下次播放时复用）。
+     */
+    public void stop() {
+        // 让进行中的异步准备失效
+        playGeneration++;
+        cancelNextTrack();
+        if (mediaPlayer != null) {
+            mediaPlayer.reset();
+        }
+        prepared = false;
+        currentTrack = null;
+        updateForeground();
+        notifyStateChanged();
+    }
+
+    /**
+     * 跳转到指定位置（毫秒）。
+     */
+    public void seekTo(int positionMs) {
+        if (mediaPlayer == null || !prepared) {
+            return;
+        }
+        playNextWhenFound = false;
+        mediaPlayer.seekTo(Math.max(0, Math.min(positionMs, mediaPlayer.getDuration())));
+    }
+
+    /**
+     * 当前播放的音频 ID，没有在播时返回 -1。
+     */
+    public long getCurrentTrackId() {
+        return currentTrack == null ? -1 : currentTrack.getId();
+    }
+
+    /**
+     * 当前播放（或正在准备）的音频，没有时为 null。
+     */
+    @Nullable
+    public FmTrack getCurrentTrack() {
+        return currentTrack;
+    }
+
+    /**
+     * 是否已加载好一条音频（播放或暂停中，不含准备中）。
+     */
+    public boolean hasTrack() {
+        return mediaPlayer != null && prepared;
+    }
+
+    /**
+     * 是否正在准备音频（已点击、尚未出声）。
+     */
+    public boolean isPreparing() {
+        return currentTrack != null && !prepared;
+    }
+
+    public boolean isPlaying() {
+        return hasTrack() && mediaPlayer.isPlaying();
+    }
+
+    public int getCurrentPosition() {
+        return hasTrack() ? mediaPlayer.getCurrentPosition() : 0;
+    }
+
+    public int getDuration() {
+        return hasTrack() ? mediaPlayer.getDuration() : 0;
+    }
+
+    // 内部实现
+
+    private void notifyStateChanged() {
+        // 复制一份，回调里允许增删监听
+        for (Listener listener : new ArrayList<>(listeners)) {
+            listener.onPlaybackStateChanged();
+        }
+    }
+
+    /**
+     * 根据播放状态切换前台：在播或暂停时保持通知，停止后退出前台并结束启动态。
+     */
+    private void updateForeground() {
+        if (currentTrack == null) {
+            if (foreground) {
+                ServiceCompat.stopForeground(this, ServiceCompat.STOP_FOREGROUND_REMOVE);
+                foreground = false;
+            }
+            // 只剩页面绑定时，解绑后服务随之销毁
+            stopSelf();
+            return;
+        }
+        Notification notification = buildNotification();
+        if (!foreground) {
+            // 先进入启动态，页面解绑后服务仍然存活
+            ContextCompat.startForegroundService(this, new Intent(this, FmPlaybackService.class));
+            int type = Build.VERSION.SDK_INT >= Build.VERSION_CODES.Q
+                    ? ServiceInfo.FOREGROUND_SERVICE_TYPE_MEDIA_PLAYBACK
+                    : 0;
+            ServiceCompat.startForeground(this, NOTIFICATION_ID, notification, type);
+            foreground = true;
+        } else {
+            NotificationManager manager = getSystemService(NotificationManager.class);
+            if (manager != null) {
+                manager.notify(NOTIFICATION_ID, notification);
+            }
+        }
+    }
+
+    private Notification buildNotification() {
+        boolean playing = isPlaying();
+        Intent openIntent = new Intent(this, CatFmActivity.class)
+                .setFlags(Intent.FLAG_ACTIVITY_SINGLE_TOP | Intent.FLAG_ACTIVITY_CLEAR_TOP);
+        PendingIntent contentIntent = PendingIntent.getActivity(
+                this, 0, openIntent, PendingIntent.FLAG_IMMUTABLE | PendingIntent.FLAG_UPDATE_CURRENT);
+
+        return new NotificationCompat.Builder(this, CHANNEL_ID)
+                .setSmallIcon(R.drawable.ic_meow_fm_note)
+                .setContentTitle(currentTrack == null ? "" : currentTrack.getTitle())
+                .setContentText(getString(isPreparing()
+                        ? R.string.fm_playback_preparing
+                        : playing ? R.string.fm_playback_playing : R.string.fm_playback_paused))
+                .setContentIntent(contentIntent)
+                .setOnlyAlertOnce(true)
+                .setOngoing(playing || isPreparing())
+                .setSilent(true)
+                .setCategory(NotificationCompat.CATEGORY_TRANSPORT)
+                .setVisibility(NotificationCompat.VISIBILITY_PUBLIC)
+                .addAction(0,
+                        getString(playing ? R.string.fm_playback_action_pause : R.string.fm_playback_action_resume),
+                        serviceAction(ACTION_TOGGLE))
+                .addAction(0, getString(R.string.fm_playback_action_stop), serviceAction(ACTION_STOP))
+                .build();
+    }
+
+    private PendingIntent serviceAction(String action) {
+        Intent intent = new Intent(this, FmPlaybackService.class).setAction(action);
+        return PendingIntent.getService(this, action.hashCode(), intent, PendingIntent.FLAG_IMMUTABLE);
+    }
+
+    private void createNotificationChannel() {
+        NotificationManager manager = getSystemService(NotificationManager.class);
+        if (manager == null) {
+            return;
+        }
+        NotificationChannel channel = new NotificationChannel(
+                CHANNEL_ID,
+                getString(R.string.fm_playback_channel_name),
+                NotificationManager.IMPORTANCE_LOW
+        );
+        channel.setDescription(getString(R.string.fm_playback_channel_desc));
+        manager.createNotificationChannel(channel);
+    }
+
+    /**
+     * 安全释放两个 MediaPlayer 实例（服务销毁时调用）。
+     */
+    private void releasePlayers() {
+        mediaPlayer = releaseQuietly(mediaPlayer);
+        nextPlayer = releaseQuietly(nextPlayer);
+        prepared = false;
+        nextPrepared = false;
+    }
+
+    @Nullable
+    private static MediaPlayer releaseQuietly(@Nullable MediaPlayer player) {
+        if (player != null) {
+            try {
+                // reset 不是必须，但有些机型上更稳妥
+                player.reset();
+            } catch (Exception ignored) {
+                // 防御性写法：即使 reset 抛异常也不要崩
+            }
+            player.release();
+        }
+        return null;
+    }
+}
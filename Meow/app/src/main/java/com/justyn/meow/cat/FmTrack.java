@@ -7,6 +7,9 @@ import androidx.annotation.Nullable;
  * 支持本地 raw 资源与外部 Uri 两种音源。
  */
 public class FmTrack {
+    // “添加入口”的保留 id（数据库自增 id 从 1 开始，不会冲突）
+    public static final long ADD_ENTRY_ID = -1;
+
     // 数据库主键 id
     private final long id;
     // 标题
@@ -18,6 +21,8 @@ public class FmTrack {
     @Nullable
     // 外部音频 Uri（可为空）
     private final String audioUri;  // content://...（可为空）
+    // 时长（毫秒）：写入时探测并存库，小于等于 0 表示未知
+    private final long durationMs;
     // 是否为“添加入口”占位数据
     private final boolean isAddEntry;
 
@@ -25,25 +30,34 @@ public class FmTrack {
      * 默认构造（raw 资源）。
      */
     public FmTrack(String title, String subtitle, int audioResId) {
-        this(0, title, subtitle, audioResId, null, false);
+        this(0, title, subtitle, audioResId, null, 0, false);
     }
 
     /**
      * 数据库构造（含 id 与可选 Uri）。
      */
     public FmTrack(long id, String title, String subtitle, int audioResId, @Nullable String audioUri) {
-        this(id, title, subtitle, audioResId, audioUri, false);
+        this(id, title, subtitle, audioResId, audioUri, 0, false);
+    }
+
+    /**
+     * 数据库构造（含已探测的时长）。
+     */
+    public FmTrack(long id, String title, String subtitle, int audioResId, @Nullable String audioUri, long durationMs) {
+        this(id, title, subtitle, audioResId, audioUri, durationMs, false);
     }
 
     /**
      * 内部构造：支持占位条目。
      */
-    private FmTrack(long id, String title, String subtitle, int audioResId, @Nullable String audioUri, boolean isAddEntry) {
+    private FmTrack(long id, String title, String subtitle, int audioResId, @Nullable String audioUri,
+                    long durationMs, boolean isAddEntry) {
         this.id = id;
         this.title = title;
         this.subtitle = subtitle;
         this.audioResId = audioResId;
         this.audioUri = audioUri;
+        this.durationMs = durationMs;
         this.isAddEntry = isAddEntry;
     }
 
@@ -51,7 +65,7 @@ public class FmTrack {
      * 生成“添加喵音”入口条目。
      */
     public static FmTrack addEntry() {
-        return new FmTrack(-1, "添加喵音", "点我上传音频并添加一条喵音～", 0, null, true);
+        return new FmTrack(ADD_ENTRY_ID, "添加喵音", "点我上传音频并添加一条喵音～", 0, null, 0, true);
     }
 
     /**
@@ -97,6 +111,13 @@ public class FmTrack {
         return audioUri;
     }
 
+    /**
+     * 获取时长（毫秒），小于等于 0 表示未知。
+     */
+    public long getDurationMs() {
+        return durationMs;
+    }
+
     /**
      * 是否为“添加入口”占位条目。
      */
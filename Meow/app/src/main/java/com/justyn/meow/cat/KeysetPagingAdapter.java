@@ -0,0 +1,633 @@
+package com.justyn.meow.cat;
+
+import android.annotation.SuppressLint;
+import android.util.SparseArray;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.recyclerview.widget.DiffUtil;
+import androidx.recyclerview.widget.ListUpdateCallback;
+import androidx.recyclerview.widget.RecyclerView;
+
+import com.justyn.meow.data.MeowRepository;
+import com.justyn.meow.data.MeowTask;
+import com.justyn.meow.data.Page;
+import com.justyn.meow.data.PageKey;
+import com.justyn.meow.util.MeowExecutors;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 键集分页列表适配器基类。
+ * <p>
+ * 规则：
+ * - 每页最多 {@link #PAGE_SIZE} 条，滚动接近已加载末尾时提前加载下一页
+ * - 每页由起止游标界定，条数可以因增删而不同；位置按各页条数的前缀和换算
+ * - 离当前位置较远的页只保留游标与每行 id、释放数据，滚回来时按起止游标重新读取（期间有增删时按新条数更新）
+ * - 全部加载完后在末尾追加一个固定条目（如“添加”入口）
+ * - 使用稳定 id（已释放的行沿用释放前记下的 id，占位行的 id 不随加载状态变化）
+ * - 增删改后的 refresh 只从当前位置附近仍在内存里的页的起始游标开始重读这一段，
+ *   在后台用 DiffUtil 比较这一段新旧数据，只刷新真正变化的行；其余页保留游标，滚到时再按边界重读
+ * 这样首屏、刷新的耗时与内存占用只和页大小有关，与总条数、滚动位置无关。
+ * </p>
+ *
+ * @param <T>  条目类型
+ * @param <VH> ViewHolder 类型
+ */
+public abstract class KeysetPagingAdapter<T, VH extends RecyclerView.ViewHolder> extends RecyclerView.Adapter<VH> {
+
+    /**
+     * 分页数据来源：从 after 游标之后读取最多 limit 条。
+     */
+    public interface PageLoader<T> {
+        MeowTask load(@Nullable PageKey after, int limit, MeowRepository.Callback<Page<T>> callback);
+    }
+
+    // 每页条数
+    public static final int PAGE_SIZE = 50;
+    // 距已加载末尾多少条时开始预取下一页
+    private static final int PREFETCH_DISTANCE = PAGE_SIZE / 2;
+    // 当前页前后各保留多少页数据，更远的页释放
+    private static final int KEEP_PAGES = 4;
+    // 新旧区间任一超过该条数时不做 DiffUtil（耗时与差异数平方相关），直接整体刷新
+    private static final int MAX_DIFF_ITEMS = 2000;
+    // refresh 请求在 inFlight 中的下标（页请求用页下标）
+    private static final int REFRESH_SLOT = -1;
+
+    private final PageLoader<T> loader;
+    // 全部加载完后追加在末尾的固定条目（可为空）
+    @Nullable
+    private final T footer;
+
+    // 每页数据；null 表示该页已释放，需要时按起止游标重新读取
+    private final List<List<T>> pages = new ArrayList<>();
+    // 每页各行的稳定 id：页数据释放后仍保留，占位行照常给出真实 id
+    private final List<long[]> pageIds = new ArrayList<>();
+    // 每页的起始游标（不含）；第 0 页为 null，下一页的起始游标就是本页的结束游标（含）
+    private final List<PageKey> pageStartKeys = new ArrayList<>();
+    // 每页第一行的位置（各页条数的前缀和）
+    private int[] pageOffsets = new int[0];
+    // 已加载条数（含已释放的页）
+    private int loadedCount;
+    // 下一页的起始游标
+    @Nullable
+    private PageKey nextKey;
+    // 是否已经读到末尾
+    private boolean endReached;
+    // 最近一次绑定所在的页（页结构变化后重置，下次绑定时重新检查相邻页）
+    private int currentPage = -1;
+    // 最近一次绑定的位置：refresh 以它所在的页为中心
+    private int lastBoundPosition = -1;
+    // refresh 进行中：暂停预取与补读，避免旧数据在差异计算期间被改动
+    private boolean refreshing;
+
+    // 数据代次：refresh 后递增，旧代次的回调直接丢弃
+    private int generation;
+    // 进行中的请求（key 为页下标，refresh 为 REFRESH_SLOT）
+    private final SparseArray<MeowTask> inFlight = new SparseArray<>();
+
+    /**
+     * 按游标区间读取的结果。
+     */
+    private static final class Range<T> {
+        final List<T> items = new ArrayList<>();
+        final List<PageKey> keys = new ArrayList<>();
+        // 区间之后的下一页游标（null 表示已到末尾）
+        @Nullable
+        PageKey next;
+    }
+
+    private interface RangeCallback<T> {
+        void onLoaded(Range<T> range);
+    }
+
+    /**
+     * @param loader 分页数据来源
+     * @param footer 末尾固定条目（不需要时传 null）
+     */
+    protected KeysetPagingAdapter(PageLoader<T> loader, @Nullable T footer) {
+        this.loader = loader;
+        this.footer = footer;
+        setHasStableIds(true);
+    }
+
+    /**
+     * 重新从数据库读取列表。
+     * <p>
+     * 保留位置时只重读当前页附近仍在内存里的连续几页（最多前后各 {@link #KEEP_PAGES} 页），
+     * 从这一段第一页的起始游标读到最后一页的结束游标，查询次数与滚动位置无关。
+     * </p>
+     *
+     * @param keepPosition true 表示保留当前滚动位置（增删改后使用），false 表示回到第一页（搜索时使用）
+     */
+    public void refresh(boolean keepPosition) {
+        generation++;
+        cancelInFlight();
+        refreshing = true;
+        int gen = generation;
+
+        if (!keepPosition || pages.isEmpty()) {
+            // 整体替换为新的第一页
+            int last = pages.size() - 1;
+            loadRange(gen, REFRESH_SLOT, null, null, PAGE_SIZE, new Range<>(),
+                    () -> refreshing = false,
+                    range -> applyRefresh(gen, 0, last, null, range));
+            return;
+        }
+
+        int center = lastBoundPosition < 0 || loadedCount == 0 ? 0 : pageOf(Math.min(lastBoundPosition, loadedCount - 1));
+        int from = center;
+        while (from > 0 && center - from < KEEP_PAGES && pages.get(from - 1) != null) {
+            from--;
+        }
+        int to = center;
+        while (to < pages.size() - 1 && to - center < KEEP_PAGES && pages.get(to + 1) != null) {
+            to++;
+        }
+        int first = from;
+        int last = to;
+        PageKey startKey = pageStartKeys.get(from);
+        loadRange(gen, REFRESH_SLOT, startKey, endKeyOf(to), Math.max(1, endOffsetOf(to) - pageOffsets[from]),
+                new Range<>(),
+                () -> refreshing = false,
+                range -> applyRefresh(gen, first, last, startKey, range));
+    }
+
+    /**
+     * 获取某个位置的条目；所在页已释放时返回 null。
+     */
+    @Nullable
+    public T getItem(int position) {
+        if (position == loadedCount) {
+            return footer;
+        }
+        int index = pageOf(position);
+        List<T> page = pages.get(index);
+        return page == null ? null : page.get(position - pageOffsets[index]);
+    }
+
+    /**
+     * 在内存中的页里查找 id 对应的位置；找不到（未加载或已释放）返回 NO_POSITION。
+     */
+    public int findPositionById(long id) {
+        for (int i = 0; i < pages.size(); i++) {
+            List<T> page = pages.get(i);
+            if (page == null) {
+                continue;
+            }
+            for (int j = 0; j < page.size(); j++) {
+                if (getStableId(page.get(j)) == id) {
+                    return pageOffsets[i] + j;
+                }
+            }
+        }
+        if (hasFooter() && getStableId(footer) == id) {
+            return loadedCount;
+        }
+        return RecyclerView.NO_POSITION;
+    }
+
+    @Override
+    public int getItemCount() {
+        return loadedCount + (hasFooter() ? 1 : 0);
+    }
+
+    @Override
+    public long getItemId(int position) {
+        if (position == loadedCount) {
+            return getStableId(footer);
+        }
+        // 已释放的行也用释放前记下的 id，加载前后 id 不变
+        int index = pageOf(position);
+        return pageIds.get(index)[position - pageOffsets[index]];
+    }
+
+    @Override
+    public final void onBindViewHolder(@NonNull VH holder, int position) {
+        if (position < loadedCount) {
+            onPositionBound(position);
+        }
+        T item = getItem(position);
+        if (item == null) {
+            onBindPlaceholder(holder);
+        } else {
+            onBindItem(holder, item, position);
+        }
+    }
+
+    /**
+     * 绑定一条已加载的数据（包括末尾固定条目）。
+     */
+    protected abstract void onBindItem(@NonNull VH holder, @NonNull T item, int position);
+
+    /**
+     * 绑定占位样式（所在页正在重新读取）。
+     */
+    protected abstract void onBindPlaceholder(@NonNull VH holder);
+
+    /**
+     * 条目的稳定 id（末尾固定条目需使用保留 id）。
+     */
+    protected abstract long getStableId(@NonNull T item);
+
+    /**
+     * 同一条目的展示内容是否相同（决定 DiffUtil 是否需要重新绑定）。
+     */
+    protected abstract boolean areContentsTheSame(@NonNull T oldItem, @NonNull T newItem);
+
+    private boolean hasFooter() {
+        return endReached && footer != null;
+    }
+
+    /**
+     * 根据绑定位置决定预取、补读与释放。
+     */
+    private void onPositionBound(int position) {
+        if (refreshing) {
+            return;
+        }
+        lastBoundPosition = position;
+        if (!endReached && position >= loadedCount - PREFETCH_DISTANCE) {
+            loadNextPage();
+        }
+        int page = pageOf(position);
+        if (page == currentPage) {
+            return;
+        }
+        currentPage = page;
+        // 当前页及相邻页如已释放，重新读取
+        for (int i = Math.max(0, page - 1); i <= Math.min(pages.size() - 1, page + 1); i++) {
+            if (pages.get(i) == null) {
+                reloadPage(i);
+            }
+        }
+        // 释放离当前页较远的页（此时它们已不在屏幕上）
+        for (int i = 0; i < pages.size(); i++) {
+            if (Math.abs(i - page) > KEEP_PAGES && pages.get(i) != null && inFlight.get(i) == null) {
+                pages.set(i, null);
+            }
+        }
+    }
+
+    /**
+     * 追加下一页。
+     */
+    private void loadNextPage() {
+        int index = pages.size();
+        if (inFlight.get(index) != null) {
+            return;
+        }
+        int gen = generation;
+        PageKey startKey = nextKey;
+        inFlight.put(index, loader.load(startKey, PAGE_SIZE, page -> {
+            if (gen != generation) {
+                return;
+            }
+            inFlight.remove(index);
+            List<T> items = page.getItems();
+            int start = loadedCount;
+            boolean hadFooter = hasFooter();
+            if (!items.isEmpty()) {
+                pages.add(items);
+                pageIds.add(idsOf(items));
+                pageStartKeys.add(startKey);
+                reindex();
+            }
+            nextKey = page.getNextKey();
+            endReached = nextKey == null;
+            int inserted = items.size() + (hasFooter() && !hadFooter ? 1 : 0);
+            if (inserted > 0) {
+                notifyItemRangeInserted(start, inserted);
+            }
+        }).onError(e -> {
+            // 读取失败：清掉进行中标记，下次滚到末尾附近时重试
+            if (gen == generation) {
+                inFlight.remove(index);
+            }
+        }));
+    }
+
+    /**
+     * 按起止游标重新读取已释放的页；释放期间页内有增删时按新的条数更新位置。
+     */
+    private void reloadPage(int index) {
+        if (inFlight.get(index) != null) {
+            return;
+        }
+        int gen = generation;
+        loadRange(gen, index, pageStartKeys.get(index), endKeyOf(index), Math.max(1, pageIds.get(index).length),
+                new Range<>(),
+                () -> {
+                    // 读取失败：保持占位，下次滚到这一页附近时重试
+                },
+                range -> replacePage(index, range));
+    }
+
+    /**
+     * 用重新读取的数据替换一页，并按新旧条数分发局部刷新。
+     */
+    private void replacePage(int index, Range<T> range) {
+        int offset = pageOffsets[index];
+        int oldSize = pageIds.get(index).length;
+        int newSize = range.items.size();
+        boolean hadFooter = hasFooter();
+        pages.set(index, range.items);
+        pageIds.set(index, idsOf(range.items));
+        if (index == pages.size() - 1) {
+            nextKey = range.next;
+            endReached = nextKey == null;
+        }
+        reindex();
+
+        int common = Math.min(oldSize, newSize);
+        if (common > 0) {
+            notifyItemRangeChanged(offset, common);
+        }
+        if (newSize > oldSize) {
+            notifyItemRangeInserted(offset + oldSize, newSize - oldSize);
+        } else if (oldSize > newSize) {
+            notifyItemRangeRemoved(offset + newSize, oldSize - newSize);
+        }
+        if (hadFooter && !hasFooter()) {
+            notifyItemRemoved(loadedCount);
+        } else if (!hadFooter && hasFooter()) {
+            notifyItemInserted(loadedCount);
+        }
+    }
+
+    /**
+     * 读取游标区间 (after, end] 内的行，按页依次读取并追加到 range。
+     * <p>
+     * end 为 null 时没有上界：读满 minCount 条（按整页）或读到末尾为止。
+     * 有上界时越过 end 的行丢弃，区间之后的游标仍为 end。
+     * </p>
+     *
+     * @param slot     在 inFlight 中登记的下标
+     * @param onFailed 读取失败时的恢复（已清掉 inFlight 登记）
+     */
+    private void loadRange(
+            int gen,
+            int slot,
+            @Nullable PageKey after,
+            @Nullable PageKey end,
+            int minCount,
+            Range<T> range,
+            Runnable onFailed,
+            RangeCallback<T> done
+    ) {
+        inFlight.put(slot, loader.load(after, PAGE_SIZE, page -> {
+            if (gen != generation) {
+                return;
+            }
+            boolean reachedEnd = false;
+            List<T> items = page.getItems();
+            List<PageKey> keys = page.getKeys();
+            for (int i = 0; i < items.size(); i++) {
+                PageKey key = keys.get(i);
+                if (end != null && key.compareTo(end) > 0) {
+                    // 边界行已被删除，越过边界的属于下一页
+                    reachedEnd = true;
+                    break;
+                }
+                range.items.add(items.get(i));
+                range.keys.add(key);
+                if (end != null && key.equals(end)) {
+                    reachedEnd = true;
+                    break;
+                }
+            }
+            PageKey next = page.getNextKey();
+            boolean more = end != null ? !reachedEnd : range.items.size() < minCount;
+            if (more && next != null) {
+                loadRange(gen, slot, next, end, minCount, range, onFailed, done);
+                return;
+            }
+            range.next = end != null && reachedEnd ? end : next;
+            inFlight.remove(slot);
+            done.onLoaded(range);
+        }).onError(e -> {
+            if (gen == generation) {
+                inFlight.remove(slot);
+                onFailed.run();
+            }
+        }));
+    }
+
+    /**
+     * 区间读取完毕：新数据按整页切分，后台计算这一段的差异，再回主线程替换并分发局部刷新。
+     *
+     * @param from     被替换的第一页下标
+     * @param to       被替换的最后一页下标（from - 1 表示没有旧页）
+     * @param startKey 区间的起始游标
+     */
+    private void applyRefresh(int gen, int from, int to, @Nullable PageKey startKey, Range<T> range) {
+        List<List<T>> newPages = new ArrayList<>();
+        List<long[]> newIds = new ArrayList<>();
+        List<PageKey> newStartKeys = new ArrayList<>();
+        for (int i = 0; i < range.items.size(); i += PAGE_SIZE) {
+            List<T> chunk = new ArrayList<>(range.items.subList(i, Math.min(i + PAGE_SIZE, range.items.size())));
+            newPages.add(chunk);
+            newIds.add(idsOf(chunk));
+            newStartKeys.add(i == 0 ? startKey : range.keys.get(i - 1));
+        }
+        // 区间包含最后一页时，末尾游标与固定条目随之更新；否则后面的页不受影响
+        boolean atEnd = to == pages.size() - 1;
+        PageKey next = atEnd ? range.next : nextKey;
+        int oldStart = from < pageOffsets.length ? pageOffsets[from] : loadedCount;
+
+        List<T> oldItems = new ArrayList<>();
+        List<Long> oldIds = new ArrayList<>();
+        for (int i = from; i <= to; i++) {
+            List<T> page = pages.get(i);
+            long[] ids = pageIds.get(i);
+            for (int j = 0; j < ids.length; j++) {
+                oldItems.add(page == null ? null : page.get(j));
+                oldIds.add(ids[j]);
+            }
+        }
+        List<T> newItems = new ArrayList<>(range.items);
+        List<Long> newIdList = new ArrayList<>(newItems.size() + 1);
+        for (long[] ids : newIds) {
+            for (long id : ids) {
+                newIdList.add(id);
+            }
+        }
+        if (atEnd && hasFooter()) {
+            oldItems.add(footer);
+            oldIds.add(getStableId(footer));
+        }
+        if (atEnd && next == null && footer != null) {
+            newItems.add(footer);
+            newIdList.add(getStableId(footer));
+        }
+
+        if (oldItems.size() > MAX_DIFF_ITEMS || newItems.size() > MAX_DIFF_ITEMS) {
+            swapRange(from, to, newPages, newIds, newStartKeys, next);
+            notifyAllChanged();
+            return;
+        }
+
+        MeowExecutors.listDiff().execute(() -> {
+            DiffUtil.DiffResult result = DiffUtil.calculateDiff(new DiffUtil.Callback() {
+                @Override
+                public int getOldListSize() {
+                    return oldItems.size();
+                }
+
+                @Override
+                public int getNewListSize() {
+                    return newItems.size();
+                }
+
+                @Override
+                public boolean areItemsTheSame(int oldItemPosition, int newItemPosition) {
+                    // 已释放的行也有 id，按 id 匹配，与 getItemId 一致
+                    return oldIds.get(oldItemPosition).longValue() == newIdList.get(newItemPosition).longValue();
+                }
+
+                @Override
+                public boolean areContentsTheSame(int oldItemPosition, int newItemPosition) {
+                    T oldItem = oldItems.get(oldItemPosition);
+                    T newItem = newItems.get(newItemPosition);
+                    if (oldItem == null || newItem == null) {
+                        // 两边都已释放（都在屏幕外）视为不变；占位与数据之间需要重新绑定
+                        return oldItem == newItem;
+                    }
+                    return KeysetPagingAdapter.this.areContentsTheSame(oldItem, newItem);
+                }
+            }, false);
+            MeowExecutors.postToMain(() -> {
+                if (gen != generation) {
+                    return;
+                }
+                swapRange(from, to, newPages, newIds, newStartKeys, next);
+                // 差异只覆盖重读的这一段，位置加上这一段的起点
+                result.dispatchUpdatesTo(new OffsetUpdateCallback(oldStart));
+            });
+        });
+    }
+
+    /**
+     * 用新的页替换 [from, to] 这一段（其余页的数据、id 与游标原样保留）。
+     */
+    private void swapRange(
+            int from,
+            int to,
+            List<List<T>> newPages,
+            List<long[]> newIds,
+            List<PageKey> newStartKeys,
+            @Nullable PageKey next
+    ) {
+        pages.subList(from, to + 1).clear();
+        pages.addAll(from, newPages);
+        pageIds.subList(from, to + 1).clear();
+        pageIds.addAll(from, newIds);
+        pageStartKeys.subList(from, to + 1).clear();
+        pageStartKeys.addAll(from, newStartKeys);
+        nextKey = next;
+        endReached = next == null;
+        reindex();
+        currentPage = -1;
+        refreshing = false;
+    }
+
+    /**
+     * 页的结束游标（含）：下一页的起始游标；最后一页为下一页游标，已到末尾时为 null（没有上界）。
+     */
+    @Nullable
+    private PageKey endKeyOf(int index) {
+        return index + 1 < pages.size() ? pageStartKeys.get(index + 1) : nextKey;
+    }
+
+    /**
+     * 页之后第一行的位置。
+     */
+    private int endOffsetOf(int index) {
+        return pageOffsets[index] + pageIds.get(index).length;
+    }
+
+    /**
+     * 位置所在的页：最后一个起点不大于 position 的页（空页与下一页起点相同，会被跳过）。
+     */
+    private int pageOf(int position) {
+        int low = 0;
+        int high = pageOffsets.length - 1;
+        while (low < high) {
+            int mid = (low + high + 1) >>> 1;
+            if (pageOffsets[mid] <= position) {
+                low = mid;
+            } else {
+                high = mid - 1;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * 页结构变化后重新计算各页起点与总条数。
+     */
+    private void reindex() {
+        int[] offsets = new int[pageIds.size()];
+        int count = 0;
+        for (int i = 0; i < offsets.length; i++) {
+            offsets[i] = count;
+            count += pageIds.get(i).length;
+        }
+        pageOffsets = offsets;
+        loadedCount = count;
+    }
+
+    @SuppressLint("NotifyDataSetChanged")
+    private void notifyAllChanged() {
+        // 已开启稳定 id，整体刷新时 RecyclerView 仍能按 id 复用现有的行
+        notifyDataSetChanged();
+    }
+
+    private long[] idsOf(List<T> items) {
+        long[] ids = new long[items.size()];
+        for (int i = 0; i < ids.length; i++) {
+            ids[i] = getStableId(items.get(i));
+        }
+        return ids;
+    }
+
+    private void cancelInFlight() {
+        for (int i = 0; i < inFlight.size(); i++) {
+            inFlight.valueAt(i).cancel();
+        }
+        inFlight.clear();
+    }
+
+    /**
+     * 把区间内的差异位置平移到整个列表上再分发。
+     */
+    private final class OffsetUpdateCallback implements ListUpdateCallback {
+
+        private final int offset;
+
+        OffsetUpdateCallback(int offset) {
+            this.offset = offset;
+        }
+
+        @Override
+        public void onInserted(int position, int count) {
+            notifyItemRangeInserted(position + offset, count);
+        }
+
+        @Override
+        public void onRemoved(int position, int count) {
+            notifyItemRangeRemoved(position + offset, count);
+        }
+
+        @Override
+        public void onMoved(int fromPosition, int toPosition) {
+            notifyItemMoved(fromPosition + offset, toPosition + offset);
+        }
+
+        @Override
+        public void onChanged(int position, int count, @Nullable Object payload) {
+            notifyItemRangeChanged(position + offset, count, payload);
+        }
+    }
+}
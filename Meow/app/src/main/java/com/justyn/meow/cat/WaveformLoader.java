@@ -0,0 +1,413 @@
+package com.justyn.meow.cat;
+
+import android.content.Context;
+import android.content.res.AssetFileDescriptor;
+import android.media.AudioFormat;
+import android.media.MediaCodec;
+import android.media.MediaExtractor;
+import android.media.MediaFormat;
+import android.net.Uri;
+import android.util.Log;
+
+import androidx.annotation.Nullable;
+
+import com.justyn.meow.util.MeowExecutors;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+
+/**
+ * 音频波形加载器：解码音频得到固定分辨率的峰值数组，并缓存成二进制文件。
+ * <p>
+ * 使用方式：
+ * - {@link #load(FmTrack, Callback)} 先查磁盘缓存，命中直接回调；未命中时在媒体分析线程解码
+ * - 解码是增量的：每解出一段就把已完成的部分回调给界面，每个输出缓冲区之间都会检查是否已取消
+ * - 新的请求会取消旧请求；所有解码都在 {@link MeowExecutors#mediaAnalysis()} 单线程上排队，同一时间最多一个解码器
+ * 峰值数组为 {@link #BUCKETS} 组 (min, max)，按 8 位有符号数存储，长度 {@code BUCKETS * 2}。
+ * 回调都在主线程。
+ * </p>
+ */
+public final class WaveformLoader {
+
+    /**
+     * 波形结果回调（主线程）。
+     */
+    public interface Callback {
+        /**
+         * @param trackId  对应的音频 ID
+         * @param peaks    峰值数组（min/max 交替）；未解码到的部分为 0
+         * @param complete 是否已全部解码完成
+         */
+        void onWaveform(long trackId, byte[] peaks, boolean complete);
+    }
+
+    // 波形分辨率：固定的峰值组数，与控件宽度无关
+    public static final int BUCKETS = 200;
+
+    // 缓存文件格式：魔数 + 版本 + 组数 + 峰值字节
+    private static final int CACHE_MAGIC = 0x4D574156; // "MWAV"
+    private static final int CACHE_VERSION = 1;
+    private static final String CACHE_DIR = "waveforms";
+
+    // 解码器出入队等待时间（微秒）：等待期间也能及时响应取消
+    private static final long CODEC_TIMEOUT_US = 10_000;
+    // 每解出多少组峰值回调一次界面
+    private static final int PUBLISH_STEP = 20;
+
+    private static final String TAG = "WaveformLoader";
+
+    private final Context appContext;
+    private final File cacheDir;
+    // 请求代次：新请求或取消时递增，后台任务发现代次变化就停止
+    private volatile int generation;
+
+    public WaveformLoader(Context context) {
+        appContext = context.getApplicationContext();
+        cacheDir = new File(appContext.getCacheDir(), CACHE_DIR);
+    }
+
+    /**
+     * 加载一条音频的波形（会取消上一次未完成的请求）。
+     */
+    public void load(FmTrack track, Callback callback) {
+        int requestGeneration = ++generation;
+        MeowExecutors.mediaAnalysis().execute(() -> {
+            if (requestGeneration != generation) {
+                // 排队期间已被新的请求取代
+                return;
+            }
+            File cacheFile = new File(cacheDir, cacheKey(track) + ".bin");
+            byte[] cached = readCache(cacheFile);
+            if (cached != null) {
+                publish(requestGeneration, track.getId(), cached, true, callback);
+                return;
+            }
+            byte[] peaks = decode(track, requestGeneration, callback);
+            if (peaks == null) {
+                return;
+            }
+            writeCache(cacheFile, peaks);
+            publish(requestGeneration, track.getId(), peaks, true, callback);
+        });
+    }
+
+    /**
+     * 取消当前请求：排队中的不再执行，解码中的在下一个缓冲区处停止，已有结果也不再回调。
+     */
+    public void cancel() {
+        generation++;
+    }
+
+    /**
+     * 缓存键：用户选择的音频按 Uri 哈希，内置音频按音频 ID。
+     */
+    static String cacheKey(FmTrack track) {
+        if (track.getAudioUri() != null) {
+            return "uri_" + sha1Hex(track.getAudioUri());
+        }
+        return "track_" + track.getId();
+    }
+
+    /**
+     * 解码整条音频并统计每组的最小/最大采样值（在媒体分析线程调用）。
+     *
+     * @return 完整的峰值数组；取消或失败时返回 null
+     */
+    @Nullable
+    private byte[] decode(FmTrack track, int requestGeneration, Callback callback) {
+        MediaExtractor extractor = new MediaExtractor();
+        MediaCodec codec = null;
+        try {
+            if (!setDataSource(extractor, track)) {
+                return null;
+            }
+            MediaFormat format = selectAudioTrack(extractor);
+            if (format == null || !format.containsKey(MediaFormat.KEY_DURATION)) {
+                // 没有音轨或不知道时长，无法把采样分组
+                return null;
+            }
+            long durationUs = format.getLong(MediaFormat.KEY_DURATION);
+            if (durationUs <= 0) {
+                return null;
+            }
+            codec = MediaCodec.createDecoderByType(format.getString(MediaFormat.KEY_MIME));
+            codec.configure(format, null, null, 0);
+            codec.start();
+
+            PeakAccumulator peaks = new PeakAccumulator(durationUs,
+                    format.getInteger(MediaFormat.KEY_SAMPLE_RATE),
+                    format.getInteger(MediaFormat.KEY_CHANNEL_COUNT));
+            MediaCodec.BufferInfo info = new MediaCodec.BufferInfo();
+            boolean inputDone = false;
+            int published = 0;
+            while (true) {
+                if (requestGeneration != generation) {
+                    return null;
+                }
+                if (!inputDone) {
+                    int inIndex = codec.dequeueInputBuffer(CODEC_TIMEOUT_US);
+                    if (inIndex >= 0) {
+                        ByteBuffer input = codec.getInputBuffer(inIndex);
+                        int size = input == null ? -1 : extractor.readSampleData(input, 0);
+                        if (size < 0) {
+                            codec.queueInputBuffer(inIndex, 0, 0, 0, MediaCodec.BUFFER_FLAG_END_OF_STREAM);
+                            inputDone = true;
+                        } else {
+                            codec.queueInputBuffer(inIndex, 0, size, extractor.getSampleTime(), 0);
+                            extractor.advance();
+                        }
+                    }
+                }
+                int outIndex = codec.dequeueOutputBuffer(info, CODEC_TIMEOUT_US);
+                if (outIndex == MediaCodec.INFO_OUTPUT_FORMAT_CHANGED) {
+                    peaks.setFormat(codec.getOutputFormat());
+                } else if (outIndex >= 0) {
+                    ByteBuffer output = codec.getOutputBuffer(outIndex);
+                    if (output != null && info.size > 0) {
+                        output.position(info.offset);
+                        output.limit(info.offset + info.size);
+                        peaks.add(output, info.presentationTimeUs);
+                    }
+                    codec.releaseOutputBuffer(outIndex, false);
+                    if ((info.flags & MediaCodec.BUFFER_FLAG_END_OF_STREAM) != 0) {
+                        break;
+                    }
+                    // 增量回调：让进度条边解码边显示波形
+                    if (peaks.getFilledBuckets() - published >= PUBLISH_STEP) {
+                        published = peaks.getFilledBuckets();
+                        publish(requestGeneration, track.getId(), peaks.toBytes(), false, callback);
+                    }
+                }
+            }
+            return peaks.toBytes();
+        } catch (IOException | RuntimeException e) {
+            Log.w(TAG, "解码波形失败: " + track.getTitle(), e);
+            return null;
+        } finally {
+            if (codec != null) {
+                try {
+                    codec.stop();
+                } catch (IllegalStateException ignored) {
+                    // 配置失败时解码器未启动
+                }
+                codec.release();
+            }
+            extractor.release();
+        }
+    }
+
+    /**
+     * 设置解码来源；MediaExtractor 会复制文件描述符，这里用完立即关闭。
+     */
+    private boolean setDataSource(MediaExtractor extractor, FmTrack track) throws IOException {
+        AssetFileDescriptor afd = track.getAudioUri() != null
+                ? appContext.getContentResolver().openAssetFileDescriptor(Uri.parse(track.getAudioUri()), "r")
+                : appContext.getResources().openRawResourceFd(track.getResId());
+        if (afd == null) {
+            return false;
+        }
+        try {
+            if (afd.getLength() < 0) {
+                // 长度未知（部分 content:// Uri），直接使用整个文件
+                extractor.setDataSource(afd.getFileDescriptor());
+            } else {
+                extractor.setDataSource(afd.getFileDescriptor(), afd.getStartOffset(), afd.getLength());
+            }
+            return true;
+        } finally {
+            afd.close();
+        }
+    }
+
+    /**
+     * 选中第一条音轨。
+     */
+    @Nullable
+    private static MediaFormat selectAudioTrack(MediaExtractor extractor) {
+        for (int i = 0; i < extractor.getTrackCount(); i++) {
+            MediaFormat format = extractor.getTrackFormat(i);
+            String mime = format.getString(MediaFormat.KEY_MIME);
+            if (mime != null && mime.startsWith("audio/")) {
+                extractor.selectTrack(i);
+                return format;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * 把结果切回主线程；代次变化说明请求已取消，直接丢弃。
+     */
+    private void publish(int requestGeneration, long trackId, byte[] peaks, boolean complete,
+                         Callback callback) {
+        MeowExecutors.postToMain(() -> {
+            if (requestGeneration == generation) {
+                callback.onWaveform(trackId, peaks, complete);
+            }
+        });
+    }
+
+    /**
+     * 读取缓存文件；不存在、格式不对或版本过旧时返回 null。
+     */
+    @Nullable
+    private static byte[] readCache(File file) {
+        if (!file.isFile()) {
+            return null;
+        }
+        try (DataInputStream in = new DataInputStream(new FileInputStream(file))) {
+            if (in.readInt() != CACHE_MAGIC || in.readInt() != CACHE_VERSION || in.readInt() != BUCKETS) {
+                return null;
+            }
+            byte[] peaks = new byte[BUCKETS * 2];
+            in.readFully(peaks);
+            return peaks;
+        } catch (IOException e) {
+            Log.w(TAG, "读取波形缓存失败: " + file.getName(), e);
+            return null;
+        }
+    }
+
+    /**
+     * 写入缓存文件：先写临时文件再改名，避免中途被杀留下半个文件。
+     */
+    private void writeCache(File file, byte[] peaks) {
+        if (!cacheDir.isDirectory() && !cacheDir.mkdirs()) {
+            return;
+        }
+        File tmp = new File(cacheDir, file.getName() + ".tmp");
+        try (DataOutputStream out = new DataOutputStream(new FileOutputStream(tmp))) {
+            out.writeInt(CACHE_MAGIC);
+            out.writeInt(CACHE_VERSION);
+            out.writeInt(BUCKETS);
+            out.write(peaks);
+        } catch (IOException e) {
+            Log.w(TAG, "写入波形缓存失败: " + file.getName(), e);
+            tmp.delete();
+            return;
+        }
+        if (!tmp.renameTo(file)) {
+            tmp.delete();
+        }
+    }
+
+    private static String sha1Hex(String value) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-1").digest(value.getBytes(StandardCharsets.UTF_8));
+            StringBuilder sb = new StringBuilder(digest.length * 2);
+            for (byte b : digest) {
+                sb.append(Character.forDigit((b >> 4) & 0xF, 16));
+                sb.append(Character.forDigit(b & 0xF, 16));
+            }
+            return sb.toString();
+        } catch (NoSuchAlgorithmException e) {
+            // SHA-1 是平台必备算法，不会走到这里
+            return Integer.toHexString(value.hashCode());
+        }
+    }
+
+    /**
+     * 峰值统计：按采样时间把 PCM 采样分到各组，记录每组的最小/最大值（-1~1）。
+     */
+    static final class PeakAccumulator {
+
+        private final long durationUs;
+        private final float[] mins = new float[BUCKETS];
+        private final float[] maxs = new float[BUCKETS];
+        private int sampleRate;
+        private int channelCount;
+        private boolean floatPcm;
+        // 已经写到的最大组下标 + 1
+        private int filledBuckets;
+
+        PeakAccumulator(long durationUs, int sampleRate, int channelCount) {
+            this.durationUs = durationUs;
+            this.sampleRate = sampleRate;
+            this.channelCount = Math.max(1, channelCount);
+        }
+
+        /**
+         * 解码器输出格式变化（实际采样率、声道数、PCM 编码以输出格式为准）。
+         */
+        void setFormat(MediaFormat format) {
+            if (format.containsKey(MediaFormat.KEY_SAMPLE_RATE)) {
+                sampleRate = format.getInteger(MediaFormat.KEY_SAMPLE_RATE);
+            }
+            if (format.containsKey(MediaFormat.KEY_CHANNEL_COUNT)) {
+                channelCount = Math.max(1, format.getInteger(MediaFormat.KEY_CHANNEL_COUNT));
+            }
+            floatPcm = format.containsKey(MediaFormat.KEY_PCM_ENCODING)
+                    && format.getInteger(MediaFormat.KEY_PCM_ENCODING) == AudioFormat.ENCODING_PCM_FLOAT;
+        }
+
+        /**
+         * 统计一个输出缓冲区（16 位或浮点 PCM，多声道交错）。
+         */
+        void add(ByteBuffer pcm, long presentationTimeUs) {
+            if (sampleRate <= 0) {
+                return;
+            }
+            ByteBuffer data = pcm.order(ByteOrder.nativeOrder());
+            int bytesPerSample = floatPcm ? 4 : 2;
+            int frames = data.remaining() / (bytesPerSample * channelCount);
+            long startFrame = presentationTimeUs * sampleRate / 1_000_000L;
+            long totalFrames = Math.max(1, durationUs * sampleRate / 1_000_000L);
+            int position = data.position();
+            for (int frame = 0; frame < frames; frame++) {
+                int bucket = (int) ((startFrame + frame) * BUCKETS / totalFrames);
+                if (bucket < 0) {
+                    bucket = 0;
+                } else if (bucket >= BUCKETS) {
+                    bucket = BUCKETS - 1;
+                }
+                float min = mins[bucket];
+                float max = maxs[bucket];
+                for (int ch = 0; ch < channelCount; ch++) {
+                    float value = floatPcm ? data.getFloat(position) : data.getShort(position) / 32768f;
+                    position += bytesPerSample;
+                    if (value < min) {
+                        min = value;
+                    }
+                    if (value > max) {
+                        max = value;
+                    }
+                }
+                mins[bucket] = min;
+                maxs[bucket] = max;
+                if (bucket >= filledBuckets) {
+                    filledBuckets = bucket + 1;
+                }
+            }
+        }
+
+        int getFilledBuckets() {
+            return filledBuckets;
+        }
+
+        /**
+         * 压缩成 8 位有符号峰值数组（min/max 交替）。
+         */
+        byte[] toBytes() {
+            byte[] out = new byte[BUCKETS * 2];
+            for (int i = 0; i < BUCKETS; i++) {
+                out[i * 2] = toByte(mins[i]);
+                out[i * 2 + 1] = toByte(maxs[i]);
+            }
+            return out;
+        }
+
+        private static byte toByte(float value) {
+            float clamped = Math.max(-1f, Math.min(1f, value));
+            return (byte) Math.round(clamped * 127f);
+        }
+    }
+}
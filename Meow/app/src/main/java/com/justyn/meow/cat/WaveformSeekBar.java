@@ -0,0 +1,130 @@
+package com.justyn.meow.cat;
+
+import android.content.Context;
+import android.graphics.Canvas;
+import android.graphics.Paint;
+import android.util.AttributeSet;
+
+import androidx.annotation.Nullable;
+import androidx.annotation.VisibleForTesting;
+import androidx.appcompat.widget.AppCompatSeekBar;
+import androidx.core.content.ContextCompat;
+
+import com.justyn.meow.R;
+
+/**
+ * 带波形的进度条：在轨道位置画出音频峰值，已播放部分用主色，未播放部分用浅色。
+ * <p>
+ * 峰值来自 {@link WaveformLoader}（min/max 交替的 8 位有符号数组）；没有波形时画一条细线。
+ * 布局里把 progressDrawable 设为透明，拖动手柄仍由父类绘制。
+ * </p>
+ */
+public class WaveformSeekBar extends AppCompatSeekBar {
+
+    // 峰值条之间的间隔占比（每组宽度的这一部分留空）
+    private static final float BAR_GAP_RATIO = 0.3f;
+    // 没有波形时的轨道线高度（dp）
+    private static final float BASELINE_HEIGHT_DP = 2f;
+
+    private final Paint playedPaint = new Paint(Paint.ANTI_ALIAS_FLAG);
+    private final Paint remainingPaint = new Paint(Paint.ANTI_ALIAS_FLAG);
+    private final float baselineHalfHeight;
+
+    // 当前显示的峰值（null 表示还没有波形）
+    @Nullable
+    private byte[] peaks;
+
+    public WaveformSeekBar(Context context) {
+        this(context, null);
+    }
+
+    public WaveformSeekBar(Context context, @Nullable AttributeSet attrs) {
+        this(context, attrs, androidx.appcompat.R.attr.seekBarStyle);
+    }
+
+    public WaveformSeekBar(Context context, @Nullable AttributeSet attrs, int defStyleAttr) {
+        super(context, attrs, defStyleAttr);
+        int color = ContextCompat.getColor(context, R.color.meow_primary);
+        playedPaint.setColor(color);
+        remainingPaint.setColor(color);
+        remainingPaint.setAlpha(Math.round(playedPaint.getAlpha() * 0.35f));
+        baselineHalfHeight = BASELINE_HEIGHT_DP * getResources().getDisplayMetrics().density / 2f;
+    }
+
+    /**
+     * 设置波形峰值（传 null 清空）。解码过程中会多次调用，每次传入已解出的部分。
+     */
+    public void setPeaks(@Nullable byte[] peaks) {
+        this.peaks = peaks;
+        invalidate();
+    }
+
+    /**
+     * 播放中逐帧更新进度：只有已播放位置落到另一个像素时才真正 setProgress，
+     * 否则（长音频每帧只前进零点几像素）跳过这次重绘与无障碍事件。
+     */
+    public void setPlaybackProgress(int progress) {
+        int width = getWidth() - getPaddingLeft() - getPaddingRight();
+        int max = getMax();
+        if (progress == getProgress()) {
+            return;
+        }
+        if (width > 0 && playedPixel(progress, max, width) == playedPixel(getProgress(), max, width)) {
+            return;
+        }
+        setProgress(progress);
+    }
+
+    /**
+     * 进度在轨道上对应的像素（与 {@link #onDraw} 的已播放位置一致）。
+     */
+    @VisibleForTesting
+    static int playedPixel(int progress, int max, int width) {
+        if (max <= 0) {
+            return 0;
+        }
+        return (int) ((long) Math.max(0, Math.min(progress, max)) * width / max);
+    }
+
+    @Override
+    protected synchronized void onDraw(Canvas canvas) {
+        float left = getPaddingLeft();
+        float right = getWidth() - getPaddingRight();
+        float width = right - left;
+        if (width > 0) {
+            float centerY = getPaddingTop() + (getHeight() - getPaddingTop() - getPaddingBottom()) / 2f;
+            float playedX = getMax() > 0 ? left + width * getProgress() / getMax() : left;
+            if (peaks == null) {
+                drawBaseline(canvas, left, right, playedX, centerY);
+            } else {
+                drawPeaks(canvas, peaks, left, width, playedX, centerY);
+            }
+        }
+        // 父类只剩拖动手柄可画（进度条本身透明）
+        super.onDraw(canvas);
+    }
+
+    private void drawBaseline(Canvas canvas, float left, float right, float playedX, float centerY) {
+        float top = centerY - baselineHalfHeight;
+        float bottom = centerY + baselineHalfHeight;
+        canvas.drawRect(left, top, playedX, bottom, playedPaint);
+        canvas.drawRect(playedX, top, right, bottom, remainingPaint);
+    }
+
+    private void drawPeaks(Canvas canvas, byte[] peaks, float left, float width, float playedX,
+                           float centerY) {
+        int buckets = peaks.length / 2;
+        float barWidth = width / buckets;
+        float barInset = barWidth * BAR_GAP_RATIO / 2f;
+        // 峰值 127 对应半个可绘制高度
+        float scale = (getHeight() - getPaddingTop() - getPaddingBottom()) / 2f / 127f;
+        for (int i = 0; i < buckets; i++) {
+            float barLeft = left + i * barWidth;
+            // 至少保留轨道线高度，静音段也能看出进度
+            float top = Math.min(centerY - peaks[i * 2 + 1] * scale, centerY - baselineHalfHeight);
+            float bottom = Math.max(centerY - peaks[i * 2] * scale, centerY + baselineHalfHeight);
+            Paint paint = barLeft + barWidth / 2f <= playedX ? playedPaint : remainingPaint;
+            canvas.drawRect(barLeft + barInset, top, barLeft + barWidth - barInset, bottom, paint);
+        }
+    }
+}
@@ -21,8 +21,6 @@ import com.justyn.meow.R;
 import java.time.DayOfWeek;
 import java.time.LocalDate;
 import java.time.YearMonth;
-import java.util.HashSet;
-import java.util.Set;
 
 import kotlin.Unit;
 import kotlin.jvm.functions.Function1;
@@ -35,7 +33,8 @@ public class CheckInCalendarActivity extends AppCompatActivity {
     private TextView tvMonthSummary;
     private MaterialButton btnCheckIn;
     private LocalDate selectedDate;
-    private final Set<LocalDate> checkedDates = new HashSet<>();
+    // 当前用户的打卡历史（位图，查询 O(1)）
+    private CheckInHistory checkInHistory;
 
     @Override
     protected void onCreate(Bundle savedInstanceState) {
@@ -54,7 +53,7 @@ public class CheckInCalendarActivity extends AppCompatActivity {
         btnCheckIn = findViewById(R.id.btnCheckIn);
 
         selectedDate = LocalDate.now();
-        loadCheckedDates();
+        checkInHistory = CheckInStore.getHistory(this);
         setupCalendar();
         updateSelectedStatus(selectedDate);
         updateMonthSummary();
@@ -71,7 +70,7 @@ public class CheckInCalendarActivity extends AppCompatActivity {
             Toast.makeText(this, getString(R.string.checkin_toast_done), Toast.LENGTH_SHORT).show();
         }
         LocalDate oldSelected = selectedDate;
-        loadCheckedDates();
+        checkInHistory = CheckInStore.getHistory(this);
         selectedDate = LocalDate.now();
         calendarView.notifyDateChanged(selectedDate);
         if (oldSelected != null && !oldSelected.equals(selectedDate)) {
@@ -89,7 +88,7 @@ public class CheckInCalendarActivity extends AppCompatActivity {
         }
         String dateText = CheckInStore.formatDate(date.getYear(), date.getMonthValue(), date.getDayOfMonth());
         tvSelectedDate.setText(dateText);
-        boolean checked = checkedDates.contains(date);
+        boolean checked = checkInHistory.contains(date);
         tvSelectedStatus.setText(checked
                 ? getString(R.string.checkin_status_done)
                 : getString(R.string.checkin_status_missed));
@@ -98,23 +97,10 @@ public class CheckInCalendarActivity extends AppCompatActivity {
     }
 
     private void updateMonthSummary() {
-        java.util.Calendar today = java.util.Calendar.getInstance();
-        int year = today.get(java.util.Calendar.YEAR);
-        int month = today.get(java.util.Calendar.MONTH) + 1;
-        int dayOfMonth = today.get(java.util.Calendar.DAY_OF_MONTH);
-
-        int checkedCount = 0;
-        Set<String> dates = CheckInStore.getCheckInDates(this);
-        for (String date : dates) {
-            int[] parts = parseDateParts(date);
-            if (parts == null) {
-                continue;
-            }
-            if (parts[0] == year && parts[1] == month && parts[2] <= dayOfMonth) {
-                checkedCount += 1;
-            }
-        }
-        int missedCount = Math.max(0, dayOfMonth - checkedCount);
+        LocalDate today = LocalDate.now();
+        // 本月打卡天数由统计增量维护（不能给未来打卡，所以就是 1 日到今天的天数）
+        int checkedCount = CheckInStore.getStats(this).getMonthTotal(YearMonth.from(today));
+        int missedCount = Math.max(0, today.getDayOfMonth() - checkedCount);
         tvMonthSummary.setText(getString(R.string.checkin_month_summary, checkedCount, missedCount));
     }
 
@@ -143,7 +129,7 @@ public class CheckInCalendarActivity extends AppCompatActivity {
                 if (isMonthDate) {
                     container.tvDayText.setTextColor(getColor(R.color.meow_on_surface));
                     container.viewCheckInDot.setVisibility(
-                            checkedDates.contains(day.getDate()) ? View.VISIBLE : View.INVISIBLE
+                            checkInHistory.contains(day.getDate()) ? View.VISIBLE : View.INVISIBLE
                     );
                 } else {
                     container.tvDayText.setTextColor(getColor(R.color.meow_on_surface_muted));
@@ -182,39 +168,6 @@ public class CheckInCalendarActivity extends AppCompatActivity {
         ));
     }
 
-    private void loadCheckedDates() {
-        checkedDates.clear();
-        Set<String> dates = CheckInStore.getCheckInDates(this);
-        for (String date : dates) {
-            LocalDate parsed = parseLocalDate(date);
-            if (parsed != null) {
-                checkedDates.add(parsed);
-            }
-        }
-    }
-
-    private static LocalDate parseLocalDate(String date) {
-        int[] parts = parseDateParts(date);
-        if (parts == null) {
-            return null;
-        }
-        return LocalDate.of(parts[0], parts[1], parts[2]);
-    }
-
-    private static int[] parseDateParts(String date) {
-        if (date == null || date.length() != 10) {
-            return null;
-        }
-        try {
-            int year = Integer.parseInt(date.substring(0, 4));
-            int month = Integer.parseInt(date.substring(5, 7));
-            int day = Integer.parseInt(date.substring(8, 10));
-            return new int[]{year, month, day};
-        } catch (NumberFormatException e) {
-            return null;
-        }
-    }
-
     private class DayViewContainer extends ViewContainer {
         private final TextView tvDayText;
         private final View viewCheckInDot;
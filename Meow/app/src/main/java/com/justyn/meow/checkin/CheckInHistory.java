@@ -0,0 +1,208 @@
+package com.justyn.meow.checkin;
+
+import java.nio.ByteBuffer;
+import java.time.LocalDate;
+import java.util.Base64;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.function.Consumer;
+
+/**
+ * 打卡历史：每年一张按“一年中的第几天”编号的位图，一天一位。
+ * <p>
+ * - 查询、打卡都是 O(1) 的位运算；区间计数按 64 位字做 popcount
+ * - 每年固定 6 个 long（366 位），序列化后每年 50 字节，十年历史约 500 字节
+ * - 序列化为 Base64 字符串存进 SharedPreferences，由 {@link CheckInStore} 负责读写
+ * </p>
+ * 非线程安全，只在主线程使用。
+ */
+public final class CheckInHistory {
+
+    // 每年的位图字数：366 天向上取整到 64 位
+    static final int WORDS_PER_YEAR = 6;
+    // 序列化格式版本
+    private static final byte FORMAT_VERSION = 1;
+    // 每年序列化的字节数：年份（short）+ 位图
+    private static final int BYTES_PER_YEAR = Short.BYTES + WORDS_PER_YEAR * Long.BYTES;
+
+    // 年份 → 位图（第 dayOfYear - 1 位表示这一天已打卡）
+    private final Map<Integer, long[]> years = new TreeMap<>();
+
+    /**
+     * 某天是否已打卡。
+     */
+    public boolean contains(LocalDate date) {
+        long[] bits = years.get(date.getYear());
+        if (bits == null) {
+            return false;
+        }
+        int index = date.getDayOfYear() - 1;
+        return (bits[index >>> 6] & (1L << index)) != 0;
+    }
+
+    /**
+     * 按 epoch day（1970-01-01 起的天数）查询。
+     */
+    public boolean containsEpochDay(long epochDay) {
+        return contains(LocalDate.ofEpochDay(epochDay));
+    }
+
+    /**
+     * 记录某天打卡。
+     *
+     * @return 是否是新记录（已打过卡返回 false）
+     */
+    public boolean add(LocalDate date) {
+        long[] bits = years.get(date.getYear());
+        if (bits == null) {
+            bits = new long[WORDS_PER_YEAR];
+            years.put(date.getYear(), bits);
+        }
+        int index = date.getDayOfYear() - 1;
+        long mask = 1L << index;
+        if ((bits[index >>> 6] & mask) != 0) {
+            return false;
+        }
+        bits[index >>> 6] |= mask;
+        return true;
+    }
+
+    /**
+     * 统计闭区间 [from, to] 内的打卡天数（from 晚于 to 时为 0）。
+     */
+    public int count(LocalDate from, LocalDate to) {
+        if (from.isAfter(to)) {
+            return 0;
+        }
+        int total = 0;
+        for (int year = from.getYear(); year <= to.getYear(); year++) {
+            long[] bits = years.get(year);
+            if (bits == null) {
+                continue;
+            }
+            int start = year == from.getYear() ? from.getDayOfYear() - 1 : 0;
+            int end = year == to.getYear() ? to.getDayOfYear() - 1 : WORDS_PER_YEAR * 64 - 1;
+            total += countBits(bits, start, end);
+        }
+        return total;
+    }
+
+    /**
+     * 统计某月 1 日到 upTo（含）的打卡天数。
+     */
+    public int countMonthUpTo(LocalDate upTo) {
+        return count(upTo.withDayOfMonth(1), upTo);
+    }
+
+    /**
+     * 总打卡天数。
+     */
+    public int size() {
+        int total = 0;
+        for (long[] bits : years.values()) {
+            for (long word : bits) {
+                total += Long.bitCount(word);
+            }
+        }
+        return total;
+    }
+
+    /**
+     * 按日期从早到晚遍历所有打卡日（统计重算用）：逐字跳过空位，只访问置位的天。
+     */
+    public void forEachDay(Consumer<LocalDate> action) {
+        for (Map.Entry<Integer, long[]> entry : years.entrySet()) {
+            long[] bits = entry.getValue();
+            for (int i = 0; i < bits.length; i++) {
+                long word = bits[i];
+                while (word != 0) {
+                    int index = (i << 6) + Long.numberOfTrailingZeros(word);
+                    action.accept(LocalDate.ofYearDay(entry.getKey(), index + 1));
+                    // 清掉最低位的 1
+                    word &= word - 1;
+                }
+            }
+        }
+    }
+
+    /**
+     * 序列化：版本号 + 每年（年份 + 6 个 long），没有打卡的年份不写入。
+     */
+    public String encode() {
+        int yearCount = 0;
+        for (long[] bits : years.values()) {
+            if (!isEmpty(bits)) {
+                yearCount++;
+            }
+        }
+        ByteBuffer buffer = ByteBuffer.allocate(1 + yearCount * BYTES_PER_YEAR);
+        buffer.put(FORMAT_VERSION);
+        for (Map.Entry<Integer, long[]> entry : years.entrySet()) {
+            if (isEmpty(entry.getValue())) {
+                continue;
+            }
+            buffer.putShort(entry.getKey().shortValue());
+            for (long word : entry.getValue()) {
+                buffer.putLong(word);
+            }
+        }
+        return Base64.getEncoder().encodeToString(buffer.array());
+    }
+
+    /**
+     * 反序列化；内容损坏或版本不认识时返回 null，由调用方决定是否重新迁移。
+     */
+    public static CheckInHistory decode(String encoded) {
+        if (encoded == null) {
+            return null;
+        }
+        byte[] bytes;
+        try {
+            bytes = Base64.getDecoder().decode(encoded);
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+        if (bytes.length < 1 || bytes[0] != FORMAT_VERSION || (bytes.length - 1) % BYTES_PER_YEAR != 0) {
+            return null;
+        }
+        ByteBuffer buffer = ByteBuffer.wrap(bytes, 1, bytes.length - 1);
+        CheckInHistory history = new CheckInHistory();
+        while (buffer.hasRemaining()) {
+            int year = buffer.getShort();
+            long[] bits = new long[WORDS_PER_YEAR];
+            for (int i = 0; i < WORDS_PER_YEAR; i++) {
+                bits[i] = buffer.getLong();
+            }
+            history.years.put(year, bits);
+        }
+        return history;
+    }
+
+    /**
+     * 统计位图中 [start, end] 位（含）里 1 的个数：首尾字用掩码截取，中间整字 popcount。
+     */
+    static int countBits(long[] bits, int start, int end) {
+        int firstWord = start >>> 6;
+        int lastWord = end >>> 6;
+        // -1L << n 只取低 6 位移位量，正好得到“第 n 位及以上”的掩码
+        long firstMask = -1L << start;
+        long lastMask = -1L >>> (63 - (end & 63));
+        if (firstWord == lastWord) {
+            return Long.bitCount(bits[firstWord] & firstMask & lastMask);
+        }
+        int total = Long.bitCount(bits[firstWord] & firstMask);
+        for (int i = firstWord + 1; i < lastWord; i++) {
+            total += Long.bitCount(bits[i]);
+        }
+        return total + Long.bitCount(bits[lastWord] & lastMask);
+    }
+
+    private static boolean isEmpty(long[] bits) {
+        for (long word : bits) {
+            if (word != 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
@@ -0,0 +1,195 @@
+package com.justyn.meow.checkin;
+
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * 打卡统计：当前连续天数、最长连续天数、每月/每年合计与完成率。
+ * <p>
+ * - 每次打卡由 {@link #onCheckIn(LocalDate, CheckInHistory)} 增量更新，读取全部是 O(1)，不再扫描历史
+ * - 日期统一用 epoch day（1970-01-01 起的天数）比较，不再解析日期字符串
+ * - 历史被修复或导入时用 {@link #rebuild(CheckInHistory)} 从位图精确重算
+ * - 序列化为一行文本存进 SharedPreferences，由 {@link CheckInStore} 负责读写
+ * </p>
+ * 非线程安全，只在主线程使用。
+ */
+public final class CheckInStats {
+
+    // 没有任何打卡时的日期占位
+    private static final long NONE = Long.MIN_VALUE;
+    // 序列化格式版本
+    private static final String FORMAT_VERSION = "1";
+
+    // 最近一次打卡（epoch day）
+    private long lastDay = NONE;
+    // 第一次打卡（epoch day），完成率从这一天算起
+    private long firstDay = NONE;
+    // 以 lastDay 结尾的连续天数
+    private int streak;
+    private int longestStreak;
+    private int total;
+    // 年份 → [全年合计, 1 月, ..., 12 月]
+    private final Map<Integer, int[]> totals = new TreeMap<>();
+
+    /**
+     * 从打卡历史重算全部统计（历史修复、导入或统计数据损坏时调用）。
+     */
+    public static CheckInStats rebuild(CheckInHistory history) {
+        CheckInStats stats = new CheckInStats();
+        history.forEachDay(stats::append);
+        return stats;
+    }
+
+    /**
+     * 记录一次新打卡（{@link CheckInHistory#add(LocalDate)} 返回 true 之后调用）。
+     * <p>
+     * 正常情况下打卡日期总在最近一次之后，直接增量更新；补录更早的日期会影响连续天数，此时从历史重算。
+     * </p>
+     *
+     * @return 更新后的统计（补录时是重算出的新实例）
+     */
+    public CheckInStats onCheckIn(LocalDate day, CheckInHistory history) {
+        if (lastDay != NONE && day.toEpochDay() <= lastDay) {
+            return rebuild(history);
+        }
+        append(day);
+        return this;
+    }
+
+    /**
+     * 当前连续天数：最近一次打卡是今天或昨天时有效，否则已经断签，返回 0。
+     */
+    public int getCurrentStreak(LocalDate today) {
+        if (lastDay == NONE || today.toEpochDay() - lastDay > 1) {
+            return 0;
+        }
+        return streak;
+    }
+
+    public int getLongestStreak() {
+        return longestStreak;
+    }
+
+    public int getTotal() {
+        return total;
+    }
+
+    public int getMonthTotal(YearMonth month) {
+        int[] yearTotals = totals.get(month.getYear());
+        return yearTotals == null ? 0 : yearTotals[month.getMonthValue()];
+    }
+
+    public int getYearTotal(int year) {
+        int[] yearTotals = totals.get(year);
+        return yearTotals == null ? 0 : yearTotals[0];
+    }
+
+    /**
+     * 完成率：从第一次打卡到 today（含）的天数里打过卡的比例，没有打卡时为 0。
+     */
+    public float getCompletionRate(LocalDate today) {
+        if (firstDay == NONE) {
+            return 0f;
+        }
+        long days = today.toEpochDay() - firstDay + 1;
+        return days <= 0 ? 1f : Math.min(1f, total / (float) days);
+    }
+
+    /**
+     * 旧版本只保存了连续天数和最近打卡日期，迁移时历史里只有最后一天：
+     * 若旧的连续天数与最近日期吻合，沿用旧值，避免升级后连续天数被清成 1。
+     */
+    void adoptLegacyStreak(int legacyStreak, LocalDate legacyLastDay) {
+        if (legacyLastDay == null || legacyLastDay.toEpochDay() != lastDay || legacyStreak <= streak) {
+            return;
+        }
+        streak = legacyStreak;
+        longestStreak = Math.max(longestStreak, legacyStreak);
+    }
+
+    /**
+     * 序列化：版本|lastDay|firstDay|streak|longest|total|年:合计,1月,...,12月;年:...
+     */
+    public String encode() {
+        StringBuilder sb = new StringBuilder(64 + totals.size() * 48);
+        sb.append(FORMAT_VERSION).append('|').append(lastDay).append('|').append(firstDay)
+                .append('|').append(streak).append('|').append(longestStreak).append('|').append(total).append('|');
+        boolean firstYear = true;
+        for (Map.Entry<Integer, int[]> entry : totals.entrySet()) {
+            if (!firstYear) {
+                sb.append(';');
+            }
+            firstYear = false;
+            sb.append(entry.getKey()).append(':');
+            int[] values = entry.getValue();
+            for (int i = 0; i < values.length; i++) {
+                if (i > 0) {
+                    sb.append(',');
+                }
+                sb.append(values[i]);
+            }
+        }
+        return sb.toString();
+    }
+
+    /**
+     * 反序列化；内容损坏或版本不认识时返回 null，由调用方从历史重算。
+     */
+    public static CheckInStats decode(String encoded) {
+        if (encoded == null) {
+            return null;
+        }
+        String[] parts = encoded.split("\\|", -1);
+        if (parts.length != 7 || !FORMAT_VERSION.equals(parts[0])) {
+            return null;
+        }
+        try {
+            CheckInStats stats = new CheckInStats();
+            stats.lastDay = Long.parseLong(parts[1]);
+            stats.firstDay = Long.parseLong(parts[2]);
+            stats.streak = Integer.parseInt(parts[3]);
+            stats.longestStreak = Integer.parseInt(parts[4]);
+            stats.total = Integer.parseInt(parts[5]);
+            if (!parts[6].isEmpty()) {
+                for (String year : parts[6].split(";")) {
+                    int colon = year.indexOf(':');
+                    String[] values = year.substring(colon + 1).split(",");
+                    if (colon <= 0 || values.length != 13) {
+                        return null;
+                    }
+                    int[] yearTotals = new int[13];
+                    for (int i = 0; i < 13; i++) {
+                        yearTotals[i] = Integer.parseInt(values[i]);
+                    }
+                    stats.totals.put(Integer.parseInt(year.substring(0, colon)), yearTotals);
+                }
+            }
+            return stats;
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    /**
+     * 追加一个比 lastDay 更晚的打卡日。
+     */
+    private void append(LocalDate day) {
+        long epochDay = day.toEpochDay();
+        streak = lastDay != NONE && epochDay == lastDay + 1 ? streak + 1 : 1;
+        longestStreak = Math.max(longestStreak, streak);
+        if (firstDay == NONE) {
+            firstDay = epochDay;
+        }
+        lastDay = epochDay;
+        total++;
+        int[] yearTotals = totals.get(day.getYear());
+        if (yearTotals == null) {
+            yearTotals = new int[13];
+            totals.put(day.getYear(), yearTotals);
+        }
+        yearTotals[0]++;
+        yearTotals[day.getMonthValue()]++;
+    }
+}
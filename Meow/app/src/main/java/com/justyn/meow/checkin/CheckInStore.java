@@ -5,98 +5,134 @@ import android.content.SharedPreferences;
 
 import com.justyn.meow.util.MeowPreferences;
 
-import java.text.ParseException;
-import java.text.SimpleDateFormat;
-import java.util.Date;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
 import java.util.HashSet;
 import java.util.Locale;
 import java.util.Set;
 
+/**
+ * 打卡记录存储（按用户隔离）：打卡历史与统计。
+ * <p>
+ * - 打卡历史用 {@link CheckInHistory} 位图保存为一个字符串
+ * - 连续天数、每月合计等由 {@link CheckInStats} 在每次打卡时增量更新并一起保存；统计缺失或损坏时从历史重算
+ * - 两者读取一次后缓存在内存里；旧版本的日期字符串集合、连续天数在第一次读取时迁移过来
+ * </p>
+ */
 public final class CheckInStore {
 
     private static final String PREFS_NAME = "meow_checkin_prefs";
+    // 旧版本：最近打卡日期与连续天数，只在迁移时读取
     private static final String KEY_LAST_CHECKIN_DATE = "last_checkin_date";
     private static final String KEY_STREAK = "checkin_streak";
+    // 旧版本：日期字符串集合（yyyy-MM-dd），只在迁移时读取
     private static final String KEY_DATES = "checkin_dates";
-    private static final String DATE_PATTERN = "yyyy-MM-dd";
+    // 打卡历史位图（CheckInHistory#encode）
+    private static final String KEY_HISTORY = "checkin_history";
+    // 打卡统计（CheckInStats#encode）
+    private static final String KEY_STATS = "checkin_stats";
+
+    // 进程内缓存：SharedPreferences 实例与当前用户的 key（key 只在用户变化时重建，旧数据迁移也只检查一次）
+    private static volatile SharedPreferences prefs;
+    private static volatile CheckInKeys cachedKeys;
 
     private CheckInStore() {
     }
 
+    /**
+     * 提前获取 SharedPreferences：系统在后台线程加载文件，之后第一次读取不必在主线程等待。
+     */
+    public static void warmUp(Context context) {
+        getPrefs(context);
+    }
+
     public static CheckInResult checkInToday(Context context) {
         CheckInKeys keys = getKeys(context);
-        String today = getTodayString();
-        String lastDate = keys.prefs.getString(keys.keyLastCheckInDate, null);
-        int streak = keys.prefs.getInt(keys.keyStreak, 0);
-        Set<String> dates = loadDateSet(keys);
-
-        if (today.equals(lastDate) || dates.contains(today)) {
-            return new CheckInResult(true, streak);
-        }
+        LocalDate today = LocalDate.now();
+        CheckInHistory history = loadHistory(keys);
+        CheckInStats stats = loadStats(keys);
 
-        if (lastDate == null) {
-            streak = 1;
-        } else if (isYesterday(lastDate, today)) {
-            streak = streak + 1;
-        } else {
-            streak = 1;
+        if (!history.add(today)) {
+            return new CheckInResult(true, stats.getCurrentStreak(today));
         }
 
-        dates.add(today);
+        stats = stats.onCheckIn(today, history);
+        keys.stats = stats;
         keys.prefs.edit()
-                .putString(keys.keyLastCheckInDate, today)
-                .putInt(keys.keyStreak, streak)
-                .putStringSet(keys.keyDates, new HashSet<>(dates))
+                .putString(keys.keyHistory, history.encode())
+                .putString(keys.keyStats, stats.encode())
                 .apply();
 
-        return new CheckInResult(false, streak);
+        return new CheckInResult(false, stats.getCurrentStreak(today));
     }
 
     public static int getStreak(Context context) {
-        CheckInKeys keys = getKeys(context);
-        return keys.prefs.getInt(keys.keyStreak, 0);
+        return getStats(context).getCurrentStreak(LocalDate.now());
     }
 
-    public static Set<String> getCheckInDates(Context context) {
-        CheckInKeys keys = getKeys(context);
-        return loadDateSet(keys);
+    /**
+     * 获取当前用户的打卡统计（内存中的同一份实例，只读使用）。
+     */
+    public static CheckInStats getStats(Context context) {
+        return loadStats(getKeys(context));
+    }
+
+    /**
+     * 获取当前用户的打卡历史（内存中的同一份实例，只读使用；打卡请走 {@link #checkInToday(Context)}）。
+     */
+    public static CheckInHistory getHistory(Context context) {
+        return loadHistory(getKeys(context));
     }
 
     public static boolean isTodayCheckedIn(Context context) {
-        return isCheckedInDate(context, getTodayString());
+        return isCheckedInDate(context, LocalDate.now());
     }
 
-    public static boolean isCheckedInDate(Context context, String date) {
-        if (date == null || date.trim().isEmpty()) {
+    public static boolean isCheckedInDate(Context context, LocalDate date) {
+        if (date == null) {
             return false;
         }
-        CheckInKeys keys = getKeys(context);
-        Set<String> dates = loadDateSet(keys);
-        return dates.contains(date);
-    }
-
-    public static String getTodayString() {
-        SimpleDateFormat sdf = new SimpleDateFormat(DATE_PATTERN, Locale.getDefault());
-        return sdf.format(new Date());
+        return loadHistory(getKeys(context)).contains(date);
     }
 
     public static String formatDate(int year, int month, int day) {
         return String.format(Locale.getDefault(), "%04d-%02d-%02d", year, month, day);
     }
 
+    private static SharedPreferences getPrefs(Context context) {
+        SharedPreferences cached = prefs;
+        if (cached == null) {
+            cached = context.getApplicationContext().getSharedPreferences(PREFS_NAME, Context.MODE_PRIVATE);
+            prefs = cached;
+        }
+        return cached;
+    }
+
     private static CheckInKeys getKeys(Context context) {
-        SharedPreferences prefs = context.getSharedPreferences(PREFS_NAME, Context.MODE_PRIVATE);
         String username = MeowPreferences.getUsername(context);
-        CheckInKeys keys = new CheckInKeys(
+        CheckInKeys keys = cachedKeys;
+        if (keys != null && equalsUsername(keys.username, username)) {
+            return keys;
+        }
+        SharedPreferences prefs = getPrefs(context);
+        keys = new CheckInKeys(
                 prefs,
+                username,
                 buildCheckInKey(KEY_LAST_CHECKIN_DATE, username),
                 buildCheckInKey(KEY_STREAK, username),
-                buildCheckInKey(KEY_DATES, username)
+                buildCheckInKey(KEY_DATES, username),
+                buildCheckInKey(KEY_HISTORY, username),
+                buildCheckInKey(KEY_STATS, username)
         );
         migrateLegacyCheckInIfNeeded(prefs, username, keys);
+        cachedKeys = keys;
         return keys;
     }
 
+    private static boolean equalsUsername(String a, String b) {
+        return a == null ? b == null : a.equals(b);
+    }
+
     private static String buildCheckInKey(String baseKey, String username) {
         if (username == null || username.trim().isEmpty()) {
             return baseKey;
@@ -108,7 +144,8 @@ public final class CheckInStore {
         if (username == null || username.trim().isEmpty()) {
             return;
         }
-        if (prefs.contains(keys.keyStreak) || prefs.contains(keys.keyLastCheckInDate) || prefs.contains(keys.keyDates)) {
+        if (prefs.contains(keys.keyStreak) || prefs.contains(keys.keyLastCheckInDate) || prefs.contains(keys.keyDates)
+                || prefs.contains(keys.keyHistory)) {
             return;
         }
         SharedPreferences.Editor editor = prefs.edit();
@@ -125,34 +162,77 @@ public final class CheckInStore {
         editor.apply();
     }
 
-    private static Set<String> loadDateSet(CheckInKeys keys) {
-        Set<String> stored = keys.prefs.getStringSet(keys.keyDates, null);
-        if (stored != null) {
-            return new HashSet<>(stored);
+    /**
+     * 读取打卡历史：第一次读取后缓存在 keys 上；还没有位图时从旧的日期集合（或最近打卡日期）迁移一次。
+     */
+    private static CheckInHistory loadHistory(CheckInKeys keys) {
+        if (keys.history != null) {
+            return keys.history;
         }
-        Set<String> fallback = new HashSet<>();
-        String lastDate = keys.prefs.getString(keys.keyLastCheckInDate, null);
-        if (lastDate != null) {
-            fallback.add(lastDate);
-            keys.prefs.edit().putStringSet(keys.keyDates, new HashSet<>(fallback)).apply();
+        CheckInHistory history = CheckInHistory.decode(keys.prefs.getString(keys.keyHistory, null));
+        if (history == null) {
+            history = migrateLegacyDates(keys);
         }
-        return fallback;
+        keys.history = history;
+        return history;
     }
 
-    private static boolean isYesterday(String lastDateStr, String todayStr) {
-        SimpleDateFormat sdf = new SimpleDateFormat(DATE_PATTERN, Locale.getDefault());
-        try {
-            Date last = sdf.parse(lastDateStr);
-            Date today = sdf.parse(todayStr);
-            if (last == null || today == null) {
-                return false;
+    /**
+     * 读取打卡统计：第一次读取后缓存在 keys 上；没有或损坏时从历史重算一次并保存。
+     */
+    private static CheckInStats loadStats(CheckInKeys keys) {
+        if (keys.stats != null) {
+            return keys.stats;
+        }
+        CheckInStats stats = CheckInStats.decode(keys.prefs.getString(keys.keyStats, null));
+        if (stats == null) {
+            stats = CheckInStats.rebuild(loadHistory(keys));
+            // 从只有“连续天数 + 最近日期”的旧版本升级时，沿用旧的连续天数
+            stats.adoptLegacyStreak(keys.prefs.getInt(keys.keyStreak, 0),
+                    parseDate(keys.prefs.getString(keys.keyLastCheckInDate, null)));
+            keys.prefs.edit()
+                    .putString(keys.keyStats, stats.encode())
+                    .apply();
+        }
+        keys.stats = stats;
+        return stats;
+    }
+
+    private static CheckInHistory migrateLegacyDates(CheckInKeys keys) {
+        CheckInHistory history = new CheckInHistory();
+        Set<String> legacy = keys.prefs.getStringSet(keys.keyDates, null);
+        if (legacy != null) {
+            for (String date : legacy) {
+                addLegacyDate(history, date);
             }
-            long diffMs = today.getTime() - last.getTime();
-            long days = diffMs / (1000 * 60 * 60 * 24);
-            return days == 1;
-        } catch (ParseException e) {
-            e.printStackTrace();
-            return false;
+        }
+        addLegacyDate(history, keys.prefs.getString(keys.keyLastCheckInDate, null));
+        // 历史重建过，统计也要随之从历史重算
+        keys.stats = null;
+        keys.prefs.edit()
+                .putString(keys.keyHistory, history.encode())
+                .remove(keys.keyDates)
+                .remove(keys.keyStats)
+                .apply();
+        return history;
+    }
+
+    private static void addLegacyDate(CheckInHistory history, String date) {
+        LocalDate parsed = parseDate(date);
+        if (parsed != null) {
+            history.add(parsed);
+        }
+    }
+
+    private static LocalDate parseDate(String date) {
+        if (date == null) {
+            return null;
+        }
+        try {
+            return LocalDate.parse(date);
+        } catch (DateTimeParseException e) {
+            // 无法识别的旧数据直接丢弃
+            return null;
         }
     }
 
@@ -176,15 +256,26 @@ public final class CheckInStore {
 
     private static class CheckInKeys {
         private final SharedPreferences prefs;
+        // 这组 key 所属的用户（缓存命中判断用）
+        private final String username;
         private final String keyLastCheckInDate;
         private final String keyStreak;
         private final String keyDates;
+        private final String keyHistory;
+        private final String keyStats;
+        // 已读取的打卡历史与统计（第一次使用时加载）
+        private CheckInHistory history;
+        private CheckInStats stats;
 
-        private CheckInKeys(SharedPreferences prefs, String keyLastCheckInDate, String keyStreak, String keyDates) {
+        private CheckInKeys(SharedPreferences prefs, String username, String keyLastCheckInDate, String keyStreak,
+                            String keyDates, String keyHistory, String keyStats) {
             this.prefs = prefs;
+            this.username = username;
             this.keyLastCheckInDate = keyLastCheckInDate;
             this.keyStreak = keyStreak;
             this.keyDates = keyDates;
+            this.keyHistory = keyHistory;
+            this.keyStats = keyStats;
         }
     }
 }
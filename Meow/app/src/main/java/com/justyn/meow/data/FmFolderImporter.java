@@ -0,0 +1,239 @@
+package com.justyn.meow.data;
+
+import android.content.ContentResolver;
+import android.content.Context;
+import android.database.Cursor;
+import android.net.Uri;
+import android.os.CancellationSignal;
+import android.provider.DocumentsContract;
+import android.util.Log;
+
+import com.justyn.meow.cat.AudioMetadata;
+import com.justyn.meow.util.MeowExecutors;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+
+/**
+ * 文件夹批量导入：遍历用户选择的目录树，把其中的音频写入 fm_track。
+ * <p>
+ * 流程：
+ * - 在导入线程上逐层列出目录（不一次性收集整棵树），发现音频就提交给有界探测线程池
+ * - 探测线程读取标题与时长；探测完成的结果按发现顺序收集，每 {@link #BATCH_SIZE} 条一个事务写库
+ * - 已导入过的文件（同一 Uri 且大小相同）直接跳过，不再打开文件
+ * - 每个目录、每个批次之后检查取消信号；取消时已写入的批次保留，再次导入会跳过它们
+ * 由 {@link MeowRepository#importFmFolder} 调度，在导入线程上运行。
+ * </p>
+ */
+public final class FmFolderImporter {
+
+    /**
+     * 导入进度（不可变快照）。
+     */
+    public static final class Progress {
+        // 发现的音频文件数
+        private final int found;
+        // 已写入数据库的条数
+        private final int imported;
+        // 因已导入过而跳过的条数
+        private final int skipped;
+
+        Progress(int found, int imported, int skipped) {
+            this.found = found;
+            this.imported = imported;
+            this.skipped = skipped;
+        }
+
+        public int getFound() {
+            return found;
+        }
+
+        public int getImported() {
+            return imported;
+        }
+
+        public int getSkipped() {
+            return skipped;
+        }
+    }
+
+    /**
+     * 进度回调（在导入线程调用）。
+     */
+    interface ProgressSink {
+        void onProgress(Progress progress);
+    }
+
+    // 每个事务写入的条数
+    static final int BATCH_SIZE = 50;
+
+    private static final String TAG = "FmFolderImporter";
+
+    private static final String[] CHILD_COLUMNS = {
+            DocumentsContract.Document.COLUMN_DOCUMENT_ID,
+            DocumentsContract.Document.COLUMN_DISPLAY_NAME,
+            DocumentsContract.Document.COLUMN_MIME_TYPE,
+            DocumentsContract.Document.COLUMN_SIZE
+    };
+
+    private final Context appContext;
+    private final MeowDbHelper dbHelper;
+    private final String username;
+    private final Uri treeUri;
+    private final CancellationSignal signal;
+    private final ProgressSink sink;
+
+    // 已提交探测、尚未写库的音频（按发现顺序）
+    private final Deque<Future<NewFmTrack>> probing = new ArrayDeque<>();
+    private final List<NewFmTrack> batch = new ArrayList<>(BATCH_SIZE);
+    private int found;
+    private int imported;
+    private int skipped;
+
+    FmFolderImporter(
+            Context appContext,
+            MeowDbHelper dbHelper,
+            String username,
+            Uri treeUri,
+            CancellationSignal signal,
+            ProgressSink sink
+    ) {
+        this.appContext = appContext;
+        this.dbHelper = dbHelper;
+        this.username = username;
+        this.treeUri = treeUri;
+        this.signal = signal;
+        this.sink = sink;
+    }
+
+    /**
+     * 执行导入（在导入线程调用）。
+     *
+     * @return 最终进度；取消时为取消前已完成的部分
+     */
+    Progress run() throws Exception {
+        Set<String> known = MeowRepository.onDbThread(() -> dbHelper.queryFmAudioKeys(username));
+        ContentResolver resolver = appContext.getContentResolver();
+
+        Deque<String> directories = new ArrayDeque<>();
+        directories.push(DocumentsContract.getTreeDocumentId(treeUri));
+        try {
+            while (!directories.isEmpty() && !signal.isCanceled()) {
+                String directoryId = directories.pop();
+                Uri childrenUri = DocumentsContract.buildChildDocumentsUriUsingTree(treeUri, directoryId);
+                try (Cursor cursor = resolver.query(childrenUri, CHILD_COLUMNS, null, null, null)) {
+                    while (cursor != null && cursor.moveToNext() && !signal.isCanceled()) {
+                        String documentId = cursor.getString(0);
+                        String displayName = cursor.getString(1);
+                        String mimeType = cursor.getString(2);
+                        if (DocumentsContract.Document.MIME_TYPE_DIR.equals(mimeType)) {
+                            directories.push(documentId);
+                        } else if (mimeType != null && mimeType.startsWith("audio/")) {
+                            long size = cursor.isNull(3) ? 0 : cursor.getLong(3);
+                            onAudioFound(documentId, displayName, size, known);
+                        }
+                    }
+                } catch (RuntimeException e) {
+                    // 单个目录读不到（权限、提供方异常）不影响其他目录
+                    Log.w(TAG, "读取目录失败: " + directoryId, e);
+                }
+                collectFinished(false);
+                sink.onProgress(snapshot());
+            }
+            if (!signal.isCanceled()) {
+                collectFinished(true);
+            }
+        } finally {
+            // 取消时丢弃还没探测完的文件
+            for (Future<NewFmTrack> future : probing) {
+                future.cancel(true);
+            }
+            probing.clear();
+        }
+        return snapshot();
+    }
+
+    /**
+     * 发现一个音频文件：已导入过的跳过，否则提交给探测线程池（队列满时在当前线程探测）。
+     */
+    private void onAudioFound(String documentId, String displayName, long size, Set<String> known)
+            throws Exception {
+        found++;
+        String audioUri = DocumentsContract.buildDocumentUriUsingTree(treeUri, documentId).toString();
+        if (MeowDbHelper.isKnownAudio(known, audioUri, size)) {
+            skipped++;
+            return;
+        }
+        known.add(MeowDbHelper.audioKey(audioUri, size));
+        probing.add(MeowExecutors.importWorkers().submit(() -> probe(audioUri, displayName, size)));
+        collectFinished(false);
+    }
+
+    /**
+     * 探测一个音频文件：标题优先取文件标签，没有时用去掉扩展名的文件名。
+     */
+    private NewFmTrack probe(String audioUri, String displayName, long size) {
+        AudioMetadata metadata = AudioMetadata.probe(appContext, 0, audioUri);
+        String title = metadata.getTitle();
+        if (title == null || title.trim().isEmpty()) {
+            title = stripExtension(displayName);
+        }
+        // file_size 记文档提供方报告的大小，与去重标识一致（探测失败时元数据里的大小为 0）
+        return new NewFmTrack(title.trim(), displayName, null, audioUri, metadata, size);
+    }
+
+    /**
+     * 按发现顺序收下已探测完的结果，凑满一批就写库。
+     *
+     * @param waitAll 是否等待全部探测完成（遍历结束时）
+     */
+    private void collectFinished(boolean waitAll) throws Exception {
+        while (!probing.isEmpty() && (waitAll || probing.peekFirst().isDone())) {
+            if (signal.isCanceled()) {
+                return;
+            }
+            Future<NewFmTrack> future = probing.pollFirst();
+            try {
+                batch.add(future.get());
+            } catch (ExecutionException e) {
+                Log.w(TAG, "探测音频失败", e.getCause());
+            }
+            if (batch.size() >= BATCH_SIZE) {
+                flushBatch();
+            }
+        }
+        if (waitAll) {
+            flushBatch();
+        }
+    }
+
+    /**
+     * 把当前批次在一个事务里写入数据库。
+     */
+    private void flushBatch() throws Exception {
+        if (batch.isEmpty()) {
+            return;
+        }
+        List<NewFmTrack> rows = new ArrayList<>(batch);
+        batch.clear();
+        imported += MeowRepository.onDbThread(() -> dbHelper.insertFmTracks(username, rows));
+        sink.onProgress(snapshot());
+    }
+
+    private Progress snapshot() {
+        return new Progress(found, imported, skipped);
+    }
+
+    private static String stripExtension(String displayName) {
+        if (displayName == null) {
+            return "";
+        }
+        int dot = displayName.lastIndexOf('.');
+        return dot > 0 ? displayName.substring(0, dot) : displayName;
+    }
+}
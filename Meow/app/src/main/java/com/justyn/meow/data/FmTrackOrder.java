@@ -0,0 +1,14 @@
+package com.justyn.meow.data;
+
+/**
+ * FM 列表的排序方式。
+ * <p>
+ * 有关键字时排序方式替代相关度档位；同一排序键内都按 id 升序，保证键集分页游标唯一。
+ * </p>
+ */
+public enum FmTrackOrder {
+    // 按添加顺序（id 升序）；有关键字时按相关度
+    DEFAULT,
+    // 按时长从短到长（未知时长排在最前）
+    DURATION
+}
@@ -0,0 +1,316 @@
+package com.justyn.meow.data;
+
+import android.content.ContentResolver;
+import android.content.Context;
+import android.graphics.Bitmap;
+import android.graphics.BitmapFactory;
+import android.net.Uri;
+import android.os.CancellationSignal;
+import android.os.ParcelFileDescriptor;
+import android.webkit.MimeTypeMap;
+
+import androidx.annotation.Nullable;
+import androidx.annotation.VisibleForTesting;
+import androidx.annotation.WorkerThread;
+
+import com.justyn.meow.util.ThumbnailCache;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileNotFoundException;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Set;
+
+/**
+ * 本地副本仓库：把用户选择的头像与音频复制到应用私有目录，按内容的 SHA-256 命名。
+ * <p>
+ * - 复制：能拿到普通文件描述符时用 FileChannel#transferFrom 整段转移（不经过 Java 堆缓冲），
+ *   提供方只给管道时退回 64KB 直接缓冲区循环读写
+ * - 命名：复制完成后用内存映射分段计算 SHA-256，同一内容只保存一份，重复选择直接复用已有文件
+ * - 头像只保存一份短边 {@link #AVATAR_RENDITION_PX}px 的 WebP（档案里记录的就是它），原图生成小图后即删除；
+ *   图片解不出来时才保留原图副本
+ * - 清理：删除或更换头像、删除音轨后由仓库调用 {@link #pruneUnreferenced}，删掉不再被引用的副本
+ * - 之后绑定、播放都读本地文件，不再经过（可能很慢或已卸载的）文档提供方
+ * </p>
+ * 所有方法都会做文件 I/O，只在本地副本线程上调用（不占用播放打开文件的媒体 I/O 线程），由 {@link MeowRepository} 调度；
+ * 复制与摘要按段进行，每段之间检查取消信号。
+ */
+public final class LocalCopyStore {
+
+    /**
+     * 副本类别：决定存放目录，以及是否生成头像小图。
+     */
+    public enum Kind {
+        AVATAR("avatars"),
+        AUDIO("audio");
+
+        private final String dirName;
+
+        Kind(String dirName) {
+            this.dirName = dirName;
+        }
+    }
+
+    // 头像小图的短边：列表与对话框里头像都是 76dp，xxxhdpi 下约 304px
+    static final int AVATAR_RENDITION_PX = 320;
+
+    // 副本根目录（filesDir 下，不会被系统清理）
+    private static final String ROOT_DIR = "media";
+    // 复制中的临时文件前缀：复制完、算出摘要后再改名
+    private static final String INCOMING_PREFIX = "incoming-";
+    // 通道转移每段的长度：段与段之间检查取消信号
+    private static final long TRANSFER_CHUNK_BYTES = 8L * 1024 * 1024;
+    // 管道复制的缓冲区大小
+    private static final int PIPE_BUFFER_BYTES = 64 * 1024;
+    // 计算摘要时每次映射的长度：大文件分段映射，不占用过多地址空间
+    private static final long MAP_CHUNK_BYTES = 32L * 1024 * 1024;
+    private static final int WEBP_QUALITY = 85;
+    // 清理时跳过最近用过的副本：刚复制、还没保存进数据库（对话框还开着）的副本也不在引用集合里
+    private static final long PRUNE_GRACE_MILLIS = 60L * 60 * 1000;
+
+    private final Context appContext;
+    private final File rootDir;
+
+    public LocalCopyStore(Context context) {
+        this(context, new File(context.getApplicationContext().getFilesDir(), ROOT_DIR));
+    }
+
+    @VisibleForTesting
+    LocalCopyStore(Context context, File rootDir) {
+        this.appContext = context.getApplicationContext();
+        this.rootDir = rootDir;
+    }
+
+    /**
+     * 复制一份本地副本。
+     *
+     * @param source 用户选择的文档 Uri
+     * @param signal 取消信号（页面销毁时取消，复制与摘要在分段之间抛出 OperationCanceledException）
+     * @return 指向本地副本的 file:// Uri（头像为小图；图片解不出来时为原图副本）
+     * @throws IOException 读取来源或写入副本失败
+     */
+    @WorkerThread
+    public synchronized Uri importCopy(Uri source, Kind kind, @Nullable CancellationSignal signal) throws IOException {
+        File dir = new File(rootDir, kind.dirName);
+        if (!dir.isDirectory() && !dir.mkdirs()) {
+            throw new IOException("无法创建目录: " + dir);
+        }
+        File incoming = File.createTempFile(INCOMING_PREFIX, null, dir);
+        try {
+            copyTo(source, incoming, signal);
+            String hash = sha256Hex(incoming, MAP_CHUNK_BYTES, signal);
+            throwIfCanceled(signal);
+            if (kind == Kind.AVATAR) {
+                // 档案只引用小图：直接从刚复制的文件生成，原图不再保留
+                File rendition = new File(dir, hash + "_" + AVATAR_RENDITION_PX + ".webp");
+                if (reuse(rendition) || writeAvatarRendition(incoming, rendition)) {
+                    return Uri.fromFile(rendition);
+                }
+            }
+            File target = new File(dir, hash + extensionOf(source));
+            if (target.isFile() && target.length() == incoming.length()) {
+                // 同一内容已经有副本，直接复用
+                reuse(target);
+            } else if (!incoming.renameTo(target)) {
+                throw new IOException("无法保存副本: " + target);
+            }
+            return Uri.fromFile(target);
+        } finally {
+            // 改名之后这里已不存在；复用、生成小图或失败时清理临时文件
+            incoming.delete();
+        }
+    }
+
+    /**
+     * 删除不再被任何档案、音轨引用的副本（包括早先版本留下的头像原图）。
+     * <p>
+     * 最近 {@link #PRUNE_GRACE_MILLIS} 内复制或复用过的副本先保留：它们可能正等着用户在对话框里保存。
+     * </p>
+     *
+     * @param referencedUris 数据库里所有账号引用的 file:// Uri（见 {@link MeowDbHelper#queryLocalCopyUris()}）
+     * @return 删除的文件数
+     */
+    @WorkerThread
+    public synchronized int pruneUnreferenced(Set<String> referencedUris) {
+        long cutoff = System.currentTimeMillis() - PRUNE_GRACE_MILLIS;
+        int deleted = 0;
+        for (Kind kind : Kind.values()) {
+            File[] files = new File(rootDir, kind.dirName).listFiles();
+            if (files == null) {
+                continue;
+            }
+            for (File file : files) {
+                if (file.isFile()
+                        && file.lastModified() < cutoff
+                        && !referencedUris.contains(Uri.fromFile(file).toString())
+                        && file.delete()) {
+                    deleted++;
+                }
+            }
+        }
+        return deleted;
+    }
+
+    /**
+     * 已有副本时刷新修改时间（避免被清理）并返回 true。
+     */
+    private static boolean reuse(File file) {
+        if (!file.isFile()) {
+            return false;
+        }
+        file.setLastModified(System.currentTimeMillis());
+        return true;
+    }
+
+    /**
+     * 复制来源内容到 target：普通文件走通道整段转移，管道退回缓冲区读写。
+     */
+    private void copyTo(Uri source, File target, @Nullable CancellationSignal signal) throws IOException {
+        ContentResolver resolver = appContext.getContentResolver();
+        try (ParcelFileDescriptor pfd = resolver.openFileDescriptor(source, "r")) {
+            if (pfd == null) {
+                throw new FileNotFoundException("无法打开: " + source);
+            }
+            try (FileInputStream in = new FileInputStream(pfd.getFileDescriptor());
+                 FileOutputStream out = new FileOutputStream(target)) {
+                FileChannel inChannel = in.getChannel();
+                FileChannel outChannel = out.getChannel();
+                long size = pfd.getStatSize();
+                if (size >= 0) {
+                    long position = 0;
+                    while (position < size) {
+                        throwIfCanceled(signal);
+                        long transferred = outChannel.transferFrom(
+                                inChannel, position, Math.min(TRANSFER_CHUNK_BYTES, size - position));
+                        if (transferred <= 0) {
+                            break;
+                        }
+                        position += transferred;
+                    }
+                    if (position < size) {
+                        throw new IOException("复制不完整: " + position + "/" + size);
+                    }
+                } else {
+                    ByteBuffer buffer = ByteBuffer.allocateDirect(PIPE_BUFFER_BYTES);
+                    while (inChannel.read(buffer) >= 0) {
+                        throwIfCanceled(signal);
+                        buffer.flip();
+                        while (buffer.hasRemaining()) {
+                            outChannel.write(buffer);
+                        }
+                        buffer.clear();
+                    }
+                }
+                out.getFD().sync();
+            }
+        }
+    }
+
+    /**
+     * 生成头像小图：按 2 的幂降采样解码，再缩放到短边 {@link #AVATAR_RENDITION_PX}，编码为 WebP。
+     *
+     * @return 是否写入成功；原图不是可解码的图片时为 false
+     */
+    private static boolean writeAvatarRendition(File original, File rendition) {
+        BitmapFactory.Options options = new BitmapFactory.Options();
+        options.inJustDecodeBounds = true;
+        BitmapFactory.decodeFile(original.getPath(), options);
+        if (options.outWidth <= 0 || options.outHeight <= 0) {
+            return false;
+        }
+        options.inJustDecodeBounds = false;
+        options.inSampleSize = 1;
+        int shortSide = Math.min(options.outWidth, options.outHeight);
+        while (shortSide / (options.inSampleSize * 2) >= AVATAR_RENDITION_PX) {
+            options.inSampleSize *= 2;
+        }
+        Bitmap decoded = BitmapFactory.decodeFile(original.getPath(), options);
+        if (decoded == null) {
+            return false;
+        }
+        Bitmap scaled = decoded;
+        int decodedShort = Math.min(decoded.getWidth(), decoded.getHeight());
+        if (decodedShort > AVATAR_RENDITION_PX) {
+            float scale = AVATAR_RENDITION_PX / (float) decodedShort;
+            scaled = Bitmap.createScaledBitmap(decoded,
+                    Math.round(decoded.getWidth() * scale), Math.round(decoded.getHeight() * scale), true);
+            decoded.recycle();
+        }
+
+        File tmp = new File(rendition.getParentFile(), INCOMING_PREFIX + rendition.getName());
+        boolean written;
+        try (FileOutputStream out = new FileOutputStream(tmp)) {
+            written = scaled.compress(ThumbnailCache.webpFormat(), WEBP_QUALITY, out);
+        } catch (IOException e) {
+            written = false;
+        } finally {
+            scaled.recycle();
+        }
+        if (!written || !tmp.renameTo(rendition)) {
+            // 小图只是优化，失败时档案直接引用原图副本
+            tmp.delete();
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * 分段内存映射计算文件的 SHA-256（十六进制）。
+     */
+    static String sha256Hex(File file) throws IOException {
+        return sha256Hex(file, MAP_CHUNK_BYTES, null);
+    }
+
+    static String sha256Hex(File file, long chunkBytes) throws IOException {
+        return sha256Hex(file, chunkBytes, null);
+    }
+
+    private static String sha256Hex(File file, long chunkBytes, @Nullable CancellationSignal signal) throws IOException {
+        MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            // SHA-256 是 Java 平台必须提供的算法
+            throw new IllegalStateException(e);
+        }
+        try (RandomAccessFile raf = new RandomAccessFile(file, "r");
+             FileChannel channel = raf.getChannel()) {
+            long size = channel.size();
+            for (long position = 0; position < size; position += chunkBytes) {
+                throwIfCanceled(signal);
+                long length = Math.min(chunkBytes, size - position);
+                digest.update(channel.map(FileChannel.MapMode.READ_ONLY, position, length));
+            }
+        }
+        return toHex(digest.digest());
+    }
+
+    private static void throwIfCanceled(@Nullable CancellationSignal signal) {
+        if (signal != null) {
+            signal.throwIfCanceled();
+        }
+    }
+
+    /**
+     * 副本扩展名：按来源的 MIME 类型推断（播放器和解码器不依赖它，只是方便排查），推断不出时为空。
+     */
+    private String extensionOf(Uri source) {
+        String mimeType = appContext.getContentResolver().getType(source);
+        String extension = mimeType == null ? null : MimeTypeMap.getSingleton().getExtensionFromMimeType(mimeType);
+        return extension == null ? "" : "." + extension;
+    }
+
+    static String toHex(byte[] bytes) {
+        StringBuilder sb = new StringBuilder(bytes.length * 2);
+        for (byte b : bytes) {
+            sb.append(Character.forDigit((b >> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+        }
+        return sb.toString();
+    }
+}
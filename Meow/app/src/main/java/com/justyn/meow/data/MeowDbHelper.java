@@ -5,33 +5,54 @@ import android.content.Context;
 import android.database.Cursor;
 import android.database.sqlite.SQLiteDatabase;
 import android.database.sqlite.SQLiteOpenHelper;
+import android.database.sqlite.SQLiteStatement;
+import android.net.Uri;
+import android.os.CancellationSignal;
+import android.provider.DocumentsContract;
 
 import androidx.annotation.Nullable;
+import androidx.annotation.VisibleForTesting;
 
+import com.justyn.meow.cat.AudioMetadata;
 import com.justyn.meow.cat.CatProfile;
 import com.justyn.meow.cat.FmTrack;
 import com.justyn.meow.util.MeowPreferences;
 
 import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 /**
  * 应用本地 SQLite 数据库帮助类。
  * <p>
  * 负责数据库的创建、升级，以及对 user / fm_track / cat_profile 三张表的基础 CRUD 操作。
  * </p>
+ * <p>
+ * 使用 WAL 日志：写入只追加到 -wal 文件，读连接读取各自的快照，读写互不阻塞；
+ * 日志由 SQLite 按页数自动回写，应用退到后台时再由 {@link #checkpoint()} 主动回写并截断。
+ * </p>
  */
 public class MeowDbHelper extends SQLiteOpenHelper {
 
     // 数据库文件名（保存在应用私有目录）
     private static final String DB_NAME = "meow.db";
     // 数据库版本号（升级时用于触发 onUpgrade）
-    private static final int DB_VERSION = 3;
+    private static final int DB_VERSION = 6;
 
     // 表名
     public static final String TABLE_USER = "user";
     public static final String TABLE_FM_TRACK = "fm_track";
     public static final String TABLE_CAT_PROFILE = "cat_profile";
+    // 全文检索虚拟表（外部内容表，正文仍存放在原表）
+    public static final String TABLE_FM_TRACK_FTS = "fm_track_fts";
+    public static final String TABLE_CAT_PROFILE_FTS = "cat_profile_fts";
+
+    // 索引名
+    public static final String INDEX_FM_TRACK_USER_ID = "idx_fm_track_user_id";
+    public static final String INDEX_CAT_PROFILE_USER_ID = "idx_cat_profile_user_id";
+    public static final String INDEX_FM_TRACK_USER_DURATION = "idx_fm_track_user_duration";
 
     // user 表字段名
     public static final String COL_USER_ID = "id";
@@ -48,6 +69,16 @@ public class MeowDbHelper extends SQLiteOpenHelper {
     public static final String COL_FM_AUDIO_URI = "audio_uri";
     public static final String COL_FM_CREATED_AT = "created_at";
     public static final String COL_FM_USERNAME = "user_username";
+    // 分词后的检索文本（标题 + 副标题），由 SearchTokenizer 生成
+    public static final String COL_FM_SEARCH_TEXT = "search_text";
+    // 音频元数据：写入时探测一次，列表展示与按时长排序都不再打开解码器
+    public static final String COL_FM_DURATION_MS = "duration_ms";
+    public static final String COL_FM_MIME_TYPE = "mime_type";
+    public static final String COL_FM_BITRATE = "bitrate";
+    public static final String COL_FM_FILE_SIZE = "file_size";
+
+    // duration_ms 的“尚未探测”标记（探测失败记为 0），后台回填只处理这些行
+    public static final long DURATION_UNPROBED = -1;
 
     // cat_profile 表字段名
     public static final String COL_CAT_ID = "id";
@@ -59,6 +90,8 @@ public class MeowDbHelper extends SQLiteOpenHelper {
     public static final String COL_CAT_AVATAR_URI = "avatar_uri";
     public static final String COL_CAT_CREATED_AT = "created_at";
     public static final String COL_CAT_USERNAME = "user_username";
+    // 分词后的检索文本（名称 + 性格 + 简介），由 SearchTokenizer 生成
+    public static final String COL_CAT_SEARCH_TEXT = "search_text";
 
     // 创建 user 表的 SQL（含唯一用户名约束）
     private static final String SQL_CREATE_USER =
@@ -79,7 +112,12 @@ public class MeowDbHelper extends SQLiteOpenHelper {
                     COL_FM_AUDIO_RES_ID + " INTEGER," +
                     COL_FM_AUDIO_URI + " TEXT," +
                     COL_FM_CREATED_AT + " INTEGER," +
-                    COL_FM_USERNAME + " TEXT" +
+                    COL_FM_USERNAME + " TEXT," +
+                    COL_FM_SEARCH_TEXT + " TEXT," +
+                    COL_FM_DURATION_MS + " INTEGER NOT NULL DEFAULT " + DURATION_UNPROBED + "," +
+                    COL_FM_MIME_TYPE + " TEXT," +
+                    COL_FM_BITRATE + " INTEGER," +
+                    COL_FM_FILE_SIZE + " INTEGER" +
                     ");";
 
     // 创建 cat_profile 表的 SQL
@@ -93,27 +131,153 @@ public class MeowDbHelper extends SQLiteOpenHelper {
                     COL_CAT_AVATAR_RES_ID + " INTEGER," +
                     COL_CAT_AVATAR_URI + " TEXT," +
                     COL_CAT_CREATED_AT + " INTEGER," +
-                    COL_CAT_USERNAME + " TEXT" +
+                    COL_CAT_USERNAME + " TEXT," +
+                    COL_CAT_SEARCH_TEXT + " TEXT" +
                     ");";
 
+    // 按用户 + id 排序的复合索引：列表查询、是否已有数据判断都走这里
+    // user 表的 username 已有 UNIQUE 约束，SQLite 会自动建唯一索引，登录查询直接复用
+    private static final String SQL_CREATE_FM_TRACK_USER_INDEX =
+            "CREATE INDEX IF NOT EXISTS " + INDEX_FM_TRACK_USER_ID +
+                    " ON " + TABLE_FM_TRACK + " (" + COL_FM_USERNAME + ", " + COL_FM_ID + ");";
+
+    private static final String SQL_CREATE_CAT_PROFILE_USER_INDEX =
+            "CREATE INDEX IF NOT EXISTS " + INDEX_CAT_PROFILE_USER_ID +
+                    " ON " + TABLE_CAT_PROFILE + " (" + COL_CAT_USERNAME + ", " + COL_CAT_ID + ");";
+
+    // 按用户 + 时长 + id 排序的复合索引：按时长分页、查找待回填元数据的行都走这里
+    private static final String SQL_CREATE_FM_TRACK_DURATION_INDEX =
+            "CREATE INDEX IF NOT EXISTS " + INDEX_FM_TRACK_USER_DURATION +
+                    " ON " + TABLE_FM_TRACK + " (" + COL_FM_USERNAME + ", " + COL_FM_DURATION_MS + ", " + COL_FM_ID + ");";
+
+    // FTS4 虚拟表：content 指向原表，docid 与原表 id 一一对应
+    private static final String SQL_CREATE_FM_TRACK_FTS =
+            "CREATE VIRTUAL TABLE IF NOT EXISTS " + TABLE_FM_TRACK_FTS +
+                    " USING fts4(content=\"" + TABLE_FM_TRACK + "\", " + COL_FM_SEARCH_TEXT + ");";
+
+    private static final String SQL_CREATE_CAT_PROFILE_FTS =
+            "CREATE VIRTUAL TABLE IF NOT EXISTS " + TABLE_CAT_PROFILE_FTS +
+                    " USING fts4(content=\"" + TABLE_CAT_PROFILE + "\", " + COL_CAT_SEARCH_TEXT + ");";
+
+    // 检索结果的相关度档位列：标题直接包含关键字为 0，只在其他字段命中为 1
+    private static final String COL_SEARCH_RANK = "search_rank";
+
+    // 全文检索：先由 FTS 找出命中行，再按主键回表并限定当前用户
+    // 参数顺序：规范化关键字、MATCH 表达式、用户名
+    private static final String SQL_SEARCH_FM_TRACKS_RANKED =
+            "SELECT t." + COL_FM_ID + " AS " + COL_FM_ID + ", t." + COL_FM_TITLE + " AS " + COL_FM_TITLE + ", " +
+                    "t." + COL_FM_SUBTITLE + " AS " + COL_FM_SUBTITLE + ", " +
+                    "t." + COL_FM_AUDIO_RES_ID + " AS " + COL_FM_AUDIO_RES_ID + ", " +
+                    "t." + COL_FM_AUDIO_URI + " AS " + COL_FM_AUDIO_URI + ", " +
+                    "t." + COL_FM_DURATION_MS + " AS " + COL_FM_DURATION_MS + ", " +
+                    "CASE WHEN instr(lower(t." + COL_FM_TITLE + "), ?) > 0 THEN 0 ELSE 1 END AS " + COL_SEARCH_RANK +
+                    " FROM " + TABLE_FM_TRACK_FTS +
+                    " JOIN " + TABLE_FM_TRACK + " t ON t." + COL_FM_ID + " = " + TABLE_FM_TRACK_FTS + ".docid" +
+                    " WHERE " + TABLE_FM_TRACK_FTS + " MATCH ? AND t." + COL_FM_USERNAME + " = ?";
+
+    private static final String SQL_SEARCH_CAT_PROFILES_RANKED =
+            "SELECT t." + COL_CAT_ID + " AS " + COL_CAT_ID + ", t." + COL_CAT_TITLE + " AS " + COL_CAT_TITLE + ", " +
+                    "t." + COL_CAT_AGE + " AS " + COL_CAT_AGE + ", " +
+                    "t." + COL_CAT_PERSONALITY + " AS " + COL_CAT_PERSONALITY + ", " +
+                    "t." + COL_CAT_DESCRIPTION + " AS " + COL_CAT_DESCRIPTION + ", " +
+                    "t." + COL_CAT_AVATAR_RES_ID + " AS " + COL_CAT_AVATAR_RES_ID + ", " +
+                    "t." + COL_CAT_AVATAR_URI + " AS " + COL_CAT_AVATAR_URI + ", " +
+                    "CASE WHEN instr(lower(t." + COL_CAT_TITLE + "), ?) > 0 THEN 0 ELSE 1 END AS " + COL_SEARCH_RANK +
+                    " FROM " + TABLE_CAT_PROFILE_FTS +
+                    " JOIN " + TABLE_CAT_PROFILE + " t ON t." + COL_CAT_ID + " = " + TABLE_CAT_PROFILE_FTS + ".docid" +
+                    " WHERE " + TABLE_CAT_PROFILE_FTS + " MATCH ? AND t." + COL_CAT_USERNAME + " = ?";
+
+    // 检索结果排序：相关度档位优先，同档按 id
+    private static final String SQL_ORDER_BY_RANK = " ORDER BY " + COL_SEARCH_RANK + ", id ASC";
+
+    // 检索结果键集分页：在排好序的结果上从 (rank, id) 游标之后继续
+    private static final String SQL_RANK_KEYSET_WHERE =
+            " WHERE " + COL_SEARCH_RANK + " > ? OR (" + COL_SEARCH_RANK + " = ? AND id > ?)";
+
+    // 按时长排序：同时长按 id，游标为 (duration_ms, id)
+    private static final String SQL_ORDER_BY_DURATION = " ORDER BY " + COL_FM_DURATION_MS + ", id ASC";
+    private static final String SQL_DURATION_KEYSET =
+            COL_FM_DURATION_MS + " > ? OR (" + COL_FM_DURATION_MS + " = ? AND id > ?)";
+
+    // 批量写入用的预编译语句：整批只编译一次，每行只重新绑定参数
+    private static final String SQL_INSERT_FM_TRACK =
+            "INSERT INTO " + TABLE_FM_TRACK + " (" +
+                    COL_FM_USERNAME + ", " + COL_FM_TITLE + ", " + COL_FM_SUBTITLE + ", " +
+                    COL_FM_SEARCH_TEXT + ", " + COL_FM_AUDIO_RES_ID + ", " + COL_FM_AUDIO_URI + ", " +
+                    COL_FM_CREATED_AT + ", " + COL_FM_DURATION_MS + ", " + COL_FM_MIME_TYPE + ", " +
+                    COL_FM_BITRATE + ", " + COL_FM_FILE_SIZE +
+                    ") VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+
+    private static final String SQL_UPDATE_FM_TRACK_METADATA =
+            "UPDATE " + TABLE_FM_TRACK + " SET " +
+                    COL_FM_DURATION_MS + " = ?, " + COL_FM_MIME_TYPE + " = ?, " +
+                    COL_FM_BITRATE + " = ?, " +
+                    // 探测失败（大小为 0）时保留导入时记下的大小，导入去重依赖它
+                    COL_FM_FILE_SIZE + " = COALESCE(NULLIF(?, 0), " + COL_FM_FILE_SIZE + ")" +
+                    " WHERE " + COL_FM_ID + " = ?";
+
+    private static final String SQL_INSERT_CAT_PROFILE =
+            "INSERT INTO " + TABLE_CAT_PROFILE + " (" +
+                    COL_CAT_USERNAME + ", " + COL_CAT_TITLE + ", " + COL_CAT_AGE + ", " +
+                    COL_CAT_PERSONALITY + ", " + COL_CAT_DESCRIPTION + ", " + COL_CAT_SEARCH_TEXT + ", " +
+                    COL_CAT_AVATAR_RES_ID + ", " + COL_CAT_AVATAR_URI + ", " + COL_CAT_CREATED_AT +
+                    ") VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?)";
+
+    // 每页默认条数
+    public static final int DEFAULT_PAGE_SIZE = 50;
+
+    // 写连接的页缓存大小（负数表示 KiB）：约 2 MiB，写入与读后写的复合操作涉及的热点页留在内存里。
+    // 只作用于主连接（见 onConfigure），dbRead() 使用的 WAL 读连接保持系统默认的页缓存
+    private static final int CACHE_SIZE_KIB = 2048;
+
     /**
      * 构造数据库帮助类实例。
      *
      * @param context 上下文（用于定位数据库文件）
      */
     public MeowDbHelper(@Nullable Context context) {
-        super(context, DB_NAME, null, DB_VERSION);
+        this(context, DB_NAME);
+    }
+
+    /**
+     * 指定数据库文件名构造（测试用，传 null 表示内存数据库）。
+     */
+    @VisibleForTesting
+    MeowDbHelper(@Nullable Context context, @Nullable String dbName) {
+        super(context, dbName, null, DB_VERSION);
         this.appContext = context == null ? null : context.getApplicationContext();
     }
 
     private final Context appContext;
 
+    /**
+     * 配置数据库连接。
+     * <p>
+     * 这里的 execSQL 只在主连接（写连接）上执行：下面两条 PRAGMA 都是连接级设置，只对写连接生效。
+     * synchronous 只影响提交，读连接从不提交，写连接上设置即可；cache_size 见 {@link #CACHE_SIZE_KIB}。
+     * </p>
+     */
+    @Override
+    public void onConfigure(SQLiteDatabase db) {
+        // WAL 下读连接不被写事务阻塞；内存数据库（测试）不支持 WAL，会保持原日志模式
+        db.enableWriteAheadLogging();
+        // WAL 下 NORMAL 只在回写时 fsync，断电最多丢失最近的提交，不会损坏数据库（写连接）
+        db.execSQL("PRAGMA synchronous = NORMAL");
+        // 写连接的页缓存
+        db.execSQL("PRAGMA cache_size = -" + CACHE_SIZE_KIB);
+    }
+
     @Override
     public void onCreate(SQLiteDatabase db) {
         // 首次创建数据库时初始化三张表
         db.execSQL(SQL_CREATE_USER);
         db.execSQL(SQL_CREATE_FM_TRACK);
         db.execSQL(SQL_CREATE_CAT_PROFILE);
+        createUserIndexes(db);
+        db.execSQL(SQL_CREATE_FM_TRACK_FTS);
+        db.execSQL(SQL_CREATE_CAT_PROFILE_FTS);
+        createFtsTriggers(db);
+        db.execSQL(SQL_CREATE_FM_TRACK_DURATION_INDEX);
     }
 
     @Override
@@ -128,6 +292,29 @@ public class MeowDbHelper extends SQLiteOpenHelper {
             addColumnIfMissing(db, TABLE_CAT_PROFILE, COL_CAT_USERNAME);
             migrateLegacyUser(db);
         }
+        if (oldVersion < 4) {
+            createUserIndexes(db);
+        }
+        if (oldVersion < 5) {
+            // 先补列并回填分词文本，再建 FTS 表整体重建索引，最后挂触发器
+            addColumnIfMissing(db, TABLE_FM_TRACK, COL_FM_SEARCH_TEXT);
+            addColumnIfMissing(db, TABLE_CAT_PROFILE, COL_CAT_SEARCH_TEXT);
+            backfillSearchText(db);
+            db.execSQL(SQL_CREATE_FM_TRACK_FTS);
+            db.execSQL(SQL_CREATE_CAT_PROFILE_FTS);
+            db.execSQL("INSERT INTO " + TABLE_FM_TRACK_FTS + "(" + TABLE_FM_TRACK_FTS + ") VALUES('rebuild')");
+            db.execSQL("INSERT INTO " + TABLE_CAT_PROFILE_FTS + "(" + TABLE_CAT_PROFILE_FTS + ") VALUES('rebuild')");
+            createFtsTriggers(db);
+        }
+        if (oldVersion < 6) {
+            // 已有行的时长保持“未探测”，由页面触发后台回填
+            addColumnIfMissing(db, TABLE_FM_TRACK, COL_FM_DURATION_MS,
+                    "INTEGER NOT NULL DEFAULT " + DURATION_UNPROBED);
+            addColumnIfMissing(db, TABLE_FM_TRACK, COL_FM_MIME_TYPE, "TEXT");
+            addColumnIfMissing(db, TABLE_FM_TRACK, COL_FM_BITRATE, "INTEGER");
+            addColumnIfMissing(db, TABLE_FM_TRACK, COL_FM_FILE_SIZE, "INTEGER");
+            db.execSQL(SQL_CREATE_FM_TRACK_DURATION_INDEX);
+        }
     }
 
     // user 表方法
@@ -229,6 +416,23 @@ public class MeowDbHelper extends SQLiteOpenHelper {
      * @return 插入行的 rowId，失败返回 -1
      */
     public long insertFmTrack(String username, String title, String subtitle, @Nullable Integer audioResId, @Nullable String audioUri) {
+        return insertFmTrack(username, title, subtitle, audioResId, audioUri, null);
+    }
+
+    /**
+     * 新增 FM 音轨数据，同时写入已探测的音频元数据。
+     *
+     * @param metadata 音频元数据（为空时时长记为“未探测”，留给后台回填）
+     * @return 插入行的 rowId，失败返回 -1
+     */
+    public long insertFmTrack(
+            String username,
+            String title,
+            String subtitle,
+            @Nullable Integer audioResId,
+            @Nullable String audioUri,
+            @Nullable AudioMetadata metadata
+    ) {
         SQLiteDatabase db = this.getWritableDatabase();
 
         // 组装插入字段
@@ -236,6 +440,7 @@ public class MeowDbHelper extends SQLiteOpenHelper {
         values.put(COL_FM_USERNAME, safeUsername(username));
         values.put(COL_FM_TITLE, title);
         values.put(COL_FM_SUBTITLE, subtitle);
+        values.put(COL_FM_SEARCH_TEXT, SearchTokenizer.buildIndexText(title, subtitle));
         if (audioResId != null) {
             values.put(COL_FM_AUDIO_RES_ID, audioResId);
         }
@@ -243,10 +448,178 @@ public class MeowDbHelper extends SQLiteOpenHelper {
             values.put(COL_FM_AUDIO_URI, audioUri);
         }
         values.put(COL_FM_CREATED_AT, System.currentTimeMillis());
+        if (metadata != null) {
+            putMetadata(values, metadata);
+        }
 
         return db.insert(TABLE_FM_TRACK, null, values);
     }
 
+    /**
+     * 批量新增 FM 音轨：一个事务、一条预编译语句（整批只提交一次日志，SQL 只编译一次）。
+     * <p>
+     * 默认音频初始化、文件夹导入都走这里；单条失败（例如标题为空）只跳过该行，不影响整批。
+     * </p>
+     *
+     * @return 成功写入的行数
+     */
+    public int insertFmTracks(String username, List<NewFmTrack> tracks) {
+        if (tracks.isEmpty()) {
+            return 0;
+        }
+        SQLiteDatabase db = this.getWritableDatabase();
+        int inserted = 0;
+        long now = System.currentTimeMillis();
+        db.beginTransaction();
+        try (SQLiteStatement statement = db.compileStatement(SQL_INSERT_FM_TRACK)) {
+            for (NewFmTrack track : tracks) {
+                statement.clearBindings();
+                statement.bindString(1, safeUsername(username));
+                bindNullable(statement, 2, track.getTitle());
+                bindNullable(statement, 3, track.getSubtitle());
+                statement.bindString(4, SearchTokenizer.buildIndexText(track.getTitle(), track.getSubtitle()));
+                if (track.getAudioResId() != null) {
+                    statement.bindLong(5, track.getAudioResId());
+                }
+                bindNullable(statement, 6, track.getAudioUri());
+                statement.bindLong(7, now);
+                bindMetadata(statement, 8, track.getMetadata());
+                if (track.getSourceSize() > 0) {
+                    // 与导入去重使用同一个大小（探测失败时元数据里的大小为 0）
+                    statement.bindLong(11, track.getSourceSize());
+                }
+                if (executeInsertQuietly(statement) != -1) {
+                    inserted++;
+                }
+            }
+            db.setTransactionSuccessful();
+        } finally {
+            db.endTransaction();
+        }
+        return inserted;
+    }
+
+    /**
+     * 读取当前用户已导入的外部音频标识（Uri + 文件大小），用于重复导入时跳过。
+     *
+     * @return {@link #audioKey(String, long)} 组成的集合
+     */
+    public Set<String> queryFmAudioKeys(String username) {
+        SQLiteDatabase db = this.getReadableDatabase();
+        Set<String> keys = new HashSet<>();
+        Cursor cursor = db.query(
+                TABLE_FM_TRACK,
+                new String[]{COL_FM_AUDIO_URI, COL_FM_FILE_SIZE},
+                COL_FM_USERNAME + " = ? AND " + COL_FM_AUDIO_URI + " IS NOT NULL",
+                new String[]{safeUsername(username)},
+                null,
+                null,
+                null
+        );
+        try {
+            while (cursor.moveToNext()) {
+                keys.add(audioKey(cursor.getString(0), cursor.isNull(1) ? 0 : cursor.getLong(1)));
+            }
+        } finally {
+            cursor.close();
+        }
+        return keys;
+    }
+
+    /**
+     * 外部音频的去重标识：同一个文件（见 {@link #documentIdentity}）且文件大小相同视为同一个文件。
+     * <p>
+     * 大小为 0 表示未知（提供方没给、探测失败），此时只按文件判断，见 {@link #isKnownAudio}。
+     * </p>
+     */
+    public static String audioKey(String audioUri, long fileSize) {
+        return documentIdentity(audioUri) + "#" + fileSize;
+    }
+
+    /**
+     * 文档在提供方里的身份：提供方 authority + 文档 id。
+     * <p>
+     * 文件夹导入得到的是树形 Uri（.../tree/根/document/id），单独选择文件得到的是普通文档 Uri（.../document/id），
+     * 同一个文件的两种写法归一成同一个标识；不是文档 Uri（file://、资源等）时原样返回。
+     * </p>
+     */
+    static String documentIdentity(String audioUri) {
+        Uri uri = Uri.parse(audioUri);
+        try {
+            return uri.getAuthority() + "/" + DocumentsContract.getDocumentId(uri);
+        } catch (IllegalArgumentException e) {
+            return audioUri;
+        }
+    }
+
+    /**
+     * 音频是否已在 {@link #queryFmAudioKeys} 的结果里：Uri 与大小都相同，或已记录的大小未知且 Uri 相同。
+     */
+    public static boolean isKnownAudio(Set<String> keys, String audioUri, long fileSize) {
+        return keys.contains(audioKey(audioUri, fileSize)) || keys.contains(audioKey(audioUri, 0));
+    }
+
+    /**
+     * 批量写入音频元数据（后台回填用），在一个事务里完成。
+     *
+     * @param metadataById 音轨 id → 探测结果
+     * @return 实际更新的行数
+     */
+    public int updateFmTrackMetadata(Map<Long, AudioMetadata> metadataById) {
+        if (metadataById.isEmpty()) {
+            return 0;
+        }
+        SQLiteDatabase db = this.getWritableDatabase();
+        int updated = 0;
+        db.beginTransaction();
+        try (SQLiteStatement statement = db.compileStatement(SQL_UPDATE_FM_TRACK_METADATA)) {
+            for (Map.Entry<Long, AudioMetadata> entry : metadataById.entrySet()) {
+                statement.clearBindings();
+                bindMetadata(statement, 1, entry.getValue());
+                statement.bindLong(5, entry.getKey());
+                updated += statement.executeUpdateDelete();
+            }
+            db.setTransactionSuccessful();
+        } finally {
+            db.endTransaction();
+        }
+        return updated;
+    }
+
+    /**
+     * 读取尚未探测元数据的音轨（按 id 升序，走时长索引）。
+     *
+     * @param limit 最多返回条数
+     */
+    public List<FmTrack> queryFmTracksMissingMetadata(String username, int limit) {
+        SQLiteDatabase db = this.getReadableDatabase();
+        List<FmTrack> result = new ArrayList<>();
+        Cursor cursor = db.query(
+                TABLE_FM_TRACK,
+                new String[]{
+                        COL_FM_ID,
+                        COL_FM_TITLE,
+                        COL_FM_SUBTITLE,
+                        COL_FM_AUDIO_RES_ID,
+                        COL_FM_AUDIO_URI
+                },
+                COL_FM_USERNAME + " = ? AND " + COL_FM_DURATION_MS + " = ?",
+                new String[]{safeUsername(username), String.valueOf(DURATION_UNPROBED)},
+                null,
+                null,
+                COL_FM_ID + " ASC",
+                String.valueOf(limit)
+        );
+        try {
+            while (cursor.moveToNext()) {
+                result.add(readFmTrack(cursor));
+            }
+        } finally {
+            cursor.close();
+        }
+        return result;
+    }
+
     /**
      * 更新指定 FM 音轨的标题与副标题。
      *
@@ -258,10 +631,11 @@ public class MeowDbHelper extends SQLiteOpenHelper {
     public boolean updateFmTrack(long id, String title, String subtitle) {
         SQLiteDatabase db = this.getWritableDatabase();
 
-        // 只更新必要字段
+        // 只更新必要字段（检索文本随标题/副标题一起更新，触发器会同步 FTS）
         ContentValues values = new ContentValues();
         values.put(COL_FM_TITLE, title);
         values.put(COL_FM_SUBTITLE, subtitle);
+        values.put(COL_FM_SEARCH_TEXT, SearchTokenizer.buildIndexText(title, subtitle));
 
         int rows = db.update(TABLE_FM_TRACK, values, COL_FM_ID + " = ?", new String[]{String.valueOf(id)});
         return rows > 0;
@@ -280,61 +654,227 @@ public class MeowDbHelper extends SQLiteOpenHelper {
     }
 
     /**
-     * 查询 FM 音轨列表，可按标题模糊搜索。
+     * 查询 FM 音轨列表，可按关键字全文检索（标题 + 副标题）。
      *
-     * @param titleQuery 标题关键字（为空时返回全部）
-     * @return 查询结果列表
+     * @param query 关键字（为空时返回全部，按 id 升序）
+     * @return 查询结果列表（有关键字时按相关度排序）
      */
-    public List<FmTrack> queryFmTracks(String username, @Nullable String titleQuery) {
+    public List<FmTrack> queryFmTracks(String username, @Nullable String query) {
         SQLiteDatabase db = this.getReadableDatabase();
         List<FmTrack> result = new ArrayList<>();
 
-        String selection = COL_FM_USERNAME + " = ?";
-        List<String> selectionArgsList = new ArrayList<>();
-        selectionArgsList.add(safeUsername(username));
-        if (titleQuery != null && !titleQuery.trim().isEmpty()) {
-            // 构造 LIKE 查询条件
-            selection += " AND " + COL_FM_TITLE + " LIKE ?";
-            selectionArgsList.add("%" + titleQuery.trim() + "%");
+        String matchQuery = SearchTokenizer.buildMatchQuery(query);
+        Cursor cursor;
+        if (matchQuery == null) {
+            // 按 id 升序读取，保证稳定展示顺序
+            cursor = db.query(
+                    TABLE_FM_TRACK,
+                    new String[]{
+                            COL_FM_ID,
+                            COL_FM_TITLE,
+                            COL_FM_SUBTITLE,
+                            COL_FM_AUDIO_RES_ID,
+                            COL_FM_AUDIO_URI,
+                            COL_FM_DURATION_MS
+                    },
+                    COL_FM_USERNAME + " = ?",
+                    new String[]{safeUsername(username)},
+                    null,
+                    null,
+                    COL_FM_ID + " ASC"
+            );
+        } else {
+            // 标题直接包含关键字的排在前面
+            cursor = db.rawQuery(SQL_SEARCH_FM_TRACKS_RANKED + SQL_ORDER_BY_RANK, new String[]{
+                    SearchTokenizer.normalize(query),
+                    matchQuery,
+                    safeUsername(username)
+            });
         }
-        String[] selectionArgs = selectionArgsList.toArray(new String[0]);
-
-        // 按 id 升序读取，保证稳定展示顺序
-        Cursor cursor = db.query(
-                TABLE_FM_TRACK,
-                new String[]{
-                        COL_FM_ID,
-                        COL_FM_TITLE,
-                        COL_FM_SUBTITLE,
-                        COL_FM_AUDIO_RES_ID,
-                        COL_FM_AUDIO_URI
-                },
-                selection,
-                selectionArgs,
-                null,
-                null,
-                COL_FM_ID + " ASC"
-        );
 
         while (cursor.moveToNext()) {
-            long id = cursor.getLong(cursor.getColumnIndexOrThrow(COL_FM_ID));
-            String title = cursor.getString(cursor.getColumnIndexOrThrow(COL_FM_TITLE));
-            String subtitle = cursor.getString(cursor.getColumnIndexOrThrow(COL_FM_SUBTITLE));
-
-            int audioResId = 0;
-            int audioResIdIndex = cursor.getColumnIndex(COL_FM_AUDIO_RES_ID);
-            if (audioResIdIndex >= 0 && !cursor.isNull(audioResIdIndex)) {
-                // 只有字段存在且非空时才读取资源 id
-                audioResId = cursor.getInt(audioResIdIndex);
+            result.add(readFmTrack(cursor));
+        }
+        cursor.close();
+        return result;
+    }
+
+    /**
+     * 键集分页读取 FM 音轨。
+     * <p>
+     * 无关键字时按 (user_username, id) 索引顺序读取；有关键字时按 (相关度, id) 读取检索结果。
+     * 每页多取一行用来判断是否还有下一页。
+     * </p>
+     *
+     * @param query 关键字（为空表示不过滤）
+     * @param after 上一页返回的游标（null 表示第一页）
+     * @param limit 每页条数
+     */
+    public Page<FmTrack> queryFmTrackPage(String username, @Nullable String query, @Nullable PageKey after, int limit) {
+        return queryFmTrackPage(username, query, FmTrackOrder.DEFAULT, after, limit, null);
+    }
+
+    /**
+     * 同 {@link #queryFmTrackPage(String, String, PageKey, int)}，signal 取消时中断查询并抛出 OperationCanceledException。
+     */
+    public Page<FmTrack> queryFmTrackPage(
+            String username,
+            @Nullable String query,
+            @Nullable PageKey after,
+            int limit,
+            @Nullable CancellationSignal signal
+    ) {
+        return queryFmTrackPage(username, query, FmTrackOrder.DEFAULT, after, limit, signal);
+    }
+
+    /**
+     * 按指定排序键集分页读取 FM 音轨。
+     * <p>
+     * 按时长排序时游标为 (duration_ms, id)：无关键字走 (user_username, duration_ms, id) 索引，
+     * 有关键字时在检索结果上按时长排序（替代相关度档位）。
+     * </p>
+     */
+    public Page<FmTrack> queryFmTrackPage(
+            String username,
+            @Nullable String query,
+            FmTrackOrder order,
+            @Nullable PageKey after,
+            int limit,
+            @Nullable CancellationSignal signal
+    ) {
+        SQLiteDatabase db = this.getReadableDatabase();
+        String matchQuery = SearchTokenizer.buildMatchQuery(query);
+        boolean byDuration = order == FmTrackOrder.DURATION;
+        Cursor cursor;
+        if (matchQuery == null && byDuration) {
+            String selection = COL_FM_USERNAME + " = ?";
+            String[] args = new String[]{safeUsername(username)};
+            if (after != null) {
+                String duration = String.valueOf(after.getSortKey());
+                selection += " AND (" + SQL_DURATION_KEYSET + ")";
+                args = new String[]{safeUsername(username), duration, duration, String.valueOf(after.getId())};
             }
+            cursor = db.query(
+                    false,
+                    TABLE_FM_TRACK,
+                    new String[]{
+                            COL_FM_ID,
+                            COL_FM_TITLE,
+                            COL_FM_SUBTITLE,
+                            COL_FM_AUDIO_RES_ID,
+                            COL_FM_AUDIO_URI,
+                            COL_FM_DURATION_MS
+                    },
+                    selection,
+                    args,
+                    null,
+                    null,
+                    COL_FM_DURATION_MS + " ASC, " + COL_FM_ID + " ASC",
+                    String.valueOf(limit + 1),
+                    signal
+            );
+        } else if (matchQuery == null) {
+            long afterId = after == null ? 0 : after.getId();
+            cursor = db.query(
+                    false,
+                    TABLE_FM_TRACK,
+                    new String[]{
+                            COL_FM_ID,
+                            COL_FM_TITLE,
+                            COL_FM_SUBTITLE,
+                            COL_FM_AUDIO_RES_ID,
+                            COL_FM_AUDIO_URI,
+                            COL_FM_DURATION_MS
+                    },
+                    COL_FM_USERNAME + " = ? AND " + COL_FM_ID + " > ?",
+                    new String[]{safeUsername(username), String.valueOf(afterId)},
+                    null,
+                    null,
+                    COL_FM_ID + " ASC",
+                    String.valueOf(limit + 1),
+                    signal
+            );
+        } else {
+            cursor = db.rawQuery(
+                    "SELECT * FROM (" + SQL_SEARCH_FM_TRACKS_RANKED + ")" +
+                            (after == null ? "" : byDuration ? " WHERE " + SQL_DURATION_KEYSET : SQL_RANK_KEYSET_WHERE) +
+                            (byDuration ? SQL_ORDER_BY_DURATION : SQL_ORDER_BY_RANK) + " LIMIT " + (limit + 1),
+                    rankedPageArgs(query, matchQuery, username, after),
+                    signal
+            );
+        }
+
+        List<FmTrack> items = new ArrayList<>();
+        List<PageKey> keys = new ArrayList<>();
+        PageKey lastKey = null;
+        try {
+            // 游标的排序键：按时长排序取时长，检索取相关度档位，普通列表为 0
+            int sortKeyIndex = cursor.getColumnIndex(byDuration ? COL_FM_DURATION_MS : COL_SEARCH_RANK);
+            while (items.size() < limit && cursor.moveToNext()) {
+                FmTrack track = readFmTrack(cursor);
+                items.add(track);
+                lastKey = new PageKey(sortKeyIndex >= 0 ? cursor.getLong(sortKeyIndex) : 0, track.getId());
+                keys.add(lastKey);
+            }
+            // 多取的那一行存在，说明还有下一页
+            boolean hasMore = cursor.getCount() > limit;
+            return new Page<>(items, keys, hasMore ? lastKey : null);
+        } finally {
+            cursor.close();
+        }
+    }
 
-            // audioUri 允许为 null，直接读取即可
-            String audioUri = cursor.getString(cursor.getColumnIndexOrThrow(COL_FM_AUDIO_URI));
+    /**
+     * 读取列表中紧跟在某条音频之后的一条（用于连续播放）。
+     * <p>
+     * 排序规则与 {@link #queryFmTrackPage} 一致，因此“下一首”就是当前筛选结果里的下一行。
+     * </p>
+     *
+     * @param query          当前列表的关键字（为空表示不过滤）
+     * @param currentTrackId 当前音频 id
+     * @return 没有下一首时返回 null
+     */
+    @Nullable
+    public FmTrack queryNextFmTrack(String username, @Nullable String query, long currentTrackId) {
+        return queryNextFmTrack(username, query, FmTrackOrder.DEFAULT, currentTrackId);
+    }
 
-            result.add(new FmTrack(id, title, subtitle, audioResId, audioUri));
+    /**
+     * 按指定排序读取下一首，排序规则与 {@link #queryFmTrackPage(String, String, FmTrackOrder, PageKey, int, CancellationSignal)} 一致。
+     */
+    @Nullable
+    public FmTrack queryNextFmTrack(String username, @Nullable String query, FmTrackOrder order, long currentTrackId) {
+        long rank = 0;
+        if (order == FmTrackOrder.DURATION) {
+            // 当前音频的时长就是它的排序键
+            SQLiteDatabase db = this.getReadableDatabase();
+            Cursor cursor = db.query(TABLE_FM_TRACK, new String[]{COL_FM_DURATION_MS},
+                    COL_FM_ID + " = ?", new String[]{String.valueOf(currentTrackId)}, null, null, null);
+            try {
+                if (cursor.moveToFirst()) {
+                    rank = cursor.getLong(0);
+                }
+            } finally {
+                cursor.close();
+            }
+        } else if (SearchTokenizer.buildMatchQuery(query) != null) {
+            // 当前音频在检索结果里的档位，与检索 SQL 用同一个表达式计算
+            SQLiteDatabase db = this.getReadableDatabase();
+            Cursor cursor = db.rawQuery(
+                    "SELECT CASE WHEN instr(lower(" + COL_FM_TITLE + "), ?) > 0 THEN 0 ELSE 1 END FROM " +
+                            TABLE_FM_TRACK + " WHERE " + COL_FM_ID + " = ?",
+                    new String[]{SearchTokenizer.normalize(query), String.valueOf(currentTrackId)}
+            );
+            try {
+                if (cursor.moveToFirst()) {
+                    rank = cursor.getLong(0);
+                }
+            } finally {
+                cursor.close();
+            }
         }
-        cursor.close();
-        return result;
+        Page<FmTrack> page = queryFmTrackPage(username, query, order, new PageKey(rank, currentTrackId), 1, null);
+        return page.getItems().isEmpty() ? null : page.getItems().get(0);
     }
 
     /**
@@ -389,6 +929,7 @@ public class MeowDbHelper extends SQLiteOpenHelper {
         values.put(COL_CAT_AGE, age);
         values.put(COL_CAT_PERSONALITY, personality);
         values.put(COL_CAT_DESCRIPTION, description);
+        values.put(COL_CAT_SEARCH_TEXT, SearchTokenizer.buildIndexText(title, personality, description));
         if (avatarResId != null) {
             values.put(COL_CAT_AVATAR_RES_ID, avatarResId);
         }
@@ -400,6 +941,88 @@ public class MeowDbHelper extends SQLiteOpenHelper {
         return db.insert(TABLE_CAT_PROFILE, null, values);
     }
 
+    /**
+     * 批量新增猫咪档案：一个事务、一条预编译语句（默认档案初始化用）。
+     * <p>
+     * 只使用档案的名称、品种（写入性格列，与单条新增的默认档案一致）、年龄、简介与头像，忽略 id。
+     * </p>
+     *
+     * @return 成功写入的行数
+     */
+    public int insertCatProfiles(String username, List<CatProfile> profiles) {
+        if (profiles.isEmpty()) {
+            return 0;
+        }
+        SQLiteDatabase db = this.getWritableDatabase();
+        int inserted = 0;
+        long now = System.currentTimeMillis();
+        db.beginTransaction();
+        try (SQLiteStatement statement = db.compileStatement(SQL_INSERT_CAT_PROFILE)) {
+            for (CatProfile profile : profiles) {
+                statement.clearBindings();
+                statement.bindString(1, safeUsername(username));
+                bindNullable(statement, 2, profile.getName());
+                bindNullable(statement, 3, profile.getAge());
+                bindNullable(statement, 4, profile.getBreed());
+                bindNullable(statement, 5, profile.getIntro());
+                statement.bindString(6, SearchTokenizer.buildIndexText(
+                        profile.getName(), profile.getBreed(), profile.getIntro()));
+                if (profile.getAvatarResId() != 0) {
+                    statement.bindLong(7, profile.getAvatarResId());
+                }
+                bindNullable(statement, 8, profile.getAvatarUri());
+                statement.bindLong(9, now);
+                if (executeInsertQuietly(statement) != -1) {
+                    inserted++;
+                }
+            }
+            db.setTransactionSuccessful();
+        } finally {
+            db.endTransaction();
+        }
+        return inserted;
+    }
+
+    /**
+     * 查询所有账号引用的本地副本 URI（猫咪头像与 FM 音轨里的 file:// URI），用于清理无人引用的副本。
+     */
+    public Set<String> queryLocalCopyUris() {
+        SQLiteDatabase db = this.getReadableDatabase();
+        Set<String> uris = new HashSet<>();
+        try (Cursor cursor = db.rawQuery(
+                "SELECT " + COL_CAT_AVATAR_URI + " FROM " + TABLE_CAT_PROFILE +
+                        " WHERE " + COL_CAT_AVATAR_URI + " LIKE 'file:%'" +
+                        " UNION SELECT " + COL_FM_AUDIO_URI + " FROM " + TABLE_FM_TRACK +
+                        " WHERE " + COL_FM_AUDIO_URI + " LIKE 'file:%'",
+                null
+        )) {
+            while (cursor.moveToNext()) {
+                uris.add(cursor.getString(0));
+            }
+        }
+        return uris;
+    }
+
+    /**
+     * 查询猫咪档案当前的头像 URI。
+     *
+     * @param id 记录 id
+     * @return 头像 URI；记录不存在或使用本地头像时为 null
+     */
+    @Nullable
+    public String getCatAvatarUri(long id) {
+        SQLiteDatabase db = this.getReadableDatabase();
+        try (Cursor cursor = db.query(
+                TABLE_CAT_PROFILE,
+                new String[]{COL_CAT_AVATAR_URI},
+                COL_CAT_ID + " = ?",
+                new String[]{String.valueOf(id)},
+                null, null, null
+        )) {
+            return cursor.moveToFirst() ? cursor.getString(0) : null;
+        }
+    }
+
     /**
      * 更新猫咪档案信息。
      *
@@ -429,6 +1052,7 @@ public class MeowDbHelper extends SQLiteOpenHelper {
         values.put(COL_CAT_AGE, age);
         values.put(COL_CAT_PERSONALITY, personality);
         values.put(COL_CAT_DESCRIPTION, description);
+        values.put(COL_CAT_SEARCH_TEXT, SearchTokenizer.buildIndexText(title, personality, description));
         if (avatarResId != null) {
             values.put(COL_CAT_AVATAR_RES_ID, avatarResId);
         } else {
@@ -457,65 +1081,122 @@ public class MeowDbHelper extends SQLiteOpenHelper {
     }
 
     /**
-     * 查询猫咪档案列表，可按标题模糊搜索。
+     * 查询猫咪档案列表，可按关键字全文检索（名称 + 性格 + 简介）。
      *
-     * @param titleQuery 标题关键字（为空时返回全部）
-     * @return 查询结果列表
+     * @param query 关键字（为空时返回全部，按 id 升序）
+     * @return 查询结果列表（有关键字时按相关度排序）
      */
-    public List<CatProfile> queryCatProfiles(String username, @Nullable String titleQuery) {
+    public List<CatProfile> queryCatProfiles(String username, @Nullable String query) {
         SQLiteDatabase db = this.getReadableDatabase();
         List<CatProfile> result = new ArrayList<>();
 
-        String selection = COL_CAT_USERNAME + " = ?";
-        List<String> selectionArgsList = new ArrayList<>();
-        selectionArgsList.add(safeUsername(username));
-        if (titleQuery != null && !titleQuery.trim().isEmpty()) {
-            // 构造 LIKE 查询条件
-            selection += " AND " + COL_CAT_TITLE + " LIKE ?";
-            selectionArgsList.add("%" + titleQuery.trim() + "%");
+        String matchQuery = SearchTokenizer.buildMatchQuery(query);
+        Cursor cursor;
+        if (matchQuery == null) {
+            // 按 id 升序读取
+            cursor = db.query(
+                    false,
+                    TABLE_CAT_PROFILE,
+                    new String[]{
+                            COL_CAT_ID,
+                            COL_CAT_TITLE,
+                            COL_CAT_AGE,
+                            COL_CAT_PERSONALITY,
+                            COL_CAT_DESCRIPTION,
+                            COL_CAT_AVATAR_RES_ID,
+                            COL_CAT_AVATAR_URI
+                    },
+                    COL_CAT_USERNAME + " = ?",
+                    new String[]{safeUsername(username)},
+                    null,
+                    null,
+                    COL_CAT_ID + " ASC"
+            );
+        } else {
+            // 名称直接包含关键字的排在前面
+            cursor = db.rawQuery(SQL_SEARCH_CAT_PROFILES_RANKED + SQL_ORDER_BY_RANK, new String[]{
+                    SearchTokenizer.normalize(query),
+                    matchQuery,
+                    safeUsername(username)
+            });
         }
-        String[] selectionArgs = selectionArgsList.toArray(new String[0]);
-
-        // 按 id 升序读取
-        Cursor cursor = db.query(
-                TABLE_CAT_PROFILE,
-                new String[]{
-                        COL_CAT_ID,
-                        COL_CAT_TITLE,
-                        COL_CAT_AGE,
-                        COL_CAT_PERSONALITY,
-                        COL_CAT_DESCRIPTION,
-                        COL_CAT_AVATAR_RES_ID,
-                        COL_CAT_AVATAR_URI
-                },
-                selection,
-                selectionArgs,
-                null,
-                null,
-                COL_CAT_ID + " ASC"
-        );
 
         while (cursor.moveToNext()) {
-            long id = cursor.getLong(cursor.getColumnIndexOrThrow(COL_CAT_ID));
-            String title = cursor.getString(cursor.getColumnIndexOrThrow(COL_CAT_TITLE));
-            String age = cursor.getString(cursor.getColumnIndexOrThrow(COL_CAT_AGE));
-            String personality = cursor.getString(cursor.getColumnIndexOrThrow(COL_CAT_PERSONALITY));
-            String description = cursor.getString(cursor.getColumnIndexOrThrow(COL_CAT_DESCRIPTION));
-
-            int avatarResId = 0;
-            int avatarResIdIndex = cursor.getColumnIndex(COL_CAT_AVATAR_RES_ID);
-            if (avatarResIdIndex >= 0 && !cursor.isNull(avatarResIdIndex)) {
-                // 头像资源 id 为空时保持默认值
-                avatarResId = cursor.getInt(avatarResIdIndex);
-            }
-            String avatarUri = cursor.getString(cursor.getColumnIndexOrThrow(COL_CAT_AVATAR_URI));
-
-            result.add(new CatProfile(id, title, personality, age, description, avatarResId, avatarUri));
+            result.add(readCatProfile(cursor));
         }
         cursor.close();
         return result;
     }
 
+    /**
+     * 键集分页读取猫咪档案，规则同 {@link #queryFmTrackPage}。
+     */
+    public Page<CatProfile> queryCatProfilePage(String username, @Nullable String query, @Nullable PageKey after, int limit) {
+        return queryCatProfilePage(username, query, after, limit, null);
+    }
+
+    /**
+     * 同 {@link #queryCatProfilePage(String, String, PageKey, int)}，signal 取消时中断查询并抛出 OperationCanceledException。
+     */
+    public Page<CatProfile> queryCatProfilePage(
+            String username,
+            @Nullable String query,
+            @Nullable PageKey after,
+            int limit,
+            @Nullable CancellationSignal signal
+    ) {
+        SQLiteDatabase db = this.getReadableDatabase();
+        String matchQuery = SearchTokenizer.buildMatchQuery(query);
+        Cursor cursor;
+        if (matchQuery == null) {
+            long afterId = after == null ? 0 : after.getId();
+            cursor = db.query(
+                    TABLE_CAT_PROFILE,
+                    new String[]{
+                            COL_CAT_ID,
+                            COL_CAT_TITLE,
+                            COL_CAT_AGE,
+                            COL_CAT_PERSONALITY,
+                            COL_CAT_DESCRIPTION,
+                            COL_CAT_AVATAR_RES_ID,
+                            COL_CAT_AVATAR_URI
+                    },
+                    COL_CAT_USERNAME + " = ? AND " + COL_CAT_ID + " > ?",
+                    new String[]{safeUsername(username), String.valueOf(afterId)},
+                    null,
+                    null,
+                    COL_CAT_ID + " ASC",
+                    String.valueOf(limit + 1),
+                    signal
+            );
+        } else {
+            cursor = db.rawQuery(
+                    "SELECT * FROM (" + SQL_SEARCH_CAT_PROFILES_RANKED + ")" +
+                            (after == null ? "" : SQL_RANK_KEYSET_WHERE) +
+                            SQL_ORDER_BY_RANK + " LIMIT " + (limit + 1),
+                    rankedPageArgs(query, matchQuery, username, after),
+                    signal
+            );
+        }
+
+        List<CatProfile> items = new ArrayList<>();
+        List<PageKey> keys = new ArrayList<>();
+        PageKey lastKey = null;
+        try {
+            int rankIndex = cursor.getColumnIndex(COL_SEARCH_RANK);
+            while (items.size() < limit && cursor.moveToNext()) {
+                CatProfile profile = readCatProfile(cursor);
+                items.add(profile);
+                lastKey = new PageKey(rankIndex >= 0 ? cursor.getLong(rankIndex) : 0, profile.getId());
+                keys.add(lastKey);
+            }
+            boolean hasMore = cursor.getCount() > limit;
+            return new Page<>(items, keys, hasMore ? lastKey : null);
+        } finally {
+            cursor.close();
+        }
+    }
+
     /**
      * 判断猫咪档案表中是否已有数据。
      */
@@ -537,6 +1218,28 @@ public class MeowDbHelper extends SQLiteOpenHelper {
         return hasAny;
     }
 
+    /**
+     * 把 WAL 日志回写进主数据库文件并截断日志（应用退到后台时调用）。
+     * <p>
+     * 回写期间新的写入要排队等待，所以只在后台时机调用；有读连接正在使用旧快照时只能部分回写，下次再补。
+     * </p>
+     *
+     * @return 是否完整回写（false 表示有连接占用，日志未能全部回写）
+     */
+    public boolean checkpoint() {
+        SQLiteDatabase db = this.getWritableDatabase();
+        if (!db.isWriteAheadLoggingEnabled()) {
+            return true;
+        }
+        // 返回 (busy, 日志页数, 已回写页数)
+        Cursor cursor = db.rawQuery("PRAGMA wal_checkpoint(TRUNCATE)", null);
+        try {
+            return cursor.moveToFirst() && cursor.getInt(0) == 0;
+        } finally {
+            cursor.close();
+        }
+    }
+
     public void claimLegacyDataForUser(String username) {
         if (username == null || username.trim().isEmpty()) {
             return;
@@ -562,15 +1265,203 @@ public class MeowDbHelper extends SQLiteOpenHelper {
         );
     }
 
+    /**
+     * 把音频元数据写入 ContentValues（时长未知记为 0，与“未探测”区分）。
+     */
+    private static void putMetadata(ContentValues values, AudioMetadata metadata) {
+        values.put(COL_FM_DURATION_MS, Math.max(0, metadata.getDurationMs()));
+        values.put(COL_FM_MIME_TYPE, metadata.getMimeType());
+        values.put(COL_FM_BITRATE, metadata.getBitrate());
+        values.put(COL_FM_FILE_SIZE, metadata.getFileSize());
+    }
+
+    /**
+     * 把音频元数据绑定到预编译语句的连续 4 个参数（时长、MIME、码率、大小）。
+     * 元数据为空时时长记为“未探测”，其余为 NULL。
+     */
+    private static void bindMetadata(SQLiteStatement statement, int firstIndex, @Nullable AudioMetadata metadata) {
+        if (metadata == null) {
+            statement.bindLong(firstIndex, DURATION_UNPROBED);
+            statement.bindNull(firstIndex + 1);
+            statement.bindNull(firstIndex + 2);
+            statement.bindNull(firstIndex + 3);
+            return;
+        }
+        statement.bindLong(firstIndex, Math.max(0, metadata.getDurationMs()));
+        bindNullable(statement, firstIndex + 1, metadata.getMimeType());
+        statement.bindLong(firstIndex + 2, metadata.getBitrate());
+        statement.bindLong(firstIndex + 3, metadata.getFileSize());
+    }
+
+    /**
+     * 绑定可为空的文本参数（SQLiteStatement#bindString 不接受 null）。
+     */
+    private static void bindNullable(SQLiteStatement statement, int index, @Nullable String value) {
+        if (value == null) {
+            statement.bindNull(index);
+        } else {
+            statement.bindString(index, value);
+        }
+    }
+
+    /**
+     * 执行预编译的插入：与 {@link SQLiteDatabase#insert} 一致，约束冲突时返回 -1 而不是抛出异常。
+     */
+    private static long executeInsertQuietly(SQLiteStatement statement) {
+        try {
+            return statement.executeInsert();
+        } catch (android.database.SQLException e) {
+            return -1;
+        }
+    }
+
+    /**
+     * 组装检索分页的参数：规范化关键字、MATCH 表达式、用户名，以及可选的 (排序键, 排序键, id) 游标。
+     */
+    private static String[] rankedPageArgs(String query, String matchQuery, String username, @Nullable PageKey after) {
+        if (after == null) {
+            return new String[]{SearchTokenizer.normalize(query), matchQuery, safeUsername(username)};
+        }
+        String rank = String.valueOf(after.getSortKey());
+        return new String[]{
+                SearchTokenizer.normalize(query),
+                matchQuery,
+                safeUsername(username),
+                rank,
+                rank,
+                String.valueOf(after.getId())
+        };
+    }
+
+    /**
+     * 从游标当前行读取一条 FM 音轨。
+     */
+    private static FmTrack readFmTrack(Cursor cursor) {
+        long id = cursor.getLong(cursor.getColumnIndexOrThrow(COL_FM_ID));
+        String title = cursor.getString(cursor.getColumnIndexOrThrow(COL_FM_TITLE));
+        String subtitle = cursor.getString(cursor.getColumnIndexOrThrow(COL_FM_SUBTITLE));
+
+        int audioResId = 0;
+        int audioResIdIndex = cursor.getColumnIndex(COL_FM_AUDIO_RES_ID);
+        if (audioResIdIndex >= 0 && !cursor.isNull(audioResIdIndex)) {
+            // 只有字段存在且非空时才读取资源 id
+            audioResId = cursor.getInt(audioResIdIndex);
+        }
+
+        // audioUri 允许为 null，直接读取即可
+        String audioUri = cursor.getString(cursor.getColumnIndexOrThrow(COL_FM_AUDIO_URI));
+
+        // 时长只在查询带上该列时读取（未探测为 -1）
+        long durationMs = DURATION_UNPROBED;
+        int durationIndex = cursor.getColumnIndex(COL_FM_DURATION_MS);
+        if (durationIndex >= 0) {
+            durationMs = cursor.getLong(durationIndex);
+        }
+        return new FmTrack(id, title, subtitle, audioResId, audioUri, durationMs);
+    }
+
+    /**
+     * 从游标当前行读取一条猫咪档案。
+     */
+    private static CatProfile readCatProfile(Cursor cursor) {
+        long id = cursor.getLong(cursor.getColumnIndexOrThrow(COL_CAT_ID));
+        String title = cursor.getString(cursor.getColumnIndexOrThrow(COL_CAT_TITLE));
+        String age = cursor.getString(cursor.getColumnIndexOrThrow(COL_CAT_AGE));
+        String personality = cursor.getString(cursor.getColumnIndexOrThrow(COL_CAT_PERSONALITY));
+        String description = cursor.getString(cursor.getColumnIndexOrThrow(COL_CAT_DESCRIPTION));
+
+        int avatarResId = 0;
+        int avatarResIdIndex = cursor.getColumnIndex(COL_CAT_AVATAR_RES_ID);
+        if (avatarResIdIndex >= 0 && !cursor.isNull(avatarResIdIndex)) {
+            // 头像资源 id 为空时保持默认值
+            avatarResId = cursor.getInt(avatarResIdIndex);
+        }
+        String avatarUri = cursor.getString(cursor.getColumnIndexOrThrow(COL_CAT_AVATAR_URI));
+        return new CatProfile(id, title, personality, age, description, avatarResId, avatarUri);
+    }
+
+    /**
+     * 创建 FTS 同步触发器：原表增删改时同步维护全文索引（幂等）。
+     * <p>
+     * 外部内容表删除索引时需要读取旧内容，所以删除走 BEFORE 触发器、写入走 AFTER 触发器；
+     * 更新只在检索文本变化时触发，认领数据等无关更新不会重建索引。
+     * </p>
+     */
+    private static void createFtsTriggers(SQLiteDatabase db) {
+        createFtsTriggers(db, TABLE_FM_TRACK, TABLE_FM_TRACK_FTS, COL_FM_ID, COL_FM_SEARCH_TEXT);
+        createFtsTriggers(db, TABLE_CAT_PROFILE, TABLE_CAT_PROFILE_FTS, COL_CAT_ID, COL_CAT_SEARCH_TEXT);
+    }
+
+    private static void createFtsTriggers(SQLiteDatabase db, String table, String ftsTable, String idCol, String textCol) {
+        db.execSQL("CREATE TRIGGER IF NOT EXISTS " + ftsTable + "_bu BEFORE UPDATE OF " + textCol +
+                " ON " + table + " BEGIN DELETE FROM " + ftsTable + " WHERE docid = old." + idCol + "; END;");
+        db.execSQL("CREATE TRIGGER IF NOT EXISTS " + ftsTable + "_bd BEFORE DELETE ON " + table +
+                " BEGIN DELETE FROM " + ftsTable + " WHERE docid = old." + idCol + "; END;");
+        db.execSQL("CREATE TRIGGER IF NOT EXISTS " + ftsTable + "_au AFTER UPDATE OF " + textCol +
+                " ON " + table + " BEGIN INSERT INTO " + ftsTable + "(docid, " + textCol + ") VALUES (new." +
+                idCol + ", new." + textCol + "); END;");
+        db.execSQL("CREATE TRIGGER IF NOT EXISTS " + ftsTable + "_ai AFTER INSERT ON " + table +
+                " BEGIN INSERT INTO " + ftsTable + "(docid, " + textCol + ") VALUES (new." +
+                idCol + ", new." + textCol + "); END;");
+    }
+
+    /**
+     * 升级时为已有数据回填分词后的检索文本。
+     * <p>
+     * onUpgrade 本身在一个事务里执行，这里每张表只编译一条 UPDATE，逐行重新绑定参数。
+     * </p>
+     */
+    private static void backfillSearchText(SQLiteDatabase db) {
+        Cursor fmCursor = db.query(TABLE_FM_TRACK,
+                new String[]{COL_FM_ID, COL_FM_TITLE, COL_FM_SUBTITLE}, null, null, null, null, null);
+        try (SQLiteStatement statement = db.compileStatement("UPDATE " + TABLE_FM_TRACK +
+                " SET " + COL_FM_SEARCH_TEXT + " = ? WHERE " + COL_FM_ID + " = ?")) {
+            while (fmCursor.moveToNext()) {
+                statement.bindString(1, SearchTokenizer.buildIndexText(fmCursor.getString(1), fmCursor.getString(2)));
+                statement.bindLong(2, fmCursor.getLong(0));
+                statement.executeUpdateDelete();
+            }
+        } finally {
+            fmCursor.close();
+        }
+
+        Cursor catCursor = db.query(TABLE_CAT_PROFILE,
+                new String[]{COL_CAT_ID, COL_CAT_TITLE, COL_CAT_PERSONALITY, COL_CAT_DESCRIPTION},
+                null, null, null, null, null);
+        try (SQLiteStatement statement = db.compileStatement("UPDATE " + TABLE_CAT_PROFILE +
+                " SET " + COL_CAT_SEARCH_TEXT + " = ? WHERE " + COL_CAT_ID + " = ?")) {
+            while (catCursor.moveToNext()) {
+                statement.bindString(1, SearchTokenizer.buildIndexText(
+                        catCursor.getString(1), catCursor.getString(2), catCursor.getString(3)));
+                statement.bindLong(2, catCursor.getLong(0));
+                statement.executeUpdateDelete();
+            }
+        } finally {
+            catCursor.close();
+        }
+    }
+
+    /**
+     * 创建按用户过滤的复合索引（幂等）。
+     */
+    private static void createUserIndexes(SQLiteDatabase db) {
+        db.execSQL(SQL_CREATE_FM_TRACK_USER_INDEX);
+        db.execSQL(SQL_CREATE_CAT_PROFILE_USER_INDEX);
+    }
+
     private static String safeUsername(String username) {
         return username == null ? "" : username;
     }
 
     private void addColumnIfMissing(SQLiteDatabase db, String tableName, String columnName) {
+        addColumnIfMissing(db, tableName, columnName, "TEXT");
+    }
+
+    private void addColumnIfMissing(SQLiteDatabase db, String tableName, String columnName, String columnDef) {
         if (hasColumn(db, tableName, columnName)) {
             return;
         }
-        db.execSQL("ALTER TABLE " + tableName + " ADD COLUMN " + columnName + " TEXT");
+        db.execSQL("ALTER TABLE " + tableName + " ADD COLUMN " + columnName + " " + columnDef);
     }
 
     private static boolean hasColumn(SQLiteDatabase db, String tableName, String columnName) {
@@ -0,0 +1,568 @@
+package com.justyn.meow.data;
+
+import android.content.Context;
+import android.net.Uri;
+import android.os.CancellationSignal;
+import android.os.OperationCanceledException;
+import android.util.Log;
+
+import androidx.annotation.Nullable;
+import androidx.lifecycle.Lifecycle;
+import androidx.lifecycle.LifecycleEventObserver;
+import androidx.lifecycle.LifecycleOwner;
+
+import com.justyn.meow.cat.AudioMetadata;
+import com.justyn.meow.cat.CatProfile;
+import com.justyn.meow.cat.FmTrack;
+import com.justyn.meow.util.MeowExecutors;
+import com.justyn.meow.util.MeowPreferences;
+import com.justyn.meow.util.ThumbnailCache;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+
+/**
+ * 数据仓库：所有页面访问 {@link MeowDbHelper} 的唯一入口。
+ * <p>
+ * 约定：
+ * - 写入在 {@link MeowExecutors#dbIo()} 上按提交顺序执行，只读查询在 {@link MeowExecutors#dbRead()} 上与写入并发（WAL），
+ *   主线程不做任何 SQLite 调用；依赖写入结果的查询在写入回调里发起
+ * - 需要先读音频文件的任务（探测元数据）在媒体线程上执行，其中的 SQLite 调用仍切回 dbIo，不占用数据库队列
+ * - 结果通过 {@link Callback} 回到主线程；执行失败时改为回调 {@link MeowTask#onError}，调用方据此恢复界面
+ * - 回调与 LifecycleOwner 绑定：页面销毁后不再回调；未开始的查询会被直接取消
+ * - 写入操作一旦提交就会执行完，页面销毁只会丢弃回调，避免数据丢失
+ * </p>
+ */
+public class MeowRepository {
+
+    private static final String TAG = "MeowRepository";
+
+    // 元数据回填每批处理的条数：每批一个事务写回
+    private static final int METADATA_BACKFILL_BATCH = 16;
+
+    /**
+     * 主线程结果回调。
+     */
+    public interface Callback<T> {
+        void onResult(T result);
+    }
+
+    /**
+     * 注册结果。
+     */
+    public enum RegisterResult {
+        SUCCESS,
+        USERNAME_EXISTS,
+        FAILED
+    }
+
+    private final Context appContext;
+    private final MeowDbHelper dbHelper;
+    private final ThumbnailCache thumbnailCache;
+    private final LocalCopyStore localCopyStore;
+
+    /**
+     * 构造仓库实例（进程内只创建一次，由 MeowApplication 持有，页面通过 MeowApplication#getRepository() 获取）。
+     *
+     * @param context  上下文（内部只持有 ApplicationContext）
+     * @param dbHelper       进程内唯一的数据库帮助类
+     * @param thumbnailCache 进程内唯一的缩略图缓存（头像变更时清理）
+     */
+    public MeowRepository(Context context, MeowDbHelper dbHelper, ThumbnailCache thumbnailCache) {
+        this.appContext = context.getApplicationContext();
+        this.dbHelper = dbHelper;
+        this.thumbnailCache = thumbnailCache;
+        this.localCopyStore = new LocalCopyStore(appContext);
+    }
+
+    // 账号相关
+
+    /**
+     * 校验登录，成功后认领旧数据并返回昵称。
+     *
+     * @return 任务句柄；回调结果为昵称（无昵称时为空串），登录失败为 null
+     */
+    public MeowTask login(LifecycleOwner owner, String username, String password, Callback<String> callback) {
+        return write(owner, () -> {
+            if (!dbHelper.checkLogin(username, password)) {
+                return null;
+            }
+            dbHelper.claimLegacyDataForUser(username);
+            String nickname = dbHelper.getNicknameByUsername(username);
+            return nickname == null ? "" : nickname;
+        }, callback);
+    }
+
+    /**
+     * 注册新用户（含用户名查重）。
+     */
+    public MeowTask register(
+            LifecycleOwner owner,
+            String username,
+            String password,
+            String nickname,
+            Callback<RegisterResult> callback
+    ) {
+        return write(owner, () -> {
+            if (dbHelper.isUsernameExists(username)) {
+                return RegisterResult.USERNAME_EXISTS;
+            }
+            long rowId = dbHelper.registerUser(username, password, nickname);
+            return rowId == -1 ? RegisterResult.FAILED : RegisterResult.SUCCESS;
+        }, callback);
+    }
+
+    // fm_track 相关
+
+    /**
+     * 首次进入时写入默认音频（已初始化或已有数据则跳过），写入前探测每条音频的元数据。
+     * <p>
+     * 探测在媒体分析线程上进行（与元数据回填相同），不占用播放打开文件的媒体 I/O 线程；写入切到数据库线程。
+     * </p>
+     *
+     * @return 任务句柄；回调结果为本次是否写入了默认音频
+     */
+    public MeowTask seedFmTracksIfNeeded(
+            LifecycleOwner owner,
+            String username,
+            List<FmTrack> defaults,
+            Callback<Boolean> callback
+    ) {
+        return submit(owner, MeowExecutors.mediaAnalysis(), signal -> {
+            if (MeowPreferences.isFmSeeded(appContext, username)) {
+                return false;
+            }
+            if (onDbThread(() -> dbHelper.hasAnyFmTracks(username))) {
+                MeowPreferences.markFmSeeded(appContext, username);
+                return false;
+            }
+            List<NewFmTrack> rows = new ArrayList<>(defaults.size());
+            for (FmTrack track : defaults) {
+                rows.add(new NewFmTrack(track.getTitle(), track.getSubtitle(), track.getResId(), null,
+                        AudioMetadata.probe(appContext, track.getResId(), null)));
+            }
+            // 整批一个事务写入，首次启动只提交一次日志
+            onDbThread(() -> dbHelper.insertFmTracks(username, rows));
+            MeowPreferences.markFmSeeded(appContext, username);
+            return true;
+        }, callback, false);
+    }
+
+    /**
+     * 后台回填尚未探测元数据的音轨（升级前的旧数据），每批一个事务写回。
+     * <p>
+     * 在媒体分析线程上执行，不占用播放使用的媒体 I/O 线程；页面销毁时在批次之间停止，下次进入继续。
+     * </p>
+     *
+     * @return 任务句柄；回调结果为回填的条数
+     */
+    public MeowTask backfillFmTrackMetadata(LifecycleOwner owner, String username, Callback<Integer> callback) {
+        return submit(owner, MeowExecutors.mediaAnalysis(), signal -> {
+            int updated = 0;
+            while (!signal.isCanceled()) {
+                List<FmTrack> pending = onDbThread(
+                        () -> dbHelper.queryFmTracksMissingMetadata(username, METADATA_BACKFILL_BATCH));
+                if (pending.isEmpty()) {
+                    break;
+                }
+                Map<Long, AudioMetadata> batch = new HashMap<>();
+                for (FmTrack track : pending) {
+                    batch.put(track.getId(), AudioMetadata.probe(appContext, track.getResId(), track.getAudioUri()));
+                }
+                updated += onDbThread(() -> dbHelper.updateFmTrackMetadata(batch));
+            }
+            return updated;
+        }, callback, true);
+    }
+
+    /**
+     * 查询当前用户的 FM 音轨。
+     */
+    public MeowTask queryFmTracks(
+            LifecycleOwner owner,
+            String username,
+            @Nullable String query,
+            Callback<List<FmTrack>> callback
+    ) {
+        return read(owner, () -> dbHelper.queryFmTracks(username, query), callback);
+    }
+
+    /**
+     * 键集分页读取 FM 音轨。
+     *
+     * @param after 上一页返回的游标（null 表示第一页）
+     */
+    public MeowTask loadFmTrackPage(
+            LifecycleOwner owner,
+            String username,
+            @Nullable String query,
+            FmTrackOrder order,
+            @Nullable PageKey after,
+            int limit,
+            Callback<Page<FmTrack>> callback
+    ) {
+        return readCancellable(owner,
+                signal -> dbHelper.queryFmTrackPage(username, query, order, after, limit, signal), callback);
+    }
+
+    /**
+     * 读取当前筛选结果中某条音频的下一首（连续播放用，无下一首时回调 null）。
+     */
+    public MeowTask loadNextFmTrack(
+            @Nullable LifecycleOwner owner,
+            String username,
+            @Nullable String query,
+            FmTrackOrder order,
+            long currentTrackId,
+            Callback<FmTrack> callback
+    ) {
+        return read(owner, () -> dbHelper.queryNextFmTrack(username, query, order, currentTrackId), callback);
+    }
+
+    /**
+     * 新增 FM 音轨，回调结果为 rowId（失败为 -1）。
+     * <p>
+     * 先在媒体分析线程探测音频元数据（时长、类型、码率、大小），再切到数据库线程一起写入。
+     * 探测可能要等慢速的 content:// 提供方，放在媒体 I/O 线程会推迟点播的首次出声。
+     * </p>
+     */
+    public MeowTask insertFmTrack(
+            LifecycleOwner owner,
+            String username,
+            String title,
+            String subtitle,
+            @Nullable Integer audioResId,
+            @Nullable String audioUri,
+            Callback<Long> callback
+    ) {
+        return submit(owner, MeowExecutors.mediaAnalysis(), signal -> {
+            AudioMetadata metadata = AudioMetadata.probe(appContext, audioResId == null ? 0 : audioResId, audioUri);
+            return onDbThread(() -> dbHelper.insertFmTrack(username, title, subtitle, audioResId, audioUri, metadata));
+        }, callback, false);
+    }
+
+    /**
+     * 把用户选择的文件复制为本地副本（见 {@link LocalCopyStore}），在本地副本线程上执行。
+     * <p>
+     * 大文件复制与摘要可能持续数秒，放在播放打开文件的媒体 I/O 线程之外；页面销毁时在分段之间停止。
+     * </p>
+     *
+     * @return 任务句柄；回调结果为本地副本的 Uri，复制失败时为原 Uri（调用方照常使用文档 Uri）
+     */
+    public MeowTask importLocalCopy(LifecycleOwner owner, Uri source, LocalCopyStore.Kind kind, Callback<Uri> callback) {
+        return submit(owner, MeowExecutors.localCopy(), signal -> {
+            try {
+                return localCopyStore.importCopy(source, kind, signal);
+            } catch (IOException | SecurityException e) {
+                Log.w(TAG, "保存本地副本失败，继续使用原 Uri: " + source, e);
+                return source;
+            }
+        }, callback, true);
+    }
+
+    /**
+     * 从用户选择的文件夹（DocumentTree Uri）批量导入音频，详见 {@link FmFolderImporter}。
+     * <p>
+     * 在导入线程上运行；{@link MeowTask#cancel()} 或页面销毁都会停止导入，已写入的批次保留。
+     * </p>
+     *
+     * @param onProgress 进度回调（主线程，取消后不再回调）
+     * @param callback   完成回调，结果为最终进度
+     */
+    public MeowTask importFmFolder(
+            LifecycleOwner owner,
+            String username,
+            Uri treeUri,
+            Callback<FmFolderImporter.Progress> onProgress,
+            Callback<FmFolderImporter.Progress> callback
+    ) {
+        return submit(owner, MeowExecutors.importer(), signal -> new FmFolderImporter(
+                appContext, dbHelper, username, treeUri, signal,
+                progress -> MeowExecutors.postToMain(() -> {
+                    if (!signal.isCanceled()) {
+                        onProgress.onResult(progress);
+                    }
+                })).run(), callback, true);
+    }
+
+    /**
+     * 更新 FM 音轨标题与副标题。
+     */
+    public MeowTask updateFmTrack(LifecycleOwner owner, long id, String title, String subtitle, Callback<Boolean> callback) {
+        return write(owner, () -> dbHelper.updateFmTrack(id, title, subtitle), callback);
+    }
+
+    /**
+     * 删除 FM 音轨，随后清理不再被引用的本地副本。
+     */
+    public MeowTask deleteFmTrack(LifecycleOwner owner, long id, Callback<Boolean> callback) {
+        return write(owner, () -> {
+            boolean deleted = dbHelper.deleteFmTrack(id);
+            if (deleted) {
+                pruneLocalCopies();
+            }
+            return deleted;
+        }, callback);
+    }
+
+    // cat_profile 相关
+
+    /**
+     * 首次进入时写入默认猫咪档案（已初始化或已有数据则跳过）。
+     *
+     * @return 任务句柄；回调结果为本次是否写入了默认档案
+     */
+    public MeowTask seedCatProfilesIfNeeded(
+            LifecycleOwner owner,
+            String username,
+            List<CatProfile> defaults,
+            Callback<Boolean> callback
+    ) {
+        return write(owner, () -> {
+            if (MeowPreferences.isCatProfileSeeded(appContext, username)) {
+                return false;
+            }
+            boolean seeded = false;
+            if (!dbHelper.hasAnyCatProfiles(username)) {
+                // 整批一个事务写入，首次启动只提交一次日志
+                seeded = dbHelper.insertCatProfiles(username, defaults) > 0;
+            }
+            MeowPreferences.markCatProfileSeeded(appContext, username);
+            return seeded;
+        }, callback);
+    }
+
+    /**
+     * 查询当前用户的猫咪档案。
+     */
+    public MeowTask queryCatProfiles(
+            LifecycleOwner owner,
+            String username,
+            @Nullable String query,
+            Callback<List<CatProfile>> callback
+    ) {
+        return read(owner, () -> dbHelper.queryCatProfiles(username, query), callback);
+    }
+
+    /**
+     * 键集分页读取猫咪档案。
+     *
+     * @param after 上一页返回的游标（null 表示第一页）
+     */
+    public MeowTask loadCatProfilePage(
+            LifecycleOwner owner,
+            String username,
+            @Nullable String query,
+            @Nullable PageKey after,
+            int limit,
+            Callback<Page<CatProfile>> callback
+    ) {
+        return readCancellable(owner, signal -> dbHelper.queryCatProfilePage(username, query, after, limit, signal), callback);
+    }
+
+    /**
+     * 新增猫咪档案，回调结果为 rowId（失败为 -1）。
+     */
+    public MeowTask insertCatProfile(
+            LifecycleOwner owner,
+            String username,
+            String title,
+            String age,
+            String personality,
+            String description,
+            @Nullable Integer avatarResId,
+            @Nullable String avatarUri,
+            Callback<Long> callback
+    ) {
+        return write(owner, () -> dbHelper.insertCatProfile(
+                username, title, age, personality, description, avatarResId, avatarUri), callback);
+    }
+
+    /**
+     * 更新猫咪档案；头像换了时清掉旧头像的缩略图缓存，并清理不再被引用的本地副本。
+     */
+    public MeowTask updateCatProfile(
+            LifecycleOwner owner,
+            long id,
+            String title,
+            String age,
+            String personality,
+            String description,
+            @Nullable Integer avatarResId,
+            @Nullable String avatarUri,
+            Callback<Boolean> callback
+    ) {
+        return write(owner, () -> {
+            String oldAvatarUri = dbHelper.getCatAvatarUri(id);
+            boolean updated = dbHelper.updateCatProfile(
+                    id, title, age, personality, description, avatarResId, avatarUri);
+            if (updated && oldAvatarUri != null && !Objects.equals(oldAvatarUri, avatarUri)) {
+                thumbnailCache.invalidate(ThumbnailCache.uriSource(oldAvatarUri));
+                pruneLocalCopies();
+            }
+            return updated;
+        }, callback);
+    }
+
+    /**
+     * 删除猫咪档案，随后清理不再被引用的本地副本。
+     */
+    public MeowTask deleteCatProfile(LifecycleOwner owner, long id, Callback<Boolean> callback) {
+        return write(owner, () -> {
+            String avatarUri = dbHelper.getCatAvatarUri(id);
+            boolean deleted = dbHelper.deleteCatProfile(id);
+            if (deleted && avatarUri != null) {
+                thumbnailCache.invalidate(ThumbnailCache.uriSource(avatarUri));
+                pruneLocalCopies();
+            }
+            return deleted;
+        }, callback);
+    }
+
+    /**
+     * 在本地副本线程上删除不再被任何记录引用的本地副本（见 {@link LocalCopyStore#pruneUnreferenced}）。
+     * <p>
+     * 在数据库线程上调用：先在这里读出引用集合，再把文件删除交给本地副本线程，不阻塞后续写入。
+     * </p>
+     */
+    private void pruneLocalCopies() {
+        Set<String> referenced = dbHelper.queryLocalCopyUris();
+        MeowExecutors.localCopy().execute(() -> {
+            int deleted = localCopyStore.pruneUnreferenced(referenced);
+            if (deleted > 0) {
+                Log.i(TAG, "清理了 " + deleted + " 个不再引用的本地副本");
+            }
+        });
+    }
+
+    // 调度
+
+    /**
+     * 可被取消信号中断的后台任务。
+     */
+    private interface CancellableWork<T> {
+        T call(CancellationSignal signal) throws Exception;
+    }
+
+    /**
+     * 提交读任务：页面销毁时直接取消（未开始的查询不会执行）。
+     */
+    private <T> MeowTask read(@Nullable LifecycleOwner owner, Callable<T> work, @Nullable Callback<T> callback) {
+        return submit(owner, MeowExecutors.dbRead(), signal -> work.call(), callback, true);
+    }
+
+    /**
+     * 提交可中断的读任务：{@link MeowTask#cancel()} 会同时中断正在执行的 SQL。
+     */
+    private <T> MeowTask readCancellable(
+            @Nullable LifecycleOwner owner,
+            CancellableWork<T> work,
+            @Nullable Callback<T> callback
+    ) {
+        return submit(owner, MeowExecutors.dbRead(), work, callback, true);
+    }
+
+    /**
+     * 提交写任务：页面销毁时只丢弃回调，写入本身照常完成。
+     */
+    private <T> MeowTask write(@Nullable LifecycleOwner owner, Callable<T> work, @Nullable Callback<T> callback) {
+        return submit(owner, MeowExecutors.dbIo(), signal -> work.call(), callback, false);
+    }
+
+    /**
+     * 在数据库线程执行并等待结果：供媒体线程上的任务调用，保证 SQLite 仍只在 dbIo 上执行。
+     */
+    static <T> T onDbThread(Callable<T> work) throws Exception {
+        try {
+            return MeowExecutors.dbIo().submit(work).get();
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            throw cause instanceof Exception ? (Exception) cause : e;
+        }
+    }
+
+    /**
+     * 统一调度：在 executor 上执行 work，主线程回调 callback（失败时回调任务上的 onError），并跟随生命周期自动解绑。
+     * <p>
+     * 需在主线程调用（注册 Lifecycle 观察者要求主线程）。
+     * </p>
+     */
+    private <T> MeowTask submit(
+            @Nullable LifecycleOwner owner,
+            ExecutorService executor,
+            CancellableWork<T> work,
+            @Nullable Callback<T> callback,
+            boolean cancelWorkOnDestroy
+    ) {
+        MeowTask task = new MeowTask();
+        // 结果与失败是否还需要回调（页面销毁后置为 false）
+        final boolean[] alive = new boolean[]{true};
+
+        Lifecycle lifecycle = owner == null ? null : owner.getLifecycle();
+        LifecycleEventObserver observer = null;
+        if (lifecycle != null) {
+            if (lifecycle.getCurrentState() == Lifecycle.State.DESTROYED) {
+                // 页面已经销毁：读任务没必要再跑，写任务照常执行但不回调
+                alive[0] = false;
+                if (cancelWorkOnDestroy) {
+                    task.cancel();
+                    return task;
+                }
+            } else {
+                observer = (source, event) -> {
+                    if (event == Lifecycle.Event.ON_DESTROY) {
+                        alive[0] = false;
+                        if (cancelWorkOnDestroy) {
+                            task.cancel();
+                        }
+                    }
+                };
+                lifecycle.addObserver(observer);
+            }
+        }
+
+        final LifecycleEventObserver boundObserver = observer;
+        task.attach(executor.submit(() -> {
+            if (cancelWorkOnDestroy && task.isCancelled()) {
+                return;
+            }
+            T result;
+            try {
+                result = work.call(task.getCancellationSignal());
+            } catch (OperationCanceledException e) {
+                // 查询被新的请求取消，属于正常流程
+                result = null;
+            } catch (Exception e) {
+                Log.e(TAG, "数据库任务执行失败", e);
+                MeowExecutors.postToMain(() -> {
+                    if (boundObserver != null) {
+                        lifecycle.removeObserver(boundObserver);
+                    }
+                    // 与结果回调同样的生命周期与取消约束
+                    MeowRepository.Callback<Exception> onError = task.getErrorCallback();
+                    if (alive[0] && !task.isCancelled() && onError != null) {
+                        onError.onResult(e);
+                    }
+                });
+                return;
+            }
+            MeowExecutors.postToMain(() -> {
+                if (boundObserver != null) {
+                    lifecycle.removeObserver(boundObserver);
+                }
+                if (alive[0] && !task.isCancelled() && callback != null) {
+                    callback.onResult(result);
+                }
+            });
+        }));
+        return task;
+    }
+}
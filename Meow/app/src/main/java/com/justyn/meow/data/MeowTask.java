@@ -0,0 +1,90 @@
+package com.justyn.meow.data;
+
+import android.os.CancellationSignal;
+
+import androidx.annotation.MainThread;
+import androidx.annotation.Nullable;
+
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * 一次异步数据库任务的句柄。
+ * <p>
+ * 调用 {@link #cancel()} 后：尚未开始的任务不再执行，正在执行的查询通过 {@link CancellationSignal} 中断，
+ * 已完成的结果也不会再回调到主线程。
+ * </p>
+ * <p>
+ * 任务执行失败（SQLite 异常、读取文件失败、授权被撤销等）时不会调用结果回调，而是调用 {@link #onError} 设置的失败回调，
+ * 同样在主线程、同样受页面生命周期与取消约束；调用方据此恢复按钮、加载状态等界面。
+ * </p>
+ */
+public final class MeowTask {
+
+    // 是否已取消
+    private final AtomicBoolean cancelled = new AtomicBoolean(false);
+    // 线程池返回的 Future（提交后才有值）
+    private volatile Future<?> future;
+    // 传给 SQLite 的取消信号：取消时中断正在执行的查询
+    private final CancellationSignal cancellationSignal = new CancellationSignal();
+    // 失败回调（只在主线程读写）
+    @Nullable
+    private MeowRepository.Callback<Exception> errorCallback;
+
+    MeowTask() {
+    }
+
+    /**
+     * 关联线程池 Future；如果在提交前就已取消，立即取消 Future。
+     */
+    void attach(Future<?> future) {
+        this.future = future;
+        if (cancelled.get()) {
+            future.cancel(false);
+        }
+    }
+
+    /**
+     * 查询使用的取消信号。
+     */
+    CancellationSignal getCancellationSignal() {
+        return cancellationSignal;
+    }
+
+    /**
+     * 设置失败回调。需在提交任务的同一次主线程调用里设置（失败结果总是稍后才投递到主线程）。
+     *
+     * @return 当前任务，便于链式调用
+     */
+    @MainThread
+    public MeowTask onError(@Nullable MeowRepository.Callback<Exception> callback) {
+        this.errorCallback = callback;
+        return this;
+    }
+
+    @Nullable
+    MeowRepository.Callback<Exception> getErrorCallback() {
+        return errorCallback;
+    }
+
+    /**
+     * 取消任务。使用了取消信号的查询会被中断，其余任务只保证结果被丢弃。
+     */
+    public void cancel() {
+        if (!cancelled.compareAndSet(false, true)) {
+            return;
+        }
+        cancellationSignal.cancel();
+        Future<?> f = future;
+        if (f != null) {
+            f.cancel(false);
+        }
+    }
+
+    /**
+     * 是否已取消。
+     */
+    public boolean isCancelled() {
+        return cancelled.get();
+    }
+}
@@ -0,0 +1,78 @@
+package com.justyn.meow.data;
+
+import androidx.annotation.Nullable;
+
+import com.justyn.meow.cat.AudioMetadata;
+
+/**
+ * 待写入的一条 FM 音轨（批量写入用）。
+ */
+public final class NewFmTrack {
+
+    private final String title;
+    private final String subtitle;
+    // 本地音频资源 id（可为空）
+    @Nullable
+    private final Integer audioResId;
+    // 外部音频 Uri（可为空）
+    @Nullable
+    private final String audioUri;
+    // 已探测的元数据（为空时时长记为“未探测”）
+    @Nullable
+    private final AudioMetadata metadata;
+    // 文档提供方报告的文件大小（0 表示未知）：优先写入 file_size，与导入去重的标识一致
+    private final long sourceSize;
+
+    public NewFmTrack(
+            String title,
+            String subtitle,
+            @Nullable Integer audioResId,
+            @Nullable String audioUri,
+            @Nullable AudioMetadata metadata
+    ) {
+        this(title, subtitle, audioResId, audioUri, metadata, 0);
+    }
+
+    public NewFmTrack(
+            String title,
+            String subtitle,
+            @Nullable Integer audioResId,
+            @Nullable String audioUri,
+            @Nullable AudioMetadata metadata,
+            long sourceSize
+    ) {
+        this.title = title;
+        this.subtitle = subtitle;
+        this.audioResId = audioResId;
+        this.audioUri = audioUri;
+        this.metadata = metadata;
+        this.sourceSize = sourceSize;
+    }
+
+    public String getTitle() {
+        return title;
+    }
+
+    public String getSubtitle() {
+        return subtitle;
+    }
+
+    @Nullable
+    public Integer getAudioResId() {
+        return audioResId;
+    }
+
+    @Nullable
+    public String getAudioUri() {
+        return audioUri;
+    }
+
+    @Nullable
+    public AudioMetadata getMetadata() {
+        return metadata;
+    }
+
+    public long getSourceSize() {
+        return sourceSize;
+    }
+}
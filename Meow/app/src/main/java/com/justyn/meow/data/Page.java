@@ -0,0 +1,49 @@
+package com.justyn.meow.data;
+
+import androidx.annotation.Nullable;
+
+import java.util.List;
+
+/**
+ * 一页查询结果。
+ *
+ * @param <T> 行数据类型
+ */
+public final class Page<T> {
+
+    // 本页数据
+    private final List<T> items;
+    // 每一行的游标（与 items 一一对应），用于按边界截取
+    private final List<PageKey> keys;
+    // 下一页的起始游标（null 表示已经到底）
+    @Nullable
+    private final PageKey nextKey;
+
+    public Page(List<T> items, List<PageKey> keys, @Nullable PageKey nextKey) {
+        this.items = items;
+        this.keys = keys;
+        this.nextKey = nextKey;
+    }
+
+    /**
+     * 获取本页数据。
+     */
+    public List<T> getItems() {
+        return items;
+    }
+
+    /**
+     * 获取每一行的游标（与 {@link #getItems()} 一一对应）。
+     */
+    public List<PageKey> getKeys() {
+        return keys;
+    }
+
+    /**
+     * 获取下一页游标（null 表示没有更多数据）。
+     */
+    @Nullable
+    public PageKey getNextKey() {
+        return nextKey;
+    }
+}
@@ -0,0 +1,59 @@
+package com.justyn.meow.data;
+
+/**
+ * 键集分页（keyset pagination）的游标：记录上一页最后一行的排序键。
+ * <p>
+ * 下一页从“排序键 + id 严格大于该游标”的位置继续读取，
+ * 无论翻到第几页都只是一次索引定位，不会像 OFFSET 那样越翻越慢。
+ * 游标按 (排序键, id) 比较，与查询的排序一致，可用来判断某一行是否越过了某页的边界。
+ * </p>
+ */
+public final class PageKey implements Comparable<PageKey> {
+
+    // 主排序键（按 id 排序时恒为 0；检索时为相关度档位）
+    private final long sortKey;
+    // 次排序键：行 id，保证顺序稳定且唯一
+    private final long id;
+
+    public PageKey(long sortKey, long id) {
+        this.sortKey = sortKey;
+        this.id = id;
+    }
+
+    /**
+     * 获取主排序键。
+     */
+    public long getSortKey() {
+        return sortKey;
+    }
+
+    /**
+     * 获取行 id。
+     */
+    public long getId() {
+        return id;
+    }
+
+    @Override
+    public int compareTo(PageKey other) {
+        int bySortKey = Long.compare(sortKey, other.sortKey);
+        return bySortKey != 0 ? bySortKey : Long.compare(id, other.id);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof PageKey)) {
+            return false;
+        }
+        PageKey other = (PageKey) o;
+        return sortKey == other.sortKey && id == other.id;
+    }
+
+    @Override
+    public int hashCode() {
+        return 31 * Long.hashCode(sortKey) + Long.hashCode(id);
+    }
+}
@@ -0,0 +1,133 @@
+package com.justyn.meow.data;
+
+import androidx.annotation.Nullable;
+
+import java.util.LinkedHashSet;
+import java.util.Locale;
+import java.util.Set;
+
+/**
+ * 全文检索分词工具。
+ * <p>
+ * SQLite 自带的 FTS 分词器不认识中文词边界，这里在写库前先把文本切好再交给 FTS：
+ * - 中日韩文字：拆成单字 + 相邻二元组（n-gram），“粉红色”→“粉 红 色 粉红 红色”
+ * - 其他字母数字：按单词切分并转小写
+ * 查询时用同样的规则生成 MATCH 表达式，保证中文子串也能命中。
+ * </p>
+ */
+public final class SearchTokenizer {
+
+    private SearchTokenizer() {
+    }
+
+    /**
+     * 构造写入 FTS 索引列的文本（多个字段合并）。
+     */
+    public static String buildIndexText(String... fields) {
+        Set<String> tokens = new LinkedHashSet<>();
+        for (String field : fields) {
+            if (field != null) {
+                tokenize(field, tokens, false);
+            }
+        }
+        return String.join(" ", tokens);
+    }
+
+    /**
+     * 把用户输入转成 FTS MATCH 表达式（各词之间为 AND 关系）。
+     *
+     * @return MATCH 表达式；输入为空或没有可检索的字符时返回 null
+     */
+    @Nullable
+    public static String buildMatchQuery(@Nullable String query) {
+        if (query == null || query.trim().isEmpty()) {
+            return null;
+        }
+        Set<String> tokens = new LinkedHashSet<>();
+        tokenize(query, tokens, true);
+        if (tokens.isEmpty()) {
+            return null;
+        }
+        return String.join(" ", tokens);
+    }
+
+    /**
+     * 规范化关键字（去首尾空格 + 小写），用于结果排序时判断标题是否直接包含关键字。
+     */
+    public static String normalize(@Nullable String query) {
+        return query == null ? "" : query.trim().toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * 按字符类别切分文本。
+     *
+     * @param forQuery true 表示生成查询词：中文只取二元组（单字时取单字），英文单词加前缀匹配
+     */
+    private static void tokenize(String text, Set<String> out, boolean forQuery) {
+        String lower = text.toLowerCase(Locale.ROOT);
+        int length = lower.length();
+        int i = 0;
+        while (i < length) {
+            int cp = lower.codePointAt(i);
+            if (isCjk(cp)) {
+                // 收集一段连续的中日韩文字
+                int start = i;
+                while (i < length && isCjk(lower.codePointAt(i))) {
+                    i += Character.charCount(lower.codePointAt(i));
+                }
+                emitCjkRun(lower.substring(start, i), out, forQuery);
+            } else if (Character.isLetterOrDigit(cp)) {
+                // 收集一个连续的字母数字单词
+                int start = i;
+                while (i < length) {
+                    int next = lower.codePointAt(i);
+                    if (isCjk(next) || !Character.isLetterOrDigit(next)) {
+                        break;
+                    }
+                    i += Character.charCount(next);
+                }
+                String word = lower.substring(start, i);
+                out.add(forQuery ? word + "*" : word);
+            } else {
+                // 空格、标点等分隔符直接跳过
+                i += Character.charCount(cp);
+            }
+        }
+    }
+
+    /**
+     * 输出一段中日韩文字的 n-gram。
+     */
+    private static void emitCjkRun(String run, Set<String> out, boolean forQuery) {
+        int count = run.codePointCount(0, run.length());
+        if (forQuery && count > 1) {
+            // 查询时用二元组即可：所有二元组同时命中即等价于子串匹配
+            for (int i = 0; i + 1 < count; i++) {
+                out.add(substringByCodePoints(run, i, 2));
+            }
+            return;
+        }
+        for (int i = 0; i < count; i++) {
+            out.add(substringByCodePoints(run, i, 1));
+        }
+        if (!forQuery) {
+            for (int i = 0; i + 1 < count; i++) {
+                out.add(substringByCodePoints(run, i, 2));
+            }
+        }
+    }
+
+    private static String substringByCodePoints(String text, int startCodePoint, int codePointCount) {
+        int begin = text.offsetByCodePoints(0, startCodePoint);
+        int end = text.offsetByCodePoints(begin, codePointCount);
+        return text.substring(begin, end);
+    }
+
+    private static boolean isCjk(int codePoint) {
+        Character.UnicodeScript script = Character.UnicodeScript.of(codePoint);
+        return script == Character.UnicodeScript.HAN
+                || script == Character.UnicodeScript.HIRAGANA
+                || script == Character.UnicodeScript.KATAKANA
+                || script == Character.UnicodeScript.HANGUL;
+    }
+}
@@ -0,0 +1,140 @@
+package com.justyn.meow.util;
+
+import android.graphics.Bitmap;
+
+import androidx.annotation.Nullable;
+
+import java.util.ArrayDeque;
+import java.util.EnumMap;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * 位图复用池：按像素格式与分配字节数分桶，解码时通过 inBitmap 复用已经不再显示的位图。
+ * <p>
+ * - 取用时找同格式、容量不小于所需且不超过 {@link #MAX_OVERSIZE} 倍的最小位图，避免用大图装小图浪费内存
+ * - 放入时超过容量上限按放入先后淘汰最旧的位图
+ * - 只接收可变（inMutable 解码）的位图；谁放入谁保证它已经不在任何 View 上显示（见 {@link ThumbnailCache}）
+ * </p>
+ * 线程安全：解码线程取用，主线程或解码线程归还。
+ */
+public final class BitmapPool {
+
+    // 复用位图的容量最多是所需的几倍
+    private static final int MAX_OVERSIZE = 4;
+
+    private final long maxBytes;
+    private long currentBytes;
+    // 像素格式 → 分配字节数 → 位图
+    private final Map<Bitmap.Config, TreeMap<Integer, ArrayDeque<Bitmap>>> buckets = new EnumMap<>(Bitmap.Config.class);
+    // 按放入先后排列，淘汰时从最旧的开始
+    private final LinkedHashSet<Bitmap> order = new LinkedHashSet<>();
+
+    private int hits;
+    private int misses;
+    private int evictions;
+
+    public BitmapPool(long maxBytes) {
+        this.maxBytes = maxBytes;
+    }
+
+    /**
+     * 取出一张可以装下 width x height 的位图（供 inBitmap 使用），没有合适的返回 null。
+     */
+    @Nullable
+    public synchronized Bitmap get(int width, int height, Bitmap.Config config) {
+        int needed = width * height * bytesPerPixel(config);
+        TreeMap<Integer, ArrayDeque<Bitmap>> sizes = buckets.get(config);
+        Map.Entry<Integer, ArrayDeque<Bitmap>> entry = sizes == null ? null : sizes.ceilingEntry(needed);
+        if (entry == null || entry.getKey() > (long) needed * MAX_OVERSIZE) {
+            misses++;
+            return null;
+        }
+        Bitmap bitmap = entry.getValue().pollLast();
+        if (entry.getValue().isEmpty()) {
+            sizes.remove(entry.getKey());
+        }
+        order.remove(bitmap);
+        currentBytes -= entry.getKey();
+        hits++;
+        return bitmap;
+    }
+
+    /**
+     * 归还不再使用的位图；不可复用的（不可变、已回收、比整个池还大）直接回收。
+     */
+    public synchronized void put(Bitmap bitmap) {
+        if (bitmap.isRecycled() || order.contains(bitmap)) {
+            return;
+        }
+        int size = bitmap.getAllocationByteCount();
+        if (!bitmap.isMutable() || bitmap.getConfig() == null || size > maxBytes) {
+            bitmap.recycle();
+            return;
+        }
+        buckets.computeIfAbsent(bitmap.getConfig(), config -> new TreeMap<>())
+                .computeIfAbsent(size, key -> new ArrayDeque<>())
+                .addLast(bitmap);
+        order.add(bitmap);
+        currentBytes += size;
+        trimToSize(maxBytes);
+    }
+
+    /**
+     * 淘汰到不超过 targetBytes（内存紧张时传 0 清空）。
+     */
+    public synchronized void trimToSize(long targetBytes) {
+        Iterator<Bitmap> oldest = order.iterator();
+        while (currentBytes > targetBytes && oldest.hasNext()) {
+            Bitmap bitmap = oldest.next();
+            oldest.remove();
+            int size = bitmap.getAllocationByteCount();
+            TreeMap<Integer, ArrayDeque<Bitmap>> sizes = buckets.get(bitmap.getConfig());
+            ArrayDeque<Bitmap> sameSize = sizes.get(size);
+            sameSize.remove(bitmap);
+            if (sameSize.isEmpty()) {
+                sizes.remove(size);
+            }
+            currentBytes -= size;
+            evictions++;
+            bitmap.recycle();
+        }
+    }
+
+    public synchronized long getCurrentBytes() {
+        return currentBytes;
+    }
+
+    public synchronized int getHitCount() {
+        return hits;
+    }
+
+    public synchronized int getMissCount() {
+        return misses;
+    }
+
+    /**
+     * 复用统计摘要（日志用）。
+     */
+    public synchronized String describeStats() {
+        return "复用 " + hits + "，新分配 " + misses + "，淘汰 " + evictions
+                + "，占用 " + currentBytes / 1024 + "KB/" + maxBytes / 1024 + "KB";
+    }
+
+    @SuppressWarnings("deprecation")
+    static int bytesPerPixel(Bitmap.Config config) {
+        switch (config) {
+            case ALPHA_8:
+                return 1;
+            case RGB_565:
+            case ARGB_4444:
+                return 2;
+            case RGBA_F16:
+                return 8;
+            default:
+                return 4;
+        }
+    }
+}
@@ -0,0 +1,69 @@
+package com.justyn.meow.util;
+
+/**
+ * 图片文件头识别：只看前 {@link #SNIFF_BYTES} 个字节判断图片是否一定不透明。
+ * <p>
+ * 不透明的图片可以解码成 RGB_565，像素内存是 ARGB_8888 的一半：
+ * - JPEG：没有透明通道
+ * - 有损 WebP（VP8）：没有透明通道；VP8L 看头部的 alpha 位，VP8X 看扩展标志里的 alpha 位
+ * - PNG：颜色类型为灰度或 RGB 时视为不透明（带 tRNS 色键的极少数图片会丢失透明色）
+ * 其余格式一律按可能透明处理。
+ * </p>
+ */
+final class ImageHeader {
+
+    // 需要读取的文件头长度：足够覆盖 PNG 的 IHDR 与 WebP 的 VP8L/VP8X 头
+    static final int SNIFF_BYTES = 32;
+
+    // PNG 颜色类型：灰度、RGB
+    private static final int PNG_COLOR_GRAY = 0;
+    private static final int PNG_COLOR_RGB = 2;
+    // VP8X 扩展标志里的 alpha 位
+    private static final int VP8X_ALPHA_FLAG = 0x10;
+
+    private ImageHeader() {
+    }
+
+    /**
+     * 图片是否一定不透明。
+     *
+     * @param header 文件开头的字节
+     * @param length header 中有效的字节数
+     */
+    static boolean isOpaque(byte[] header, int length) {
+        if (length >= 3 && u8(header, 0) == 0xFF && u8(header, 1) == 0xD8 && u8(header, 2) == 0xFF) {
+            return true;
+        }
+        if (length >= 26 && u8(header, 0) == 0x89 && matches(header, 1, "PNG") && matches(header, 12, "IHDR")) {
+            int colorType = u8(header, 25);
+            return colorType == PNG_COLOR_GRAY || colorType == PNG_COLOR_RGB;
+        }
+        if (length >= 16 && matches(header, 0, "RIFF") && matches(header, 8, "WEBP")) {
+            if (matches(header, 12, "VP8 ")) {
+                return true;
+            }
+            if (length >= 25 && matches(header, 12, "VP8L") && u8(header, 20) == 0x2F) {
+                // 签名之后的 32 位（小端）：宽 14 位、高 14 位、alpha_is_used 1 位
+                int bits = u8(header, 21) | u8(header, 22) << 8 | u8(header, 23) << 16 | u8(header, 24) << 24;
+                return ((bits >>> 28) & 1) == 0;
+            }
+            if (length >= 21 && matches(header, 12, "VP8X")) {
+                return (u8(header, 20) & VP8X_ALPHA_FLAG) == 0;
+            }
+        }
+        return false;
+    }
+
+    private static boolean matches(byte[] header, int offset, String ascii) {
+        for (int i = 0; i < ascii.length(); i++) {
+            if (header[offset + i] != (byte) ascii.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static int u8(byte[] header, int offset) {
+        return header[offset] & 0xFF;
+    }
+}
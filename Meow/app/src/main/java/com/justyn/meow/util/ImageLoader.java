@@ -0,0 +1,484 @@
+package com.justyn.meow.util;
+
+import android.content.Context;
+import android.graphics.Bitmap;
+import android.graphics.BitmapFactory;
+import android.net.Uri;
+import android.util.Log;
+import android.view.View;
+import android.widget.ImageView;
+
+import androidx.annotation.DrawableRes;
+import androidx.annotation.MainThread;
+import androidx.annotation.Nullable;
+import androidx.annotation.VisibleForTesting;
+import androidx.annotation.WorkerThread;
+
+import com.justyn.meow.MeowApplication;
+import com.justyn.meow.R;
+
+import java.io.ByteArrayInputStream;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.SequenceInputStream;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * 图片加载：在后台线程按目标尺寸解码 content:// 图片或本地资源，再回到主线程设置到 ImageView。
+ * <p>
+ * - 结果按来源 + 目标尺寸存进 {@link ThumbnailCache}，内存命中时在主线程直接显示，不再排队解码
+ * - 目标尺寸取 View 的实际尺寸；还没布局时等第一次布局完成再开始，不按猜测的尺寸解码
+ * - 先只解码边界（inJustDecodeBounds）拿到原图尺寸，按 2 的幂 inSampleSize 降采样，再按比例缩放到正好铺满目标尺寸
+ * - 从文件头判断一定不透明的图片（JPEG、有损 WebP 等）解码为 RGB_565，像素内存减半
+ * - 解码目标优先从 {@link BitmapPool} 里取同尺寸的旧位图（inBitmap），不再每次新分配
+ * - 每个 ImageView 通过 tag 记录当前请求与正在显示的位图；同一个 View 发起新请求或 {@link #cancel(ImageView)} 时旧请求作废、
+ *   旧位图交还缓存（不再被缓存引用时才进入复用池）
+ * - 结果回到主线程时再核对一次 tag，列表复用后的旧结果不会落到别的行上
+ * - 同一来源 + 尺寸正在预取时不再重复解码：预取已开始就等它完成后取内存缓存，还没开始就由列表项接手、预取作废
+ * </p>
+ */
+public final class ImageLoader {
+
+    private static final String TAG = "ImageLoader";
+
+    // 进行中的预取：来源 + 尺寸 → 预取（只在主线程读写）
+    private static final Map<String, Prefetch> PREFETCHES = new HashMap<>();
+
+    private ImageLoader() {
+    }
+
+    /**
+     * 一次预取。claimed 由预取线程开始解码、或列表项接手时抢占，保证同一张图只解码一次。
+     */
+    private static final class Prefetch {
+        final AtomicBoolean claimed = new AtomicBoolean();
+        // 等这次预取完成的列表项（只在主线程读写）
+        final List<Runnable> waiters = new ArrayList<>();
+    }
+
+    /**
+     * 一次加载请求。只在主线程读写 future / layoutListener；cancelled 由主线程写、解码线程读。
+     */
+    private static final class Request {
+        // 缓存来源键（见 ThumbnailCache#resourceSource / uriSource）
+        final String source;
+        // 原图：本地资源 id（0 表示不是资源）或图片 Uri，二选一
+        final int resId;
+        final String uri;
+        Future<?> future;
+        // 等待第一次布局的监听（已开始解码时为 null）
+        View.OnLayoutChangeListener layoutListener;
+        volatile boolean cancelled;
+
+        Request(String source, int resId, String uri) {
+            this.source = source;
+            this.resId = resId;
+            this.uri = uri;
+        }
+    }
+
+    /**
+     * 原图数据流：一次解码需要打开两遍（先读边界，再解码像素）。
+     */
+    @VisibleForTesting
+    interface StreamOpener {
+        @Nullable
+        InputStream open() throws IOException;
+    }
+
+    /**
+     * 加载图片到 ImageView：uri 为空时直接显示本地资源；解码失败时也显示本地资源。
+     *
+     * @param uri           图片 Uri（content:// 或 file://，可为空）
+     * @param fallbackResId 兜底资源（0 表示清空）
+     */
+    @MainThread
+    public static void load(ImageView view, @Nullable String uri, @DrawableRes int fallbackResId) {
+        if (uri == null) {
+            cancel(view);
+            view.setImageResource(fallbackResId);
+            return;
+        }
+        start(view, ThumbnailCache.uriSource(uri), 0, uri, fallbackResId);
+    }
+
+    /**
+     * 按 View 尺寸加载本地位图资源（猫图墙等大图），同样经过缩略图缓存与复用池。
+     */
+    @MainThread
+    public static void loadResource(ImageView view, @DrawableRes int resId) {
+        start(view, ThumbnailCache.resourceSource(resId), resId, null, resId);
+    }
+
+    /**
+     * 先查内存缓存，命中直接显示；否则交给解码线程：磁盘缓存 → 解码原图 → 回主线程显示 → 写磁盘缓存。
+     */
+    private static void start(ImageView view, String source, int resId, @Nullable String uri,
+                              @DrawableRes int fallbackResId) {
+        Request current = (Request) view.getTag(R.id.tag_image_request);
+        if (current != null && !current.cancelled && source.equals(current.source)) {
+            // 同一张图已在加载（例如列表刷新重新绑定同一行），不重复解码
+            return;
+        }
+        cancel(view);
+
+        Request request = new Request(source, resId, uri);
+        view.setTag(R.id.tag_image_request, request);
+        int targetWidth = targetSize(view.getWidth(), view.getLayoutParams() == null ? 0 : view.getLayoutParams().width);
+        int targetHeight = targetSize(view.getHeight(), view.getLayoutParams() == null ? 0 : view.getLayoutParams().height);
+        if (targetWidth <= 0 || targetHeight <= 0) {
+            // 新建的列表项还没布局：等拿到实际尺寸再解码，避免按猜测的尺寸多解码、多占内存
+            view.setImageDrawable(null);
+            request.layoutListener = new View.OnLayoutChangeListener() {
+                @Override
+                public void onLayoutChange(View v, int left, int top, int right, int bottom,
+                                           int oldLeft, int oldTop, int oldRight, int oldBottom) {
+                    if (right - left <= 0 || bottom - top <= 0) {
+                        return;
+                    }
+                    v.removeOnLayoutChangeListener(this);
+                    request.layoutListener = null;
+                    if (!request.cancelled && view.getTag(R.id.tag_image_request) == request) {
+                        submit(view, request, right - left, bottom - top, fallbackResId);
+                    }
+                }
+            };
+            view.addOnLayoutChangeListener(request.layoutListener);
+            return;
+        }
+        submit(view, request, targetWidth, targetHeight, fallbackResId);
+    }
+
+    private static void submit(ImageView view, Request request, int targetWidth, int targetHeight,
+                               @DrawableRes int fallbackResId) {
+        Context appContext = view.getContext().getApplicationContext();
+        ThumbnailCache cache = MeowApplication.from(appContext).getThumbnailCache();
+        Bitmap cached = cache.getFromMemory(request.source, targetWidth, targetHeight);
+        if (cached != null) {
+            view.setTag(R.id.tag_image_request, null);
+            show(view, cached);
+            return;
+        }
+
+        // 旧图片先清掉，避免复用的行短暂显示上一只猫
+        view.setImageDrawable(null);
+        Prefetch prefetch = PREFETCHES.get(prefetchKey(request.source, targetWidth, targetHeight));
+        if (prefetch != null && !prefetch.claimed.compareAndSet(false, true)) {
+            // 预取线程已在解码同一张图、同一尺寸：等它完成后再查一次内存，不重复解码（预取失败时照常解码）
+            prefetch.waiters.add(() -> {
+                if (!request.cancelled && view.getTag(R.id.tag_image_request) == request) {
+                    submit(view, request, targetWidth, targetHeight, fallbackResId);
+                }
+            });
+            return;
+        }
+        // 没有预取，或预取还在排队（已被这里抢占，轮到它时直接跳过）：在解码线程池里解码
+        BitmapPool pool = cache.getBitmapPool();
+        request.future = MeowExecutors.imageDecode().submit(() -> {
+            if (request.cancelled) {
+                return;
+            }
+            Bitmap bitmap = cache.getFromDisk(request.source, targetWidth, targetHeight,
+                    file -> decodeQuietly(() -> new FileInputStream(file), targetWidth, targetHeight, pool, request));
+            boolean fromSource = bitmap == null;
+            if (fromSource) {
+                bitmap = decodeQuietly(() -> openSource(appContext, request), targetWidth, targetHeight, pool, request);
+                if (bitmap != null) {
+                    // 一份引用交给界面显示，一份留给下面的磁盘写入
+                    cache.acquire(bitmap);
+                    cache.acquire(bitmap);
+                    cache.putInMemory(request.source, targetWidth, targetHeight, bitmap);
+                }
+            }
+            Bitmap result = bitmap;
+            MeowExecutors.postToMain(() -> {
+                if (request.cancelled || view.getTag(R.id.tag_image_request) != request) {
+                    if (result != null) {
+                        cache.release(result);
+                    }
+                    return;
+                }
+                view.setTag(R.id.tag_image_request, null);
+                if (result != null) {
+                    show(view, result);
+                } else {
+                    view.setImageResource(fallbackResId);
+                }
+            });
+            if (fromSource && result != null) {
+                // 先显示再编码落盘，下次冷启动或内存被回收后直接读缩略图
+                cache.putOnDisk(request.source, targetWidth, targetHeight, result);
+                cache.release(result);
+            }
+        });
+    }
+
+    /**
+     * 预取本地位图资源：在预取线程上按给定尺寸解码进缩略图缓存（内存 + 磁盘），不显示到任何 View。
+     * <p>
+     * 尺寸需与之后显示它的 ImageView 一致，{@link #loadResource} 才能直接命中内存；已在内存里时什么也不做。
+     * 预取进行中滚到这张图时，列表项会等它完成而不是再解码一遍。
+     * </p>
+     *
+     * @return 任务句柄：cancel(false) 作废还在排队的预取，已在解码的跑完后照常入缓存
+     */
+    @MainThread
+    public static Future<?> prefetchResource(Context context, @DrawableRes int resId, int width, int height) {
+        Context appContext = context.getApplicationContext();
+        ThumbnailCache cache = MeowApplication.from(appContext).getThumbnailCache();
+        BitmapPool pool = cache.getBitmapPool();
+        Request request = new Request(ThumbnailCache.resourceSource(resId), resId, null);
+        String key = prefetchKey(request.source, width, height);
+        Prefetch prefetch = new Prefetch();
+        FutureTask<Void> task = new FutureTask<Void>(() -> {
+            if (!prefetch.claimed.compareAndSet(false, true)) {
+                // 列表项已经接手解码
+                return;
+            }
+            if (cache.isInMemory(request.source, width, height)) {
+                return;
+            }
+            Bitmap bitmap = cache.getFromDisk(request.source, width, height,
+                    file -> decodeQuietly(() -> new FileInputStream(file), width, height, pool, request));
+            if (bitmap != null) {
+                // 磁盘命中已放回内存，不需要占着引用
+                cache.release(bitmap);
+                return;
+            }
+            bitmap = decodeQuietly(() -> openSource(appContext, request), width, height, pool, request);
+            if (bitmap == null) {
+                return;
+            }
+            // 写盘期间占着引用，避免刚放进内存就被淘汰复用；写完交还，只留在缓存里等列表取用
+            cache.acquire(bitmap);
+            cache.putInMemory(request.source, width, height, bitmap);
+            cache.putOnDisk(request.source, width, height, bitmap);
+            cache.release(bitmap);
+        }, null) {
+            @Override
+            protected void done() {
+                // 完成、失败或被取消：回主线程通知等它的列表项
+                MeowExecutors.postToMain(() -> {
+                    if (PREFETCHES.get(key) == prefetch) {
+                        PREFETCHES.remove(key);
+                    }
+                    for (Runnable waiter : prefetch.waiters) {
+                        waiter.run();
+                    }
+                });
+            }
+        };
+        PREFETCHES.put(key, prefetch);
+        MeowExecutors.imagePrefetch().execute(task);
+        return task;
+    }
+
+    private static String prefetchKey(String source, int width, int height) {
+        return source + "@" + width + "x" + height;
+    }
+
+    /**
+     * 取消 ImageView 上正在进行的请求，并交还它正在显示的位图（列表项回收、换图前调用）。
+     * <p>
+     * 交还后位图可能被复用池拿去装别的图，调用方随后应立即替换 View 上的图片（或 View 已从界面移除）。
+     * </p>
+     */
+    @MainThread
+    public static void cancel(ImageView view) {
+        Request request = (Request) view.getTag(R.id.tag_image_request);
+        if (request != null) {
+            request.cancelled = true;
+            if (request.future != null) {
+                // 还没开始的直接从队列里作废；已经在解码的跑完后丢弃结果
+                request.future.cancel(false);
+            }
+            if (request.layoutListener != null) {
+                view.removeOnLayoutChangeListener(request.layoutListener);
+                request.layoutListener = null;
+            }
+            view.setTag(R.id.tag_image_request, null);
+        }
+        Bitmap shown = (Bitmap) view.getTag(R.id.tag_image_bitmap);
+        if (shown != null) {
+            view.setTag(R.id.tag_image_bitmap, null);
+            MeowApplication.from(view.getContext()).getThumbnailCache().release(shown);
+        }
+    }
+
+    /**
+     * 显示位图并记录在 View 上（调用方已为它占用一次引用，由 {@link #cancel(ImageView)} 交还）。
+     */
+    private static void show(ImageView view, Bitmap bitmap) {
+        view.setTag(R.id.tag_image_bitmap, bitmap);
+        view.setImageBitmap(bitmap);
+    }
+
+    @WorkerThread
+    @Nullable
+    private static Bitmap decodeQuietly(StreamOpener opener, int targetWidth, int targetHeight,
+                                        BitmapPool pool, Request request) {
+        if (request.cancelled) {
+            return null;
+        }
+        try {
+            return decode(opener, targetWidth, targetHeight, pool);
+        } catch (IOException | RuntimeException e) {
+            // 包括 SecurityException（授权被撤销）与 Resources.NotFoundException
+            Log.w(TAG, "读取图片失败: " + request.source, e);
+            return null;
+        }
+    }
+
+    /**
+     * 解码到正好铺满目标尺寸的位图：读文件头判断透明度 → 读边界 → 降采样 + 缩放解码（优先复用池里的位图）。
+     *
+     * @param pool 复用池（为空时总是新分配）
+     * @return 可变位图（density 为 DENSITY_NONE，按像素显示）；不是可解码的图片时为 null
+     */
+    @VisibleForTesting
+    @WorkerThread
+    @Nullable
+    static Bitmap decode(StreamOpener opener, int targetWidth, int targetHeight, @Nullable BitmapPool pool)
+            throws IOException {
+        BitmapFactory.Options options = new BitmapFactory.Options();
+        options.inJustDecodeBounds = true;
+        boolean opaque;
+        try (InputStream in = opener.open()) {
+            if (in == null) {
+                return null;
+            }
+            byte[] header = new byte[ImageHeader.SNIFF_BYTES];
+            int length = readFully(in, header);
+            opaque = ImageHeader.isOpaque(header, length);
+            BitmapFactory.decodeStream(new SequenceInputStream(new ByteArrayInputStream(header, 0, length), in),
+                    null, options);
+        }
+        if (options.outWidth <= 0 || options.outHeight <= 0) {
+            return null;
+        }
+
+        options.inJustDecodeBounds = false;
+        options.inMutable = true;
+        options.inPreferredConfig = opaque ? Bitmap.Config.RGB_565 : Bitmap.Config.ARGB_8888;
+        options.inSampleSize = calculateInSampleSize(options.outWidth, options.outHeight, targetWidth, targetHeight);
+        int sampledWidth = Math.max(1, options.outWidth / options.inSampleSize);
+        int sampledHeight = Math.max(1, options.outHeight / options.inSampleSize);
+        int outWidth = sampledWidth;
+        int outHeight = sampledHeight;
+        int[] density = coverScale(sampledWidth, sampledHeight, targetWidth, targetHeight);
+        if (density != null) {
+            // 解码时顺带缩放（按“密度”换算），不再另外创建一张缩放后的位图
+            options.inDensity = density[0];
+            options.inTargetDensity = density[1];
+            float scale = density[1] / (float) density[0];
+            outWidth = (int) (sampledWidth * scale + 0.5f);
+            outHeight = (int) (sampledHeight * scale + 0.5f);
+        }
+        options.inBitmap = pool == null ? null : pool.get(outWidth, outHeight, options.inPreferredConfig);
+
+        Bitmap bitmap;
+        try {
+            bitmap = decodePixels(opener, options);
+        } catch (IllegalArgumentException e) {
+            // 复用的位图装不下（解码器算出的尺寸与预估略有出入），放回池里重新分配
+            if (options.inBitmap == null) {
+                throw e;
+            }
+            pool.put(options.inBitmap);
+            options.inBitmap = null;
+            bitmap = decodePixels(opener, options);
+        }
+        if (bitmap == null) {
+            if (options.inBitmap != null) {
+                pool.put(options.inBitmap);
+            }
+            return null;
+        }
+        bitmap.setDensity(Bitmap.DENSITY_NONE);
+        return bitmap;
+    }
+
+    @Nullable
+    private static Bitmap decodePixels(StreamOpener opener, BitmapFactory.Options options) throws IOException {
+        try (InputStream in = opener.open()) {
+            return in == null ? null : BitmapFactory.decodeStream(in, null, options);
+        }
+    }
+
+    /**
+     * 打开原图数据流。资源按原始字节读取，不做密度缩放，尺寸只按 View 计算。
+     */
+    @Nullable
+    private static InputStream openSource(Context context, Request request) throws IOException {
+        if (request.resId != 0) {
+            return context.getResources().openRawResource(request.resId);
+        }
+        return context.getContentResolver().openInputStream(Uri.parse(request.uri));
+    }
+
+    /**
+     * 读满 buffer 或读到流结束，返回实际读到的字节数。
+     */
+    private static int readFully(InputStream in, byte[] buffer) throws IOException {
+        int total = 0;
+        while (total < buffer.length) {
+            int read = in.read(buffer, total, buffer.length - total);
+            if (read < 0) {
+                break;
+            }
+            total += read;
+        }
+        return total;
+    }
+
+    /**
+     * 计算采样率：2 的幂，且采样后宽高都不小于目标尺寸（centerCrop 需要铺满）。
+     */
+    @VisibleForTesting
+    static int calculateInSampleSize(int srcWidth, int srcHeight, int targetWidth, int targetHeight) {
+        int sampleSize = 1;
+        if (targetWidth <= 0 || targetHeight <= 0) {
+            return sampleSize;
+        }
+        while (srcWidth / (sampleSize * 2) >= targetWidth && srcHeight / (sampleSize * 2) >= targetHeight) {
+            sampleSize *= 2;
+        }
+        return sampleSize;
+    }
+
+    /**
+     * 采样后还比目标大时的缩放比例，表示为 {原尺寸, 目标尺寸}：取缩放后正好铺满的那条边，另一条边不小于目标。
+     *
+     * @return 不需要缩小时为 null
+     */
+    @VisibleForTesting
+    @Nullable
+    static int[] coverScale(int sampledWidth, int sampledHeight, int targetWidth, int targetHeight) {
+        if (targetWidth <= 0 || targetHeight <= 0) {
+            return null;
+        }
+        // 比较 targetWidth / sampledWidth 与 targetHeight / sampledHeight，取较大的比例
+        boolean widthDecides = (long) targetWidth * sampledHeight >= (long) targetHeight * sampledWidth;
+        int from = widthDecides ? sampledWidth : sampledHeight;
+        int to = widthDecides ? targetWidth : targetHeight;
+        return to < from ? new int[]{from, to} : null;
+    }
+
+    /**
+     * 目标边长：已布局时用实际尺寸，否则用布局参数里的固定尺寸；都没有时为 0（等布局完成）。
+     */
+    private static int targetSize(int measured, int layoutParam) {
+        if (measured > 0) {
+            return measured;
+        }
+        // WRAP_CONTENT / MATCH_PARENT 都是负数，此时还不知道实际尺寸
+        return Math.max(layoutParam, 0);
+    }
+}
@@ -0,0 +1,196 @@
+package com.justyn.meow.util;
+
+import android.os.Handler;
+import android.os.Looper;
+import android.os.Process;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 全局线程工具类：统一管理数据库 I/O 线程与主线程切换。
+ * <p>
+ * SQLite 写入投递到 {@link #dbIo()}（单写者、按提交顺序），只读查询投递到 {@link #dbRead()}（WAL 下可与写入并发），
+ * 结果再通过 {@link #postToMain(Runnable)} 回到主线程。
+ * </p>
+ */
+public final class MeowExecutors {
+
+    // 数据库写入专用单线程：保证写入按提交顺序执行
+    private static final ExecutorService DB_IO =
+            Executors.newSingleThreadExecutor(namedBackgroundFactory("meow-db-io"));
+
+    // 数据库只读查询线程数：与 SQLite 连接池里的读连接数相当即可
+    private static final int DB_READ_THREAD_COUNT = 2;
+
+    // 数据库只读查询线程池：WAL 下每个线程拿一个读连接读取快照，不排在写入后面
+    private static final ExecutorService DB_READ =
+            Executors.newFixedThreadPool(DB_READ_THREAD_COUNT, namedBackgroundFactory("meow-db-read"));
+
+    // 列表差异计算线程：DiffUtil 在这里算完再回主线程分发
+    private static final ExecutorService LIST_DIFF =
+            Executors.newSingleThreadExecutor(namedBackgroundFactory("meow-list-diff"));
+
+    // 媒体文件 I/O 线程：只留给播放打开音频文件（可能较慢），探测、复制等其他媒体工作不排在这里
+    private static final ExecutorService MEDIA_IO =
+            Executors.newSingleThreadExecutor(namedBackgroundFactory("meow-media-io"));
+
+    // 后台媒体分析线程（波形解码、新增音轨的元数据探测与回填）：单线程保证同一时间只有一个解码器，不和播放抢解码资源
+    private static final ExecutorService MEDIA_ANALYSIS =
+            Executors.newSingleThreadExecutor(namedBackgroundFactory("meow-media-analysis"));
+
+    // 本地副本线程：整文件复制、计算摘要与清理副本，可能持续数秒，不能占用播放打开文件的媒体 I/O 线程
+    private static final ExecutorService LOCAL_COPY =
+            Executors.newSingleThreadExecutor(namedBackgroundFactory("meow-local-copy"));
+
+    // 文件夹导入线程：遍历目录并分批写库
+    private static final ExecutorService IMPORT =
+            Executors.newSingleThreadExecutor(namedBackgroundFactory("meow-import"));
+
+    // 导入时探测元数据的工作线程数与排队上限
+    private static final int IMPORT_WORKER_COUNT = 3;
+    private static final int IMPORT_QUEUE_CAPACITY = IMPORT_WORKER_COUNT * 4;
+
+    // 导入探测线程池：有界队列，排满时由提交方（导入线程）自己执行，遍历速度自然跟着探测速度走
+    private static final ExecutorService IMPORT_WORKERS = newImportWorkers();
+
+    // 图片解码线程数：解码是 CPU 密集型，两个线程足够跟上列表滚动，又不和渲染线程抢核
+    private static final int IMAGE_DECODE_THREAD_COUNT = 2;
+
+    // 图片解码线程池（ImageLoader 用）
+    private static final ExecutorService IMAGE_DECODE =
+            Executors.newFixedThreadPool(IMAGE_DECODE_THREAD_COUNT, namedBackgroundFactory("meow-image-decode"));
+
+    // 图片预取线程：单线程，最多占一个核；与可见图片的解码线程同为后台优先级、并发执行（并不排在它们之后），
+    // 让路靠快速甩动时暂停、滚走即取消，以及同一张图由列表项与预取二选一解码（见 ImageLoader）
+    private static final ExecutorService IMAGE_PREFETCH =
+            Executors.newSingleThreadExecutor(namedBackgroundFactory("meow-image-prefetch"));
+
+    // 主线程 Handler：把结果切回 UI 线程
+    private static final Handler MAIN_HANDLER = new Handler(Looper.getMainLooper());
+
+    private MeowExecutors() {
+    }
+
+    /**
+     * 获取数据库 I/O 线程（写入，以及读后写的复合操作）。
+     */
+    public static ExecutorService dbIo() {
+        return DB_IO;
+    }
+
+    /**
+     * 获取数据库只读查询线程池。
+     * <p>
+     * 与 {@link #dbIo()} 之间没有先后顺序：依赖某次写入结果的查询，应在该写入的回调里再发起。
+     * </p>
+     */
+    public static ExecutorService dbRead() {
+        return DB_READ;
+    }
+
+    /**
+     * 获取列表差异计算线程。
+     */
+    public static ExecutorService listDiff() {
+        return LIST_DIFF;
+    }
+
+    /**
+     * 获取媒体文件 I/O 线程。
+     */
+    public static ExecutorService mediaIo() {
+        return MEDIA_IO;
+    }
+
+    /**
+     * 获取后台媒体分析线程。
+     */
+    public static ExecutorService mediaAnalysis() {
+        return MEDIA_ANALYSIS;
+    }
+
+    /**
+     * 获取本地副本线程（见 LocalCopyStore）。
+     */
+    public static ExecutorService localCopy() {
+        return LOCAL_COPY;
+    }
+
+    /**
+     * 获取文件夹导入线程。
+     */
+    public static ExecutorService importer() {
+        return IMPORT;
+    }
+
+    /**
+     * 获取导入时探测元数据的有界线程池。
+     */
+    public static ExecutorService importWorkers() {
+        return IMPORT_WORKERS;
+    }
+
+    /**
+     * 获取图片解码线程池。
+     */
+    public static ExecutorService imageDecode() {
+        return IMAGE_DECODE;
+    }
+
+    /**
+     * 获取图片预取线程（滚动时提前解码即将出现的图片）。
+     */
+    public static ExecutorService imagePrefetch() {
+        return IMAGE_PREFETCH;
+    }
+
+    /**
+     * 把任务投递到主线程执行。
+     */
+    public static void postToMain(Runnable runnable) {
+        MAIN_HANDLER.post(runnable);
+    }
+
+    /**
+     * 当前是否处于主线程。
+     */
+    public static boolean isMainThread() {
+        return Looper.myLooper() == Looper.getMainLooper();
+    }
+
+    private static ExecutorService newImportWorkers() {
+        ThreadPoolExecutor pool = new ThreadPoolExecutor(
+                IMPORT_WORKER_COUNT,
+                IMPORT_WORKER_COUNT,
+                30,
+                TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(IMPORT_QUEUE_CAPACITY),
+                namedBackgroundFactory("meow-import-worker"),
+                new ThreadPoolExecutor.CallerRunsPolicy());
+        // 不导入时不常驻线程
+        pool.allowCoreThreadTimeOut(true);
+        return pool;
+    }
+
+    /**
+     * 构造带名字的后台优先级线程工厂，方便在 Profiler 里区分线程。
+     */
+    static ThreadFactory namedBackgroundFactory(String prefix) {
+        AtomicInteger counter = new AtomicInteger(1);
+        return runnable -> {
+            Thread thread = new Thread(() -> {
+                // 降低线程优先级，避免和渲染线程抢 CPU
+                Process.setThreadPriority(Process.THREAD_PRIORITY_BACKGROUND);
+                runnable.run();
+            }, prefix + "-" + counter.getAndIncrement());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+}
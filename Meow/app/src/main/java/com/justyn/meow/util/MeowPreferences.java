@@ -3,8 +3,14 @@ package com.justyn.meow.util;
 import android.content.Context;
 import android.content.SharedPreferences;
 
+import java.util.concurrent.atomic.AtomicReference;
+
 /**
- * SharedPreferences 工具类：统一管理登录态与首次数据初始化标记。
+ * SharedPreferences 工具类：统一管理登录态、首次数据初始化标记与本地副本开关。
+ * <p>
+ * SharedPreferences 实例在进程内只获取一次并缓存；MeowApplication 启动时调用 {@link #warmUp(Context)} 提前开始加载文件。
+ * 登录态另外缓存为不可变快照（{@link LoginSnapshot}），启动路由与首页读取时不再逐个查 key；写入登录态时同步更新快照。
+ * </p>
  */
 public class MeowPreferences {
 
@@ -17,6 +23,54 @@ public class MeowPreferences {
     // 初始化数据标记 key
     private static final String KEY_SEEDED_FM = "seeded_fm";
     private static final String KEY_SEEDED_CAT_PROFILE = "seeded_cat_profile";
+    // 选择头像/音频时是否保存本地副本（设备级设置，不区分用户）
+    private static final String KEY_KEEP_LOCAL_COPIES = "keep_local_copies";
+
+    // 进程内缓存的 SharedPreferences（系统本身也会缓存，这里省掉每次按文件名查表）
+    private static volatile SharedPreferences prefs;
+    // 登录态快照（预热或第一次读取时生成，登录/退出时替换）
+    private static final AtomicReference<LoginSnapshot> LOGIN_SNAPSHOT = new AtomicReference<>();
+
+    /**
+     * 登录态快照：是否登录、用户名、昵称。
+     */
+    public static final class LoginSnapshot {
+        private final boolean loggedIn;
+        private final String username;
+        private final String nickname;
+
+        LoginSnapshot(boolean loggedIn, String username, String nickname) {
+            this.loggedIn = loggedIn;
+            this.username = username;
+            this.nickname = nickname;
+        }
+
+        public boolean isLoggedIn() {
+            return loggedIn;
+        }
+
+        public String getUsername() {
+            return username;
+        }
+
+        public String getNickname() {
+            return nickname;
+        }
+    }
+
+    /**
+     * 提前获取 SharedPreferences：系统在后台线程加载文件，之后第一次读取不必在主线程等待。
+     */
+    public static void warmUp(Context context) {
+        getPrefs(context);
+    }
+
+    /**
+     * 生成登录态快照（在后台线程调用：会等待偏好文件加载完成）。
+     */
+    public static void preloadLoginSnapshot(Context context) {
+        getLoginSnapshot(context);
+    }
 
     private static String buildUserKey(String baseKey, String username) {
         if (username == null || username.trim().isEmpty()) {
@@ -29,7 +83,12 @@ public class MeowPreferences {
      * 获取 SharedPreferences 实例。
      */
     private static SharedPreferences getPrefs(Context context) {
-        return context.getSharedPreferences(PREF_NAME, Context.MODE_PRIVATE);
+        SharedPreferences cached = prefs;
+        if (cached == null) {
+            cached = context.getApplicationContext().getSharedPreferences(PREF_NAME, Context.MODE_PRIVATE);
+            prefs = cached;
+        }
+        return cached;
     }
 
     /**
@@ -43,6 +102,7 @@ public class MeowPreferences {
         editor.putString(KEY_USERNAME, username);
         editor.putString(KEY_NICKNAME, nickname);
         editor.apply();  // 异步提交
+        LOGIN_SNAPSHOT.set(new LoginSnapshot(true, username, nickname));
     }
 
     /**
@@ -56,27 +116,47 @@ public class MeowPreferences {
         editor.remove(KEY_USERNAME);
         editor.remove(KEY_NICKNAME);
         editor.apply();
+        LOGIN_SNAPSHOT.set(new LoginSnapshot(false, null, null));
+    }
+
+    /**
+     * 获取登录态快照（启动路由用：一次读出全部登录字段，之后只读内存）。
+     */
+    public static LoginSnapshot getLoginSnapshot(Context context) {
+        LoginSnapshot cached = LOGIN_SNAPSHOT.get();
+        if (cached != null) {
+            return cached;
+        }
+        SharedPreferences sp = getPrefs(context);
+        LoginSnapshot loaded = new LoginSnapshot(
+                sp.getBoolean(KEY_IS_LOGGED_IN, false),
+                sp.getString(KEY_USERNAME, null),
+                sp.getString(KEY_NICKNAME, null)
+        );
+        // 与登录/退出并发时以后者为准，不用读到的旧值覆盖
+        LOGIN_SNAPSHOT.compareAndSet(null, loaded);
+        return LOGIN_SNAPSHOT.get();
     }
 
     /**
      * 是否已经登录
      */
     public static boolean isLoggedIn(Context context) {
-        return getPrefs(context).getBoolean(KEY_IS_LOGGED_IN, false);
+        return getLoginSnapshot(context).isLoggedIn();
     }
 
     /**
      * 获取当前登录用户名。
      */
     public static String getUsername(Context context) {
-        return getPrefs(context).getString(KEY_USERNAME, null);
+        return getLoginSnapshot(context).getUsername();
     }
 
     /**
      * 获取当前登录昵称。
      */
     public static String getNickname(Context context) {
-        return getPrefs(context).getString(KEY_NICKNAME, null);
+        return getLoginSnapshot(context).getNickname();
     }
 
     /**
@@ -122,4 +202,18 @@ public class MeowPreferences {
     public static void markCatProfileSeeded(Context context, String username) {
         getPrefs(context).edit().putBoolean(buildUserKey(KEY_SEEDED_CAT_PROFILE, username), true).apply();
     }
+
+    /**
+     * 选择头像或音频时是否复制一份到应用私有目录（默认关闭，沿用文档 Uri + 持久化授权）。
+     */
+    public static boolean isKeepLocalCopies(Context context) {
+        return getPrefs(context).getBoolean(KEY_KEEP_LOCAL_COPIES, false);
+    }
+
+    /**
+     * 设置是否保存本地副本（只影响之后的选择，已保存的档案与音轨不变）。
+     */
+    public static void setKeepLocalCopies(Context context, boolean keep) {
+        getPrefs(context).edit().putBoolean(KEY_KEEP_LOCAL_COPIES, keep).apply();
+    }
 }
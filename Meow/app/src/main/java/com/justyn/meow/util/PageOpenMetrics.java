@@ -0,0 +1,67 @@
+package com.justyn.meow.util;
+
+import android.app.Activity;
+import android.os.SystemClock;
+import android.util.Log;
+import android.view.View;
+
+import androidx.annotation.MainThread;
+import androidx.annotation.Nullable;
+
+/**
+ * 页面打开耗时统计：从页面创建到首帧绘制、再到列表第一页数据画出来的时间。
+ * <p>
+ * 作为 Activity 的字段创建（实例化即开始计时），setContentView 之后调用 {@link #trackFirstFrame(Activity)}，
+ * 列表第一页数据回到主线程时调用 {@link #markFirstPage(int)}。每个页面实例只统计一次，
+ * 结果输出到 Logcat（TAG = PageOpenMetrics），与 {@link StartupMetrics} 的冷启动数据对照着看。
+ * </p>
+ */
+@MainThread
+public final class PageOpenMetrics {
+
+    private static final String TAG = "PageOpenMetrics";
+
+    private final String page;
+    private final long createdAt = SystemClock.elapsedRealtime();
+    @Nullable
+    private View decorView;
+    private boolean firstPageMarked;
+
+    /**
+     * @param page 页面名（只用于日志）
+     */
+    public PageOpenMetrics(String page) {
+        this.page = page;
+    }
+
+    /**
+     * 在页面第一次绘制时输出打开到首帧的耗时。
+     */
+    public void trackFirstFrame(Activity activity) {
+        if (decorView != null) {
+            return;
+        }
+        decorView = activity.getWindow().getDecorView();
+        StartupMetrics.onNextDraw(decorView, () ->
+                Log.i(TAG, page + " 首帧 " + elapsed() + "ms"));
+    }
+
+    /**
+     * 列表第一页数据到达：记下查询耗时，并在随后的绘制时输出打开到首页画出的耗时。
+     *
+     * @param itemCount 第一页的条数
+     */
+    public void markFirstPage(int itemCount) {
+        if (firstPageMarked || decorView == null) {
+            return;
+        }
+        firstPageMarked = true;
+        long loaded = elapsed();
+        StartupMetrics.onNextDraw(decorView, () ->
+                Log.i(TAG, page + " 首页 " + itemCount + " 条：数据 " + loaded + "ms，画出 " + elapsed() + "ms"));
+    }
+
+    private long elapsed() {
+        return SystemClock.elapsedRealtime() - createdAt;
+    }
+}
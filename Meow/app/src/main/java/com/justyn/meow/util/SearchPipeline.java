@@ -0,0 +1,127 @@
+package com.justyn.meow.util;
+
+import android.os.Handler;
+import android.os.Looper;
+import android.text.Editable;
+import android.text.TextWatcher;
+import android.widget.EditText;
+
+import androidx.annotation.Nullable;
+import androidx.lifecycle.Lifecycle;
+import androidx.lifecycle.LifecycleEventObserver;
+import androidx.lifecycle.LifecycleOwner;
+
+import java.util.Objects;
+
+/**
+ * 搜索输入管线：把输入框的连续输入合并成一次查询。
+ * <p>
+ * 规则：
+ * - 每次输入后等待 debounceMs 毫秒，期间再有输入则重新计时
+ * - 与上一次发出的关键字相同（忽略首尾空格）时不重复查询
+ * - 页面销毁时自动移除未发出的查询
+ * 取消进行中的查询由接收方在 {@link Listener#onQueryChanged(String)} 里处理。
+ * </p>
+ */
+public final class SearchPipeline {
+
+    // 默认防抖时长
+    public static final long DEFAULT_DEBOUNCE_MS = 250;
+
+    /**
+     * 关键字变化回调（主线程）。
+     */
+    public interface Listener {
+        void onQueryChanged(@Nullable String query);
+    }
+
+    private final Handler handler = new Handler(Looper.getMainLooper());
+    private final long debounceMs;
+    private final Listener listener;
+
+    // 最近一次发出的关键字
+    @Nullable
+    private String lastQuery;
+    // 等待发出的关键字
+    @Nullable
+    private String pendingQuery;
+
+    private final Runnable emitRunnable = this::emitPending;
+
+    private SearchPipeline(long debounceMs, Listener listener) {
+        this.debounceMs = debounceMs;
+        this.listener = listener;
+    }
+
+    /**
+     * 绑定到输入框，并跟随页面生命周期自动解绑。
+     *
+     * @param owner      页面
+     * @param editText   搜索输入框
+     * @param debounceMs 防抖时长（毫秒），0 表示每次输入立即查询
+     * @param listener   关键字变化回调
+     */
+    public static SearchPipeline attach(LifecycleOwner owner, EditText editText, long debounceMs, Listener listener) {
+        SearchPipeline pipeline = new SearchPipeline(debounceMs, listener);
+        TextWatcher watcher = new TextWatcher() {
+            @Override
+            public void beforeTextChanged(CharSequence s, int start, int count, int after) {
+            }
+
+            @Override
+            public void onTextChanged(CharSequence s, int start, int before, int count) {
+            }
+
+            @Override
+            public void afterTextChanged(Editable s) {
+                pipeline.submit(s == null ? null : s.toString());
+            }
+        };
+        editText.addTextChangedListener(watcher);
+        owner.getLifecycle().addObserver((LifecycleEventObserver) (source, event) -> {
+            if (event == Lifecycle.Event.ON_DESTROY) {
+                editText.removeTextChangedListener(watcher);
+                pipeline.handler.removeCallbacks(pipeline.emitRunnable);
+            }
+        });
+        return pipeline;
+    }
+
+    /**
+     * 提交一次输入，等待防抖后发出。
+     */
+    public void submit(@Nullable String rawQuery) {
+        pendingQuery = normalize(rawQuery);
+        handler.removeCallbacks(emitRunnable);
+        if (debounceMs <= 0) {
+            emitPending();
+        } else {
+            handler.postDelayed(emitRunnable, debounceMs);
+        }
+    }
+
+    /**
+     * 当前生效的关键字（最近一次发出的）。
+     */
+    @Nullable
+    public String getQuery() {
+        return lastQuery;
+    }
+
+    private void emitPending() {
+        if (Objects.equals(pendingQuery, lastQuery)) {
+            return;
+        }
+        lastQuery = pendingQuery;
+        listener.onQueryChanged(lastQuery);
+    }
+
+    @Nullable
+    private static String normalize(@Nullable String query) {
+        if (query == null) {
+            return null;
+        }
+        String trimmed = query.trim();
+        return trimmed.isEmpty() ? null : trimmed;
+    }
+}
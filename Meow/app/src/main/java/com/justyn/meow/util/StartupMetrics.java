@@ -0,0 +1,78 @@
+package com.justyn.meow.util;
+
+import android.app.Activity;
+import android.os.Process;
+import android.os.SystemClock;
+import android.util.Log;
+import android.view.View;
+import android.view.ViewTreeObserver;
+
+/**
+ * 冷启动耗时统计：从进程启动到路由目标页面首帧绘制的时间。
+ * <p>
+ * 启动路由确定去向后调用 {@link #markRouted(String)}，目标页面 setContentView 之后调用 {@link #trackFirstFrame(Activity)}；
+ * 每个进程只统计一次（之后的页面跳转不算冷启动）。结果输出到 Logcat（TAG = StartupMetrics）。
+ * </p>
+ */
+public final class StartupMetrics {
+
+    // 冷启动路径：已登录直达首页 / 未登录进入登录页
+    public static final String PATH_MAIN = "main";
+    public static final String PATH_LOGIN = "login";
+
+    private static final String TAG = "StartupMetrics";
+
+    // 路由给出、尚未统计首帧的路径（统计后清空）
+    private static String pendingPath;
+    // 路由完成时距进程启动的毫秒数
+    private static long routedMs;
+
+    private StartupMetrics() {
+    }
+
+    /**
+     * 记录启动路由的去向（主线程调用）。
+     */
+    public static void markRouted(String path) {
+        pendingPath = path;
+        routedMs = sinceProcessStart();
+    }
+
+    /**
+     * 在目标页面第一次绘制时输出冷启动耗时（主线程调用，非冷启动路由进入的页面直接忽略）。
+     */
+    public static void trackFirstFrame(Activity activity) {
+        String path = pendingPath;
+        if (path == null) {
+            return;
+        }
+        pendingPath = null;
+        long routed = routedMs;
+        onNextDraw(activity.getWindow().getDecorView(), () ->
+                Log.i(TAG, "冷启动 path=" + path + " 路由 " + routed + "ms，首帧 " + sinceProcessStart() + "ms"));
+    }
+
+    /**
+     * 在 view 下一次绘制时执行一次 action（主线程调用），之后自动移除监听。
+     */
+    static void onNextDraw(View view, Runnable action) {
+        view.getViewTreeObserver().addOnDrawListener(new ViewTreeObserver.OnDrawListener() {
+            private boolean reported;
+
+            @Override
+            public void onDraw() {
+                if (reported) {
+                    return;
+                }
+                reported = true;
+                action.run();
+                // 绘制回调里不能直接移除监听
+                view.post(() -> view.getViewTreeObserver().removeOnDrawListener(this));
+            }
+        });
+    }
+
+    private static long sinceProcessStart() {
+        return SystemClock.elapsedRealtime() - Process.getStartElapsedRealtime();
+    }
+}
@@ -0,0 +1,434 @@
+package com.justyn.meow.util;
+
+import android.content.ComponentCallbacks2;
+import android.content.ContentResolver;
+import android.content.Context;
+import android.database.Cursor;
+import android.graphics.Bitmap;
+import android.net.Uri;
+import android.os.Build;
+import android.provider.DocumentsContract;
+import android.util.Log;
+import android.util.LruCache;
+
+import androidx.annotation.Nullable;
+import androidx.annotation.VisibleForTesting;
+import androidx.annotation.WorkerThread;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Map;
+import java.util.Set;
+import java.util.WeakHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+/**
+ * 缩略图两级缓存：内存 LRU（按位图字节数计）+ 应用私有目录下的 WebP 磁盘缓存。
+ * <p>
+ * - 来源键：本地资源为 "res:资源 id"，相册图片为 "uri:Uri 字符串"；同一来源按目标尺寸分别缓存
+ * - 内存键不含版本，查找在主线程完成，不做任何 I/O；来源内容变化时由 {@link #invalidate(String)} 清掉
+ * - 磁盘文件名含来源版本（Uri 的最后修改时间，资源用安装包的修改时间），原图被改过后旧文件自然失效
+ * - 两级都有容量上限：内存由 LruCache 淘汰，磁盘超限后按最后访问时间删到上限的 90%
+ * - 位图按引用计数跟踪：界面显示、解码线程落盘各占一次引用；被内存缓存淘汰且没有引用后才进入 {@link BitmapPool} 供复用
+ * </p>
+ * 进程内只创建一次，由 MeowApplication 持有；磁盘读写只在 {@link MeowExecutors#imageDecode()} 上执行。
+ */
+public final class ThumbnailCache {
+
+    private static final String TAG = "ThumbnailCache";
+
+    // 磁盘缓存目录（cacheDir 下，系统空间不足时可被清理）
+    private static final String DISK_DIR = "thumbnails";
+    private static final String DISK_SUFFIX = ".webp";
+    // 磁盘缓存上限
+    private static final long DISK_MAX_BYTES = 20L * 1024 * 1024;
+    // WebP 压缩质量：缩略图肉眼无差别，体积约为 PNG 的三分之一
+    private static final int WEBP_QUALITY = 80;
+
+    private final Context appContext;
+    private final LruCache<String, Bitmap> memory;
+    private final File diskDir;
+
+    // 磁盘缓存当前占用；-1 表示还没扫描过目录（首次磁盘操作时在解码线程上扫描）
+    private long diskBytes = -1;
+    // 本地资源的版本：安装包修改时间，覆盖安装后资源缩略图全部失效
+    private long resourceVersion = -1;
+
+    private final BitmapPool pool;
+    // 引用计数与“已淘汰但仍在显示”的位图；弱引用，没走 release 就被丢弃的 View 不会让位图常驻
+    private final Object refLock = new Object();
+    private final Map<Bitmap, Integer> refCounts = new WeakHashMap<>();
+    private final Set<Bitmap> removedWhileReferenced = Collections.newSetFromMap(new WeakHashMap<>());
+
+    private final AtomicInteger memoryHits = new AtomicInteger();
+    private final AtomicInteger diskHits = new AtomicInteger();
+    private final AtomicInteger misses = new AtomicInteger();
+
+    public ThumbnailCache(Context context) {
+        this.appContext = context.getApplicationContext();
+        this.diskDir = new File(appContext.getCacheDir(), DISK_DIR);
+        // 最大堆的 1/8 给缩略图
+        int maxBytes = (int) Math.min(Integer.MAX_VALUE, Runtime.getRuntime().maxMemory() / 8);
+        this.memory = new LruCache<String, Bitmap>(maxBytes) {
+            @Override
+            protected int sizeOf(String key, Bitmap value) {
+                return value.getAllocationByteCount();
+            }
+
+            @Override
+            protected void entryRemoved(boolean evicted, String key, Bitmap oldValue, Bitmap newValue) {
+                if (oldValue != newValue) {
+                    onRemovedFromMemory(oldValue);
+                }
+            }
+        };
+        // 复用池取内存缓存的 1/4：够装下一屏滚出去的格子
+        this.pool = new BitmapPool(maxBytes / 4);
+    }
+
+    /**
+     * 解码时使用的位图复用池。
+     */
+    public BitmapPool getBitmapPool() {
+        return pool;
+    }
+
+    /**
+     * 本地资源的来源键。
+     */
+    public static String resourceSource(int resId) {
+        return "res:" + resId;
+    }
+
+    /**
+     * 相册图片的来源键。
+     */
+    public static String uriSource(String uri) {
+        return "uri:" + uri;
+    }
+
+    /**
+     * 内存查找（主线程调用，不做 I/O）。命中时已为调用方占用一次引用，不再显示时调用 {@link #release(Bitmap)}。
+     */
+    @Nullable
+    public Bitmap getFromMemory(String source, int width, int height) {
+        // 查找与占用在同一把锁里完成，避免刚查到就被别的线程淘汰进复用池
+        synchronized (refLock) {
+            Bitmap bitmap = memory.get(memoryKey(source, width, height));
+            if (bitmap != null) {
+                memoryHits.incrementAndGet();
+                acquire(bitmap);
+            }
+            return bitmap;
+        }
+    }
+
+    /**
+     * 内存里是否已有这张缩略图（预取前检查用，不占用引用，也不计入命中统计）。
+     */
+    public boolean isInMemory(String source, int width, int height) {
+        return memory.get(memoryKey(source, width, height)) != null;
+    }
+
+    /**
+     * 磁盘查找：命中后放回内存，并刷新文件的访问时间；未命中记一次 miss，由调用方解码原图后 {@link #putOnDisk}。
+     * 命中时同样已为调用方占用一次引用。
+     *
+     * @param decoder 把缩略图文件解码成位图（解码失败返回 null）
+     */
+    @WorkerThread
+    @Nullable
+    public Bitmap getFromDisk(String source, int width, int height, Function<File, Bitmap> decoder) {
+        File file = diskFile(source, width, height);
+        Bitmap bitmap = file.isFile() ? decoder.apply(file) : null;
+        if (bitmap == null) {
+            misses.incrementAndGet();
+            return null;
+        }
+        diskHits.incrementAndGet();
+        file.setLastModified(System.currentTimeMillis());
+        acquire(bitmap);
+        memory.put(memoryKey(source, width, height), bitmap);
+        return bitmap;
+    }
+
+    /**
+     * 占用一次引用：位图在显示或被后台读取期间不会进入复用池。
+     */
+    public void acquire(Bitmap bitmap) {
+        synchronized (refLock) {
+            Integer count = refCounts.get(bitmap);
+            refCounts.put(bitmap, count == null ? 1 : count + 1);
+        }
+    }
+
+    /**
+     * 交还一次引用；最后一个引用交还时，若位图已被内存缓存淘汰，则放入复用池。
+     */
+    public void release(Bitmap bitmap) {
+        synchronized (refLock) {
+            Integer count = refCounts.get(bitmap);
+            if (count == null) {
+                return;
+            }
+            if (count > 1) {
+                refCounts.put(bitmap, count - 1);
+                return;
+            }
+            refCounts.remove(bitmap);
+            if (removedWhileReferenced.remove(bitmap)) {
+                pool.put(bitmap);
+            }
+        }
+    }
+
+    /**
+     * 位图离开内存缓存：没有引用就进复用池，否则等最后一个引用交还。
+     */
+    private void onRemovedFromMemory(Bitmap bitmap) {
+        synchronized (refLock) {
+            if (refCounts.containsKey(bitmap)) {
+                removedWhileReferenced.add(bitmap);
+            } else {
+                pool.put(bitmap);
+            }
+        }
+    }
+
+    /**
+     * 放入内存缓存（解码完成后立即调用，图片可以先显示）。调用方需先 {@link #acquire(Bitmap)}，否则可能立刻被淘汰复用。
+     */
+    public void putInMemory(String source, int width, int height, Bitmap bitmap) {
+        memory.put(memoryKey(source, width, height), bitmap);
+    }
+
+    /**
+     * 写入磁盘缓存：先写临时文件再改名，读到的永远是完整文件；同一来源的旧版本文件一并删除。
+     */
+    @WorkerThread
+    public synchronized void putOnDisk(String source, int width, int height, Bitmap bitmap) {
+        if (!diskDir.isDirectory() && !diskDir.mkdirs()) {
+            return;
+        }
+        ensureDiskSizeKnown();
+        File target = diskFile(source, width, height);
+        deleteStaleVersions(source, width, height, target.getName());
+        File tmp = new File(diskDir, target.getName() + ".tmp");
+        try (FileOutputStream out = new FileOutputStream(tmp)) {
+            if (!bitmap.compress(webpFormat(), WEBP_QUALITY, out)) {
+                throw new IOException("WebP 编码失败");
+            }
+        } catch (IOException e) {
+            Log.w(TAG, "写入缩略图失败: " + source, e);
+            tmp.delete();
+            return;
+        }
+        long oldLength = target.length();
+        if (!tmp.renameTo(target)) {
+            tmp.delete();
+            return;
+        }
+        diskBytes += target.length() - oldLength;
+        if (diskBytes > DISK_MAX_BYTES) {
+            trimDisk(DISK_MAX_BYTES * 9 / 10);
+        }
+    }
+
+    /**
+     * 来源内容变了（例如猫咪换了头像）：清掉它所有尺寸的内存与磁盘缓存。可在任意线程调用。
+     */
+    public void invalidate(String source) {
+        String prefix = source + "@";
+        for (String key : memory.snapshot().keySet()) {
+            if (key.startsWith(prefix)) {
+                memory.remove(key);
+            }
+        }
+        String filePrefix = diskPrefix(source);
+        MeowExecutors.imageDecode().execute(() -> {
+            synchronized (this) {
+                File[] files = diskDir.listFiles((dir, name) -> name.startsWith(filePrefix));
+                if (files == null) {
+                    return;
+                }
+                for (File file : files) {
+                    long length = file.length();
+                    if (file.delete() && diskBytes >= 0) {
+                        diskBytes -= length;
+                    }
+                }
+            }
+        });
+    }
+
+    /**
+     * 系统内存紧张时收缩内存缓存与复用池：界面不可见时减半，进入后台后清空。
+     */
+    public void onTrimMemory(int level) {
+        if (level >= ComponentCallbacks2.TRIM_MEMORY_BACKGROUND) {
+            memory.evictAll();
+            pool.trimToSize(0);
+        } else if (level >= ComponentCallbacks2.TRIM_MEMORY_UI_HIDDEN) {
+            memory.trimToSize(memory.maxSize() / 2);
+            pool.trimToSize(pool.getCurrentBytes() / 2);
+        }
+    }
+
+    public int getMemoryHitCount() {
+        return memoryHits.get();
+    }
+
+    public int getDiskHitCount() {
+        return diskHits.get();
+    }
+
+    public int getMissCount() {
+        return misses.get();
+    }
+
+    /**
+     * 命中统计摘要（日志用）。
+     */
+    public String describeStats() {
+        return "内存命中 " + memoryHits.get() + "，磁盘命中 " + diskHits.get() + "，未命中 " + misses.get()
+                + "，内存占用 " + memory.size() / 1024 + "KB/" + memory.maxSize() / 1024 + "KB"
+                + "，内存淘汰 " + memory.evictionCount() + "；复用池：" + pool.describeStats();
+    }
+
+    /**
+     * 按最后访问时间从旧到新删除，直到占用不超过 targetBytes。
+     */
+    private void trimDisk(long targetBytes) {
+        File[] files = diskDir.listFiles((dir, name) -> name.endsWith(DISK_SUFFIX));
+        if (files == null) {
+            return;
+        }
+        Arrays.sort(files, Comparator.comparingLong(File::lastModified));
+        for (File file : files) {
+            if (diskBytes <= targetBytes) {
+                break;
+            }
+            long length = file.length();
+            if (file.delete()) {
+                diskBytes -= length;
+            }
+        }
+    }
+
+    private void ensureDiskSizeKnown() {
+        if (diskBytes >= 0) {
+            return;
+        }
+        long total = 0;
+        File[] files = diskDir.listFiles();
+        if (files != null) {
+            for (File file : files) {
+                if (file.getName().endsWith(DISK_SUFFIX)) {
+                    total += file.length();
+                } else {
+                    // 上次写到一半的临时文件
+                    file.delete();
+                }
+            }
+        }
+        diskBytes = total;
+    }
+
+    /**
+     * 删除同一来源、同一尺寸但版本不同的旧文件。
+     */
+    private void deleteStaleVersions(String source, int width, int height, String currentName) {
+        String prefix = diskPrefix(source) + width + "x" + height + "_";
+        File[] stale = diskDir.listFiles((dir, name) -> name.startsWith(prefix) && !name.equals(currentName));
+        if (stale == null) {
+            return;
+        }
+        for (File file : stale) {
+            long length = file.length();
+            if (file.delete()) {
+                diskBytes -= length;
+            }
+        }
+    }
+
+    @WorkerThread
+    private File diskFile(String source, int width, int height) {
+        return new File(diskDir, diskFileName(source, width, height, sourceVersion(source)));
+    }
+
+    /**
+     * 来源版本：资源用安装包修改时间；content:// 读文档的最后修改时间；file:// 读文件时间；拿不到时为 0。
+     */
+    @WorkerThread
+    private long sourceVersion(String source) {
+        if (source.startsWith("res:")) {
+            if (resourceVersion < 0) {
+                resourceVersion = new File(appContext.getApplicationInfo().sourceDir).lastModified();
+            }
+            return resourceVersion;
+        }
+        Uri uri = Uri.parse(source.substring("uri:".length()));
+        if (ContentResolver.SCHEME_FILE.equals(uri.getScheme()) && uri.getPath() != null) {
+            return new File(uri.getPath()).lastModified();
+        }
+        String[] projection = {DocumentsContract.Document.COLUMN_LAST_MODIFIED};
+        try (Cursor cursor = appContext.getContentResolver().query(uri, projection, null, null, null)) {
+            if (cursor != null && cursor.moveToFirst() && !cursor.isNull(0)) {
+                return cursor.getLong(0);
+            }
+        } catch (RuntimeException e) {
+            // 提供方不支持该列或已撤销授权：按版本 0 缓存，换头像时仍会被 invalidate 清掉
+            Log.d(TAG, "读取修改时间失败: " + uri, e);
+        }
+        return 0;
+    }
+
+    private static String memoryKey(String source, int width, int height) {
+        return source + "@" + width + "x" + height;
+    }
+
+    /**
+     * 磁盘文件名：来源摘要_宽x高_版本.webp。来源摘要放最前面，按来源清理时只需前缀匹配。
+     */
+    @VisibleForTesting
+    static String diskFileName(String source, int width, int height, long version) {
+        return diskPrefix(source) + width + "x" + height + "_" + Long.toHexString(version) + DISK_SUFFIX;
+    }
+
+    @VisibleForTesting
+    static String diskPrefix(String source) {
+        return sha1Hex(source) + "_";
+    }
+
+    private static String sha1Hex(String text) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-1").digest(text.getBytes(StandardCharsets.UTF_8));
+            StringBuilder sb = new StringBuilder(digest.length * 2);
+            for (byte b : digest) {
+                sb.append(Character.forDigit((b >> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+            }
+            return sb.toString();
+        } catch (NoSuchAlgorithmException e) {
+            // SHA-1 是 Java 平台必须提供的算法
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * 有损 WebP 编码格式（API 30 起旧常量已废弃）。本地副本生成头像小图时也用它。
+     */
+    @SuppressWarnings("deprecation")
+    public static Bitmap.CompressFormat webpFormat() {
+        return Build.VERSION.SDK_INT >= Build.VERSION_CODES.R
+                ? Bitmap.CompressFormat.WEBP_LOSSY
+                : Bitmap.CompressFormat.WEBP;
+    }
+}
@@ -0,0 +1,56 @@
+package com.justyn.meow.util;
+
+/**
+ * 播放时间文本工具：把毫秒写成 mm:ss，不产生任何临时对象。
+ * <p>
+ * 进度条每帧都可能刷新，String.format 每次都会创建 Formatter 和 String；
+ * 这里用预先生成的 00~99 两位数字表直接写入调用方复用的 char 数组。
+ * </p>
+ */
+public final class TimeText {
+
+    // 输出缓冲区最少需要的长度（“999:59”）
+    public static final int BUFFER_SIZE = 6;
+
+    // 两位数字表：TWO_DIGITS[2n]、TWO_DIGITS[2n+1] 为 n 的十位与个位
+    private static final char[] TWO_DIGITS = new char[200];
+
+    static {
+        for (int i = 0; i < 100; i++) {
+            TWO_DIGITS[i * 2] = (char) ('0' + i / 10);
+            TWO_DIGITS[i * 2 + 1] = (char) ('0' + i % 10);
+        }
+    }
+
+    private TimeText() {
+    }
+
+    /**
+     * 毫秒对应的整秒数（负数按 0 处理），用于判断显示内容是否需要更新。
+     */
+    public static int toSeconds(int ms) {
+        return ms < 0 ? 0 : ms / 1000;
+    }
+
+    /**
+     * 把整秒数写成 mm:ss（分钟超过 99 时写三位，最多 999:59）。
+     *
+     * @param out 至少 {@link #BUFFER_SIZE} 长的缓冲区
+     * @return 写入的字符数
+     */
+    public static int formatSeconds(int totalSeconds, char[] out) {
+        int minutes = Math.min(totalSeconds / 60, 999);
+        int seconds = minutes == 999 ? Math.min(totalSeconds - 999 * 60, 59) : totalSeconds % 60;
+        int pos = 0;
+        if (minutes >= 100) {
+            out[pos++] = (char) ('0' + minutes / 100);
+            minutes %= 100;
+        }
+        out[pos++] = TWO_DIGITS[minutes * 2];
+        out[pos++] = TWO_DIGITS[minutes * 2 + 1];
+        out[pos++] = ':';
+        out[pos++] = TWO_DIGITS[seconds * 2];
+        out[pos++] = TWO_DIGITS[seconds * 2 + 1];
+        return pos;
+    }
+}
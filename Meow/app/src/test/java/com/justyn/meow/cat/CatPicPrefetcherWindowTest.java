@@ -0,0 +1,83 @@
+package com.justyn.meow.cat;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * 猫图墙预取窗口的本地单元测试：预取范围跟随滚动方向，快速甩动时暂停，停下后恢复。
+ */
+public class CatPicPrefetcherWindowTest {
+
+    // 暂停阈值 1000 像素/秒
+    private static final float PAUSE_VELOCITY = 1000f;
+
+    @Test
+    public void prefetchesRowsBelowByDefault() {
+        CatPicPrefetcher.ScrollWindow window = new CatPicPrefetcher.ScrollWindow(PAUSE_VELOCITY);
+        int[] range = window.prefetchRange(0, 5, 2, 37);
+        assertEquals(6, range[0]);
+        assertEquals(5 + CatPicPrefetcher.PREFETCH_ROWS * 2, range[1]);
+    }
+
+    @Test
+    public void followsScrollDirectionAndClampsToList() {
+        CatPicPrefetcher.ScrollWindow window = new CatPicPrefetcher.ScrollWindow(PAUSE_VELOCITY);
+        window.onScrolled(-10, 0);
+        assertEquals(-1, window.getDirection());
+        int[] range = window.prefetchRange(10, 15, 2, 37);
+        assertEquals(10 - CatPicPrefetcher.PREFETCH_ROWS * 2, range[0]);
+        assertEquals(9, range[1]);
+
+        // 靠近顶部只取到第 0 项，已在顶部时没有可预取的
+        assertEquals(0, window.prefetchRange(2, 7, 2, 37)[0]);
+        assertNull(window.prefetchRange(0, 5, 2, 37));
+
+        window.onScrolled(10, 16);
+        assertEquals(36, window.prefetchRange(30, 33, 2, 37)[1]);
+        assertNull(window.prefetchRange(31, 36, 2, 37));
+    }
+
+    @Test
+    public void pausesDuringFastFlingAndResumesWhenIdle() {
+        CatPicPrefetcher.ScrollWindow window = new CatPicPrefetcher.ScrollWindow(PAUSE_VELOCITY);
+        // 第一帧算不出速度
+        window.onScrolled(100, 0);
+        assertFalse(window.isPaused());
+        // 每 16ms 滚 100 像素，约 6000 像素/秒
+        for (int i = 1; i <= 5; i++) {
+            window.onScrolled(100, i * 16L);
+        }
+        assertTrue(window.isPaused());
+
+        window.onIdle();
+        assertFalse(window.isPaused());
+        assertEquals(0f, window.getVelocity(), 0f);
+    }
+
+    @Test
+    public void slowScrollKeepsPrefetching() {
+        CatPicPrefetcher.ScrollWindow window = new CatPicPrefetcher.ScrollWindow(PAUSE_VELOCITY);
+        // 每 16ms 滚 4 像素，约 250 像素/秒
+        for (int i = 0; i < 10; i++) {
+            window.onScrolled(4, i * 16L);
+        }
+        assertFalse(window.isPaused());
+        assertTrue(window.getVelocity() > 0f);
+    }
+
+    @Test
+    public void pauseAfterLongGapStartsFromZero() {
+        CatPicPrefetcher.ScrollWindow window = new CatPicPrefetcher.ScrollWindow(PAUSE_VELOCITY);
+        for (int i = 0; i < 5; i++) {
+            window.onScrolled(100, i * 16L);
+        }
+        assertTrue(window.isPaused());
+        // 停顿很久后再次拖动，不沿用上一次甩动的速度
+        window.onScrolled(5, 10_000L);
+        assertFalse(window.isPaused());
+    }
+}
@@ -0,0 +1,75 @@
+package com.justyn.meow.cat;
+
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * 波形峰值统计的本地单元测试：采样按时间落到正确的组，多声道取所有声道的极值。
+ */
+public class WaveformPeakAccumulatorTest {
+
+    // 1 秒、每组 10 帧，方便按组构造数据
+    private static final int SAMPLE_RATE = WaveformLoader.BUCKETS * 10;
+
+    @Test
+    public void samplesLandInBucketsByTime() {
+        WaveformLoader.PeakAccumulator peaks = new WaveformLoader.PeakAccumulator(1_000_000L, SAMPLE_RATE, 1);
+        short[] samples = new short[SAMPLE_RATE];
+        // 第 0 组正半波满幅，第 1 组负半波满幅
+        for (int i = 0; i < 10; i++) {
+            samples[i] = Short.MAX_VALUE;
+            samples[10 + i] = Short.MIN_VALUE;
+        }
+        peaks.add(pcm16(samples), 0);
+
+        byte[] out = peaks.toBytes();
+        assertEquals(WaveformLoader.BUCKETS, peaks.getFilledBuckets());
+        assertEquals(0, out[0]);
+        assertEquals(127, out[1]);
+        assertEquals(-127, out[2]);
+        assertEquals(0, out[3]);
+        assertEquals(0, out[4]);
+        assertEquals(0, out[5]);
+    }
+
+    @Test
+    public void laterBufferUsesPresentationTime() {
+        WaveformLoader.PeakAccumulator peaks = new WaveformLoader.PeakAccumulator(1_000_000L, SAMPLE_RATE, 1);
+        short[] samples = new short[10];
+        for (int i = 0; i < samples.length; i++) {
+            samples[i] = 16384;
+        }
+        // 0.5 秒处正好是第 BUCKETS / 2 组
+        peaks.add(pcm16(samples), 500_000L);
+
+        byte[] out = peaks.toBytes();
+        int bucket = WaveformLoader.BUCKETS / 2;
+        assertEquals(64, out[bucket * 2 + 1]);
+        assertEquals(0, out[(bucket - 1) * 2 + 1]);
+        assertEquals(bucket + 1, peaks.getFilledBuckets());
+    }
+
+    @Test
+    public void stereoTakesExtremesOfBothChannels() {
+        WaveformLoader.PeakAccumulator peaks = new WaveformLoader.PeakAccumulator(1_000_000L, SAMPLE_RATE, 2);
+        // 左声道正、右声道负
+        peaks.add(pcm16(new short[]{Short.MAX_VALUE, Short.MIN_VALUE}), 0);
+
+        byte[] out = peaks.toBytes();
+        assertEquals(-127, out[0]);
+        assertEquals(127, out[1]);
+    }
+
+    private static ByteBuffer pcm16(short[] samples) {
+        ByteBuffer buffer = ByteBuffer.allocate(samples.length * 2).order(ByteOrder.nativeOrder());
+        for (short sample : samples) {
+            buffer.putShort(sample);
+        }
+        buffer.flip();
+        return buffer;
+    }
+}
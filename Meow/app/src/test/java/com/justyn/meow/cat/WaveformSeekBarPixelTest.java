@@ -0,0 +1,35 @@
+package com.justyn.meow.cat;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+
+/**
+ * 进度条像素换算的本地单元测试：长音频里相邻几帧的进度落在同一个像素，不触发重绘。
+ */
+public class WaveformSeekBarPixelTest {
+
+    @Test
+    public void framesWithinOnePixelShareThePixel() {
+        // 1 小时的音频画在 1000 像素宽的轨道上：每像素 3.6 秒
+        int max = 3_600_000;
+        int width = 1_000;
+        int start = 1_800_000;
+        assertEquals(500, WaveformSeekBar.playedPixel(start, max, width));
+        // 60 帧/秒下 1 秒内的每一帧都落在同一像素
+        for (int frame = 1; frame <= 60; frame++) {
+            assertEquals(500, WaveformSeekBar.playedPixel(start + frame * 16, max, width));
+        }
+        assertNotEquals(500, WaveformSeekBar.playedPixel(start + 3_600, max, width));
+    }
+
+    @Test
+    public void clampsAndHandlesEmptyMax() {
+        assertEquals(0, WaveformSeekBar.playedPixel(5_000, 0, 1_000));
+        assertEquals(0, WaveformSeekBar.playedPixel(-1, 10_000, 1_000));
+        assertEquals(1_000, WaveformSeekBar.playedPixel(20_000, 10_000, 1_000));
+        // 大进度 × 宽度不溢出
+        assertEquals(1_080, WaveformSeekBar.playedPixel(Integer.MAX_VALUE, Integer.MAX_VALUE, 1_080));
+    }
+}
@@ -0,0 +1,95 @@
+package com.justyn.meow.checkin;
+
+import org.junit.Test;
+
+import java.time.LocalDate;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * 打卡位图的本地单元测试：增查、跨字/跨年计数、闰年最后一天、序列化与体积。
+ */
+public class CheckInHistoryTest {
+
+    @Test
+    public void addAndContains() {
+        CheckInHistory history = new CheckInHistory();
+        LocalDate day = LocalDate.of(2024, 3, 5);
+        assertFalse(history.contains(day));
+        assertTrue(history.add(day));
+        assertFalse(history.add(day));
+        assertTrue(history.contains(day));
+        assertTrue(history.containsEpochDay(day.toEpochDay()));
+        assertFalse(history.contains(day.plusDays(1)));
+        assertFalse(history.contains(day.plusYears(1)));
+    }
+
+    @Test
+    public void leapDayAndLastDayOfYear() {
+        CheckInHistory history = new CheckInHistory();
+        history.add(LocalDate.of(2024, 2, 29));
+        history.add(LocalDate.of(2024, 12, 31));
+        assertTrue(history.contains(LocalDate.of(2024, 12, 31)));
+        assertEquals(2, history.count(LocalDate.of(2024, 1, 1), LocalDate.of(2024, 12, 31)));
+    }
+
+    @Test
+    public void countSpansWordsAndYears() {
+        CheckInHistory history = new CheckInHistory();
+        // 2023-12-25 ~ 2024-03-10 每天打卡，跨年也跨多个 64 位字
+        LocalDate start = LocalDate.of(2023, 12, 25);
+        LocalDate end = LocalDate.of(2024, 3, 10);
+        for (LocalDate d = start; !d.isAfter(end); d = d.plusDays(1)) {
+            history.add(d);
+        }
+        int expected = (int) (end.toEpochDay() - start.toEpochDay() + 1);
+        assertEquals(expected, history.size());
+        assertEquals(expected, history.count(LocalDate.of(2023, 1, 1), LocalDate.of(2024, 12, 31)));
+        // 2 月 1 日到 2 月 29 日
+        assertEquals(29, history.count(LocalDate.of(2024, 2, 1), LocalDate.of(2024, 2, 29)));
+        assertEquals(10, history.countMonthUpTo(LocalDate.of(2024, 3, 10)));
+        assertEquals(0, history.count(end, start));
+    }
+
+    @Test
+    public void countBitsMasksPartialWords() {
+        long[] bits = new long[CheckInHistory.WORDS_PER_YEAR];
+        for (int i = 0; i < bits.length; i++) {
+            bits[i] = -1L;
+        }
+        assertEquals(1, CheckInHistory.countBits(bits, 63, 63));
+        assertEquals(2, CheckInHistory.countBits(bits, 63, 64));
+        assertEquals(130, CheckInHistory.countBits(bits, 0, 129));
+        assertEquals(64 * bits.length, CheckInHistory.countBits(bits, 0, 64 * bits.length - 1));
+    }
+
+    @Test
+    public void encodeRoundTripAndSize() {
+        CheckInHistory history = new CheckInHistory();
+        // 十年每天都打卡
+        LocalDate start = LocalDate.of(2015, 1, 1);
+        LocalDate end = LocalDate.of(2024, 12, 31);
+        for (LocalDate d = start; !d.isAfter(end); d = d.plusDays(1)) {
+            history.add(d);
+        }
+        String encoded = history.encode();
+        // 1 字节版本 + 10 年 × 50 字节，Base64 后不超过 700 个字符
+        assertTrue(encoded.length() <= 700);
+
+        CheckInHistory decoded = CheckInHistory.decode(encoded);
+        assertEquals(history.size(), decoded.size());
+        assertTrue(decoded.contains(LocalDate.of(2020, 2, 29)));
+        assertEquals(366, decoded.count(LocalDate.of(2020, 1, 1), LocalDate.of(2020, 12, 31)));
+    }
+
+    @Test
+    public void decodeRejectsGarbage() {
+        assertNull(CheckInHistory.decode(null));
+        assertNull(CheckInHistory.decode("not base64!"));
+        assertNull(CheckInHistory.decode("AAAA"));
+        assertEquals(0, CheckInHistory.decode(new CheckInHistory().encode()).size());
+    }
+}
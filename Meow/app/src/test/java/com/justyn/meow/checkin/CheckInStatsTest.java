@@ -0,0 +1,97 @@
+package com.justyn.meow.checkin;
+
+import org.junit.Test;
+
+import java.time.LocalDate;
+import java.time.YearMonth;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * 打卡统计的本地单元测试：增量更新与从历史重算结果一致，断签、补录与序列化。
+ */
+public class CheckInStatsTest {
+
+    @Test
+    public void incrementalMatchesRebuild() {
+        CheckInHistory history = new CheckInHistory();
+        CheckInStats stats = new CheckInStats();
+        // 1 月 30 日 ~ 2 月 3 日连续 5 天，断 2 天，再连续 2 天
+        LocalDate[] days = {
+                LocalDate.of(2024, 1, 30), LocalDate.of(2024, 1, 31), LocalDate.of(2024, 2, 1),
+                LocalDate.of(2024, 2, 2), LocalDate.of(2024, 2, 3), LocalDate.of(2024, 2, 6),
+                LocalDate.of(2024, 2, 7)
+        };
+        for (LocalDate day : days) {
+            assertTrue(history.add(day));
+            stats = stats.onCheckIn(day, history);
+        }
+        assertEquals(CheckInStats.rebuild(history).encode(), stats.encode());
+
+        assertEquals(2, stats.getCurrentStreak(LocalDate.of(2024, 2, 7)));
+        assertEquals(2, stats.getCurrentStreak(LocalDate.of(2024, 2, 8)));
+        // 超过一天没打卡就断签
+        assertEquals(0, stats.getCurrentStreak(LocalDate.of(2024, 2, 9)));
+        assertEquals(5, stats.getLongestStreak());
+        assertEquals(2, stats.getMonthTotal(YearMonth.of(2024, 1)));
+        assertEquals(5, stats.getMonthTotal(YearMonth.of(2024, 2)));
+        assertEquals(7, stats.getYearTotal(2024));
+        assertEquals(0, stats.getYearTotal(2023));
+        assertEquals(7, stats.getTotal());
+        // 1 月 30 日到 2 月 7 日共 9 天
+        assertEquals(7f / 9f, stats.getCompletionRate(LocalDate.of(2024, 2, 7)), 1e-6f);
+    }
+
+    @Test
+    public void backfilledDayRebuildsStreak() {
+        CheckInHistory history = new CheckInHistory();
+        CheckInStats stats = new CheckInStats();
+        for (LocalDate day : new LocalDate[]{LocalDate.of(2024, 5, 1), LocalDate.of(2024, 5, 3)}) {
+            history.add(day);
+            stats = stats.onCheckIn(day, history);
+        }
+        assertEquals(1, stats.getLongestStreak());
+
+        // 补录中间一天，连续天数从历史重算
+        LocalDate gap = LocalDate.of(2024, 5, 2);
+        history.add(gap);
+        stats = stats.onCheckIn(gap, history);
+        assertEquals(3, stats.getCurrentStreak(LocalDate.of(2024, 5, 3)));
+        assertEquals(3, stats.getLongestStreak());
+    }
+
+    @Test
+    public void legacyStreakAdoptedOnlyWhenLastDayMatches() {
+        CheckInHistory history = new CheckInHistory();
+        LocalDate last = LocalDate.of(2024, 6, 10);
+        history.add(last);
+
+        CheckInStats stats = CheckInStats.rebuild(history);
+        stats.adoptLegacyStreak(12, last);
+        assertEquals(12, stats.getCurrentStreak(last));
+        assertEquals(12, stats.getLongestStreak());
+
+        CheckInStats mismatched = CheckInStats.rebuild(history);
+        mismatched.adoptLegacyStreak(12, last.minusDays(3));
+        assertEquals(1, mismatched.getCurrentStreak(last));
+    }
+
+    @Test
+    public void encodeRoundTrip() {
+        CheckInHistory history = new CheckInHistory();
+        for (LocalDate d = LocalDate.of(2023, 12, 20); !d.isAfter(LocalDate.of(2024, 1, 10)); d = d.plusDays(2)) {
+            history.add(d);
+        }
+        CheckInStats stats = CheckInStats.rebuild(history);
+        CheckInStats decoded = CheckInStats.decode(stats.encode());
+        assertEquals(stats.encode(), decoded.encode());
+        assertEquals(stats.getYearTotal(2023), decoded.getYearTotal(2023));
+
+        assertEquals(0, CheckInStats.decode(new CheckInStats().encode()).getTotal());
+        assertNull(CheckInStats.decode("2|0|0|0|0|0|"));
+        assertNull(CheckInStats.decode("1|x|0|0|0|0|"));
+        assertNull(CheckInStats.decode("garbage"));
+    }
+}
@@ -0,0 +1,43 @@
+package com.justyn.meow.data;
+
+import org.junit.Test;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * 本地副本内容摘要（分段内存映射 SHA-256）的本地单元测试。
+ */
+public class LocalCopyStoreHashTest {
+
+    @Test
+    public void matchesKnownDigests() throws IOException {
+        assertEquals("e3b0c44298fc1c149afbf4c8996fb92427ae41e4649b934ca495991b7852b855",
+                LocalCopyStore.sha256Hex(write("")));
+        assertEquals("ba7816bf8f01cfea414140de5dae2223b00361a396177a9cb410ff61f20015ad",
+                LocalCopyStore.sha256Hex(write("abc")));
+    }
+
+    @Test
+    public void chunkBoundariesDoNotChangeDigest() throws IOException {
+        File file = write("abcdefgh");
+        String expected = "9c56cc51b374c3ba189210d5b6d4bf57790d351c96c47c02190ecf1e430635ab";
+        // 不整除、整除、单段三种映射方式结果一致
+        assertEquals(expected, LocalCopyStore.sha256Hex(file, 3));
+        assertEquals(expected, LocalCopyStore.sha256Hex(file, 4));
+        assertEquals(expected, LocalCopyStore.sha256Hex(file));
+    }
+
+    private static File write(String content) throws IOException {
+        File file = File.createTempFile("meow-hash", null);
+        file.deleteOnExit();
+        try (FileOutputStream out = new FileOutputStream(file)) {
+            out.write(content.getBytes(StandardCharsets.UTF_8));
+        }
+        return file;
+    }
+}
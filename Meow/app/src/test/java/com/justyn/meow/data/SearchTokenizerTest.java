@@ -0,0 +1,52 @@
+package com.justyn.meow.data;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * 全文检索分词规则的本地单元测试。
+ */
+public class SearchTokenizerTest {
+
+    @Test
+    public void indexText_containsCjkUnigramsAndBigrams() {
+        List<String> tokens = Arrays.asList(SearchTokenizer.buildIndexText("粉红色的基米", null).split(" "));
+        assertTrue(tokens.contains("粉"));
+        assertTrue(tokens.contains("粉红"));
+        assertTrue(tokens.contains("基米"));
+        assertTrue(tokens.contains("的基"));
+    }
+
+    @Test
+    public void indexText_splitsLatinWordsAndLowercases() {
+        assertEquals("基 米 基米 to the moon", SearchTokenizer.buildIndexText("基米_to_the_Moon"));
+    }
+
+    @Test
+    public void matchQuery_usesBigramsForCjkPhrase() {
+        assertEquals("哈基 基米", SearchTokenizer.buildMatchQuery(" 哈基米 "));
+    }
+
+    @Test
+    public void matchQuery_singleCjkCharUsesUnigram() {
+        assertEquals("哈", SearchTokenizer.buildMatchQuery("哈"));
+    }
+
+    @Test
+    public void matchQuery_latinWordsUsePrefixMatch() {
+        assertEquals("基米 moo*", SearchTokenizer.buildMatchQuery("基米 Moo"));
+    }
+
+    @Test
+    public void matchQuery_blankOrPunctuationOnlyIsNull() {
+        assertNull(SearchTokenizer.buildMatchQuery(null));
+        assertNull(SearchTokenizer.buildMatchQuery("   "));
+        assertNull(SearchTokenizer.buildMatchQuery("~!?"));
+    }
+}
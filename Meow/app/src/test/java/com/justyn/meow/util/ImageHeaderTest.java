@@ -0,0 +1,95 @@
+package com.justyn.meow.util;
+
+import org.junit.Test;
+
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * 图片文件头透明度判断的本地单元测试。
+ */
+public class ImageHeaderTest {
+
+    @Test
+    public void jpegIsOpaque() {
+        byte[] header = header(0xFF, 0xD8, 0xFF, 0xE0);
+        assertTrue(ImageHeader.isOpaque(header, 4));
+    }
+
+    @Test
+    public void pngDependsOnColorType() {
+        byte[] rgb = png(2);
+        byte[] rgba = png(6);
+        byte[] palette = png(3);
+        assertTrue(ImageHeader.isOpaque(rgb, rgb.length));
+        assertFalse(ImageHeader.isOpaque(rgba, rgba.length));
+        // 调色板图片可能带 tRNS，按可能透明处理
+        assertFalse(ImageHeader.isOpaque(palette, palette.length));
+    }
+
+    @Test
+    public void lossyWebpIsOpaque() {
+        byte[] header = webp("VP8 ", new byte[16]);
+        assertTrue(ImageHeader.isOpaque(header, header.length));
+    }
+
+    @Test
+    public void losslessWebpReadsAlphaBit() {
+        byte[] payload = new byte[16];
+        // 签名 0x2F，之后 32 位小端：第 28 位为 alpha_is_used
+        payload[0] = 0x2F;
+        byte[] opaque = webp("VP8L", payload.clone());
+        payload[4] = 0x10;
+        byte[] withAlpha = webp("VP8L", payload);
+        assertTrue(ImageHeader.isOpaque(opaque, opaque.length));
+        assertFalse(ImageHeader.isOpaque(withAlpha, withAlpha.length));
+    }
+
+    @Test
+    public void extendedWebpReadsAlphaFlag() {
+        byte[] payload = new byte[16];
+        byte[] opaque = webp("VP8X", payload.clone());
+        payload[0] = 0x10;
+        byte[] withAlpha = webp("VP8X", payload);
+        assertTrue(ImageHeader.isOpaque(opaque, opaque.length));
+        assertFalse(ImageHeader.isOpaque(withAlpha, withAlpha.length));
+    }
+
+    @Test
+    public void unknownOrTruncatedIsNotOpaque() {
+        assertFalse(ImageHeader.isOpaque(header('G', 'I', 'F', '8'), 4));
+        byte[] webp = webp("VP8L", new byte[16]);
+        assertFalse(ImageHeader.isOpaque(webp, 20));
+        assertFalse(ImageHeader.isOpaque(new byte[ImageHeader.SNIFF_BYTES], 0));
+    }
+
+    private static byte[] header(int... values) {
+        byte[] bytes = new byte[ImageHeader.SNIFF_BYTES];
+        for (int i = 0; i < values.length; i++) {
+            bytes[i] = (byte) values[i];
+        }
+        return bytes;
+    }
+
+    private static byte[] png(int colorType) {
+        byte[] bytes = header(0x89, 'P', 'N', 'G', 0x0D, 0x0A, 0x1A, 0x0A, 0, 0, 0, 13, 'I', 'H', 'D', 'R');
+        // 宽、高各 4 字节，位深 1 字节，之后是颜色类型
+        bytes[24] = 8;
+        bytes[25] = (byte) colorType;
+        return bytes;
+    }
+
+    /**
+     * RIFF 头 + 第一个块的 FourCC + 4 字节块长度 + 块内容（从第 20 字节开始）。
+     */
+    private static byte[] webp(String fourCc, byte[] payload) {
+        byte[] bytes = new byte[20 + payload.length];
+        System.arraycopy("RIFF".getBytes(StandardCharsets.US_ASCII), 0, bytes, 0, 4);
+        System.arraycopy("WEBP".getBytes(StandardCharsets.US_ASCII), 0, bytes, 8, 4);
+        System.arraycopy(fourCc.getBytes(StandardCharsets.US_ASCII), 0, bytes, 12, 4);
+        System.arraycopy(payload, 0, bytes, 20, payload.length);
+        return bytes;
+    }
+}
@@ -0,0 +1,56 @@
+package com.justyn.meow.util;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * 降采样率与铺满缩放比例计算的本地单元测试。
+ */
+public class ImageLoaderSampleSizeTest {
+
+    @Test
+    public void smallImageIsNotSampled() {
+        assertEquals(1, ImageLoader.calculateInSampleSize(200, 200, 228, 228));
+        assertEquals(1, ImageLoader.calculateInSampleSize(228, 228, 228, 228));
+    }
+
+    @Test
+    public void cameraPhotoIsSampledDownToTarget() {
+        // 12MP 照片（4000x3000）显示到 76dp@xxhdpi（228px）
+        int sampleSize = ImageLoader.calculateInSampleSize(4000, 3000, 228, 228);
+        assertEquals(8, sampleSize);
+        // 采样后的短边仍铺满目标尺寸
+        assertTrue(3000 / sampleSize >= 228);
+    }
+
+    @Test
+    public void shortSideDecidesForCenterCrop() {
+        // 长图：短边刚好 2 倍于目标，只能采样到 2
+        assertEquals(2, ImageLoader.calculateInSampleSize(4000, 456, 228, 228));
+        assertEquals(1, ImageLoader.calculateInSampleSize(4000, 455, 228, 228));
+    }
+
+    @Test
+    public void unknownTargetKeepsFullSize() {
+        assertEquals(1, ImageLoader.calculateInSampleSize(4000, 3000, 0, 0));
+    }
+
+    @Test
+    public void coverScaleShrinksToFillTheCell() {
+        // 采样后 1080x1440，格子 500x525：宽度决定比例，高度缩放后 700 仍铺满
+        assertArrayEquals(new int[]{1080, 500}, ImageLoader.coverScale(1080, 1440, 500, 525));
+        // 横图：高度决定比例
+        assertArrayEquals(new int[]{600, 525}, ImageLoader.coverScale(1600, 600, 500, 525));
+    }
+
+    @Test
+    public void coverScaleNeverEnlarges() {
+        assertNull(ImageLoader.coverScale(400, 400, 500, 525));
+        assertNull(ImageLoader.coverScale(500, 800, 500, 525));
+        assertNull(ImageLoader.coverScale(1080, 1440, 0, 0));
+    }
+}
@@ -0,0 +1,41 @@
+package com.justyn.meow.util;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * 缩略图磁盘缓存文件名的本地单元测试：按来源前缀清理、尺寸与版本区分。
+ */
+public class ThumbnailCacheKeyTest {
+
+    private static final String AVATAR = ThumbnailCache.uriSource("content://docs/document/image%3A42");
+
+    @Test
+    public void fileNameStartsWithSourcePrefix() {
+        String name = ThumbnailCache.diskFileName(AVATAR, 228, 228, 0x1234L);
+        assertTrue(name.startsWith(ThumbnailCache.diskPrefix(AVATAR)));
+        assertTrue(name.endsWith("_228x228_1234.webp"));
+        // SHA-1 十六进制 40 位 + 下划线
+        assertEquals(41, ThumbnailCache.diskPrefix(AVATAR).length());
+    }
+
+    @Test
+    public void sizeAndVersionProduceDistinctFiles() {
+        String base = ThumbnailCache.diskFileName(AVATAR, 228, 228, 1L);
+        assertFalse(base.equals(ThumbnailCache.diskFileName(AVATAR, 456, 456, 1L)));
+        assertFalse(base.equals(ThumbnailCache.diskFileName(AVATAR, 228, 228, 2L)));
+        assertEquals(base, ThumbnailCache.diskFileName(AVATAR, 228, 228, 1L));
+    }
+
+    @Test
+    public void otherSourcesDoNotShareThePrefix() {
+        String other = ThumbnailCache.uriSource("content://docs/document/image%3A421");
+        String resource = ThumbnailCache.resourceSource(42);
+        String prefix = ThumbnailCache.diskPrefix(AVATAR);
+        assertFalse(ThumbnailCache.diskFileName(other, 228, 228, 1L).startsWith(prefix));
+        assertFalse(ThumbnailCache.diskFileName(resource, 228, 228, 1L).startsWith(prefix));
+    }
+}
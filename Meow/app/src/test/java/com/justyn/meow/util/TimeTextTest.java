@@ -0,0 +1,45 @@
+package com.justyn.meow.util;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * 播放时间文本格式化的本地单元测试。
+ */
+public class TimeTextTest {
+
+    @Test
+    public void formatsMinutesAndSecondsWithPadding() {
+        assertEquals("00:00", format(0));
+        assertEquals("00:07", format(7_999));
+        assertEquals("01:05", format(65_000));
+        assertEquals("59:59", format(3_599_000));
+    }
+
+    @Test
+    public void longDurationsUseThreeDigitMinutes() {
+        assertEquals("100:00", format(6_000_000));
+        assertEquals("999:59", format(Integer.MAX_VALUE));
+    }
+
+    @Test
+    public void negativeTimeIsZero() {
+        assertEquals(0, TimeText.toSeconds(-500));
+        assertEquals("00:00", format(-500));
+    }
+
+    @Test
+    public void reusesBufferWithoutLeftovers() {
+        char[] buffer = new char[TimeText.BUFFER_SIZE];
+        TimeText.formatSeconds(6_000, buffer);
+        int length = TimeText.formatSeconds(61, buffer);
+        assertEquals("01:01", new String(buffer, 0, length));
+    }
+
+    private static String format(int ms) {
+        char[] buffer = new char[TimeText.BUFFER_SIZE];
+        int length = TimeText.formatSeconds(TimeText.toSeconds(ms), buffer);
+        return new String(buffer, 0, length);
+    }
+}